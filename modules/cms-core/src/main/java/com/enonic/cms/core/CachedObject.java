@@ -8,8 +8,11 @@ import java.io.Serializable;
 
 import org.joda.time.DateTime;
 
+import com.enonic.cms.framework.cache.SizeEstimable;
+import com.enonic.cms.framework.cache.base.ObjectSizeEstimator;
+
 public class CachedObject
-    implements Serializable
+    implements Serializable, SizeEstimable
 {
 
     private Object object;
@@ -65,5 +68,10 @@ public class CachedObject
     {
         return expirationTime.isBeforeNow();
     }
+
+    public long getEstimatedSize()
+    {
+        return 64 + ObjectSizeEstimator.estimate( object );
+    }
 }
 
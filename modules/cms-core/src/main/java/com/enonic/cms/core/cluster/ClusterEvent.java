@@ -46,6 +46,29 @@ public final class ClusterEvent
         return this.type.equals( type );
     }
 
+    @Override
+    public boolean equals( final Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+
+        if ( !( o instanceof ClusterEvent ) )
+        {
+            return false;
+        }
+
+        final ClusterEvent that = (ClusterEvent) o;
+        return this.type.equals( that.type ) && Arrays.equals( this.payload, that.payload );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * this.type.hashCode() + Arrays.hashCode( this.payload );
+    }
+
     @Override
     public String toString()
     {
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+
+package com.enonic.cms.core.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Binary format of the messages sent between nodes. A message holds the cluster name and id of the sending node,
+ * followed by a batch of events.
+ */
+final class ClusterEventCodec
+{
+    private final static int MAGIC = 0x434D5345;
+
+    private final String clusterName;
+
+    private final String nodeId;
+
+    public ClusterEventCodec( final String clusterName, final String nodeId )
+    {
+        this.clusterName = clusterName;
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * Encode the events into as few messages as possible, where each message is at most maxSize bytes unless a
+     * single event is larger.
+     */
+    public List<byte[]> encode( final Collection<ClusterEvent> events, final int maxSize )
+        throws IOException
+    {
+        final List<byte[]> messages = Lists.newArrayList();
+        final byte[] header = encodeHeader();
+
+        List<byte[]> batch = Lists.newArrayList();
+        int batchSize = header.length + 4;
+
+        for ( final ClusterEvent event : events )
+        {
+            final byte[] encoded = encodeEvent( event );
+            if ( !batch.isEmpty() && ( batchSize + encoded.length > maxSize ) )
+            {
+                messages.add( encodeMessage( header, batch ) );
+                batch = Lists.newArrayList();
+                batchSize = header.length + 4;
+            }
+
+            batch.add( encoded );
+            batchSize += encoded.length;
+        }
+
+        if ( !batch.isEmpty() )
+        {
+            messages.add( encodeMessage( header, batch ) );
+        }
+
+        return messages;
+    }
+
+    /**
+     * Decode the events of a message. Messages sent by this node or by another cluster are ignored, and an empty
+     * list returned.
+     */
+    public List<ClusterEvent> decode( final byte[] message )
+        throws IOException
+    {
+        final DataInputStream in = new DataInputStream( new ByteArrayInputStream( message ) );
+        if ( in.readInt() != MAGIC )
+        {
+            throw new IOException( "Not a cluster event message" );
+        }
+
+        final String clusterName = in.readUTF();
+        final String nodeId = in.readUTF();
+        final int count = in.readInt();
+
+        final List<ClusterEvent> events = Lists.newArrayList();
+        if ( !this.clusterName.equals( clusterName ) || this.nodeId.equals( nodeId ) )
+        {
+            return events;
+        }
+
+        for ( int i = 0; i < count; i++ )
+        {
+            events.add( decodeEvent( in ) );
+        }
+
+        return events;
+    }
+
+    private byte[] encodeHeader()
+        throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream( bytes );
+        out.writeInt( MAGIC );
+        out.writeUTF( this.clusterName );
+        out.writeUTF( this.nodeId );
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private byte[] encodeMessage( final byte[] header, final List<byte[]> events )
+        throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream( bytes );
+        out.write( header );
+        out.writeInt( events.size() );
+
+        for ( final byte[] event : events )
+        {
+            out.write( event );
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private byte[] encodeEvent( final ClusterEvent event )
+        throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream( bytes );
+        out.writeUTF( event.getType() );
+        out.writeInt( event.getPayload().length );
+
+        for ( final String value : event.getPayload() )
+        {
+            out.writeBoolean( value != null );
+            if ( value != null )
+            {
+                out.writeUTF( value );
+            }
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private ClusterEvent decodeEvent( final DataInputStream in )
+        throws IOException
+    {
+        final String type = in.readUTF();
+        final String[] payload = new String[in.readInt()];
+
+        for ( int i = 0; i < payload.length; i++ )
+        {
+            payload[i] = in.readBoolean() ? in.readUTF() : null;
+        }
+
+        return new ClusterEvent( type, payload );
+    }
+}
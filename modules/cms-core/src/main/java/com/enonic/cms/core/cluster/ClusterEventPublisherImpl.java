@@ -0,0 +1,325 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+
+package com.enonic.cms.core.cluster;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.stereotype.Component;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Publishes cluster events to the other nodes, either by multicast or by TCP to a static list of members. Events
+ * published within one batch window are collected, duplicates removed, and sent together. Received events are
+ * handed to all {@link ClusterEventListener} beans.
+ * <p/>
+ * Nothing is sent unless <code>cms.cluster.events.enabled</code> is true.
+ */
+@Component
+public class ClusterEventPublisherImpl
+    implements ClusterEventPublisher, ClusterEventTransport.Receiver, ApplicationContextAware
+{
+    private final static Logger LOG = LoggerFactory.getLogger( ClusterEventPublisherImpl.class );
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Set<ClusterEvent> pending = Sets.newLinkedHashSet();
+
+    private final List<ClusterEventListener> listeners = new CopyOnWriteArrayList<ClusterEventListener>();
+
+    private ApplicationContext applicationContext;
+
+    private volatile boolean listenersResolved;
+
+    private boolean enabled;
+
+    private String mode;
+
+    private String clusterName;
+
+    private String multicastGroup;
+
+    private int multicastPort;
+
+    private int multicastTtl;
+
+    private int unicastPort;
+
+    private String unicastMembers;
+
+    private long batchWindow;
+
+    private ClusterEventCodec codec;
+
+    private ClusterEventTransport transport;
+
+    private volatile ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start()
+        throws IOException
+    {
+        if ( !this.enabled )
+        {
+            return;
+        }
+
+        this.codec = new ClusterEventCodec( this.clusterName, this.nodeId );
+        this.transport = createTransport();
+        this.transport.start( this );
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat( "cluster-events" ).setDaemon( true ).build() );
+        this.scheduler.scheduleWithFixedDelay( new Runnable()
+        {
+            public void run()
+            {
+                flush();
+            }
+        }, this.batchWindow, this.batchWindow, TimeUnit.MILLISECONDS );
+
+        LOG.info( "Cluster events enabled for node " + this.nodeId + " in cluster " + this.clusterName );
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        if ( this.scheduler == null )
+        {
+            return;
+        }
+
+        this.scheduler.shutdown();
+        flush();
+        this.transport.stop();
+        this.scheduler = null;
+    }
+
+    private ClusterEventTransport createTransport()
+        throws IOException
+    {
+        if ( "unicast".equalsIgnoreCase( this.mode ) )
+        {
+            return new UnicastClusterEventTransport( this.unicastPort, parseMembers( this.unicastMembers ) );
+        }
+        else if ( "multicast".equalsIgnoreCase( this.mode ) )
+        {
+            return new MulticastClusterEventTransport( InetAddress.getByName( this.multicastGroup ), this.multicastPort,
+                                                       this.multicastTtl );
+        }
+        else
+        {
+            throw new IllegalArgumentException( "Unknown cluster event mode [" + this.mode + "], expected multicast or unicast" );
+        }
+    }
+
+    static List<InetSocketAddress> parseMembers( final String value )
+    {
+        final List<InetSocketAddress> members = Lists.newArrayList();
+        for ( final String member : Splitter.on( ',' ).omitEmptyStrings().trimResults().split( value ) )
+        {
+            final int pos = member.lastIndexOf( ':' );
+            if ( pos < 0 )
+            {
+                throw new IllegalArgumentException( "Cluster member [" + member + "] must be on the form host:port" );
+            }
+
+            members.add( new InetSocketAddress( member.substring( 0, pos ), Integer.parseInt( member.substring( pos + 1 ) ) ) );
+        }
+
+        return members;
+    }
+
+    @Override
+    public void publish( final ClusterEvent event )
+    {
+        if ( this.scheduler == null )
+        {
+            return;
+        }
+
+        synchronized ( this.pending )
+        {
+            this.pending.add( event );
+        }
+    }
+
+    /**
+     * Send all pending events. Called at the end of each batch window.
+     */
+    void flush()
+    {
+        final Collection<ClusterEvent> events;
+        synchronized ( this.pending )
+        {
+            if ( this.pending.isEmpty() )
+            {
+                return;
+            }
+
+            events = Lists.newArrayList( this.pending );
+            this.pending.clear();
+        }
+
+        try
+        {
+            for ( final byte[] message : this.codec.encode( events, this.transport.getMaxMessageSize() ) )
+            {
+                this.transport.send( message );
+            }
+        }
+        catch ( final Exception e )
+        {
+            LOG.warn( "Failed to send " + events.size() + " cluster events", e );
+        }
+    }
+
+    @Override
+    public void receive( final byte[] message )
+    {
+        final List<ClusterEvent> events;
+        try
+        {
+            events = this.codec.decode( message );
+        }
+        catch ( final IOException e )
+        {
+            LOG.warn( "Failed to decode cluster event message", e );
+            return;
+        }
+
+        for ( final ClusterEvent event : events )
+        {
+            dispatch( event );
+        }
+    }
+
+    private void dispatch( final ClusterEvent event )
+    {
+        for ( final ClusterEventListener listener : getListeners() )
+        {
+            try
+            {
+                listener.handle( event );
+            }
+            catch ( final Exception e )
+            {
+                LOG.warn( "Failed to handle cluster event " + event, e );
+            }
+        }
+    }
+
+    /**
+     * Listeners are looked up on the first received event, since the listeners themselves depend on this publisher.
+     */
+    private List<ClusterEventListener> getListeners()
+    {
+        if ( !this.listenersResolved && ( this.applicationContext != null ) )
+        {
+            synchronized ( this.listeners )
+            {
+                if ( !this.listenersResolved )
+                {
+                    this.listeners.addAll( this.applicationContext.getBeansOfType( ClusterEventListener.class ).values() );
+                    this.listenersResolved = true;
+                }
+            }
+        }
+
+        return this.listeners;
+    }
+
+    public void addListener( final ClusterEventListener listener )
+    {
+        this.listeners.add( listener );
+    }
+
+    public String getNodeId()
+    {
+        return this.nodeId;
+    }
+
+    @Override
+    public void setApplicationContext( final ApplicationContext applicationContext )
+    {
+        this.applicationContext = applicationContext;
+    }
+
+    @Value("${cms.cluster.events.enabled}")
+    public void setEnabled( final boolean enabled )
+    {
+        this.enabled = enabled;
+    }
+
+    @Value("${cms.cluster.events.mode}")
+    public void setMode( final String mode )
+    {
+        this.mode = mode;
+    }
+
+    @Value("${cms.cluster.name}")
+    public void setClusterName( final String clusterName )
+    {
+        this.clusterName = clusterName;
+    }
+
+    @Value("${cms.cluster.events.multicast.group}")
+    public void setMulticastGroup( final String multicastGroup )
+    {
+        this.multicastGroup = multicastGroup;
+    }
+
+    @Value("${cms.cluster.events.multicast.port}")
+    public void setMulticastPort( final int multicastPort )
+    {
+        this.multicastPort = multicastPort;
+    }
+
+    @Value("${cms.cluster.events.multicast.ttl}")
+    public void setMulticastTtl( final int multicastTtl )
+    {
+        this.multicastTtl = multicastTtl;
+    }
+
+    @Value("${cms.cluster.events.unicast.port}")
+    public void setUnicastPort( final int unicastPort )
+    {
+        this.unicastPort = unicastPort;
+    }
+
+    @Value("${cms.cluster.events.unicast.members}")
+    public void setUnicastMembers( final String unicastMembers )
+    {
+        this.unicastMembers = unicastMembers;
+    }
+
+    @Value("${cms.cluster.events.batchWindow}")
+    public void setBatchWindow( final long batchWindow )
+    {
+        this.batchWindow = batchWindow;
+    }
+}
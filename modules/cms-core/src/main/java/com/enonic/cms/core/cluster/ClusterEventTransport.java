@@ -0,0 +1,32 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+
+package com.enonic.cms.core.cluster;
+
+import java.io.IOException;
+
+/**
+ * Sends messages to the other nodes of the cluster, and hands messages received from them to a receiver.
+ */
+interface ClusterEventTransport
+{
+    public interface Receiver
+    {
+        public void receive( byte[] message );
+    }
+
+    /**
+     * Largest message the transport can send in one piece.
+     */
+    public int getMaxMessageSize();
+
+    public void start( Receiver receiver )
+        throws IOException;
+
+    public void send( byte[] message )
+        throws IOException;
+
+    public void stop();
+}
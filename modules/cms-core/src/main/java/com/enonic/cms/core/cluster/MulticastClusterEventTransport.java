@@ -0,0 +1,128 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+
+package com.enonic.cms.core.cluster;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.MulticastSocket;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends messages as UDP datagrams to a multicast group that all nodes join. Delivery is not guaranteed, so lost
+ * invalidations are left to the time to live of the caches.
+ */
+final class MulticastClusterEventTransport
+    implements ClusterEventTransport
+{
+    private final static Logger LOG = LoggerFactory.getLogger( MulticastClusterEventTransport.class );
+
+    private final static int MAX_MESSAGE_SIZE = 60000;
+
+    private final InetAddress group;
+
+    private final int port;
+
+    private final int ttl;
+
+    private volatile MulticastSocket socket;
+
+    public MulticastClusterEventTransport( final InetAddress group, final int port, final int ttl )
+    {
+        this.group = group;
+        this.port = port;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public int getMaxMessageSize()
+    {
+        return MAX_MESSAGE_SIZE;
+    }
+
+    @Override
+    public void start( final Receiver receiver )
+        throws IOException
+    {
+        final MulticastSocket socket = new MulticastSocket( this.port );
+        socket.setTimeToLive( this.ttl );
+        // false enables loopback, so that several nodes can run on one machine
+        socket.setLoopbackMode( false );
+        socket.joinGroup( this.group );
+        this.socket = socket;
+
+        final Thread thread = new Thread( new Runnable()
+        {
+            public void run()
+            {
+                receiveLoop( socket, receiver );
+            }
+        }, "cluster-multicast-receiver" );
+        thread.setDaemon( true );
+        thread.start();
+
+        LOG.info( "Cluster events sent by multicast to " + this.group.getHostAddress() + ":" + this.port );
+    }
+
+    private void receiveLoop( final MulticastSocket socket, final Receiver receiver )
+    {
+        final byte[] buffer = new byte[MAX_MESSAGE_SIZE + 1024];
+
+        while ( !socket.isClosed() )
+        {
+            try
+            {
+                final DatagramPacket packet = new DatagramPacket( buffer, buffer.length );
+                socket.receive( packet );
+                receiver.receive( Arrays.copyOfRange( packet.getData(), packet.getOffset(), packet.getOffset() + packet.getLength() ) );
+            }
+            catch ( final IOException e )
+            {
+                if ( !socket.isClosed() )
+                {
+                    LOG.warn( "Failed to receive cluster event message", e );
+                }
+            }
+        }
+    }
+
+    @Override
+    public void send( final byte[] message )
+        throws IOException
+    {
+        final MulticastSocket socket = this.socket;
+        if ( socket != null )
+        {
+            socket.send( new DatagramPacket( message, message.length, this.group, this.port ) );
+        }
+    }
+
+    @Override
+    public void stop()
+    {
+        final MulticastSocket socket = this.socket;
+        this.socket = null;
+
+        if ( socket == null )
+        {
+            return;
+        }
+
+        try
+        {
+            socket.leaveGroup( this.group );
+        }
+        catch ( final IOException e )
+        {
+            LOG.debug( "Failed to leave multicast group", e );
+        }
+
+        socket.close();
+    }
+}
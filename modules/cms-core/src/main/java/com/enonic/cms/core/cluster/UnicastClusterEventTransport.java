@@ -0,0 +1,224 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+
+package com.enonic.cms.core.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.io.Closeables;
+
+/**
+ * Sends messages over TCP to a static list of members. Each member gets one connection that is kept open, and
+ * reconnected on the next message if it was lost. Messages to members that are down are dropped.
+ */
+final class UnicastClusterEventTransport
+    implements ClusterEventTransport
+{
+    private final static Logger LOG = LoggerFactory.getLogger( UnicastClusterEventTransport.class );
+
+    private final static int MAX_MESSAGE_SIZE = 1024 * 1024;
+
+    private final static int CONNECT_TIMEOUT = 2000;
+
+    private final int port;
+
+    private final List<InetSocketAddress> members;
+
+    private final Map<InetSocketAddress, DataOutputStream> connections;
+
+    private volatile ServerSocket serverSocket;
+
+    public UnicastClusterEventTransport( final int port, final List<InetSocketAddress> members )
+    {
+        this.port = port;
+        this.members = ImmutableList.copyOf( members );
+        this.connections = Maps.newHashMap();
+    }
+
+    @Override
+    public int getMaxMessageSize()
+    {
+        return MAX_MESSAGE_SIZE;
+    }
+
+    @Override
+    public void start( final Receiver receiver )
+        throws IOException
+    {
+        final ServerSocket serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress( true );
+        serverSocket.bind( new InetSocketAddress( this.port ) );
+        this.serverSocket = serverSocket;
+
+        startThread( "cluster-unicast-acceptor", new Runnable()
+        {
+            public void run()
+            {
+                acceptLoop( serverSocket, receiver );
+            }
+        } );
+
+        LOG.info( "Cluster events sent by unicast on port " + this.port + " to members " + this.members );
+    }
+
+    private void acceptLoop( final ServerSocket serverSocket, final Receiver receiver )
+    {
+        while ( !serverSocket.isClosed() )
+        {
+            try
+            {
+                final Socket socket = serverSocket.accept();
+                startThread( "cluster-unicast-receiver-" + socket.getRemoteSocketAddress(), new Runnable()
+                {
+                    public void run()
+                    {
+                        receiveLoop( socket, receiver );
+                    }
+                } );
+            }
+            catch ( final IOException e )
+            {
+                if ( !serverSocket.isClosed() )
+                {
+                    LOG.warn( "Failed to accept cluster connection", e );
+                }
+            }
+        }
+    }
+
+    private void receiveLoop( final Socket socket, final Receiver receiver )
+    {
+        try
+        {
+            final DataInputStream in = new DataInputStream( new BufferedInputStream( socket.getInputStream() ) );
+            while ( this.serverSocket != null )
+            {
+                final int length = in.readInt();
+                if ( ( length < 0 ) || ( length > MAX_MESSAGE_SIZE ) )
+                {
+                    throw new IOException( "Invalid cluster event message length " + length );
+                }
+
+                final byte[] message = new byte[length];
+                in.readFully( message );
+                receiver.receive( message );
+            }
+        }
+        catch ( final EOFException e )
+        {
+            // Connection closed by the other node
+        }
+        catch ( final IOException e )
+        {
+            LOG.debug( "Cluster connection from " + socket.getRemoteSocketAddress() + " lost", e );
+        }
+        finally
+        {
+            closeQuietly( socket );
+        }
+    }
+
+    @Override
+    public synchronized void send( final byte[] message )
+        throws IOException
+    {
+        for ( final InetSocketAddress member : this.members )
+        {
+            try
+            {
+                final DataOutputStream out = getConnection( member );
+                out.writeInt( message.length );
+                out.write( message );
+                out.flush();
+            }
+            catch ( final IOException e )
+            {
+                LOG.debug( "Failed to send cluster event message to " + member, e );
+                Closeables.closeQuietly( this.connections.remove( member ) );
+            }
+        }
+    }
+
+    private DataOutputStream getConnection( final InetSocketAddress member )
+        throws IOException
+    {
+        DataOutputStream out = this.connections.get( member );
+        if ( out == null )
+        {
+            final Socket socket = new Socket();
+            socket.setTcpNoDelay( true );
+            socket.connect( member, CONNECT_TIMEOUT );
+            out = new DataOutputStream( new BufferedOutputStream( socket.getOutputStream() ) );
+            this.connections.put( member, out );
+        }
+
+        return out;
+    }
+
+    @Override
+    public synchronized void stop()
+    {
+        final ServerSocket serverSocket = this.serverSocket;
+        this.serverSocket = null;
+
+        if ( serverSocket != null )
+        {
+            closeQuietly( serverSocket );
+        }
+
+        for ( final DataOutputStream out : this.connections.values() )
+        {
+            Closeables.closeQuietly( out );
+        }
+
+        this.connections.clear();
+    }
+
+    private void startThread( final String name, final Runnable runnable )
+    {
+        final Thread thread = new Thread( runnable, name );
+        thread.setDaemon( true );
+        thread.start();
+    }
+
+    private void closeQuietly( final Socket socket )
+    {
+        try
+        {
+            socket.close();
+        }
+        catch ( final IOException e )
+        {
+            // Ignore
+        }
+    }
+
+    private void closeQuietly( final ServerSocket socket )
+    {
+        try
+        {
+            socket.close();
+        }
+        catch ( final IOException e )
+        {
+            // Ignore
+        }
+    }
+}
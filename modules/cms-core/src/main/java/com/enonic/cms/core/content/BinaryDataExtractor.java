@@ -5,38 +5,82 @@
 
 package com.enonic.cms.core.content;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PreDestroy;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.google.common.base.Throwables;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.enonic.cms.framework.blob.BlobKey;
 import com.enonic.cms.framework.blob.BlobRecord;
+import com.enonic.cms.framework.blob.BlobStore;
+import com.enonic.cms.framework.blob.BlobStoreException;
+import com.enonic.cms.framework.blob.text.ExtractedTextStore;
 import com.enonic.cms.framework.util.MimeTypeResolver;
 
 import com.enonic.cms.api.plugin.ext.TextExtractor;
 import com.enonic.cms.core.content.binary.BinaryDataEntity;
+import com.enonic.cms.core.content.binary.BinaryDataKey;
 import com.enonic.cms.core.content.binary.ContentBinaryDataEntity;
 import com.enonic.cms.core.content.index.BigText;
 import com.enonic.cms.core.plugin.ext.TextExtractorExtensions;
-import com.enonic.cms.store.dao.BinaryDataDao;
 
+/**
+ * Extracts the full text of the binaries of content. Extracted text is kept in the extracted text store, keyed by
+ * blob key and extractor version, so that a binary is only parsed again when the extractor changes.
+ * <p/>
+ * Text can be extracted ahead of indexing on a bounded pool of worker threads. An extraction that is already in
+ * progress for a blob is waited for instead of being started again.
+ */
 @Component
 public class BinaryDataExtractor
 {
+    private static final Logger LOG = LoggerFactory.getLogger( ContentDocumentFactory.class );
+
+    private static final int MAX_QUEUED_EXTRACTIONS = 1000;
+
     @Autowired
     TextExtractorExtensions extensions;
 
     @Autowired
-    BinaryDataDao binaryDataDao;
+    BlobStore blobStore;
+
+    @Autowired
+    ExtractedTextStore extractedTextStore;
 
     @Autowired
     MimeTypeResolver mimeTypeResolver;
 
-    private static final Logger LOG = LoggerFactory.getLogger( ContentDocumentFactory.class );
+    private final ConcurrentMap<BlobKey, FutureTask<String>> extractionsInProgress =
+        new ConcurrentHashMap<BlobKey, FutureTask<String>>();
+
+    private final ConcurrentMap<String, String> bundleDigests = new ConcurrentHashMap<String, String>();
+
+    private ThreadPoolExecutor executor;
 
     public BigText extractBinaryData( ContentEntity content )
     {
@@ -64,25 +108,279 @@ public class BinaryDataExtractor
         return null;
     }
 
+    /**
+     * Start extracting the text of the binary in the background, if it is not already extracted. Nothing is done if
+     * the pre-extraction queue is full, since the text is then extracted when the content is indexed.
+     */
+    public void preExtract( final BinaryDataEntity binaryData )
+    {
+        if ( ( this.executor == null ) || ( binaryData.getBlobKey() == null ) )
+        {
+            return;
+        }
+
+        final String mimeType = mimeTypeResolver.getMimeType( binaryData.getName() );
+        final TextExtractor textExtractor = this.extensions.getByMimeType( mimeType );
+        if ( textExtractor == null )
+        {
+            return;
+        }
+
+        final BinaryDataKey binaryDataKey = binaryData.getBinaryDataKey();
+        final BlobKey blobKey = new BlobKey( binaryData.getBlobKey() );
+        final String extractorVersion = resolveExtractorVersion( textExtractor );
+        if ( this.extractionsInProgress.containsKey( blobKey ) )
+        {
+            return;
+        }
+
+        try
+        {
+            this.executor.execute( new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        if ( !extractedTextStore.hasText( blobKey, extractorVersion ) )
+                        {
+                            extract( blobKey, mimeType, textExtractor, extractorVersion );
+                        }
+                    }
+                    catch ( Throwable e )
+                    {
+                        LOG.warn( "Failed to pre-extract full text from binary data (key: " + binaryDataKey + ", type: " + mimeType +
+                                      "): " + e.getMessage(), e );
+                    }
+                }
+            } );
+        }
+        catch ( RejectedExecutionException e )
+        {
+            LOG.debug( "Pre-extraction queue is full, skipping binary data " + binaryDataKey );
+        }
+    }
+
+    /**
+     * Return the binary the full text of the content is extracted from, or null if the content has no binaries.
+     */
+    public BinaryDataEntity getExtractedBinaryData( final ContentEntity content )
+    {
+        for ( ContentBinaryDataEntity cbd : content.getMainVersion().getContentBinaryData() )
+        {
+            return cbd.getBinaryData();
+        }
+
+        return null;
+    }
+
+    /**
+     * Return true if text can be extracted from the binary, but is not in the extracted text store yet.
+     */
+    public boolean isExtractionNeeded( final BinaryDataEntity binaryData )
+    {
+        if ( binaryData.getBlobKey() == null )
+        {
+            return false;
+        }
+
+        final TextExtractor textExtractor = this.extensions.getByMimeType( mimeTypeResolver.getMimeType( binaryData.getName() ) );
+        if ( textExtractor == null )
+        {
+            return false;
+        }
+
+        return !extractedTextStore.hasText( new BlobKey( binaryData.getBlobKey() ), resolveExtractorVersion( textExtractor ) );
+    }
+
     BigText extractText( BinaryDataEntity binaryData )
         throws IOException
     {
-        final String mimeType = mimeTypeResolver.getMimeType( binaryData.getName() );
+        return extractText( binaryData.getName(), binaryData.getBlobKey() );
+    }
+
+    /**
+     * Extract the full text of a binary, given its name and blob key.
+     */
+    public BigText extractText( final String binaryName, final String binaryBlobKey )
+        throws IOException
+    {
+        final String mimeType = mimeTypeResolver.getMimeType( binaryName );
         final TextExtractor textExtractor = this.extensions.getByMimeType( mimeType );
 
-        final String fullTextString;
         if ( textExtractor == null )
         {
             return null;
         }
-        else
+
+        final BlobKey blobKey = new BlobKey( binaryBlobKey );
+        final String extractorVersion = resolveExtractorVersion( textExtractor );
+
+        String fullTextString = extractedTextStore.getText( blobKey, extractorVersion );
+        if ( fullTextString == null )
         {
-            BlobRecord blob = binaryDataDao.getBlob( binaryData );
-            //InputStream stream = new ByteArrayInputStream( blob.getAsBytes() );
-            InputStream stream = blob.getStream();
-            fullTextString = textExtractor.extractText( mimeType, stream, "UTF-8" );
+            fullTextString = extract( blobKey, mimeType, textExtractor, extractorVersion );
         }
 
         return fullTextString != null ? new BigText( fullTextString ) : null;
     }
-}
\ No newline at end of file
+
+    /**
+     * Extract the text of the blob and store it, or wait for the extraction already in progress for the blob.
+     */
+    private String extract( final BlobKey blobKey, final String mimeType, final TextExtractor textExtractor,
+                            final String extractorVersion )
+        throws IOException
+    {
+        final FutureTask<String> task = new FutureTask<String>( new Callable<String>()
+        {
+            public String call()
+                throws Exception
+            {
+                final BlobRecord blob = blobStore.getRecord( blobKey );
+                if ( blob == null )
+                {
+                    return null;
+                }
+
+                final String text;
+                final InputStream stream = blob.getStream();
+                try
+                {
+                    text = textExtractor.extractText( mimeType, stream, "UTF-8" );
+                }
+                finally
+                {
+                    stream.close();
+                }
+
+                if ( text != null )
+                {
+                    storeText( blobKey, extractorVersion, text );
+                }
+
+                return text;
+            }
+        } );
+
+        final FutureTask<String> inProgress = this.extractionsInProgress.putIfAbsent( blobKey, task );
+        if ( inProgress == null )
+        {
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                this.extractionsInProgress.remove( blobKey, task );
+            }
+        }
+
+        return getResult( inProgress != null ? inProgress : task );
+    }
+
+    private void storeText( final BlobKey blobKey, final String extractorVersion, final String text )
+    {
+        try
+        {
+            extractedTextStore.putText( blobKey, extractorVersion, text );
+        }
+        catch ( BlobStoreException e )
+        {
+            LOG.warn( "Failed to store extracted text [" + blobKey + "]: " + e.getMessage(), e );
+        }
+    }
+
+    private String getResult( final FutureTask<String> task )
+        throws IOException
+    {
+        try
+        {
+            return task.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate( e );
+        }
+        catch ( ExecutionException e )
+        {
+            Throwables.propagateIfPossible( e.getCause(), IOException.class );
+            throw Throwables.propagate( e.getCause() );
+        }
+    }
+
+    /**
+     * Resolve the version of an extractor, so that text extracted by an older version is extracted again after the
+     * extractor plugin is upgraded or redeployed. The version of a plugin includes a digest of its jar, since plugins
+     * are installed again on every start and their bundle timestamps change.
+     */
+    private String resolveExtractorVersion( final TextExtractor textExtractor )
+    {
+        final Class<?> extractorClass = textExtractor.getClass();
+        final Bundle bundle = FrameworkUtil.getBundle( extractorClass );
+        if ( bundle != null )
+        {
+            return extractorClass.getName() + "/" + bundle.getVersion() + "/" + getBundleDigest( bundle );
+        }
+
+        final String version = extractorClass.getPackage() != null ? extractorClass.getPackage().getImplementationVersion() : null;
+        return extractorClass.getName() + "/" + version;
+    }
+
+    private String getBundleDigest( final Bundle bundle )
+    {
+        // the timestamp only tells when the digest of the installed bundle must be computed again
+        final String key = bundle.getBundleId() + "/" + bundle.getLastModified();
+        String digest = this.bundleDigests.get( key );
+        if ( digest == null )
+        {
+            digest = computeBundleDigest( bundle );
+            this.bundleDigests.put( key, digest );
+        }
+
+        return digest;
+    }
+
+    private String computeBundleDigest( final Bundle bundle )
+    {
+        final String location = bundle.getLocation();
+        try
+        {
+            if ( location != null && location.startsWith( "file:" ) )
+            {
+                return Files.hash( new File( new URI( location ) ), Hashing.sha1() ).toString();
+            }
+        }
+        catch ( Exception e )
+        {
+            LOG.warn( "Failed to compute digest of plugin [" + location + "]: " + e.getMessage() );
+        }
+
+        final Object bundleVersion = bundle.getHeaders().get( "Bundle-Version" );
+        return bundleVersion != null ? bundleVersion.toString() : "";
+    }
+
+    @Value("${cms.index.extractedText.threads}")
+    public void setThreadCount( final int threadCount )
+    {
+        if ( threadCount <= 0 )
+        {
+            return;
+        }
+
+        this.executor = new ThreadPoolExecutor( threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                                                new ArrayBlockingQueue<Runnable>( MAX_QUEUED_EXTRACTIONS ),
+                                                new ThreadFactoryBuilder().setNameFormat( "text-extract-%d" ).setDaemon(
+                                                    true ).build() );
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        if ( this.executor != null )
+        {
+            this.executor.shutdownNow();
+        }
+    }
+}
@@ -37,12 +37,22 @@ public class ContentDocumentFactory
     BinaryDataExtractor binaryDataExtractor;
 
     public ContentDocument createContentDocument( final ContentEntity content, final boolean updateMetadataOnly )
+    {
+        return createContentDocument( content, updateMetadataOnly, !updateMetadataOnly );
+    }
+
+    /**
+     * Create the document with or without the text extracted from the binaries of the content. A document without
+     * extracted text can be indexed fully, and the extracted text indexed later.
+     */
+    public ContentDocument createContentDocument( final ContentEntity content, final boolean updateMetadataOnly,
+                                                  final boolean extractBinaryText )
     {
         ContentDocument indexedDoc = insertStandardValues( content );
         insertUserDefinedIndexValues( content, indexedDoc );
         insertOrderedSections( content, indexedDoc );
 
-        if ( !updateMetadataOnly )
+        if ( extractBinaryText )
         {
             insertBinaryExtractedValues( content, indexedDoc );
         }
@@ -635,7 +635,12 @@ public class ContentEntity
 
     public void accumulateAccess( ContentAccessRightsAccumulated accumulated, GroupEntity group )
     {
-        ContentAccessEntity access = contentAccessRights.get( group.getGroupKey() );
+        accumulateAccess( accumulated, group.getGroupKey() );
+    }
+
+    public void accumulateAccess( ContentAccessRightsAccumulated accumulated, GroupKey group )
+    {
+        ContentAccessEntity access = contentAccessRights.get( group );
         if ( access != null )
         {
             accumulated.accumulate( access );
@@ -143,6 +143,8 @@ public interface ContentService
 
     List<ContentKey> findContentKeysByContentType( ContentTypeEntity contentType );
 
+    List<ContentKey> findContentKeysByContentType( ContentTypeEntity contentType, ContentKey fromKey, int count );
+
     List<ContentTypeEntity> getAllContentTypes();
 
 }
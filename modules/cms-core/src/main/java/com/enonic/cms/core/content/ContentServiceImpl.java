@@ -644,6 +644,12 @@ public class ContentServiceImpl
         return contentDao.findContentKeysByContentType( contentType );
     }
 
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public List<ContentKey> findContentKeysByContentType( ContentTypeEntity contentType, ContentKey fromKey, int count )
+    {
+        return contentDao.findContentKeysByContentType( contentType, fromKey, count );
+    }
+
     public List<ContentTypeEntity> getAllContentTypes()
     {
         return contentTypeDao.getAll();
@@ -90,6 +90,9 @@ public class ContentStorer
     @Autowired
     private BinaryDataDao binaryDataDao;
 
+    @Autowired
+    private BinaryDataExtractor binaryDataExtractor;
+
     @Autowired
     private CategoryDao categoryDao;
 
@@ -1514,6 +1517,7 @@ public class ContentStorer
         }
 
         binaryDataAndBinary.setBinaryData( binaryData );
+        binaryDataExtractor.preExtract( binaryData );
     }
 
     private void doDeleteContent( final ContentEntity content )
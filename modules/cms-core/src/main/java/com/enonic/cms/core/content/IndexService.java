@@ -17,6 +17,8 @@ public interface IndexService
 
     ContentDocument createContentDocument( ContentEntity content, final boolean updateMetadataOnly );
 
+    ContentDocument createContentDocument( ContentEntity content, final boolean updateMetadataOnly, final boolean extractBinaryText );
+
     public void optimizeIndex();
 
     public void reinitializeIndex();
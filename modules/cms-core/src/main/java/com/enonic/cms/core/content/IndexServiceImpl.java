@@ -11,7 +11,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.enonic.cms.core.search.BulkIndexResult;
+import com.enonic.cms.core.search.IndexException;
 import com.enonic.cms.core.search.query.ContentDocument;
+import com.enonic.cms.core.search.query.ContentIndexBatch;
 import com.enonic.cms.core.search.query.ContentIndexService;
 import com.enonic.cms.store.dao.ContentDao;
 import com.enonic.cms.store.dao.ContentEagerFetches;
@@ -31,7 +34,7 @@ public final class IndexServiceImpl
     @Autowired
     private ContentDocumentFactory contentDocumentFactory;
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class, timeout = 3600)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true, rollbackFor = Exception.class, timeout = 3600)
     /* timeout: 12 timer (60 sec * 5 min = 300 sec) */
     /* OLD: timeout: 12 timer (3600 * 12 = 43200) */
     public void reindex( final List<ContentKey> contentKeys )
@@ -41,20 +44,30 @@ public final class IndexServiceImpl
 
         final ContentMap contentMap = contentDao.findByKeys( command );
 
+        final ContentIndexBatch batch = new ContentIndexBatch();
         for ( ContentEntity content : contentMap )
         {
             if ( content.isDeleted() )
             {
-                doRemoveContentFromIndex( content );
+                batch.addRemoval( content.getKey() );
             }
             else
             {
-                doIndexContent( content );
+                batch.addDocument( contentDocumentFactory.createContentDocument( content, false ), false );
             }
         }
 
+        final BulkIndexResult result = contentIndexService.index( batch );
+
+        contentDao.getHibernateTemplate().flush();
+
         /* Clear all intances in first level cache since the transaction boundary doesn't (single session) */
         contentDao.getHibernateTemplate().clear();
+
+        if ( result.hasFailures() )
+        {
+            throw new IndexException( "Failed to index content: " + result.getFailedContentKeys() );
+        }
     }
 
 
@@ -64,6 +77,12 @@ public final class IndexServiceImpl
         return contentDocumentFactory.createContentDocument( content, updateMetadataOnly );
     }
 
+    @Override
+    public ContentDocument createContentDocument( ContentEntity content, final boolean updateMetadataOnly, final boolean extractBinaryText )
+    {
+        return contentDocumentFactory.createContentDocument( content, updateMetadataOnly, extractBinaryText );
+    }
+
     @Override
     public void optimizeIndex()
     {
@@ -88,17 +107,4 @@ public final class IndexServiceImpl
         contentIndexService.createIndex();
     }
 
-    private void doRemoveContentFromIndex( ContentEntity content )
-    {
-        contentIndexService.remove( content.getKey() );
-    }
-
-    private void doIndexContent( ContentEntity content )
-    {
-        ContentDocument indexedDoc = contentDocumentFactory.createContentDocument( content, false );
-        contentIndexService.index( indexedDoc );
-
-        contentDao.getHibernateTemplate().flush();
-    }
-
 }
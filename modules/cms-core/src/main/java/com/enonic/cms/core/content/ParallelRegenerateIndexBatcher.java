@@ -0,0 +1,215 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.content;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.enonic.cms.core.content.contenttype.ContentTypeEntity;
+
+/**
+ * Regenerates the index of all content using a number of worker threads. Content keys are read in batches in key
+ * order, so that they are never all held in memory, and each batch is reindexed by a worker in its own transaction.
+ * <p/>
+ * Progress is written to the checkpoint whenever a batch and all batches before it are done, and a reindex that was
+ * interrupted continues from the stored checkpoint.
+ */
+public class ParallelRegenerateIndexBatcher
+{
+    private static final Logger LOG = LoggerFactory.getLogger( ParallelRegenerateIndexBatcher.class );
+
+    private final RegenerateIndexBatcher batcher;
+
+    private final ContentService contentService;
+
+    private final RegenerateIndexCheckpoint checkpoint;
+
+    private final int threadCount;
+
+    private final int batchSize;
+
+    public ParallelRegenerateIndexBatcher( IndexService indexService, ContentService contentService, RegenerateIndexCheckpoint checkpoint,
+                                           int threadCount, int batchSize )
+    {
+        if ( threadCount <= 0 )
+        {
+            throw new IllegalArgumentException( "Given threadCount must be larger that zero" );
+        }
+        if ( batchSize <= 0 )
+        {
+            throw new IllegalArgumentException( "Given batchSize must be larger that zero" );
+        }
+
+        this.batcher = new RegenerateIndexBatcher( indexService, contentService );
+        this.contentService = contentService;
+        this.checkpoint = checkpoint;
+        this.threadCount = threadCount;
+        this.batchSize = batchSize;
+    }
+
+    public void regenerateIndex( Collection<ContentTypeEntity> contentTypes, List<String> logEntries )
+    {
+        final List<ContentTypeEntity> sortedContentTypes = Lists.newArrayList( contentTypes );
+        Collections.sort( sortedContentTypes, new ContentTypeKeyComparator() );
+
+        checkpoint.load();
+        if ( checkpoint.getContentTypeKey() > 0 || checkpoint.getContentKey() > 0 )
+        {
+            log( logEntries, "Resuming reindex from content type " + checkpoint.getContentTypeKey() + ", content key " +
+                checkpoint.getContentKey() );
+        }
+
+        final ExecutorService executor =
+            Executors.newFixedThreadPool( threadCount, new ThreadFactoryBuilder().setNameFormat( "reindex-%d" ).setDaemon( true ).build() );
+
+        try
+        {
+            int count = 1;
+            for ( ContentTypeEntity contentType : sortedContentTypes )
+            {
+                if ( contentType.getKey() < checkpoint.getContentTypeKey() )
+                {
+                    count++;
+                    continue;
+                }
+
+                log( logEntries, "Generating indexes for '" + contentType.getName() + "' (#" + count++ + " of " + sortedContentTypes.size() +
+                    ")..." );
+
+                final long start = System.currentTimeMillis();
+                final int indexed = regenerateIndex( contentType, executor );
+
+                log( logEntries, "... " + indexed + " contents indexed in " + ( System.currentTimeMillis() - start ) + " ms" );
+                checkpoint.save( contentType.getKey() + 1, 0 );
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        checkpoint.clear();
+    }
+
+    private int regenerateIndex( final ContentTypeEntity contentType, final ExecutorService executor )
+    {
+        final int maxInProgress = threadCount * 2;
+        final LinkedList<Batch> inProgress = new LinkedList<Batch>();
+
+        int fromKey = contentType.getKey() == checkpoint.getContentTypeKey() ? checkpoint.getContentKey() : 0;
+        int indexed = 0;
+
+        while ( true )
+        {
+            final List<ContentKey> contentKeys =
+                contentService.findContentKeysByContentType( contentType, new ContentKey( fromKey ), batchSize );
+
+            if ( contentKeys.isEmpty() )
+            {
+                break;
+            }
+
+            fromKey = contentKeys.get( contentKeys.size() - 1 ).toInt() + 1;
+            inProgress.add( new Batch( submit( executor, contentKeys ), fromKey ) );
+            indexed += contentKeys.size();
+
+            while ( inProgress.size() >= maxInProgress )
+            {
+                awaitBatch( contentType, inProgress.removeFirst() );
+            }
+
+            if ( contentKeys.size() < batchSize )
+            {
+                break;
+            }
+        }
+
+        while ( !inProgress.isEmpty() )
+        {
+            awaitBatch( contentType, inProgress.removeFirst() );
+        }
+
+        return indexed;
+    }
+
+    private Future<?> submit( final ExecutorService executor, final List<ContentKey> contentKeys )
+    {
+        return executor.submit( new Runnable()
+        {
+            public void run()
+            {
+                batcher.reindexBatch( contentKeys );
+            }
+        } );
+    }
+
+    /**
+     * Wait for the oldest batch in progress. All batches before it are done, so the checkpoint can be moved past it.
+     */
+    private void awaitBatch( final ContentTypeEntity contentType, final Batch batch )
+    {
+        try
+        {
+            batch.future.get();
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate( e );
+        }
+        catch ( final ExecutionException e )
+        {
+            throw Throwables.propagate( e.getCause() );
+        }
+
+        checkpoint.save( contentType.getKey(), batch.nextKey );
+    }
+
+    private void log( final List<String> logEntries, final String message )
+    {
+        if ( logEntries != null )
+        {
+            logEntries.add( message );
+        }
+
+        LOG.info( message );
+    }
+
+    private static final class Batch
+    {
+        private final Future<?> future;
+
+        private final int nextKey;
+
+        private Batch( final Future<?> future, final int nextKey )
+        {
+            this.future = future;
+            this.nextKey = nextKey;
+        }
+    }
+
+    private static final class ContentTypeKeyComparator
+        implements Comparator<ContentTypeEntity>
+    {
+        public int compare( final ContentTypeEntity o1, final ContentTypeEntity o2 )
+        {
+            return o1.getKey() < o2.getKey() ? -1 : ( o1.getKey() == o2.getKey() ? 0 : 1 );
+        }
+    }
+}
@@ -68,30 +68,7 @@ public class RegenerateIndexBatcher
 
                 long start = System.currentTimeMillis();
 
-                int retry = 0;
-                boolean indexSuccess = false;
-                do
-                {
-                    try
-                    {
-                        indexService.reindex( nextContentKeys );
-                        indexSuccess = true;
-                    }
-                    catch ( IndexException e )
-                    {
-                        retry++;
-                        if ( retry > this.maxRetries )
-                        {
-                            throw e;
-                        }
-                        else
-                        {
-                            LOG.warn( "Unexpected error indexing batch with keys: " + Iterables.toString( nextContentKeys ), e );
-                            LOG.warn( "Retrying (" + retry + ") ..." );
-                        }
-                    }
-                }
-                while ( !indexSuccess );
+                reindexBatch( nextContentKeys );
                 //indexService.regenerateIndexBatched( nextContentKeys );
 
                 long end = System.currentTimeMillis();
@@ -104,6 +81,37 @@ public class RegenerateIndexBatcher
 
     }
 
+    /**
+     * Reindex one batch of content, retrying the batch if it fails.
+     */
+    public void reindexBatch( List<ContentKey> contentKeys )
+    {
+        int retry = 0;
+        boolean indexSuccess = false;
+        do
+        {
+            try
+            {
+                indexService.reindex( contentKeys );
+                indexSuccess = true;
+            }
+            catch ( IndexException e )
+            {
+                retry++;
+                if ( retry > this.maxRetries )
+                {
+                    throw e;
+                }
+                else
+                {
+                    LOG.warn( "Unexpected error indexing batch with keys: " + Iterables.toString( contentKeys ), e );
+                    LOG.warn( "Retrying (" + retry + ") ..." );
+                }
+            }
+        }
+        while ( !indexSuccess );
+    }
+
     private List<ContentKey> getNextContentKeys( List<ContentKey> allContentKeys, int currentIndex, int batchSize )
     {
 
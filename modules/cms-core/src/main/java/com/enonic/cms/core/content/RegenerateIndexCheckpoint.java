@@ -0,0 +1,145 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.content;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.Closeables;
+
+/**
+ * Progress of a full reindex, stored in a file so that an interrupted reindex can be resumed. Content types are
+ * reindexed in key order, and the checkpoint holds the content type being reindexed and the content key to
+ * continue from. All content before that point is indexed.
+ */
+public final class RegenerateIndexCheckpoint
+{
+    private static final Logger LOG = LoggerFactory.getLogger( RegenerateIndexCheckpoint.class );
+
+    private static final String CONTENT_TYPE_KEY = "contentTypeKey";
+
+    private static final String CONTENT_KEY = "contentKey";
+
+    private final File file;
+
+    private int contentTypeKey = 0;
+
+    private int contentKey = 0;
+
+    public RegenerateIndexCheckpoint( final File file )
+    {
+        this.file = file;
+    }
+
+    public boolean exists()
+    {
+        return this.file.isFile();
+    }
+
+    public int getContentTypeKey()
+    {
+        return this.contentTypeKey;
+    }
+
+    public int getContentKey()
+    {
+        return this.contentKey;
+    }
+
+    /**
+     * Load the stored checkpoint, starting from the beginning if there is none or it can not be read.
+     */
+    public void load()
+    {
+        this.contentTypeKey = 0;
+        this.contentKey = 0;
+
+        if ( !exists() )
+        {
+            return;
+        }
+
+        InputStream in = null;
+        try
+        {
+            in = new FileInputStream( this.file );
+            final Properties props = new Properties();
+            props.load( in );
+
+            this.contentTypeKey = Integer.parseInt( props.getProperty( CONTENT_TYPE_KEY, "0" ) );
+            this.contentKey = Integer.parseInt( props.getProperty( CONTENT_KEY, "0" ) );
+        }
+        catch ( final Exception e )
+        {
+            LOG.warn( "Could not read reindex checkpoint [" + this.file.getAbsolutePath() + "], starting from the beginning", e );
+            this.contentTypeKey = 0;
+            this.contentKey = 0;
+        }
+        finally
+        {
+            Closeables.closeQuietly( in );
+        }
+    }
+
+    /**
+     * Store the checkpoint. The file is replaced in one step, so that a crash never leaves a partial checkpoint.
+     */
+    public void save( final int contentTypeKey, final int contentKey )
+    {
+        this.contentTypeKey = contentTypeKey;
+        this.contentKey = contentKey;
+
+        final Properties props = new Properties();
+        props.setProperty( CONTENT_TYPE_KEY, String.valueOf( contentTypeKey ) );
+        props.setProperty( CONTENT_KEY, String.valueOf( contentKey ) );
+
+        final File tempFile = new File( this.file.getPath() + ".tmp" );
+        OutputStream out = null;
+        try
+        {
+            this.file.getParentFile().mkdirs();
+            out = new FileOutputStream( tempFile );
+            props.store( out, "Reindex progress" );
+            out.close();
+            out = null;
+
+            if ( !tempFile.renameTo( this.file ) )
+            {
+                this.file.delete();
+                if ( !tempFile.renameTo( this.file ) )
+                {
+                    LOG.warn( "Could not store reindex checkpoint [" + this.file.getAbsolutePath() + "]" );
+                }
+            }
+        }
+        catch ( final IOException e )
+        {
+            LOG.warn( "Could not store reindex checkpoint [" + this.file.getAbsolutePath() + "]", e );
+        }
+        finally
+        {
+            Closeables.closeQuietly( out );
+        }
+    }
+
+    public void clear()
+    {
+        this.contentTypeKey = 0;
+        this.contentKey = 0;
+
+        if ( exists() && !this.file.delete() )
+        {
+            LOG.warn( "Could not delete reindex checkpoint [" + this.file.getAbsolutePath() + "]" );
+        }
+    }
+}
@@ -8,7 +8,7 @@ import com.enonic.cms.core.content.ContentEntity;
 import com.enonic.cms.core.content.category.CategoryAccessResolver;
 import com.enonic.cms.core.security.AbstractAccessResolver;
 import com.enonic.cms.core.security.group.GroupEntity;
-import com.enonic.cms.core.security.group.GroupMembershipSearcher;
+import com.enonic.cms.core.security.group.GroupKey;
 import com.enonic.cms.core.security.user.UserEntity;
 import com.enonic.cms.store.dao.GroupDao;
 
@@ -58,7 +58,7 @@ public class ContentAccessResolver
         }
 
         // check if user is member of enterprise admin and if so give all rights
-        if ( user.isMemberOf( getEnterpriseAdminsGroup(), true ) )
+        if ( isMemberOfEnterpriseAdmins( user ) )
         {
             accumulated.setAllTo( true );
             return accumulated;
@@ -239,14 +239,14 @@ public class ContentAccessResolver
         }
 
         // Check through all memberships of userGroup
-        GroupMembershipSearcher searcher = new GroupMembershipSearcher()
+        for ( final GroupKey membership : getMembershipClosure( group ).getGroupKeys() )
         {
-            public boolean isGroupFound( GroupEntity traversedGroup )
+            if ( content.hasAccessRightSet( membership, accessType ) )
             {
-                return content.hasAccessRightSet( traversedGroup, accessType );
+                return true;
             }
-        };
-        return searcher.startSearch( group );
+        }
+        return false;
     }
 
     private void doGetAccumulatedAccessRights( final ContentAccessRightsAccumulated accumulated, final GroupEntity group,
@@ -259,18 +259,14 @@ public class ContentAccessResolver
             return;
         }
 
-        final GroupMembershipSearcher searcher = new GroupMembershipSearcher()
+        for ( final GroupKey membership : getMembershipClosure( group ).getGroupKeys() )
         {
-            public boolean isGroupFound( GroupEntity traversedGroup )
+            content.accumulateAccess( accumulated, membership );
+            if ( accumulated.isAllTrue() )
             {
-                content.accumulateAccess( accumulated, traversedGroup );
-                boolean hasFinishedSearching = accumulated.isAllTrue();
-                return hasFinishedSearching;
+                return;
             }
-        };
-
-        searcher.startSearch( group );
-        return;
+        }
     }
 
 }
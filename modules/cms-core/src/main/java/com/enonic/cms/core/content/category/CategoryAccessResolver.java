@@ -6,7 +6,7 @@ package com.enonic.cms.core.content.category;
 
 import com.enonic.cms.core.security.AbstractAccessResolver;
 import com.enonic.cms.core.security.group.GroupEntity;
-import com.enonic.cms.core.security.group.GroupMembershipSearcher;
+import com.enonic.cms.core.security.group.GroupKey;
 import com.enonic.cms.core.security.user.UserEntity;
 import com.enonic.cms.store.dao.GroupDao;
 
@@ -53,7 +53,7 @@ public class CategoryAccessResolver
         }
 
         // check if user is member of enterprise admin and if so give all rights
-        if ( user.isMemberOf( getEnterpriseAdminsGroup(), true ) )
+        if ( isMemberOfEnterpriseAdmins( user ) )
         {
             accumulated.setAllTo( true );
             return accumulated;
@@ -160,14 +160,14 @@ public class CategoryAccessResolver
         }
 
         // Check through all memberships of userGroup
-        GroupMembershipSearcher searcher = new GroupMembershipSearcher()
+        for ( final GroupKey membership : getMembershipClosure( group ).getGroupKeys() )
         {
-            public boolean isGroupFound( GroupEntity traversedGroup )
+            if ( category.hasAccess( membership, categoryAccessType ) )
             {
-                return category.hasAccess( traversedGroup, categoryAccessType );
+                return true;
             }
-        };
-        return searcher.startSearch( group );
+        }
+        return false;
     }
 
     private boolean hasAdminBrowseAccessRecursively( UserEntity user, CategoryEntity category )
@@ -198,17 +198,14 @@ public class CategoryAccessResolver
             return;
         }
 
-        final GroupMembershipSearcher searcher = new GroupMembershipSearcher()
+        for ( final GroupKey membership : getMembershipClosure( group ).getGroupKeys() )
         {
-            public boolean isGroupFound( GroupEntity traversedGroup )
+            category.accumulateAccess( accumulated, membership );
+            if ( accumulated.isAllTrue() )
             {
-                category.accumulateAccess( accumulated, traversedGroup );
-                boolean hasFinishedSearching = accumulated.isAllTrue();
-                return hasFinishedSearching;
+                return;
             }
-        };
-
-        searcher.startSearch( group );
+        }
     }
 
 }
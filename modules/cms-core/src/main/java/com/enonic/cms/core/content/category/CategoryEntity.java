@@ -263,7 +263,12 @@ public class CategoryEntity
 
     public void accumulateAccess( CategoryAccessRightsAccumulated accumulated, GroupEntity group )
     {
-        CategoryAccessEntity access = accessRights.get( group.getGroupKey() );
+        accumulateAccess( accumulated, group.getGroupKey() );
+    }
+
+    public void accumulateAccess( CategoryAccessRightsAccumulated accumulated, GroupKey group )
+    {
+        CategoryAccessEntity access = accessRights.get( group );
         if ( access != null )
         {
             accumulated.accumulate( access );
@@ -277,7 +282,12 @@ public class CategoryEntity
             throw new IllegalArgumentException( "Given group cannot be null" );
         }
 
-        CategoryAccessEntity access = accessRights.get( group.getGroupKey() );
+        return hasAccess( group.getGroupKey(), type );
+    }
+
+    public boolean hasAccess( final GroupKey group, final CategoryAccessType type )
+    {
+        CategoryAccessEntity access = accessRights.get( group );
         if ( access == null )
         {
             return false;
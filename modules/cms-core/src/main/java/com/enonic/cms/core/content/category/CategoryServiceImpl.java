@@ -15,6 +15,7 @@ import com.enonic.cms.core.log.LogService;
 import com.enonic.cms.core.log.LogType;
 import com.enonic.cms.core.log.StoreNewLogEntryCommand;
 import com.enonic.cms.core.log.Table;
+import com.enonic.cms.core.portal.datasource.cache.DataSourceResultCache;
 import com.enonic.cms.core.search.IndexTransactionService;
 import com.enonic.cms.core.security.user.UserKey;
 
@@ -36,6 +37,9 @@ public class CategoryServiceImpl
     @Autowired
     private LogService logService;
 
+    @Autowired
+    private DataSourceResultCache dataSourceResultCache;
+
     @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
     public CategoryKey storeNewCategory( final StoreNewCategoryCommand command )
     {
@@ -53,6 +57,7 @@ public class CategoryServiceImpl
     {
         indexTransactionService.startTransaction();
         processorFactory.createSynchronizeCategoryACLProcessor( command ).process( command );
+        dataSourceResultCache.invalidateAccess();
         indexTransactionService.commit();
     }
 
@@ -61,6 +66,7 @@ public class CategoryServiceImpl
     {
         indexTransactionService.startTransaction();
         processorFactory.createSynchronizeCategoryACLProcessor( command ).process( command );
+        dataSourceResultCache.invalidateAccess();
     }
 
     @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
@@ -68,6 +74,7 @@ public class CategoryServiceImpl
     {
         indexTransactionService.startTransaction();
         processorFactory.createSynchronizeContentACLCommandProcessor( command ).process( command );
+        dataSourceResultCache.invalidateAccess();
         indexTransactionService.commit();
     }
 
@@ -76,6 +83,7 @@ public class CategoryServiceImpl
     {
         indexTransactionService.startTransaction();
         processorFactory.createSynchronizeContentACLCommandProcessor( command ).process( command );
+        dataSourceResultCache.invalidateAccess();
     }
 
     @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
@@ -83,6 +91,7 @@ public class CategoryServiceImpl
     {
         indexTransactionService.startTransaction();
         processorFactory.createModifyCategoryACLCommand( command ).process( command );
+        dataSourceResultCache.invalidateAccess();
         indexTransactionService.commit();
     }
 
@@ -91,6 +100,7 @@ public class CategoryServiceImpl
     {
         indexTransactionService.startTransaction();
         processorFactory.createModifyCategoryACLCommand( command ).process( command );
+        dataSourceResultCache.invalidateAccess();
     }
 
     @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
@@ -98,6 +108,7 @@ public class CategoryServiceImpl
     {
         indexTransactionService.startTransaction();
         processorFactory.createModifyContentACLCommandProcessor( command ).process( command );
+        dataSourceResultCache.invalidateAccess();
         indexTransactionService.commit();
     }
 
@@ -106,6 +117,7 @@ public class CategoryServiceImpl
     {
         indexTransactionService.startTransaction();
         processorFactory.createModifyContentACLCommandProcessor( command ).process( command );
+        dataSourceResultCache.invalidateAccess();
     }
 
     @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class, timeout = TIMEOUT_24HOURS)
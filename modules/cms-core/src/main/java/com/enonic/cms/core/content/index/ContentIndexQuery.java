@@ -75,6 +75,8 @@ public final class ContentIndexQuery
 
     private MenuItemKey orderBySection;
 
+    private Long randomSeed;
+
     /**
      * Construct the query.
      *
@@ -252,6 +254,7 @@ public final class ContentIndexQuery
         s.append( "contentTypeFilter", getContentTypeFilter() );
         s.append( "securityFilter", getSecurityFilter() );
         s.append( "orderBySection", orderBySection );
+        s.append( "randomSeed", randomSeed );
         s.append( "facetDefinition", facets );
         return s.toString();
     }
@@ -271,6 +274,28 @@ public final class ContentIndexQuery
         this.orderBySection = orderBySection;
     }
 
+    /**
+     * Return the seed of the random order of the hits, or null if the hits are ordered by the query.
+     */
+    public Long getRandomSeed()
+    {
+        return randomSeed;
+    }
+
+    /**
+     * Order the hits randomly instead of by the query. The same seed gives the same order as long as the index is not
+     * changed.
+     */
+    public void setRandomSeed( final Long randomSeed )
+    {
+        this.randomSeed = randomSeed;
+    }
+
+    public boolean hasRandomOrder()
+    {
+        return randomSeed != null;
+    }
+
     public String getFacets()
     {
         return facets;
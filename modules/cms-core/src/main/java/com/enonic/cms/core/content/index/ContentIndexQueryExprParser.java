@@ -4,24 +4,40 @@
  */
 package com.enonic.cms.core.content.index;
 
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import com.enonic.cms.core.content.index.queryexpression.ContentTypeEvaluator;
 import com.enonic.cms.core.content.index.queryexpression.DateCompareEvaluator;
 import com.enonic.cms.core.content.index.queryexpression.FunctionEvaluator;
+import com.enonic.cms.core.content.index.queryexpression.FunctionExpr;
 import com.enonic.cms.core.content.index.queryexpression.IntegerFieldEvaluator;
 import com.enonic.cms.core.content.index.queryexpression.QueryEvaluator;
+import com.enonic.cms.core.content.index.queryexpression.QueryEvaluatorAdapter;
 import com.enonic.cms.core.content.index.queryexpression.QueryExpr;
 import com.enonic.cms.core.content.index.queryexpression.QueryParser;
 import com.enonic.cms.store.dao.ContentTypeDao;
 
-
+/**
+ * Parses and evaluates content queries. Parsed queries are cached by query string. Queries without functions are
+ * cached evaluated, while queries with functions, like today(), are evaluated again from the parsed query every time.
+ * Content type names are always looked up again, since content types may change.
+ */
 public class ContentIndexQueryExprParser
 {
+    private final static int MAX_CACHED_QUERIES = 1000;
+
     private static QueryEvaluator functionEvaluator = new FunctionEvaluator();
 
     private static QueryEvaluator dateCompareEvaluator = new DateCompareEvaluator();
 
     private static QueryEvaluator numberFieldEvaluator = new IntegerFieldEvaluator();
 
+    private final static ConcurrentMap<String, ParsedQuery> parsedQueries = new ConcurrentHashMap<String, ParsedQuery>();
+
+    private final static ConcurrentMap<String, ParsedQuery> parsedQueriesWithNumerics = new ConcurrentHashMap<String, ParsedQuery>();
+
     public static QueryExpr parse( ContentIndexQuery query, ContentTypeDao contentTypeDao )
     {
         return doParse( query, true, contentTypeDao );
@@ -34,8 +50,22 @@ public class ContentIndexQueryExprParser
 
     private static QueryExpr doParse( final ContentIndexQuery query, final boolean convertNumerics, ContentTypeDao contentTypeDao )
     {
-        QueryExpr expr = QueryParser.newInstance().parse( query.getQuery() );
+        final ParsedQuery parsedQuery = getParsedQuery( query.getQuery(), convertNumerics );
+
+        QueryExpr expr = parsedQuery.evaluated;
+        if ( expr == null )
+        {
+            expr = evaluate( parsedQuery.parsed, convertNumerics );
+        }
+
+        // do trick with contenttype
+        expr = (QueryExpr) expr.evaluate( new ContentTypeEvaluator( contentTypeDao ) );
 
+        return expr;
+    }
+
+    private static QueryExpr evaluate( QueryExpr expr, final boolean convertNumerics )
+    {
         // invoke any functions...
         expr = (QueryExpr) expr.evaluate( functionEvaluator );
 
@@ -48,10 +78,72 @@ public class ContentIndexQueryExprParser
         // do some tricks with dates in some special cases...
         expr = (QueryExpr) expr.evaluate( dateCompareEvaluator );
 
-        // do trick with contenttype
-        expr = (QueryExpr) expr.evaluate( new ContentTypeEvaluator( contentTypeDao ) );
-
         return expr;
     }
 
+    private static ParsedQuery getParsedQuery( final String query, final boolean convertNumerics )
+    {
+        if ( query == null )
+        {
+            return parseQuery( null, convertNumerics );
+        }
+
+        final ConcurrentMap<String, ParsedQuery> cache = convertNumerics ? parsedQueriesWithNumerics : parsedQueries;
+
+        ParsedQuery parsedQuery = cache.get( query );
+        if ( parsedQuery == null )
+        {
+            parsedQuery = parseQuery( query, convertNumerics );
+
+            // evict any query when full, the queries in use are soon parsed again
+            if ( cache.size() >= MAX_CACHED_QUERIES )
+            {
+                final Iterator<String> it = cache.keySet().iterator();
+                if ( it.hasNext() )
+                {
+                    cache.remove( it.next() );
+                }
+            }
+
+            cache.put( query, parsedQuery );
+        }
+
+        return parsedQuery;
+    }
+
+    private static ParsedQuery parseQuery( final String query, final boolean convertNumerics )
+    {
+        final QueryExpr parsed = QueryParser.newInstance().parse( query );
+        final FunctionFinder functionFinder = new FunctionFinder();
+        parsed.evaluate( functionFinder );
+
+        // functions may give a different result every time, so queries with functions are evaluated every time
+        final QueryExpr evaluated = functionFinder.found ? null : evaluate( parsed, convertNumerics );
+        return new ParsedQuery( parsed, evaluated );
+    }
+
+    private final static class ParsedQuery
+    {
+        private final QueryExpr parsed;
+
+        private final QueryExpr evaluated;
+
+        private ParsedQuery( final QueryExpr parsed, final QueryExpr evaluated )
+        {
+            this.parsed = parsed;
+            this.evaluated = evaluated;
+        }
+    }
+
+    private final static class FunctionFinder
+        extends QueryEvaluatorAdapter
+    {
+        private boolean found;
+
+        public Object evaluate( final FunctionExpr expr )
+        {
+            this.found = true;
+            return expr;
+        }
+    }
 }
@@ -15,6 +15,10 @@ import org.codehaus.jparsec.functors.Unary;
 import org.codehaus.jparsec.misc.Mapper;
 import org.codehaus.jparsec.pattern.Patterns;
 
+/**
+ * Parser for content queries. The grammar is built once when the parser is created, and a parser may be used by many
+ * threads at once, so the shared instance should be used.
+ */
 public final class QueryParser
 {
     private final static String[] OPERATORS = {"=", "!=", ">", ">=", "<", "<=", "(", ")", ","};
@@ -22,14 +26,19 @@ public final class QueryParser
     private final static String[] KEYWORDS =
         {"LIKE", "NOT", "IN", "CONTAINS", "STARTS", "ENDS", "WITH", "OR", "AND", "ORDER", "BY", "ASC", "DESC", "FT"};
 
+    private final static QueryParser INSTANCE = new QueryParser();
+
     private final Terminals terms;
 
     private final Parser<Tokens.Fragment> identifierToken;
 
+    private final Parser<QueryExpr> parser;
+
     public QueryParser()
     {
         this.identifierToken = identifierToken();
         this.terms = Terminals.caseInsensitive( this.identifierToken.source(), OPERATORS, KEYWORDS );
+        this.parser = queryExpr().from( tokenizer(), ignored() );
     }
 
     private Parser<Tokens.Fragment> fragmentToken( final String pattern, final String tag )
@@ -254,7 +263,7 @@ public final class QueryParser
     {
         try
         {
-            return queryExpr().from( tokenizer(), ignored() ).parse( str );
+            return this.parser.parse( str );
         }
         catch ( Exception e )
         {
@@ -262,8 +271,11 @@ public final class QueryParser
         }
     }
 
+    /**
+     * Return the shared instance.
+     */
     public static QueryParser newInstance()
     {
-        return new QueryParser();
+        return INSTANCE;
     }
 }
@@ -112,6 +112,7 @@ public abstract class AbstractContentArchiveQuery
         }
 
         checkAndApplyPublishedOnlyFilter( query );
+        applyRandomOrder( query );
 
         if ( this.isFilterAdminBrowseOnly() && hasSecurityFilter() )
         {
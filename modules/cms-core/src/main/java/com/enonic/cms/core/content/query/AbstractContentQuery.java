@@ -43,6 +43,8 @@ public abstract class AbstractContentQuery
 
     private String orderBy;
 
+    private Long randomSeed;
+
     public UserEntity getUser()
     {
         return user;
@@ -115,6 +117,19 @@ public abstract class AbstractContentQuery
         }
     }
 
+    /**
+     * Select the contents randomly instead of by the order, picking count contents in the index.
+     */
+    public void setRandomOrder( final long seed )
+    {
+        this.randomSeed = seed;
+    }
+
+    protected void applyRandomOrder( ContentIndexQuery query )
+    {
+        query.setRandomSeed( this.randomSeed );
+    }
+
     /**
      * @param index The starting index within the result set, from where to start listing the contents that are returned.
      */
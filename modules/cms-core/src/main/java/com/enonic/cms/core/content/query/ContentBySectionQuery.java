@@ -81,6 +81,7 @@ public class ContentBySectionQuery
         query.setCategoryAccessTypeFilter( getCategoryAccessTypeFilter(), getCategoryAccessTypeFilterPolicy() );
         query.setFacets( facets );
         checkAndApplyPublishedOnlyFilter( query );
+        applyRandomOrder( query );
 
         return query;
     }
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.image.cache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Image cache that stores processed images on disk, so that they survive restarts. The total size of the stored
+ * images is bounded, and the least recently used images are deleted when it is exceeded. Images written by an
+ * earlier run are picked up when the cache is created, oldest first.
+ */
+public final class DiskImageCache
+    extends AbstractImageCache
+{
+    private final static Logger LOG = LoggerFactory.getLogger( DiskImageCache.class );
+
+    private static final String TMP = "tmp-";
+
+    private final File dir;
+
+    private final long capacity;
+
+    /**
+     * File sizes by key, in access order.
+     */
+    private final LinkedHashMap<String, Long> entries;
+
+    private long size;
+
+    public DiskImageCache( final File dir, final long capacity )
+    {
+        this.dir = dir;
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<String, Long>( 1024, 0.75f, true );
+        this.size = 0;
+
+        if ( !this.dir.isDirectory() && !this.dir.mkdirs() )
+        {
+            LOG.warn( "Failed to create image cache directory [" + this.dir.getAbsolutePath() + "]" );
+        }
+
+        loadEntries();
+    }
+
+    public synchronized long getSize()
+    {
+        return this.size;
+    }
+
+    public synchronized int getCount()
+    {
+        return this.entries.size();
+    }
+
+    protected byte[] get( final String key )
+    {
+        if ( !touchEntry( key ) )
+        {
+            return null;
+        }
+
+        final File file = getFile( key );
+
+        try
+        {
+            final FileChannel channel = new FileInputStream( file ).getChannel();
+            try
+            {
+                final ByteBuffer buffer = ByteBuffer.allocate( (int) channel.size() );
+                while ( buffer.hasRemaining() && channel.read( buffer ) >= 0 )
+                {
+                    // read until full
+                }
+
+                if ( buffer.hasRemaining() )
+                {
+                    throw new IOException( "Image cache file truncated: " + file );
+                }
+
+                return buffer.array();
+            }
+            finally
+            {
+                channel.close();
+            }
+        }
+        catch ( final IOException e )
+        {
+            removeEntry( key );
+            return null;
+        }
+    }
+
+    protected void put( final String key, final byte[] data )
+    {
+        if ( data.length > this.capacity )
+        {
+            return;
+        }
+
+        File tmpFile = null;
+
+        try
+        {
+            tmpFile = File.createTempFile( TMP, null, this.dir );
+
+            final FileChannel channel = new FileOutputStream( tmpFile ).getChannel();
+            try
+            {
+                final ByteBuffer buffer = ByteBuffer.wrap( data );
+                while ( buffer.hasRemaining() )
+                {
+                    channel.write( buffer );
+                }
+            }
+            finally
+            {
+                channel.close();
+            }
+
+            addEntry( key, tmpFile, data.length );
+        }
+        catch ( final IOException e )
+        {
+            LOG.warn( "Failed to write image [" + key + "] to cache", e );
+        }
+        finally
+        {
+            if ( ( tmpFile != null ) && tmpFile.exists() )
+            {
+                tmpFile.delete();
+            }
+        }
+    }
+
+    private synchronized boolean touchEntry( final String key )
+    {
+        return this.entries.get( key ) != null;
+    }
+
+    private synchronized void addEntry( final String key, final File tmpFile, final long length )
+    {
+        final File file = getFile( key );
+        if ( file.exists() && !file.delete() )
+        {
+            return;
+        }
+
+        if ( !tmpFile.renameTo( file ) )
+        {
+            return;
+        }
+
+        final Long previous = this.entries.put( key, length );
+        this.size += length - ( previous != null ? previous : 0 );
+        evictEntries();
+    }
+
+    private synchronized void removeEntry( final String key )
+    {
+        final Long length = this.entries.remove( key );
+        if ( length != null )
+        {
+            this.size -= length;
+            getFile( key ).delete();
+        }
+    }
+
+    private void evictEntries()
+    {
+        final Iterator<Map.Entry<String, Long>> it = this.entries.entrySet().iterator();
+        while ( ( this.size > this.capacity ) && it.hasNext() )
+        {
+            final Map.Entry<String, Long> entry = it.next();
+            it.remove();
+            this.size -= entry.getValue();
+            getFile( entry.getKey() ).delete();
+        }
+    }
+
+    private synchronized void loadEntries()
+    {
+        final File[] files = this.dir.listFiles();
+        if ( files == null )
+        {
+            return;
+        }
+
+        Arrays.sort( files, new Comparator<File>()
+        {
+            public int compare( final File f1, final File f2 )
+            {
+                final long diff = f1.lastModified() - f2.lastModified();
+                return diff < 0 ? -1 : ( diff > 0 ? 1 : 0 );
+            }
+        } );
+
+        for ( final File file : files )
+        {
+            if ( !file.isFile() )
+            {
+                continue;
+            }
+
+            if ( file.getName().startsWith( TMP ) )
+            {
+                file.delete();
+                continue;
+            }
+
+            this.entries.put( file.getName(), file.length() );
+            this.size += file.length();
+        }
+
+        evictEntries();
+        LOG.info( "Loaded " + this.entries.size() + " cached images (" + this.size + " bytes) from [" + this.dir.getAbsolutePath() + "]" );
+    }
+
+    private File getFile( final String key )
+    {
+        return new File( this.dir, key );
+    }
+}
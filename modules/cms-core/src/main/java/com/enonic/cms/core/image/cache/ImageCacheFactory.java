@@ -4,12 +4,15 @@
  */
 package com.enonic.cms.core.image.cache;
 
+import java.io.File;
+
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.enonic.cms.framework.cache.CacheManager;
+import com.enonic.cms.framework.util.ByteSizeParser;
 import com.enonic.cms.framework.util.ImageHelper;
 
 @Component("imageCache")
@@ -18,6 +21,10 @@ public final class ImageCacheFactory
 {
     private CacheManager cacheManager;
 
+    private File diskDirectory;
+
+    private long diskCapacity;
+
     @Autowired
     public void setCacheManager( final CacheManager cacheManager )
     {
@@ -30,9 +37,27 @@ public final class ImageCacheFactory
         ImageHelper.minSizeForProgressiveLoading = minSizeForProgressiveLoading;
     }
 
+    @Value("${cms.cache.image.diskPath}")
+    public void setDiskDirectory( final File diskDirectory )
+    {
+        this.diskDirectory = diskDirectory;
+    }
+
+    @Value("${cms.cache.image.diskCapacity}")
+    public void setDiskCapacity( final String diskCapacity )
+    {
+        this.diskCapacity = ByteSizeParser.parse( diskCapacity, 0 );
+    }
+
     public ImageCache getObject()
     {
-        return new WrappedImageCache( this.cacheManager.getImageCache() );
+        final ImageCache memoryCache = new WrappedImageCache( this.cacheManager.getImageCache() );
+        if ( this.diskCapacity <= 0 )
+        {
+            return memoryCache;
+        }
+
+        return new TieredImageCache( memoryCache, new DiskImageCache( this.diskDirectory, this.diskCapacity ) );
     }
 
     public Class getObjectType()
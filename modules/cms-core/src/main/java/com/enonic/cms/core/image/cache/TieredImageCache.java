@@ -0,0 +1,49 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.image.cache;
+
+import com.enonic.cms.core.image.ImageRequest;
+import com.enonic.cms.core.image.ImageResponse;
+
+/**
+ * Image cache that looks up images in a first level cache (in memory), and then in a second level cache (on disk).
+ * Images found in the second level are copied into the first level.
+ */
+public final class TieredImageCache
+    implements ImageCache
+{
+    private final ImageCache first;
+
+    private final ImageCache second;
+
+    public TieredImageCache( final ImageCache first, final ImageCache second )
+    {
+        this.first = first;
+        this.second = second;
+    }
+
+    public ImageResponse get( final ImageRequest req )
+    {
+        final ImageResponse res = this.first.get( req );
+        if ( res != null )
+        {
+            return res;
+        }
+
+        final ImageResponse secondRes = this.second.get( req );
+        if ( secondRes != null )
+        {
+            this.first.put( req, secondRes );
+        }
+
+        return secondRes;
+    }
+
+    public void put( final ImageRequest req, final ImageResponse res )
+    {
+        this.first.put( req, res );
+        this.second.put( req, res );
+    }
+}
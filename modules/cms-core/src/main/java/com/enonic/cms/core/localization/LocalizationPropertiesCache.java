@@ -5,13 +5,20 @@
 
 package com.enonic.cms.core.localization;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import com.enonic.cms.framework.cache.CacheFacade;
 
+import com.enonic.cms.core.resource.FileResourceChangeListener;
+import com.enonic.cms.core.resource.FileResourceName;
+import com.enonic.cms.core.resource.FileResourceWatcherService;
 import com.enonic.cms.core.resource.ResourceBase;
 import com.enonic.cms.core.resource.ResourceKey;
 import com.enonic.cms.core.resource.ResourceService;
 
 final class LocalizationPropertiesCache
+    implements FileResourceChangeListener
 {
     private final CacheFacade cacheFacade;
 
@@ -19,11 +26,22 @@ final class LocalizationPropertiesCache
 
     private final long checkInterval;
 
-    public LocalizationPropertiesCache( final CacheFacade cacheFacade, final ResourceService resourceService, final long checkInterval )
+    private final FileResourceWatcherService watcherService;
+
+    private final ConcurrentMap<FileResourceName, String> cacheKeys = new ConcurrentHashMap<FileResourceName, String>();
+
+    public LocalizationPropertiesCache( final CacheFacade cacheFacade, final ResourceService resourceService, final long checkInterval,
+                                        final FileResourceWatcherService watcherService )
     {
         this.cacheFacade = cacheFacade;
         this.resourceService = resourceService;
         this.checkInterval = checkInterval;
+        this.watcherService = watcherService;
+
+        if ( isWatching() )
+        {
+            this.watcherService.addListener( this );
+        }
     }
 
     public LocalizationPropertiesCacheEntry get( final ResourceKey key )
@@ -31,10 +49,14 @@ final class LocalizationPropertiesCache
         final LocalizationPropertiesCacheEntry entry = (LocalizationPropertiesCacheEntry) this.cacheFacade.get( null, key.toString() );
         if ( entry == null )
         {
+            if ( isWatching() )
+            {
+                unwatchIfMissing( key );
+            }
             return null;
         }
 
-        if ( isValid( entry ) )
+        if ( isWatching() || isValid( entry ) )
         {
             return entry;
         }
@@ -46,6 +68,59 @@ final class LocalizationPropertiesCache
     public void put( final LocalizationPropertiesCacheEntry entry )
     {
         this.cacheFacade.put( null, entry.getKey().toString(), entry );
+
+        if ( isWatching() )
+        {
+            watch( entry );
+        }
+    }
+
+    private synchronized void watch( final LocalizationPropertiesCacheEntry entry )
+    {
+        // missing bundles are watched too, so that they are loaded when created
+        final FileResourceName name = new FileResourceName( entry.getKey().toString() );
+        this.cacheKeys.put( name, entry.getKey().toString() );
+        if ( this.watcherService.watch( name, entry.getTimestamp() ) )
+        {
+            // changed while loading
+            resourceChanged( name );
+        }
+    }
+
+    /**
+     * Unwatch a bundle that was evicted by the cache itself, unless it was loaded again in the meantime.
+     */
+    private synchronized void unwatchIfMissing( final ResourceKey key )
+    {
+        final FileResourceName name = new FileResourceName( key.toString() );
+        if ( this.cacheKeys.containsKey( name ) && this.cacheFacade.get( null, key.toString() ) == null )
+        {
+            unwatch( name );
+        }
+    }
+
+    @Override
+    public synchronized void resourceChanged( final FileResourceName name )
+    {
+        final String cacheKey = this.cacheKeys.get( name );
+        if ( cacheKey != null )
+        {
+            unwatch( name );
+            this.cacheFacade.remove( null, cacheKey );
+        }
+    }
+
+    private void unwatch( final FileResourceName name )
+    {
+        if ( this.cacheKeys.remove( name ) != null )
+        {
+            this.watcherService.unwatch( name );
+        }
+    }
+
+    private boolean isWatching()
+    {
+        return ( this.watcherService != null ) && this.watcherService.isEnabled();
     }
 
     public boolean isValid( final LocalizationPropertiesCacheEntry entry )
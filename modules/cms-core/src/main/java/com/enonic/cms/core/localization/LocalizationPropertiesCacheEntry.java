@@ -19,11 +19,14 @@ final class LocalizationPropertiesCacheEntry
 
     private long lastValidated;
 
-    public LocalizationPropertiesCacheEntry( final ResourceKey key, final Properties properties )
+    /**
+     * The timestamp is the time the loading started, so that a bundle changed while loading is seen as changed.
+     */
+    public LocalizationPropertiesCacheEntry( final ResourceKey key, final Properties properties, final long timestamp )
     {
         this.key = key;
         this.properties = properties;
-        this.timestamp = System.currentTimeMillis();
+        this.timestamp = timestamp;
         this.lastValidated = this.timestamp;
     }
 
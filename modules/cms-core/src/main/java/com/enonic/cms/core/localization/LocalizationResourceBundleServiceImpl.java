@@ -17,6 +17,7 @@ import org.springframework.stereotype.Component;
 import com.enonic.cms.framework.cache.CacheFacade;
 import com.enonic.cms.framework.cache.CacheManager;
 
+import com.enonic.cms.core.resource.FileResourceWatcherService;
 import com.enonic.cms.core.resource.ResourceFile;
 import com.enonic.cms.core.resource.ResourceKey;
 import com.enonic.cms.core.resource.ResourceService;
@@ -30,6 +31,8 @@ public final class LocalizationResourceBundleServiceImpl
 
     private CacheFacade cacheFacade;
 
+    private FileResourceWatcherService resourceWatcherService;
+
     private long checkInterval = 5000;
 
     private LocalizationPropertiesCache propertiesCache;
@@ -86,6 +89,7 @@ public final class LocalizationResourceBundleServiceImpl
 
         properties = new Properties();
 
+        final long loadTimestamp = System.currentTimeMillis();
         final ResourceFile resourceFile = resourceService.getResourceFile( resourceKey );
         if ( resourceFile != null )
         {
@@ -99,13 +103,13 @@ public final class LocalizationResourceBundleServiceImpl
             }
         }
 
-        putInCache( resourceKey, properties );
+        putInCache( resourceKey, properties, loadTimestamp );
         return properties;
     }
 
-    private void putInCache( final ResourceKey resourceKey, final Properties properties )
+    private void putInCache( final ResourceKey resourceKey, final Properties properties, final long loadTimestamp )
     {
-        this.propertiesCache.put( new LocalizationPropertiesCacheEntry( resourceKey, properties ) );
+        this.propertiesCache.put( new LocalizationPropertiesCacheEntry( resourceKey, properties, loadTimestamp ) );
     }
 
     private Properties getFromCache( final ResourceKey resourceKey )
@@ -151,6 +155,12 @@ public final class LocalizationResourceBundleServiceImpl
         this.resourceService = resourceService;
     }
 
+    @Autowired
+    public void setResourceWatcherService( final FileResourceWatcherService resourceWatcherService )
+    {
+        this.resourceWatcherService = resourceWatcherService;
+    }
+
     @Autowired
     public void setCacheManager( final CacheManager cacheManager )
     {
@@ -166,6 +176,7 @@ public final class LocalizationResourceBundleServiceImpl
     @Override
     public void afterPropertiesSet()
     {
-        this.propertiesCache = new LocalizationPropertiesCache( this.cacheFacade, this.resourceService, this.checkInterval );
+        this.propertiesCache = new LocalizationPropertiesCache( this.cacheFacade, this.resourceService, this.checkInterval,
+                                                               this.resourceWatcherService );
     }
 }
@@ -0,0 +1,518 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.log;
+
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.UpdateTimestampsCache;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.jdbc.Work;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.collect.Lists;
+
+import com.enonic.cms.framework.util.LazyInitializedJDOMDocument;
+
+import com.enonic.cms.core.cluster.ClusterEvent;
+import com.enonic.cms.core.cluster.ClusterEventListener;
+import com.enonic.cms.core.cluster.ClusterEventPublisher;
+import com.enonic.cms.core.cluster.NopClusterEventPublisher;
+import com.enonic.cms.core.security.user.UserKey;
+import com.enonic.cms.store.hibernate.type.LazyInitializedJDOMDocumentUserType;
+
+/**
+ * Writes log entries in the background. Entries are put on a bounded queue when the transaction storing them commits,
+ * and a single writer thread inserts them in JDBC batches, one transaction per batch. When the queue is full, the
+ * caller either waits for room or the entry is discarded, depending on the overflow policy. Entries still queued at
+ * shutdown are written before the writer stops, unless flushing on shutdown is turned off.
+ * <p/>
+ * The inserts bypass Hibernate, so cached log entry queries are invalidated after each batch, on this node and on the
+ * other nodes in the cluster.
+ */
+@Component
+public class AsyncLogEntryWriter
+    implements ClusterEventListener
+{
+    private final static Logger LOG = LoggerFactory.getLogger( AsyncLogEntryWriter.class );
+
+    private final static String LOG_ENTRY_TABLE = "TLOGENTRY";
+
+    private final static String EVENT_TYPE = "logEntriesWritten";
+
+    private final static String INSERT_LOG_ENTRY =
+        "INSERT INTO tLogEntry (len_sKey, len_lTypeKey, len_dteTimestamp, len_sInetAddress, len_usr_hKey, len_lTableKey, " +
+            "len_lKeyValue, len_men_lKey, len_sTitle, len_sPath, len_xmlData) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    public final static String OVERFLOW_BLOCK = "block";
+
+    public final static String OVERFLOW_DISCARD = "discard";
+
+    private final AtomicLong writtenCount = new AtomicLong();
+
+    private final AtomicLong discardedCount = new AtomicLong();
+
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private final AtomicLong batchCount = new AtomicLong();
+
+    private final LazyInitializedJDOMDocumentUserType xmlDataType = new LazyInitializedJDOMDocumentUserType();
+
+    private boolean enabled;
+
+    private int queueSize;
+
+    private int batchSize;
+
+    private boolean discardOnOverflow;
+
+    private boolean flushOnShutdown;
+
+    private BlockingQueue<QueuedLogEntry> queue;
+
+    private Thread writerThread;
+
+    private volatile boolean stopped;
+
+    private SessionFactory sessionFactory;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ClusterEventPublisher clusterEventPublisher = new NopClusterEventPublisher();
+
+    public boolean isEnabled()
+    {
+        return this.enabled;
+    }
+
+    @PostConstruct
+    public void start()
+    {
+        if ( !this.enabled )
+        {
+            return;
+        }
+
+        this.queue = new ArrayBlockingQueue<QueuedLogEntry>( this.queueSize );
+        this.writerThread = new Thread( new Runnable()
+        {
+            public void run()
+            {
+                writeUntilStopped();
+            }
+        }, "log-writer" );
+        this.writerThread.setDaemon( true );
+        this.writerThread.start();
+
+        LOG.info( "Writing log entries in the background [queueSize=" + this.queueSize + ", batchSize=" + this.batchSize +
+                      ", overflow=" + ( this.discardOnOverflow ? OVERFLOW_DISCARD : OVERFLOW_BLOCK ) + "]" );
+    }
+
+    /**
+     * Queue the log entry of the user for writing, when the current transaction commits if there is one. The user of
+     * the entry is given by key, so that the user does not have to be loaded.
+     */
+    public void write( final LogEntryEntity logEntry, final UserKey userKey )
+    {
+        final QueuedLogEntry entry = new QueuedLogEntry( logEntry, userKey );
+
+        if ( TransactionSynchronizationManager.isSynchronizationActive() )
+        {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter()
+            {
+                @Override
+                public void afterCommit()
+                {
+                    enqueue( entry );
+                }
+            } );
+        }
+        else
+        {
+            enqueue( entry );
+        }
+    }
+
+    private void enqueue( final QueuedLogEntry entry )
+    {
+        if ( this.stopped )
+        {
+            this.discardedCount.incrementAndGet();
+            LOG.warn( "Log entry writer is stopped, discarding log entry [" + entry.key + "]" );
+            return;
+        }
+
+        if ( this.discardOnOverflow )
+        {
+            if ( !this.queue.offer( entry ) )
+            {
+                this.discardedCount.incrementAndGet();
+                LOG.warn( "Log entry queue is full, discarding log entry [" + entry.key + "]" );
+            }
+
+            return;
+        }
+
+        try
+        {
+            this.queue.put( entry );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            this.discardedCount.incrementAndGet();
+            LOG.warn( "Interrupted while waiting for room in log entry queue, discarding log entry [" + entry.key + "]" );
+        }
+    }
+
+    private void writeUntilStopped()
+    {
+        final List<QueuedLogEntry> batch = Lists.newArrayListWithCapacity( this.batchSize );
+
+        while ( !this.stopped )
+        {
+            try
+            {
+                final QueuedLogEntry first = this.queue.poll( 1, TimeUnit.SECONDS );
+                if ( first == null )
+                {
+                    continue;
+                }
+
+                batch.add( first );
+                this.queue.drainTo( batch, this.batchSize - 1 );
+                writeBatch( batch );
+            }
+            catch ( InterruptedException e )
+            {
+                break;
+            }
+            catch ( Exception e )
+            {
+                LOG.error( "Failed to write log entries: " + e.getMessage(), e );
+            }
+            finally
+            {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Write the entries in one batch, or one by one if the batch fails so that one bad entry does not lose the rest.
+     */
+    private void writeBatch( final List<QueuedLogEntry> batch )
+    {
+        try
+        {
+            insert( batch );
+            this.writtenCount.addAndGet( batch.size() );
+            this.batchCount.incrementAndGet();
+            return;
+        }
+        catch ( Exception e )
+        {
+            if ( batch.size() == 1 )
+            {
+                this.failedCount.incrementAndGet();
+                LOG.error( "Failed to write log entry [" + batch.get( 0 ).key + "]: " + e.getMessage(), e );
+                return;
+            }
+
+            LOG.warn( "Failed to write batch of " + batch.size() + " log entries, writing them one by one: " + e.getMessage() );
+        }
+
+        for ( final QueuedLogEntry entry : batch )
+        {
+            writeBatch( Lists.newArrayList( entry ) );
+        }
+    }
+
+    private void insert( final List<QueuedLogEntry> batch )
+    {
+        this.transactionTemplate.execute( new TransactionCallbackWithoutResult()
+        {
+            @Override
+            protected void doInTransactionWithoutResult( final TransactionStatus status )
+            {
+                sessionFactory.getCurrentSession().doWork( new Work()
+                {
+                    public void execute( final Connection conn )
+                        throws SQLException
+                    {
+                        insert( conn, batch );
+                    }
+                } );
+            }
+        } );
+
+        invalidateQueryCache();
+        this.clusterEventPublisher.publish( new ClusterEvent( EVENT_TYPE ) );
+    }
+
+    private void insert( final Connection conn, final List<QueuedLogEntry> batch )
+        throws SQLException
+    {
+        final PreparedStatement stmt = conn.prepareStatement( INSERT_LOG_ENTRY );
+
+        try
+        {
+            for ( final QueuedLogEntry entry : batch )
+            {
+                stmt.setString( 1, entry.key );
+                stmt.setInt( 2, entry.type );
+                stmt.setTimestamp( 3, new Timestamp( entry.timestamp.getTime() ) );
+                setString( stmt, 4, entry.inetAddress );
+                stmt.setString( 5, entry.userKey );
+                setInteger( stmt, 6, entry.tableKey );
+                setInteger( stmt, 7, entry.keyValue );
+                setInteger( stmt, 8, entry.siteKey );
+                stmt.setString( 9, entry.title );
+                setString( stmt, 10, entry.path );
+                this.xmlDataType.nullSafeSet( stmt, entry.xmlData, 11 );
+                stmt.addBatch();
+            }
+
+            stmt.executeBatch();
+        }
+        finally
+        {
+            stmt.close();
+        }
+    }
+
+    private void setString( final PreparedStatement stmt, final int index, final String value )
+        throws SQLException
+    {
+        if ( value != null )
+        {
+            stmt.setString( index, value );
+        }
+        else
+        {
+            stmt.setNull( index, Types.VARCHAR );
+        }
+    }
+
+    private void setInteger( final PreparedStatement stmt, final int index, final Integer value )
+        throws SQLException
+    {
+        if ( value != null )
+        {
+            stmt.setInt( index, value );
+        }
+        else
+        {
+            stmt.setNull( index, Types.INTEGER );
+        }
+    }
+
+    @Override
+    public void handle( final ClusterEvent event )
+    {
+        if ( event.isOfType( EVENT_TYPE ) )
+        {
+            invalidateQueryCache();
+        }
+    }
+
+    /**
+     * Log entries are inserted past Hibernate, so cached log entry queries must be invalidated by hand.
+     */
+    private void invalidateQueryCache()
+    {
+        final UpdateTimestampsCache cache = ( (SessionFactoryImplementor) this.sessionFactory ).getUpdateTimestampsCache();
+        if ( cache != null )
+        {
+            cache.invalidate( new Serializable[]{LOG_ENTRY_TABLE} );
+        }
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        if ( this.writerThread == null )
+        {
+            return;
+        }
+
+        this.stopped = true;
+
+        try
+        {
+            this.writerThread.join( TimeUnit.SECONDS.toMillis( 10 ) );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        final List<QueuedLogEntry> remaining = Lists.newArrayList();
+        this.queue.drainTo( remaining );
+        if ( remaining.isEmpty() )
+        {
+            return;
+        }
+
+        if ( this.flushOnShutdown )
+        {
+            LOG.info( "Writing " + remaining.size() + " queued log entries before shutdown" );
+            for ( final List<QueuedLogEntry> batch : Lists.partition( remaining, this.batchSize ) )
+            {
+                writeBatch( batch );
+            }
+        }
+        else
+        {
+            this.discardedCount.addAndGet( remaining.size() );
+            LOG.warn( "Discarding " + remaining.size() + " queued log entries at shutdown" );
+        }
+    }
+
+    public int getQueueSize()
+    {
+        return this.queue != null ? this.queue.size() : 0;
+    }
+
+    public int getQueueCapacity()
+    {
+        return this.enabled ? this.queueSize : 0;
+    }
+
+    public long getWrittenCount()
+    {
+        return this.writtenCount.get();
+    }
+
+    public long getDiscardedCount()
+    {
+        return this.discardedCount.get();
+    }
+
+    public long getFailedCount()
+    {
+        return this.failedCount.get();
+    }
+
+    public long getBatchCount()
+    {
+        return this.batchCount.get();
+    }
+
+    @Value("${cms.log.async.enabled}")
+    public void setEnabled( final boolean enabled )
+    {
+        this.enabled = enabled;
+    }
+
+    @Value("${cms.log.async.queueSize}")
+    public void setQueueSize( final int queueSize )
+    {
+        this.queueSize = Math.max( 1, queueSize );
+    }
+
+    @Value("${cms.log.async.batchSize}")
+    public void setBatchSize( final int batchSize )
+    {
+        this.batchSize = Math.max( 1, batchSize );
+    }
+
+    @Value("${cms.log.async.overflow}")
+    public void setOverflowPolicy( final String overflowPolicy )
+    {
+        this.discardOnOverflow = OVERFLOW_DISCARD.equalsIgnoreCase( overflowPolicy.trim() );
+    }
+
+    @Value("${cms.log.async.flushOnShutdown}")
+    public void setFlushOnShutdown( final boolean flushOnShutdown )
+    {
+        this.flushOnShutdown = flushOnShutdown;
+    }
+
+    @Autowired
+    public void setSessionFactory( final SessionFactory sessionFactory )
+    {
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Autowired(required = false)
+    public void setClusterEventPublisher( final ClusterEventPublisher clusterEventPublisher )
+    {
+        this.clusterEventPublisher = clusterEventPublisher;
+    }
+
+    @Autowired
+    public void setTransactionManager( final PlatformTransactionManager transactionManager )
+    {
+        this.transactionTemplate = new TransactionTemplate( transactionManager );
+    }
+
+    /**
+     * The values of a log entry, resolved when the entry is stored so that no entities are touched by the writer.
+     */
+    private final static class QueuedLogEntry
+    {
+        private final String key;
+
+        private final int type;
+
+        private final Date timestamp;
+
+        private final String inetAddress;
+
+        private final String userKey;
+
+        private final Integer tableKey;
+
+        private final Integer keyValue;
+
+        private final Integer siteKey;
+
+        private final String title;
+
+        private final String path;
+
+        private final LazyInitializedJDOMDocument xmlData;
+
+        private QueuedLogEntry( final LogEntryEntity logEntry, final UserKey userKey )
+        {
+            this.key = logEntry.getKey().toString();
+            this.type = logEntry.getType();
+            this.timestamp = logEntry.getTimestamp();
+            this.inetAddress = logEntry.getInetAddress();
+            this.userKey = userKey.toString();
+            this.tableKey = logEntry.getTableKey();
+            this.keyValue = logEntry.getKeyValue();
+            this.siteKey = logEntry.getSite() != null ? logEntry.getSite().getKey().toInt() : null;
+            this.title = logEntry.getTitle();
+            this.path = logEntry.getPath();
+            this.xmlData = logEntry.getXmlDataAsLazyDocument();
+        }
+    }
+}
@@ -89,6 +89,11 @@ public class LogEntryEntity
         return xmlData.getDocument();
     }
 
+    LazyInitializedJDOMDocument getXmlDataAsLazyDocument()
+    {
+        return xmlData;
+    }
+
     public Date getTimestamp()
     {
         return timestamp;
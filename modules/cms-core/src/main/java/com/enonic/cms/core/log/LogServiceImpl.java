@@ -17,6 +17,8 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 
+import com.enonic.esl.util.UUID;
+
 import com.enonic.cms.core.security.user.UserEntity;
 import com.enonic.cms.core.servlet.ServletRequestAccessor;
 import com.enonic.cms.core.time.TimeService;
@@ -36,6 +38,9 @@ public class LogServiceImpl
     @Autowired
     private UserDao userDao;
 
+    @Autowired
+    private AsyncLogEntryWriter asyncLogEntryWriter;
+
     private static final int PATH_FIELD_MAX_LENGTH = 256;
 
     @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
@@ -79,13 +84,10 @@ public class LogServiceImpl
             clientInetAddress = httpRequest.getRemoteAddr();
         }
 
-        UserEntity user = userDao.findByKey( command.getUser() );
-
         LogEntryEntity logEntry = new LogEntryEntity();
         logEntry.setType( command.getType().asInteger() );
         logEntry.setTimestamp( timeService.getNowAsDateTime().toDate() );
         logEntry.setInetAddress( clientInetAddress );
-        logEntry.setUser( user );
 
         if ( command.getTable() != null )
         {
@@ -116,6 +118,23 @@ public class LogServiceImpl
             logEntry.setXmlData( createEmptyXmlData() );
         }
 
+        if ( asyncLogEntryWriter.isEnabled() )
+        {
+            // the user is not loaded, only its key is checked. An entry of a removed user fails on the foreign key when
+            // written, and is logged and counted as failed by the writer
+            if ( command.getUser() == null )
+            {
+                throw new IllegalArgumentException( "User of log entry is required" );
+            }
+
+            logEntry.setKey( new LogEntryKey( UUID.generateValue() ) );
+            asyncLogEntryWriter.write( logEntry, command.getUser() );
+            return logEntry.getKey();
+        }
+
+        UserEntity user = userDao.findByKey( command.getUser() );
+        logEntry.setUser( user );
+
         logEntryDao.storeNew( logEntry );
         return logEntry.getKey();
     }
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter that only goes up.
+ */
+public final class Counter
+{
+    private final AtomicLong count = new AtomicLong();
+
+    public void increment()
+    {
+        this.count.incrementAndGet();
+    }
+
+    public void add( final long value )
+    {
+        this.count.addAndGet( value );
+    }
+
+    public long getCount()
+    {
+        return this.count.get();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.metrics;
+
+/**
+ * Histogram of latencies in milliseconds. Latencies below 16 ms are counted exactly, longer latencies in eight buckets
+ * per power of two, so that a percentile is at most 12.5% above the real value. Histograms have the same buckets and
+ * can be merged.
+ */
+public final class LatencyHistogram
+{
+    private final static int EXACT_BUCKETS = 16;
+
+    private final static int SUB_BUCKET_BITS = 3;
+
+    private final static int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Longer latencies are counted as this.
+     */
+    final static long MAX_VALUE = Integer.MAX_VALUE;
+
+    final static int BUCKET_COUNT = bucketOf( MAX_VALUE ) + 1;
+
+    private final long[] counts;
+
+    private long count;
+
+    private long sum;
+
+    private long max;
+
+    public LatencyHistogram()
+    {
+        this.counts = new long[BUCKET_COUNT];
+    }
+
+    public void record( final long value )
+    {
+        final long clamped = clamp( value );
+        this.counts[bucketOf( clamped )]++;
+        this.count++;
+        this.sum += clamped;
+        this.max = Math.max( this.max, clamped );
+    }
+
+    void add( final long[] bucketCounts, final long sum, final long max )
+    {
+        for ( int i = 0; i < BUCKET_COUNT; i++ )
+        {
+            this.counts[i] += bucketCounts[i];
+            this.count += bucketCounts[i];
+        }
+
+        this.sum += sum;
+        this.max = Math.max( this.max, max );
+    }
+
+    public void merge( final LatencyHistogram other )
+    {
+        for ( int i = 0; i < BUCKET_COUNT; i++ )
+        {
+            this.counts[i] += other.counts[i];
+        }
+
+        this.count += other.count;
+        this.sum += other.sum;
+        this.max = Math.max( this.max, other.max );
+    }
+
+    public long getCount()
+    {
+        return this.count;
+    }
+
+    public long getSum()
+    {
+        return this.sum;
+    }
+
+    public long getMean()
+    {
+        return this.count > 0 ? this.sum / this.count : 0;
+    }
+
+    public long getMax()
+    {
+        return this.max;
+    }
+
+    /**
+     * Return the latency that the given percent of the recorded latencies are below or equal to, as the upper bound of
+     * the bucket the percentile falls in.
+     */
+    public long getPercentile( final double percent )
+    {
+        if ( this.count == 0 )
+        {
+            return 0;
+        }
+
+        final long rank = Math.max( 1, (long) Math.ceil( this.count * percent / 100.0 ) );
+        long seen = 0;
+        for ( int i = 0; i < BUCKET_COUNT; i++ )
+        {
+            seen += this.counts[i];
+            if ( seen >= rank )
+            {
+                return Math.min( upperBoundOf( i ), this.max );
+            }
+        }
+
+        return this.max;
+    }
+
+    static long clamp( final long value )
+    {
+        return Math.min( Math.max( 0, value ), MAX_VALUE );
+    }
+
+    static int bucketOf( final long value )
+    {
+        if ( value < EXACT_BUCKETS )
+        {
+            return (int) value;
+        }
+
+        final int exponent = 63 - Long.numberOfLeadingZeros( value );
+        final int subBucket = (int) ( value >>> ( exponent - SUB_BUCKET_BITS ) ) & ( SUB_BUCKETS - 1 );
+        return EXACT_BUCKETS + ( exponent - 4 ) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf( final int bucket )
+    {
+        if ( bucket < EXACT_BUCKETS )
+        {
+            return bucket;
+        }
+
+        final int exponent = ( bucket - EXACT_BUCKETS ) / SUB_BUCKETS + 4;
+        final int subBucket = ( bucket - EXACT_BUCKETS ) % SUB_BUCKETS;
+        final long width = 1L << ( exponent - SUB_BUCKET_BITS );
+        return ( 1L << exponent ) + ( subBucket + 1 ) * width - 1;
+    }
+}
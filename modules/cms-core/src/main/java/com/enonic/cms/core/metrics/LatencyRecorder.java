@@ -0,0 +1,90 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records latencies into a fixed number of striped histogram cells, picked by the recording thread, so that threads
+ * rarely contend when recording and the memory used does not grow with the number of threads that ever recorded.
+ * {@link #snapshot()} merges the cells of all stripes into a {@link LatencyHistogram}.
+ */
+public final class LatencyRecorder
+{
+    private final static int SUM_CELL = LatencyHistogram.BUCKET_COUNT;
+
+    private final static int MAX_CELL = SUM_CELL + 1;
+
+    private final static int STRIPE_COUNT = stripeCount( Runtime.getRuntime().availableProcessors() );
+
+    private final String name;
+
+    private volatile AtomicLongArray[] stripes = createStripes();
+
+    public LatencyRecorder( final String name )
+    {
+        this.name = name;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public void record( final long latency )
+    {
+        final long value = LatencyHistogram.clamp( latency );
+        final AtomicLongArray cells = stripes[(int) Thread.currentThread().getId() & ( STRIPE_COUNT - 1 )];
+
+        cells.incrementAndGet( LatencyHistogram.bucketOf( value ) );
+        cells.addAndGet( SUM_CELL, value );
+
+        long max = cells.get( MAX_CELL );
+        while ( value > max && !cells.compareAndSet( MAX_CELL, max, value ) )
+        {
+            max = cells.get( MAX_CELL );
+        }
+    }
+
+    public LatencyHistogram snapshot()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final long[] bucketCounts = new long[LatencyHistogram.BUCKET_COUNT];
+
+        for ( final AtomicLongArray cells : stripes )
+        {
+            for ( int i = 0; i < bucketCounts.length; i++ )
+            {
+                bucketCounts[i] = cells.get( i );
+            }
+            histogram.add( bucketCounts, cells.get( SUM_CELL ), cells.get( MAX_CELL ) );
+        }
+
+        return histogram;
+    }
+
+    public void clear()
+    {
+        stripes = createStripes();
+    }
+
+    private static AtomicLongArray[] createStripes()
+    {
+        final AtomicLongArray[] stripes = new AtomicLongArray[STRIPE_COUNT];
+        for ( int i = 0; i < stripes.length; i++ )
+        {
+            stripes[i] = new AtomicLongArray( MAX_CELL + 1 );
+        }
+        return stripes;
+    }
+
+    /**
+     * Twice the number of processors, rounded up to a power of two.
+     */
+    static int stripeCount( final int processors )
+    {
+        return Integer.highestOneBit( Math.max( 1, 2 * processors - 1 ) ) << 1;
+    }
+}
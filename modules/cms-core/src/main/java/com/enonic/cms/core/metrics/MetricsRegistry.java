@@ -0,0 +1,101 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * This class implements the registry of timers and counters updated in the hot paths. Metrics are looked up once and
+ * kept in static fields, so that updating them is only a few atomic writes:
+ * <pre>
+ * private final static Timer RENDER_TIMER = MetricsRegistry.getInstance().timer( "portal_page_render", "Page rendering" );
+ * </pre>
+ * The registry is shared, so that classes that are not Spring beans can be instrumented too.
+ */
+public final class MetricsRegistry
+{
+    /**
+     * Shared instance.
+     */
+    private final static MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final ConcurrentMap<String, Metric<Timer>> timers = new ConcurrentSkipListMap<String, Metric<Timer>>();
+
+    private final ConcurrentMap<String, Metric<Counter>> counters = new ConcurrentSkipListMap<String, Metric<Counter>>();
+
+    /**
+     * Return the timer with the given name, creating it if it does not exist.
+     */
+    public Timer timer( final String name, final String help )
+    {
+        Metric<Timer> metric = this.timers.get( name );
+        if ( metric == null )
+        {
+            final Metric<Timer> created = new Metric<Timer>( help, new Timer( name ) );
+            metric = this.timers.putIfAbsent( name, created );
+            if ( metric == null )
+            {
+                metric = created;
+            }
+        }
+
+        return metric.value;
+    }
+
+    /**
+     * Return the counter with the given name, creating it if it does not exist.
+     */
+    public Counter counter( final String name, final String help )
+    {
+        Metric<Counter> metric = this.counters.get( name );
+        if ( metric == null )
+        {
+            final Metric<Counter> created = new Metric<Counter>( help, new Counter() );
+            metric = this.counters.putIfAbsent( name, created );
+            if ( metric == null )
+            {
+                metric = created;
+            }
+        }
+
+        return metric.value;
+    }
+
+    public void writeMetrics( final MetricsWriter writer )
+    {
+        for ( final Map.Entry<String, Metric<Timer>> entry : this.timers.entrySet() )
+        {
+            writer.writeTimer( entry.getKey(), entry.getValue().help, entry.getValue().value.snapshot() );
+        }
+
+        for ( final Map.Entry<String, Metric<Counter>> entry : this.counters.entrySet() )
+        {
+            writer.writeCounter( entry.getKey(), entry.getValue().help, entry.getValue().value.getCount() );
+        }
+    }
+
+    /**
+     * Return the shared instance.
+     */
+    public static MetricsRegistry getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private final static class Metric<T>
+    {
+        private final String help;
+
+        private final T value;
+
+        private Metric( final String help, final T value )
+        {
+            this.help = help;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.metrics;
+
+/**
+ * Writes metrics that are read from a component when scraped, such as cache counters and queue sizes.
+ */
+public interface MetricsSource
+{
+    public void writeMetrics( MetricsWriter writer );
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.metrics;
+
+/**
+ * Writes metrics in the plain text exposition format read by Prometheus and compatible scrapers. All metric names
+ * are prefixed with "cms_". Timers are written as summaries in milliseconds, with percentiles over everything recorded
+ * since startup; rates are derived from the count and sum.
+ */
+public final class MetricsWriter
+{
+    private final static String PREFIX = "cms_";
+
+    private final static double[] QUANTILES = {0.5, 0.95, 0.99};
+
+    private final StringBuilder out = new StringBuilder();
+
+    public void writeTimer( final String name, final String help, final LatencyHistogram histogram )
+    {
+        final String fullName = PREFIX + name + "_milliseconds";
+        writeHeader( fullName, help, "summary" );
+
+        for ( final double quantile : QUANTILES )
+        {
+            writeSample( fullName, "quantile", String.valueOf( quantile ), histogram.getPercentile( quantile * 100 ) );
+        }
+
+        writeSample( fullName + "_sum", histogram.getSum() );
+        writeSample( fullName + "_count", histogram.getCount() );
+        writeHeader( fullName + "_max", help + " (longest)", "gauge" );
+        writeSample( fullName + "_max", histogram.getMax() );
+    }
+
+    public void writeCounter( final String name, final String help, final long value )
+    {
+        writeHeader( PREFIX + name + "_total", help, "counter" );
+        writeSample( PREFIX + name + "_total", value );
+    }
+
+    public void writeGauge( final String name, final String help, final long value )
+    {
+        writeHeader( PREFIX + name, help, "gauge" );
+        writeSample( PREFIX + name, value );
+    }
+
+    /**
+     * Write the header of a counter with one sample per label value, added with {@link #writeLabeledCounter}.
+     */
+    public void writeCounterHeader( final String name, final String help )
+    {
+        writeHeader( PREFIX + name + "_total", help, "counter" );
+    }
+
+    /**
+     * Write the header of a gauge with one sample per label value, added with {@link #writeLabeledGauge}.
+     */
+    public void writeGaugeHeader( final String name, final String help )
+    {
+        writeHeader( PREFIX + name, help, "gauge" );
+    }
+
+    public void writeLabeledCounter( final String name, final String label, final String labelValue, final long value )
+    {
+        writeSample( PREFIX + name + "_total", label, labelValue, value );
+    }
+
+    public void writeLabeledGauge( final String name, final String label, final String labelValue, final long value )
+    {
+        writeSample( PREFIX + name, label, labelValue, value );
+    }
+
+    private void writeHeader( final String name, final String help, final String type )
+    {
+        this.out.append( "# HELP " ).append( name ).append( ' ' ).append( escapeHelp( help ) ).append( '\n' );
+        this.out.append( "# TYPE " ).append( name ).append( ' ' ).append( type ).append( '\n' );
+    }
+
+    private void writeSample( final String name, final long value )
+    {
+        this.out.append( name ).append( ' ' ).append( value ).append( '\n' );
+    }
+
+    private void writeSample( final String name, final String label, final String labelValue, final long value )
+    {
+        this.out.append( name ).append( '{' ).append( label ).append( "=\"" ).append( escapeLabelValue( labelValue ) ).append( "\"} " );
+        this.out.append( value ).append( '\n' );
+    }
+
+    private static String escapeHelp( final String value )
+    {
+        return value.replace( "\\", "\\\\" ).replace( "\n", "\\n" );
+    }
+
+    private static String escapeLabelValue( final String value )
+    {
+        return escapeHelp( value ).replace( "\"", "\\\"" );
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.out.toString();
+    }
+}
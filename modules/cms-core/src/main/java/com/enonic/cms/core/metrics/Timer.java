@@ -0,0 +1,59 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.metrics;
+
+/**
+ * Records how long an operation takes, in milliseconds. Use as:
+ * <pre>
+ * final Timer.Context timing = TIMER.start();
+ * try
+ * {
+ *     ...
+ * }
+ * finally
+ * {
+ *     timing.stop();
+ * }
+ * </pre>
+ */
+public final class Timer
+{
+    private final LatencyRecorder recorder;
+
+    Timer( final String name )
+    {
+        this.recorder = new LatencyRecorder( name );
+    }
+
+    public Context start()
+    {
+        return new Context( System.nanoTime() );
+    }
+
+    public void update( final long milliseconds )
+    {
+        this.recorder.record( milliseconds );
+    }
+
+    public LatencyHistogram snapshot()
+    {
+        return this.recorder.snapshot();
+    }
+
+    public final class Context
+    {
+        private final long startTime;
+
+        private Context( final long startTime )
+        {
+            this.startTime = startTime;
+        }
+
+        public void stop()
+        {
+            update( ( System.nanoTime() - this.startTime ) / 1000000L );
+        }
+    }
+}
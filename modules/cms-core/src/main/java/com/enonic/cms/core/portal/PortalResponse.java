@@ -5,9 +5,11 @@
 package com.enonic.cms.core.portal;
 
 import java.io.UnsupportedEncodingException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.joda.time.DateTime;
 
+import com.enonic.cms.core.portal.rendering.EncodedPageContent;
 import com.enonic.cms.core.portal.rendering.RenderedPageResult;
 import com.enonic.cms.core.portal.rendering.RenderedWindowResult;
 import com.enonic.cms.core.structure.SitePath;
@@ -29,6 +31,8 @@ public class PortalResponse
 
     private RedirectInstruction redirectInstruction;
 
+    private AtomicReference<EncodedPageContent> lastEncodedContent;
+
     public static PortalResponse createContent( RenderedWindowResult renderedWindowResult )
     {
         PortalResponse response = new PortalResponse();
@@ -54,6 +58,7 @@ public class PortalResponse
     {
         PortalResponse response = new PortalResponse();
         response.content = renderedPageResult.getContent();
+        response.lastEncodedContent = renderedPageResult.getEncodedContent();
         response.httpContentType = renderedPageResult.getHttpContentType();
         if ( renderedPageResult.getContentEncoding() != null )
         {
@@ -97,6 +102,27 @@ public class PortalResponse
         return content.getBytes( contentEncoding );
     }
 
+    /**
+     * Return the content encoded, reusing the encoding last made for the same rendered page if the content is the same.
+     */
+    public EncodedPageContent getEncodedContent()
+        throws UnsupportedEncodingException
+    {
+        EncodedPageContent encodedContent = lastEncodedContent != null ? lastEncodedContent.get() : null;
+        if ( encodedContent != null && encodedContent.isEncodingOf( content, contentEncoding ) )
+        {
+            return encodedContent;
+        }
+
+        encodedContent = EncodedPageContent.encode( content, contentEncoding );
+        if ( lastEncodedContent != null )
+        {
+            lastEncodedContent.set( encodedContent );
+        }
+
+        return encodedContent;
+    }
+
     public void setContent( String content )
     {
         this.content = content;
@@ -13,6 +13,7 @@ import com.enonic.cms.framework.cache.CacheFacade;
 
 import com.enonic.cms.core.CacheObjectSettings;
 import com.enonic.cms.core.CachedObject;
+import com.enonic.cms.core.portal.datasource.cache.DataSourceResultCache;
 import com.enonic.cms.core.portal.rendering.PageCacheKey;
 import com.enonic.cms.core.portal.rendering.WindowCacheKey;
 import com.enonic.cms.core.structure.SiteKey;
@@ -32,6 +33,10 @@ public class PageCache
 
     private Integer defaultTimeToLive;
 
+    private int staleWhileRevalidate = 0;
+
+    private DataSourceResultCache dataSourceResultCache;
+
     public PageCache( final SiteKey siteKey, CacheFacade cacheFacade )
     {
         Preconditions.checkNotNull( siteKey, "siteKey cannot be null" );
@@ -50,6 +55,27 @@ public class PageCache
         this.defaultTimeToLive = value;
     }
 
+    /**
+     * Number of seconds an expired entry may still be served while it is being regenerated. 0 to turn off.
+     */
+    public void setStaleWhileRevalidate( Integer value )
+    {
+        this.staleWhileRevalidate = value != null ? value : 0;
+    }
+
+    /**
+     * Shared datasource results that are invalidated together with the pages and windows of the site.
+     */
+    public void setDataSourceResultCache( final DataSourceResultCache dataSourceResultCache )
+    {
+        this.dataSourceResultCache = dataSourceResultCache;
+    }
+
+    public int getStaleWhileRevalidate()
+    {
+        return staleWhileRevalidate;
+    }
+
     public boolean isEnabled()
     {
         return enabled;
@@ -67,20 +93,32 @@ public class PageCache
 
     private void doCacheObject( String group, Object key, CachedObject obj, int secondsToLive )
     {
-        cacheFacade.put( group, key.toString(), obj, secondsToLive );
+        // keep the entry in the cache facade for the grace period, so that it can be served while stale
+        final int secondsToKeep = staleWhileRevalidate > 0 ? secondsToLive + staleWhileRevalidate : secondsToLive;
+        cacheFacade.put( group, key.toString(), obj, secondsToKeep );
     }
 
-    private CachedObject doGetCachedObject( String group, Object key )
+    private CachedObject doGetCachedObject( String group, Object key, boolean allowStale )
     {
         final CachedObject cachedObject = (CachedObject) cacheFacade.get( group, key.toString() );
         if ( cachedObject != null && cachedObject.isExpired() )
         {
-            cacheFacade.remove( siteKey.toString(), key.toString() );
+            if ( isWithinStaleWhileRevalidate( cachedObject ) )
+            {
+                return allowStale ? cachedObject : null;
+            }
+
+            cacheFacade.remove( group, key.toString() );
             return null;
         }
         return cachedObject;
     }
 
+    private boolean isWithinStaleWhileRevalidate( final CachedObject cachedObject )
+    {
+        return staleWhileRevalidate > 0 && cachedObject.getExpirationTime().plusSeconds( staleWhileRevalidate ).isAfterNow();
+    }
+
 
     public CachedObject cachePage( PageCacheKey key, Object page, CacheObjectSettings settings )
     {
@@ -120,7 +158,21 @@ public class PageCache
         }
 
         final String group = resolveGroupStringForPage( siteKey, key.getMenuItemKey() );
-        return doGetCachedObject( group, key );
+        return doGetCachedObject( group, key, false );
+    }
+
+    /**
+     * Return the cached page, also if it has expired but is still within the stale-while-revalidate period.
+     */
+    public CachedObject getStaleCachedPage( PageCacheKey key )
+    {
+        if ( !enabled || staleWhileRevalidate <= 0 )
+        {
+            return null;
+        }
+
+        final String group = resolveGroupStringForPage( siteKey, key.getMenuItemKey() );
+        return doGetCachedObject( group, key, true );
     }
 
     public CachedObject getCachedPortletWindow( WindowCacheKey key )
@@ -131,26 +183,45 @@ public class PageCache
         }
 
         final String group = resolveGroupStringForWindow( siteKey, key.getMenuItemKey() );
-        return doGetCachedObject( group, key );
+        return doGetCachedObject( group, key, false );
+    }
+
+    /**
+     * Return the cached window, also if it has expired but is still within the stale-while-revalidate period.
+     */
+    public CachedObject getStaleCachedPortletWindow( WindowCacheKey key )
+    {
+        if ( !enabled || staleWhileRevalidate <= 0 )
+        {
+            return null;
+        }
+
+        final String group = resolveGroupStringForWindow( siteKey, key.getMenuItemKey() );
+        return doGetCachedObject( group, key, true );
     }
 
     public void removeEntriesBySite()
     {
+        invalidateDataSourceResults( null );
         cacheFacade.removeGroupByPrefix( siteKey + "-" );
     }
 
     public void removePageEntriesBySite()
     {
+        invalidateDataSourceResults( null );
         cacheFacade.removeGroupByPrefix( siteKey + "-" + TYPE_PAGE + "-" );
     }
 
     public void removePortletWindowEntriesBySite()
     {
+        invalidateDataSourceResults( null );
         cacheFacade.removeGroupByPrefix( siteKey + "-" + TYPE_WINDOW + "-" );
     }
 
     public void removeEntriesByMenuItem( final MenuItemKey menuItemKey )
     {
+        invalidateDataSourceResults( menuItemKey );
+
         if ( !enabled )
         {
             return;
@@ -165,6 +236,8 @@ public class PageCache
 
     public void removeWindowEntriesByMenuItem( final MenuItemKey menuItemKey )
     {
+        invalidateDataSourceResults( menuItemKey );
+
         if ( !enabled )
         {
             return;
@@ -174,6 +247,23 @@ public class PageCache
         cacheFacade.removeGroup( groupForObjects );
     }
 
+    private void invalidateDataSourceResults( final MenuItemKey menuItemKey )
+    {
+        if ( dataSourceResultCache == null )
+        {
+            return;
+        }
+
+        if ( menuItemKey != null )
+        {
+            dataSourceResultCache.invalidateMenuItem( menuItemKey );
+        }
+        else
+        {
+            dataSourceResultCache.invalidateSite( siteKey );
+        }
+    }
+
     private String resolveGroupStringForPage( final SiteKey siteKey, final MenuItemKey menuItemKey )
     {
         final StringBuilder s = new StringBuilder();
@@ -17,6 +17,7 @@ import org.springframework.util.Assert;
 
 import com.enonic.cms.framework.cache.CacheManager;
 
+import com.enonic.cms.core.portal.datasource.cache.DataSourceResultCache;
 import com.enonic.cms.core.structure.SiteKey;
 import com.enonic.cms.core.structure.SiteProperties;
 import com.enonic.cms.core.structure.SitePropertiesListener;
@@ -34,6 +35,8 @@ public class PageCacheServiceImpl
 
     private CacheManager cacheManager;
 
+    private DataSourceResultCache dataSourceResultCache;
+
 
     @PostConstruct
     public void postConstruct()
@@ -60,6 +63,7 @@ public class PageCacheServiceImpl
             final SiteProperties siteProperties = sitePropertiesService.getSiteProperties( siteKey );
             pageCache.setEnabled( siteProperties.getPageCacheEnabled() );
             pageCache.setDefaultTimeToLive( siteProperties.getPageCacheTimeToLive() );
+            pageCache.setStaleWhileRevalidate( siteProperties.getPageCacheStaleWhileRevalidate() );
         }
     }
 
@@ -77,6 +81,7 @@ public class PageCacheServiceImpl
         {
             pageCache.setEnabled( siteProperties.getPageCacheEnabled() );
             pageCache.setDefaultTimeToLive( siteProperties.getPageCacheTimeToLive() );
+            pageCache.setStaleWhileRevalidate( siteProperties.getPageCacheStaleWhileRevalidate() );
         }
     }
 
@@ -85,7 +90,9 @@ public class PageCacheServiceImpl
         final PageCache pageCache = new PageCache( siteKey, cacheManager.getPageCache() );
         final SiteProperties siteProperties = sitePropertiesService.getSiteProperties( siteKey );
         pageCache.setDefaultTimeToLive( siteProperties.getPageCacheTimeToLive() );
+        pageCache.setStaleWhileRevalidate( siteProperties.getPageCacheStaleWhileRevalidate() );
         pageCache.setEnabled( siteProperties.getPageCacheEnabled() );
+        pageCache.setDataSourceResultCache( dataSourceResultCache );
         return pageCache;
     }
 
@@ -119,4 +126,10 @@ public class PageCacheServiceImpl
     {
         this.cacheManager = value;
     }
+
+    @Autowired
+    public void setDataSourceResultCache( DataSourceResultCache value )
+    {
+        this.dataSourceResultCache = value;
+    }
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.portal.datasource.cache;
+
+import java.io.Serializable;
+import java.util.Set;
+
+import org.jdom.Document;
+
+final class CachedDataSourceResult
+    implements Serializable
+{
+    private final Document document;
+
+    private final Set<String> dependencies;
+
+    private final long time;
+
+    public CachedDataSourceResult( final Document document, final Set<String> dependencies, final long time )
+    {
+        this.document = document;
+        this.dependencies = dependencies;
+        this.time = time;
+    }
+
+    public Document getDocument()
+    {
+        return this.document;
+    }
+
+    public Set<String> getDependencies()
+    {
+        return this.dependencies;
+    }
+
+    /**
+     * The change time at which the datasource was invoked.
+     */
+    public long getTime()
+    {
+        return this.time;
+    }
+}
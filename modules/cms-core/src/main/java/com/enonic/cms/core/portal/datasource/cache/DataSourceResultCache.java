@@ -0,0 +1,434 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.portal.datasource.cache;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.filter.ElementFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import com.enonic.cms.framework.cache.CacheFacade;
+import com.enonic.cms.framework.cache.CacheManager;
+
+import com.enonic.cms.core.cluster.ClusterEvent;
+import com.enonic.cms.core.cluster.ClusterEventListener;
+import com.enonic.cms.core.cluster.ClusterEventPublisher;
+import com.enonic.cms.core.cluster.NopClusterEventPublisher;
+import com.enonic.cms.core.content.ContentEntity;
+import com.enonic.cms.core.content.ContentKey;
+import com.enonic.cms.core.content.ContentLocation;
+import com.enonic.cms.core.content.ContentLocationSpecification;
+import com.enonic.cms.core.portal.datasource.handler.DataSourceRequest;
+import com.enonic.cms.core.security.group.GroupEntity;
+import com.enonic.cms.core.structure.SiteKey;
+import com.enonic.cms.core.structure.menuitem.MenuItemKey;
+
+/**
+ * Node-wide cache of datasource results, shared by all requests. Results are cached per site and user, and only for
+ * datasources where the contents, categories and menu items a result depends on can be found from its parameters
+ * and the result itself.
+ * <p/>
+ * Changes are recorded as a time stamp per changed key. A cached result is discarded when any of its dependencies
+ * has changed after the datasource was invoked, so invalidation costs the same regardless of the number of cached
+ * results. Changes are pruned once they are older than the time to live of the cache, and results invoked before the
+ * pruned changes are discarded, since they may depend on them.
+ * <p/>
+ * Every result depends on the access rights, since it is filtered by what the user may read. Changes to group
+ * memberships and access rights therefore discard all results. Changes are sent to the other nodes in the cluster.
+ */
+@Component
+public class DataSourceResultCache
+    implements ClusterEventListener
+{
+    private final static Set<String> CACHEABLE_DATASOURCES =
+        ImmutableSet.of( "getContent", "getContentByCategory", "getContentBySection", "getMenu", "getMenuBranch", "getMenuData",
+                         "getMenuItem", "getSubMenu" );
+
+    private final static String SITE = "site:";
+
+    private final static String CONTENT = "content:";
+
+    private final static String CATEGORY = "category:";
+
+    private final static String MENU_ITEM = "menuitem:";
+
+    private final static String ACCESS = "access";
+
+    private final static String EVENT_TYPE = "dataSourceChanged";
+
+    private final static long DEFAULT_PRUNE_INTERVAL = 5 * 60 * 1000L;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final Map<String, Long> changes = new ConcurrentHashMap<String, Long>();
+
+    private final AtomicLong membershipGeneration = new AtomicLong( GroupEntity.getMembershipGeneration() );
+
+    private volatile long prunedTime;
+
+    private long pruneTime;
+
+    private long lastPruned = System.currentTimeMillis();
+
+    private ClusterEventPublisher clusterEventPublisher = new NopClusterEventPublisher();
+
+    private CacheFacade cacheFacade;
+
+    private boolean enabled;
+
+    public boolean isCacheable( final DataSourceRequest req )
+    {
+        if ( !this.enabled || req.getPreviewContext().isPreviewing() || !CACHEABLE_DATASOURCES.contains( req.getName() ) )
+        {
+            return false;
+        }
+
+        // sub categories, sub sections and parents of the result are not tracked as dependencies
+        return ( getIntParam( req, "levels", 1 ) <= 1 ) && ( getIntParam( req, "parentLevel", 0 ) == 0 );
+    }
+
+    /**
+     * Return the current change time, to be passed to put after the datasource is invoked.
+     */
+    public long getTime()
+    {
+        return this.clock.get();
+    }
+
+    public Document get( final DataSourceRequest req )
+    {
+        final String key = createCacheKey( req );
+        final CachedDataSourceResult result = (CachedDataSourceResult) this.cacheFacade.get( null, key );
+
+        if ( result == null )
+        {
+            return null;
+        }
+
+        // stale results are left to be replaced by the next put or to expire, since removing them would evict them on
+        // every node in the cluster
+        if ( isChangedAfter( result.getDependencies(), result.getTime() ) )
+        {
+            return null;
+        }
+
+        return result.getDocument();
+    }
+
+    public void put( final DataSourceRequest req, final Document doc, final long time )
+    {
+        final Set<String> dependencies = resolveDependencies( req, doc );
+
+        // something the result depends on was changed while the datasource was invoked
+        if ( isChangedAfter( dependencies, time ) )
+        {
+            return;
+        }
+
+        this.cacheFacade.put( null, createCacheKey( req ), new CachedDataSourceResult( doc, dependencies, time ) );
+    }
+
+    public void invalidateContent( final ContentKey contentKey )
+    {
+        changed( ImmutableList.of( CONTENT + contentKey ) );
+    }
+
+    /**
+     * Invalidate results that depend on the content, its category, or the sections and menu items it is placed on.
+     */
+    public void invalidateContent( final ContentEntity content )
+    {
+        final List<String> dependencies = Lists.newArrayList();
+        dependencies.add( CONTENT + content.getKey() );
+        dependencies.add( CATEGORY + content.getCategory().getKey() );
+
+        final ContentLocationSpecification spec = new ContentLocationSpecification();
+        spec.setIncludeInactiveLocationsInSection( true );
+
+        for ( final ContentLocation location : content.getLocations( spec ).getAllLocations() )
+        {
+            dependencies.add( MENU_ITEM + location.getMenuItemKey() );
+        }
+
+        changed( dependencies );
+    }
+
+    public void invalidateMenuItem( final MenuItemKey menuItemKey )
+    {
+        changed( ImmutableList.of( MENU_ITEM + menuItemKey ) );
+    }
+
+    public void invalidateSite( final SiteKey siteKey )
+    {
+        changed( ImmutableList.of( SITE + siteKey ) );
+    }
+
+    /**
+     * Invalidate all results after a change to access rights. Within a transaction the results are invalidated when
+     * it completes, so that results computed by other requests while it runs are discarded.
+     */
+    public void invalidateAccess()
+    {
+        afterCompletion( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                changed( ImmutableList.of( ACCESS ) );
+            }
+        } );
+    }
+
+    /**
+     * Invalidate all results if group memberships have been changed on this node since the last call, in the same
+     * way as {@link #invalidateAccess()}.
+     */
+    public void invalidateMemberships()
+    {
+        afterCompletion( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                final long generation = GroupEntity.getMembershipGeneration();
+                if ( membershipGeneration.getAndSet( generation ) != generation )
+                {
+                    changed( ImmutableList.of( ACCESS ) );
+                }
+            }
+        } );
+    }
+
+    private void afterCompletion( final Runnable task )
+    {
+        if ( !this.enabled )
+        {
+            return;
+        }
+
+        if ( TransactionSynchronizationManager.isSynchronizationActive() )
+        {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter()
+            {
+                @Override
+                public void afterCompletion( final int status )
+                {
+                    task.run();
+                }
+            } );
+        }
+        else
+        {
+            task.run();
+        }
+    }
+
+    private void changed( final Collection<String> dependencies )
+    {
+        if ( !this.enabled )
+        {
+            return;
+        }
+
+        record( dependencies );
+        this.clusterEventPublisher.publish( new ClusterEvent( EVENT_TYPE, dependencies.toArray( new String[dependencies.size()] ) ) );
+    }
+
+    private void record( final Collection<String> dependencies )
+    {
+        for ( final String dependency : dependencies )
+        {
+            this.changes.put( dependency, this.clock.incrementAndGet() );
+        }
+
+        pruneChanges( System.currentTimeMillis() );
+    }
+
+    /**
+     * Remove the changes made before the previous prune. Since the previous prune is at least one time to live ago,
+     * results that may depend on them are expired.
+     */
+    synchronized void pruneChanges( final long now )
+    {
+        if ( now - this.lastPruned < getPruneInterval() )
+        {
+            return;
+        }
+
+        final long pruned = this.pruneTime;
+        this.pruneTime = this.clock.get();
+        this.lastPruned = now;
+
+        // discard older results before their changes are removed
+        this.prunedTime = pruned;
+
+        final Iterator<Long> it = this.changes.values().iterator();
+        while ( it.hasNext() )
+        {
+            if ( it.next() <= pruned )
+            {
+                it.remove();
+            }
+        }
+    }
+
+    int getChangeCount()
+    {
+        return this.changes.size();
+    }
+
+    private long getPruneInterval()
+    {
+        final int timeToLive = this.cacheFacade.getTimeToLive();
+        return timeToLive > 0 ? timeToLive * 1000L : DEFAULT_PRUNE_INTERVAL;
+    }
+
+    private boolean isChangedAfter( final Set<String> dependencies, final long time )
+    {
+        if ( time < this.prunedTime )
+        {
+            return true;
+        }
+
+        for ( final String dependency : dependencies )
+        {
+            final Long changed = this.changes.get( dependency );
+            if ( ( changed != null ) && ( changed > time ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private String createCacheKey( final DataSourceRequest req )
+    {
+        final StringBuilder str = new StringBuilder();
+        str.append( req.getName() );
+        str.append( "-site:" ).append( req.getSiteKey() );
+        str.append( "-user:" ).append( req.getUser() != null ? req.getUser().getKey() : null );
+
+        for ( final Map.Entry<String, String> param : new TreeMap<String, String>( req.getParams() ).entrySet() )
+        {
+            str.append( "-" ).append( param.getKey() ).append( ":" ).append( param.getValue() );
+        }
+
+        return str.toString();
+    }
+
+    private Set<String> resolveDependencies( final DataSourceRequest req, final Document doc )
+    {
+        final Set<String> dependencies = Sets.newHashSet();
+        dependencies.add( ACCESS );
+        dependencies.add( SITE + req.getSiteKey() );
+
+        addParamDependencies( dependencies, CONTENT, req.getParams().get( "contentKeys" ) );
+        addParamDependencies( dependencies, CATEGORY, req.getParams().get( "categoryKeys" ) );
+        addParamDependencies( dependencies, MENU_ITEM, req.getParams().get( "menuItemKeys" ) );
+        addParamDependencies( dependencies, MENU_ITEM, req.getParams().get( "menuItemKey" ) );
+
+        final Iterator it = doc.getDescendants( new ElementFilter() );
+        while ( it.hasNext() )
+        {
+            final Element elem = (Element) it.next();
+            final String key = elem.getAttributeValue( "key" );
+
+            if ( key == null )
+            {
+                continue;
+            }
+
+            if ( "content".equals( elem.getName() ) )
+            {
+                dependencies.add( CONTENT + key );
+            }
+            else if ( "categoryname".equals( elem.getName() ) || "category".equals( elem.getName() ) )
+            {
+                dependencies.add( CATEGORY + key );
+            }
+            else if ( "menuitem".equals( elem.getName() ) )
+            {
+                dependencies.add( MENU_ITEM + key );
+            }
+        }
+
+        return dependencies;
+    }
+
+    private void addParamDependencies( final Set<String> dependencies, final String type, final String value )
+    {
+        if ( value == null )
+        {
+            return;
+        }
+
+        for ( final String key : Splitter.on( ',' ).trimResults().omitEmptyStrings().split( value ) )
+        {
+            dependencies.add( type + key );
+        }
+    }
+
+    private int getIntParam( final DataSourceRequest req, final String name, final int defaultValue )
+    {
+        final String value = req.getParams().get( name );
+
+        try
+        {
+            return value != null ? Integer.parseInt( value.trim() ) : defaultValue;
+        }
+        catch ( final NumberFormatException e )
+        {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    @Override
+    public void handle( final ClusterEvent event )
+    {
+        if ( this.enabled && event.isOfType( EVENT_TYPE ) )
+        {
+            record( Arrays.asList( event.getPayload() ) );
+        }
+    }
+
+    @Autowired
+    public void setCacheManager( final CacheManager cacheManager )
+    {
+        this.cacheFacade = cacheManager.getDataSourceCache();
+    }
+
+    @Autowired(required = false)
+    public void setClusterEventPublisher( final ClusterEventPublisher clusterEventPublisher )
+    {
+        this.clusterEventPublisher = clusterEventPublisher;
+    }
+
+    @Value("${cms.cache.datasource.enabled}")
+    public void setEnabled( final boolean enabled )
+    {
+        this.enabled = enabled;
+    }
+}
@@ -12,9 +12,11 @@ import org.springframework.stereotype.Component;
 import com.enonic.cms.core.config.ConfigProperties;
 import com.enonic.cms.core.portal.datasource.context.DataSourcesContextXmlCreator;
 import com.enonic.cms.core.portal.livetrace.LivePortalTraceService;
+import com.enonic.cms.core.portal.rendering.RenderTaskExecutor;
 import com.enonic.cms.core.structure.SiteKey;
 import com.enonic.cms.core.structure.SiteProperties;
 import com.enonic.cms.core.structure.SitePropertiesService;
+import com.enonic.cms.store.dao.UserDao;
 
 @Component
 public final class DataSourceExecutorFactory
@@ -31,6 +33,10 @@ public final class DataSourceExecutorFactory
 
     private SitePropertiesService sitePropertiesService;
 
+    private RenderTaskExecutor renderTaskExecutor;
+
+    private UserDao userDao;
+
     public DataSourceExecutor createDataSourceExecutor( final DataSourceExecutorContext context )
     {
         context.setRootProperties( this.cmsProperties );
@@ -47,6 +53,8 @@ public final class DataSourceExecutorFactory
         dataSourceExecutor.setLivePortalTraceService( livePortalTraceService );
         dataSourceExecutor.setDefaultResultRootElementName( this.defaultDataSourceRootElementName );
         dataSourceExecutor.setInvoker( this.dataSourceInvoker );
+        dataSourceExecutor.setRenderTaskExecutor( this.renderTaskExecutor );
+        dataSourceExecutor.setUserDao( this.userDao );
         return dataSourceExecutor;
     }
 
@@ -80,6 +88,18 @@ public final class DataSourceExecutorFactory
         this.sitePropertiesService = sitePropertiesService;
     }
 
+    @Autowired
+    public void setRenderTaskExecutor( final RenderTaskExecutor renderTaskExecutor )
+    {
+        this.renderTaskExecutor = renderTaskExecutor;
+    }
+
+    @Autowired
+    public void setUserDao( final UserDao userDao )
+    {
+        this.userDao = userDao;
+    }
+
     @Value("${cms.datasource.defaultResultRootElement}")
     public void setDefaultDataSourceRootElementName( final String defaultDataSourceRootElementName )
     {
@@ -5,10 +5,17 @@
 
 package com.enonic.cms.core.portal.datasource.executor;
 
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
 import org.jdom.Document;
 import org.jdom.Element;
 
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 
 import com.enonic.cms.framework.xml.XMLDocument;
 import com.enonic.cms.framework.xml.XMLDocumentFactory;
@@ -23,8 +30,12 @@ import com.enonic.cms.core.portal.datasource.xml.DataSourcesElement;
 import com.enonic.cms.core.portal.livetrace.DatasourceExecutionTrace;
 import com.enonic.cms.core.portal.livetrace.DatasourceExecutionTracer;
 import com.enonic.cms.core.portal.livetrace.LivePortalTraceService;
+import com.enonic.cms.core.portal.rendering.RenderTaskExecutor;
 import com.enonic.cms.core.portal.rendering.tracing.DataTraceInfo;
 import com.enonic.cms.core.portal.rendering.tracing.RenderTrace;
+import com.enonic.cms.core.preview.PreviewContext;
+import com.enonic.cms.core.security.user.UserKey;
+import com.enonic.cms.store.dao.UserDao;
 
 final class DataSourceExecutorImpl
     implements DataSourceExecutor
@@ -41,6 +52,10 @@ final class DataSourceExecutorImpl
 
     private DataSourceInvoker invoker;
 
+    private RenderTaskExecutor renderTaskExecutor;
+
+    private UserDao userDao;
+
     public DataSourceExecutorImpl( final DataSourceExecutorContext context )
     {
         this.context = context;
@@ -71,9 +86,16 @@ final class DataSourceExecutorImpl
 
         executeContext( result );
 
-        for ( final DataSourceElement ds : element.getList() )
+        if ( isExecutedConcurrently( element ) )
         {
-            executeDataSource( result, ds );
+            executeDataSourcesConcurrently( result, element.getList() );
+        }
+        else
+        {
+            for ( final DataSourceElement ds : element.getList() )
+            {
+                executeDataSource( result, ds );
+            }
         }
 
         final Document resultDoc = new Document( result.getRootElement() );
@@ -110,6 +132,92 @@ final class DataSourceExecutorImpl
 
     }
 
+    /**
+     * Previewed entities are not stored, so datasources are executed one by one when previewing.
+     */
+    private boolean isExecutedConcurrently( final DataSourcesElement element )
+    {
+        final PreviewContext previewContext = this.context.getPreviewContext();
+        return ( this.renderTaskExecutor != null ) && this.renderTaskExecutor.isEnabled() && ( element.getList().size() > 1 ) &&
+            ( previewContext == null || !previewContext.isPreviewing() );
+    }
+
+    /**
+     * Conditions and parameters are evaluated here, since the expression functions are bound to this thread. The
+     * invocations are done by the render task executor, and the results are added in declaration order. The user of
+     * each request is loaded again in the session of the render thread, since the user of this thread belongs to the
+     * request session.
+     */
+    private void executeDataSourcesConcurrently( final DataSourceResultBuilder result, final List<DataSourceElement> dataSources )
+    {
+        final List<Future<Document>> docs = Lists.newArrayList();
+
+        for ( final DataSourceElement ds : dataSources )
+        {
+            final boolean runnableByCondition = isRunnableByCondition( ds );
+            final DataSourceRequest request = runnableByCondition ? createRequest( ds ) : null;
+            final UserKey userKey = ( request != null && request.getUser() != null ) ? request.getUser().getKey() : null;
+
+            docs.add( this.renderTaskExecutor.submit( new Callable<Document>()
+            {
+                public Document call()
+                {
+                    if ( userKey != null )
+                    {
+                        request.setUser( userDao.findByKey( userKey ) );
+                    }
+
+                    return executeDataSource( ds, request );
+                }
+            } ) );
+        }
+
+        for ( int i = 0; i < dataSources.size(); i++ )
+        {
+            final Document doc = getResult( docs.get( i ) );
+
+            if ( doc != null )
+            {
+                addResult( result, dataSources.get( i ), doc );
+            }
+        }
+    }
+
+    private Document executeDataSource( final DataSourceElement ds, final DataSourceRequest request )
+    {
+        final DatasourceExecutionTrace trace =
+            DatasourceExecutionTracer.startTracing( this.context.getDataSourceType(), ds.getName(), this.livePortalTraceService );
+
+        try
+        {
+            DatasourceExecutionTracer.traceRunnableCondition( trace, ds.getCondition() );
+            DatasourceExecutionTracer.traceIsExecuted( trace, request != null );
+
+            return request != null ? doExecuteDataSource( request, trace ) : null;
+        }
+        finally
+        {
+            DatasourceExecutionTracer.stopTracing( trace, livePortalTraceService );
+        }
+    }
+
+    private Document getResult( final Future<Document> doc )
+    {
+        try
+        {
+            return doc.get();
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate( e );
+        }
+        catch ( final ExecutionException e )
+        {
+            throw Throwables.propagate( e.getCause() );
+        }
+    }
+
     protected boolean isRunnableByCondition( final DataSourceElement dataSource )
     {
         final String condition = dataSource.getCondition();
@@ -170,13 +278,32 @@ final class DataSourceExecutorImpl
         this.invoker = invoker;
     }
 
+    public void setRenderTaskExecutor( final RenderTaskExecutor renderTaskExecutor )
+    {
+        this.renderTaskExecutor = renderTaskExecutor;
+    }
+
+    public void setUserDao( final UserDao userDao )
+    {
+        this.userDao = userDao;
+    }
+
     private void doExecuteDataSource( final DataSourceResultBuilder result, final DataSourceElement element,
                                       final DatasourceExecutionTrace trace )
     {
-        final DataSourceRequestFactory factory = new DataSourceRequestFactory( this.expressionFunctionsExecutor, this.context );
-        final DataSourceRequest request = factory.createRequest( element );
+        final DataSourceRequest request = createRequest( element );
         final Document doc = doExecuteDataSource( request, trace );
+        addResult( result, element, doc );
+    }
 
+    private DataSourceRequest createRequest( final DataSourceElement element )
+    {
+        final DataSourceRequestFactory factory = new DataSourceRequestFactory( this.expressionFunctionsExecutor, this.context );
+        return factory.createRequest( element );
+    }
+
+    private void addResult( final DataSourceResultBuilder result, final DataSourceElement element, final Document doc )
+    {
         final String groupName = Strings.emptyToNull( element.getResultElement() );
         final Element resultElement = (Element) doc.getRootElement().clone();
 
@@ -200,26 +327,19 @@ final class DataSourceExecutorImpl
 
     private Document doExecuteDataSource( final DataSourceRequest request, final DataSourceInvocationCache cache )
     {
-        Document result = null;
-
-        if ( request.isCache() )
+        if ( !request.isCache() )
         {
-            result = cache.get( request );
+            return this.invoker.execute( request );
         }
 
+        final Document result = cache.get( request );
+
         if ( result != null )
         {
             DatasourceExecutionTracer.traceIsCacheUsed( true, this.livePortalTraceService );
             return result;
         }
 
-        result = this.invoker.execute( request );
-
-        if ( request.isCache() )
-        {
-            cache.put( request, result );
-        }
-
-        return result;
+        return cache.invoke( request, this.invoker );
     }
 }
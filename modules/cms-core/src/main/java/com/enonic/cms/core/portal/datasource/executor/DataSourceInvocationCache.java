@@ -4,21 +4,30 @@
  */
 package com.enonic.cms.core.portal.datasource.executor;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
-import org.elasticsearch.common.collect.Maps;
 import org.jdom.Document;
 
+import com.google.common.base.Throwables;
+
 import com.enonic.cms.core.portal.datasource.handler.DataSourceRequest;
 
+/**
+ * Datasource results of one page request. It is shared by windows and datasources that are executed
+ * concurrently, and equal requests that are invoked at the same time are only executed once.
+ */
 public final class DataSourceInvocationCache
 {
-    private final HashMap<String, Document> cache;
+    private final ConcurrentHashMap<String, Future<Document>> cache;
 
     public DataSourceInvocationCache()
     {
-        this.cache = Maps.newHashMap();
+        this.cache = new ConcurrentHashMap<String, Future<Document>>();
     }
 
     private String createCacheKey( final DataSourceRequest req )
@@ -34,15 +43,64 @@ public final class DataSourceInvocationCache
         return str.toString();
     }
 
+    /**
+     * Return the cached result, waiting for it if the request is being invoked by another thread.
+     */
     public Document get( final DataSourceRequest req )
     {
         final String key = createCacheKey( req );
-        return this.cache.get( key );
+        final Future<Document> result = this.cache.get( key );
+        return result != null ? getResult( result ) : null;
     }
 
-    public void put( final DataSourceRequest req, final Document doc )
+    /**
+     * Invoke the request and cache the result. If an equal request is already cached or being invoked, that
+     * result is returned instead. Failed invocations are not cached.
+     */
+    public Document invoke( final DataSourceRequest req, final DataSourceInvoker invoker )
     {
         final String key = createCacheKey( req );
-        this.cache.put( key, doc );
+        final FutureTask<Document> task = new FutureTask<Document>( new Callable<Document>()
+        {
+            public Document call()
+            {
+                return invoker.execute( req );
+            }
+        } );
+
+        final Future<Document> existing = this.cache.putIfAbsent( key, task );
+        if ( existing != null )
+        {
+            return getResult( existing );
+        }
+
+        task.run();
+
+        try
+        {
+            return getResult( task );
+        }
+        catch ( final RuntimeException e )
+        {
+            this.cache.remove( key, task );
+            throw e;
+        }
+    }
+
+    private Document getResult( final Future<Document> result )
+    {
+        try
+        {
+            return result.get();
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate( e );
+        }
+        catch ( final ExecutionException e )
+        {
+            throw Throwables.propagate( e.getCause() );
+        }
     }
 }
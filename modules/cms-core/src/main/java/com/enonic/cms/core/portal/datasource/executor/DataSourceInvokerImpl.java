@@ -13,16 +13,27 @@ import org.springframework.stereotype.Component;
 
 import com.google.common.collect.Maps;
 
+import com.enonic.cms.core.metrics.MetricsRegistry;
+import com.enonic.cms.core.metrics.Timer;
 import com.enonic.cms.core.portal.datasource.DataSourceException;
+import com.enonic.cms.core.portal.datasource.cache.DataSourceResultCache;
 import com.enonic.cms.core.portal.datasource.handler.DataSourceHandler;
 import com.enonic.cms.core.portal.datasource.handler.DataSourceRequest;
+import com.enonic.cms.core.portal.livetrace.DatasourceExecutionTracer;
+import com.enonic.cms.core.portal.livetrace.LivePortalTraceService;
 
 @Component
 public final class DataSourceInvokerImpl
     implements DataSourceInvoker
 {
+    private final static Timer INVOKE_TIMER = MetricsRegistry.getInstance().timer( "portal_datasource_invoke", "Datasource calls" );
+
     private final Map<String, DataSourceHandler> handlers;
 
+    private DataSourceResultCache resultCache;
+
+    private LivePortalTraceService livePortalTraceService;
+
     public DataSourceInvokerImpl()
     {
         this.handlers = Maps.newHashMap();
@@ -30,6 +41,39 @@ public final class DataSourceInvokerImpl
 
     public Document execute( final DataSourceRequest req )
         throws DataSourceException
+    {
+        final Timer.Context timing = INVOKE_TIMER.start();
+        try
+        {
+            return doExecuteCached( req );
+        }
+        finally
+        {
+            timing.stop();
+        }
+    }
+
+    private Document doExecuteCached( final DataSourceRequest req )
+    {
+        if ( !req.isCache() || ( this.resultCache == null ) || !this.resultCache.isCacheable( req ) )
+        {
+            return doExecute( req );
+        }
+
+        final Document cached = this.resultCache.get( req );
+        if ( cached != null )
+        {
+            DatasourceExecutionTracer.traceIsCacheUsed( true, this.livePortalTraceService );
+            return cached;
+        }
+
+        final long time = this.resultCache.getTime();
+        final Document result = doExecute( req );
+        this.resultCache.put( req, result, time );
+        return result;
+    }
+
+    private Document doExecute( final DataSourceRequest req )
     {
         final DataSourceHandler handler = getHandler( req.getName() );
 
@@ -66,4 +110,16 @@ public final class DataSourceInvokerImpl
             this.handlers.put( handler.getName(), handler );
         }
     }
+
+    @Autowired
+    public void setResultCache( final DataSourceResultCache resultCache )
+    {
+        this.resultCache = resultCache;
+    }
+
+    @Autowired
+    public void setLivePortalTraceService( final LivePortalTraceService livePortalTraceService )
+    {
+        this.livePortalTraceService = livePortalTraceService;
+    }
 }
@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Random;
 
 import org.apache.commons.lang.StringUtils;
 import org.jdom.Document;
@@ -75,6 +76,7 @@ import com.enonic.cms.core.structure.SiteEntity;
 import com.enonic.cms.core.structure.SiteKey;
 import com.enonic.cms.core.structure.SitePropertiesService;
 import com.enonic.cms.core.structure.SiteXmlCreator;
+import com.enonic.cms.core.structure.menuitem.snapshot.SiteMenuSnapshotService;
 import com.enonic.cms.core.structure.menuitem.MenuItemAccessResolver;
 import com.enonic.cms.core.structure.menuitem.MenuItemEntity;
 import com.enonic.cms.core.structure.menuitem.MenuItemKey;
@@ -93,6 +95,8 @@ import com.enonic.cms.store.dao.UserStoreDao;
 public final class DataSourceServiceImpl
     implements DataSourceService
 {
+    private final static Random RANDOM = new Random();
+
     private ContentService contentService;
 
     private PreferenceService preferenceService;
@@ -113,6 +117,9 @@ public final class DataSourceServiceImpl
     @Autowired
     private MenuHandler menuHandler;
 
+    @Autowired
+    private SiteMenuSnapshotService siteMenuSnapshotService;
+
     private UserDao userDao;
 
     @Autowired
@@ -300,7 +307,8 @@ public final class DataSourceServiceImpl
         contentByCategoryQuery.setCategoryKeyFilter( categoryKeySet, levels );
         contentByCategoryQuery.setIndex( 0 );
         contentByCategoryQuery.setQuery( query );
-        contentByCategoryQuery.setCount( Integer.MAX_VALUE );
+        contentByCategoryQuery.setCount( Math.max( count, 0 ) );
+        contentByCategoryQuery.setRandomOrder( RANDOM.nextLong() );
         contentByCategoryQuery.setFilterContentOnlineAt( now );
 
         ContentResultSet contents = contentService.queryContent( contentByCategoryQuery );
@@ -375,14 +383,18 @@ public final class DataSourceServiceImpl
             return SiteXmlCreator.createEmptyMenus();
         }
 
-        SiteXmlCreator siteXmlCreator =
-            new SiteXmlCreator( new MenuItemAccessResolver( groupDao ), context.getPreviewContext().getMenuItemInPreviewOrNull(),
-                                menuHandler );
+        final MenuItemEntity menuItemInPreview = context.getPreviewContext().getMenuItemInPreviewOrNull();
+        final UserEntity user = getUserEntity( context.getUser() );
+        SiteXmlCreator siteXmlCreator = new SiteXmlCreator( new MenuItemAccessResolver( groupDao ), menuItemInPreview, menuHandler );
         siteXmlCreator.setUserXmlAsAdminConsoleStyle( false );
-        siteXmlCreator.setUser( getUserEntity( context.getUser() ) );
+        siteXmlCreator.setUser( user );
         siteXmlCreator.setActiveMenuItem( menuItemDao.findByKey( new MenuItemKey( tagItem ) ) );
         siteXmlCreator.setMenuItemLevels( levels );
         siteXmlCreator.setIncludeHiddenMenuItems( includeHidden );
+        if ( menuItemInPreview == null )
+        {
+            siteXmlCreator.setMenuSnapshotXmlCreator( siteMenuSnapshotService.createXmlCreator( site, user ) );
+        }
 
         return siteXmlCreator.createLegacyGetMenu( site, sitePropertiesService.getSiteProperties( site.getKey() ) );
     }
@@ -423,9 +435,8 @@ public final class DataSourceServiceImpl
             return SiteXmlCreator.createEmptyMenuBranch();
         }
 
-        SiteXmlCreator siteXmlCreator =
-            new SiteXmlCreator( new MenuItemAccessResolver( groupDao ), context.getPreviewContext().getMenuItemInPreviewOrNull(),
-                                menuHandler );
+        final MenuItemEntity menuItemInPreview = context.getPreviewContext().getMenuItemInPreviewOrNull();
+        SiteXmlCreator siteXmlCreator = new SiteXmlCreator( new MenuItemAccessResolver( groupDao ), menuItemInPreview, menuHandler );
         siteXmlCreator.setUserXmlAsAdminConsoleStyle( false );
 
         siteXmlCreator.setMenuItemInBranch( menuItem );
@@ -434,6 +445,10 @@ public final class DataSourceServiceImpl
         siteXmlCreator.setBranchStartLevel( startLevel );
         siteXmlCreator.setIncludeTopLevel( topLevel );
         siteXmlCreator.setUser( context.getUser() );
+        if ( menuItemInPreview == null )
+        {
+            siteXmlCreator.setMenuSnapshotXmlCreator( siteMenuSnapshotService.createXmlCreator( menuItem.getSite(), context.getUser() ) );
+        }
 
         return siteXmlCreator.createLegacyGetMenuBranch( menuItem.getSite() );
     }
@@ -472,17 +487,21 @@ public final class DataSourceServiceImpl
             return SiteXmlCreator.createEmptyMenuItems();
         }
 
-        SiteXmlCreator siteXmlCreator =
-            new SiteXmlCreator( new MenuItemAccessResolver( groupDao ), context.getPreviewContext().getMenuItemInPreviewOrNull(),
-                                menuHandler );
+        final MenuItemEntity menuItemInPreview = context.getPreviewContext().getMenuItemInPreviewOrNull();
+        final UserEntity user = getUserEntity( context.getUser() );
+        SiteXmlCreator siteXmlCreator = new SiteXmlCreator( new MenuItemAccessResolver( groupDao ), menuItemInPreview, menuHandler );
         siteXmlCreator.setUserXmlAsAdminConsoleStyle( false );
-        siteXmlCreator.setUser( getUserEntity( context.getUser() ) );
+        siteXmlCreator.setUser( user );
         siteXmlCreator.setMenuItemInBranch( menuItem );
         siteXmlCreator.setMenuItemLevels( levels );
         if ( tagItem > -1 )
         {
             siteXmlCreator.setActiveMenuItem( menuItemDao.findByKey( new MenuItemKey( tagItem ) ) );
         }
+        if ( menuItemInPreview == null )
+        {
+            siteXmlCreator.setMenuSnapshotXmlCreator( siteMenuSnapshotService.createXmlCreator( menuItem.getSite(), user ) );
+        }
 
         return siteXmlCreator.createLegacyGetSubMenu( menuItem.getSite() );
     }
@@ -1090,7 +1109,8 @@ public final class DataSourceServiceImpl
         spec.setSectionFilterStatus( SectionFilterStatus.APPROVED_ONLY );
         spec.setLevels( levels );
         spec.setIndex( 0 );
-        spec.setCount( Integer.MAX_VALUE );
+        spec.setCount( Math.max( count, 0 ) );
+        spec.setRandomOrder( RANDOM.nextLong() );
         spec.setQuery( query );
         spec.setFilterContentOnlineAt( now );
 
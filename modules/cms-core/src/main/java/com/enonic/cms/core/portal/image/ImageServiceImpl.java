@@ -29,6 +29,8 @@ import com.enonic.cms.core.content.binary.BinaryDataEntity;
 import com.enonic.cms.core.image.ImageRequest;
 import com.enonic.cms.core.image.ImageResponse;
 import com.enonic.cms.core.image.cache.ImageCache;
+import com.enonic.cms.core.metrics.MetricsRegistry;
+import com.enonic.cms.core.metrics.Timer;
 import com.enonic.cms.core.portal.livetrace.ImageRequestTrace;
 import com.enonic.cms.core.portal.livetrace.ImageRequestTracer;
 import com.enonic.cms.core.portal.livetrace.LivePortalTraceService;
@@ -67,6 +69,8 @@ public final class ImageServiceImpl
 
     private static GenericConcurrencyLock<String> concurrencyLock = GenericConcurrencyLock.create();
 
+    private final static Timer PROCESS_TIMER = MetricsRegistry.getInstance().timer( "portal_image_process", "Image requests, including scaling" );
+
     private File directory;
 
     public ImageServiceImpl()
@@ -99,6 +103,7 @@ public final class ImageServiceImpl
 
         imageRequest.setBlobKey( blobKey );
 
+        final Timer.Context timing = PROCESS_TIMER.start();
         final Lock locker = concurrencyLock.getLock( imageRequest.getCacheKey() );
         try
         {
@@ -136,6 +141,7 @@ public final class ImageServiceImpl
         finally
         {
             locker.unlock();
+            timing.stop();
         }
     }
 
@@ -4,6 +4,10 @@
  */
 package com.enonic.cms.core.portal.instruction;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+
 import javax.servlet.http.HttpServletRequest;
 
 import com.enonic.cms.core.SiteURLResolver;
@@ -35,6 +39,27 @@ public class PostProcessInstructionContext
 
     private SiteURLResolver siteURLResolverDisableHtmlEscaping;
 
+    private final Map<RenderWindowInstruction, Future<String>> windowsInProgress = new HashMap<RenderWindowInstruction, Future<String>>();
+
+    public PostProcessInstructionContext()
+    {
+    }
+
+    /**
+     * Copy the given context, without the windows in progress.
+     */
+    public PostProcessInstructionContext( final PostProcessInstructionContext source )
+    {
+        this.windowRendererContext = source.windowRendererContext;
+        this.previewContext = source.previewContext;
+        this.httpRequest = source.httpRequest;
+        this.site = source.site;
+        this.encodeImageUrlParams = source.encodeImageUrlParams;
+        this.inContextOfWindow = source.inContextOfWindow;
+        this.siteURLResolverEnableHtmlEscaping = source.siteURLResolverEnableHtmlEscaping;
+        this.siteURLResolverDisableHtmlEscaping = source.siteURLResolverDisableHtmlEscaping;
+    }
+
     public WindowRendererContext getWindowRendererContext()
     {
         return windowRendererContext;
@@ -114,4 +139,22 @@ public class PostProcessInstructionContext
     {
         this.siteURLResolverDisableHtmlEscaping = siteURLResolverDisableHtmlEscaping;
     }
+
+    public Future<String> getWindowInProgress( RenderWindowInstruction instruction )
+    {
+        return windowsInProgress.get( instruction );
+    }
+
+    public void addWindowInProgress( RenderWindowInstruction instruction, Future<String> result )
+    {
+        windowsInProgress.put( instruction, result );
+    }
+
+    public void cancelWindowsInProgress()
+    {
+        for ( Future<String> result : windowsInProgress.values() )
+        {
+            result.cancel( true );
+        }
+    }
 }
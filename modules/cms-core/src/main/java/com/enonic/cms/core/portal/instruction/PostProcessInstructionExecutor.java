@@ -4,11 +4,25 @@
  */
 package com.enonic.cms.core.portal.instruction;
 
+import java.util.List;
+
 /**
  * Created by rmy - Date: Nov 18, 2009
  */
 public interface PostProcessInstructionExecutor
 {
+    /**
+     * Called with all instructions in a document before they are executed one by one, so that the executor may
+     * start on them ahead of time.
+     */
+    public void prepare( List<PostProcessInstruction> instructions, PostProcessInstructionContext context );
+
+    /**
+     * Return true if prepare would start on any instructions in the context, so that documents are only parsed for it
+     * when needed.
+     */
+    public boolean isPrepareNeeded( PostProcessInstructionContext context );
+
     public String execute( PostProcessInstruction instruction, PostProcessInstructionContext context );
 
 }                                  
@@ -5,7 +5,11 @@
 package com.enonic.cms.core.portal.instruction;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
@@ -13,6 +17,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.google.common.collect.Lists;
+
 import com.enonic.cms.framework.util.UrlPathEncoder;
 
 import com.enonic.cms.core.Path;
@@ -27,25 +33,36 @@ import com.enonic.cms.core.content.binary.BinaryDataEntity;
 import com.enonic.cms.core.image.ImageRequest;
 import com.enonic.cms.core.image.ImageRequestParams;
 import com.enonic.cms.core.image.ImageRequestParser;
+import com.enonic.cms.core.language.LanguageKey;
 import com.enonic.cms.core.link.NativeLinkKey;
 import com.enonic.cms.core.portal.PathToContentResolver;
 import com.enonic.cms.core.portal.ReservedLocalPaths;
 import com.enonic.cms.core.portal.image.ImageService;
+import com.enonic.cms.core.portal.rendering.RegionsResolver;
+import com.enonic.cms.core.portal.rendering.RenderTaskExecutor;
 import com.enonic.cms.core.portal.rendering.RenderedWindowResult;
 import com.enonic.cms.core.portal.rendering.WindowRenderer;
+import com.enonic.cms.core.portal.rendering.WindowRendererContext;
 import com.enonic.cms.core.portal.rendering.WindowRendererFactory;
 import com.enonic.cms.core.portal.rendering.portalfunctions.PortalFunctionException;
 import com.enonic.cms.core.resource.FileResource;
 import com.enonic.cms.core.resource.FileResourceName;
 import com.enonic.cms.core.resource.FileResourceService;
+import com.enonic.cms.core.security.user.UserKey;
 import com.enonic.cms.core.structure.SiteEntity;
+import com.enonic.cms.core.structure.SiteKey;
 import com.enonic.cms.core.structure.SitePath;
 import com.enonic.cms.core.structure.menuitem.MenuItemEntity;
 import com.enonic.cms.core.structure.menuitem.MenuItemKey;
 import com.enonic.cms.core.structure.page.WindowKey;
+import com.enonic.cms.core.structure.page.template.PageTemplateEntity;
 import com.enonic.cms.store.dao.ContentDao;
+import com.enonic.cms.store.dao.LanguageDao;
 import com.enonic.cms.store.dao.MenuItemDao;
+import com.enonic.cms.store.dao.PageTemplateDao;
 import com.enonic.cms.store.dao.SectionContentDao;
+import com.enonic.cms.store.dao.SiteDao;
+import com.enonic.cms.store.dao.UserDao;
 
 @Component
 public class PostProcessInstructionExecutorImpl
@@ -73,6 +90,69 @@ public class PostProcessInstructionExecutorImpl
 
     private SectionContentDao sectionContentDao;
 
+    private RenderTaskExecutor renderTaskExecutor;
+
+    private SiteDao siteDao;
+
+    private UserDao userDao;
+
+    private LanguageDao languageDao;
+
+    private PageTemplateDao pageTemplateDao;
+
+    /**
+     * Starts rendering the windows of a page on the render task executor, when it is enabled. The rendered windows
+     * are picked up in document order when their instructions are executed.
+     */
+    public void prepare( final List<PostProcessInstruction> instructions, final PostProcessInstructionContext context )
+    {
+        if ( !isPrepareNeeded( context ) )
+        {
+            return;
+        }
+
+        final List<RenderWindowInstruction> windowInstructions = Lists.newArrayList();
+        for ( PostProcessInstruction instruction : instructions )
+        {
+            if ( instruction instanceof RenderWindowInstruction && context.getWindowInProgress( (RenderWindowInstruction) instruction ) == null )
+            {
+                windowInstructions.add( (RenderWindowInstruction) instruction );
+            }
+        }
+
+        if ( windowInstructions.size() < 2 )
+        {
+            return;
+        }
+
+        final TaskContextLoader taskContextLoader = new TaskContextLoader( context );
+
+        for ( final RenderWindowInstruction instruction : windowInstructions )
+        {
+            // the instruction is the key of the result, so render a copy since rendering changes the params
+            final RenderWindowInstruction copy = new RenderWindowInstruction();
+            copy.setPortletWindowKey( instruction.getPortletWindowKey() );
+            copy.setParams( instruction.getParams().clone() );
+
+            final Future<String> result = renderTaskExecutor.submit( new Callable<String>()
+            {
+                public String call()
+                {
+                    return executeRenderWindowInstruction( copy, taskContextLoader.load() );
+                }
+            } );
+
+            context.addWindowInProgress( instruction, result );
+        }
+    }
+
+    public boolean isPrepareNeeded( final PostProcessInstructionContext context )
+    {
+        // previewed entities are not stored, so they can not be loaded by the render threads
+        return renderTaskExecutor.isEnabled() && !context.isInContextOfWindow() &&
+            !( context.getPreviewContext() != null && context.getPreviewContext().isPreviewing() );
+    }
+
     public String execute( PostProcessInstruction instruction, PostProcessInstructionContext context )
     {
         PostProcessInstructionType type = instruction.getType();
@@ -264,8 +344,40 @@ public class PostProcessInstructionExecutorImpl
         return returnResult( instruction, result );
     }
 
+    private String getRenderedWindow( final Future<String> result, final PostProcessInstructionContext context )
+    {
+        try
+        {
+            return result.get();
+        }
+        catch ( InterruptedException e )
+        {
+            context.cancelWindowsInProgress();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "Interrupted while waiting for window to be rendered", e );
+        }
+        catch ( ExecutionException e )
+        {
+            // stop rendering the other windows ahead of time, they are rendered one by one on this thread instead
+            context.cancelWindowsInProgress();
+
+            if ( e.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException( e.getCause() );
+        }
+    }
+
     private String executeRenderWindowInstruction( RenderWindowInstruction instruction, PostProcessInstructionContext context )
     {
+        final Future<String> renderedWindow = context.getWindowInProgress( instruction );
+        if ( renderedWindow != null && !renderedWindow.isCancelled() )
+        {
+            return getRenderedWindow( renderedWindow, context );
+        }
+
         WindowKey portletWindowKey = new WindowKey( instruction.getPortletWindowKey() );
 
         String[] params = instruction.getParams();
@@ -526,4 +638,97 @@ public class PostProcessInstructionExecutorImpl
     {
         this.sectionContentDao = sectionContentDao;
     }
+
+    @Autowired
+    public void setRenderTaskExecutor( RenderTaskExecutor renderTaskExecutor )
+    {
+        this.renderTaskExecutor = renderTaskExecutor;
+    }
+
+    @Autowired
+    public void setSiteDao( SiteDao siteDao )
+    {
+        this.siteDao = siteDao;
+    }
+
+    @Autowired
+    public void setUserDao( UserDao userDao )
+    {
+        this.userDao = userDao;
+    }
+
+    @Autowired
+    public void setLanguageDao( LanguageDao languageDao )
+    {
+        this.languageDao = languageDao;
+    }
+
+    @Autowired
+    public void setPageTemplateDao( PageTemplateDao pageTemplateDao )
+    {
+        this.pageTemplateDao = pageTemplateDao;
+    }
+
+    /**
+     * Holds the keys of the entities in a window render context, so that a render thread can load them in its own
+     * session. Entities of the request session must not be touched by the render threads, since sessions are not
+     * thread safe.
+     */
+    private final class TaskContextLoader
+    {
+        private final PostProcessInstructionContext source;
+
+        private final SiteKey siteKey;
+
+        private final UserKey rendererKey;
+
+        private final MenuItemKey menuItemKey;
+
+        private final ContentKey contentFromRequestKey;
+
+        private final LanguageKey languageKey;
+
+        private final Integer pageTemplateKey;
+
+        private TaskContextLoader( final PostProcessInstructionContext source )
+        {
+            final WindowRendererContext windowContext = source.getWindowRendererContext();
+            this.source = source;
+            this.siteKey = windowContext.getSite().getKey();
+            this.rendererKey = windowContext.getRenderer() != null ? windowContext.getRenderer().getKey() : null;
+            this.menuItemKey = windowContext.getMenuItem() != null ? windowContext.getMenuItem().getKey() : null;
+            this.contentFromRequestKey =
+                windowContext.getContentFromRequest() != null ? windowContext.getContentFromRequest().getKey() : null;
+            this.languageKey = windowContext.getLanguage() != null ? windowContext.getLanguage().getKey() : null;
+            this.pageTemplateKey = windowContext.getPageTemplate() != null ? windowContext.getPageTemplate().getKey() : null;
+        }
+
+        /**
+         * Return a copy of the context with entities loaded in the session of the calling thread.
+         */
+        public PostProcessInstructionContext load()
+        {
+            final WindowRendererContext windowContext = new WindowRendererContext( this.source.getWindowRendererContext() );
+            final SiteEntity site = siteDao.findByKey( this.siteKey );
+            windowContext.setSite( site );
+            windowContext.setRenderer( this.rendererKey != null ? userDao.findByKey( this.rendererKey ) : null );
+            windowContext.setMenuItem( this.menuItemKey != null ? menuItemDao.findByKey( this.menuItemKey ) : null );
+            windowContext.setContentFromRequest(
+                this.contentFromRequestKey != null ? contentDao.findByKey( this.contentFromRequestKey ) : null );
+            windowContext.setLanguage( this.languageKey != null ? languageDao.findByKey( this.languageKey ) : null );
+
+            final PageTemplateEntity pageTemplate = this.pageTemplateKey != null ? pageTemplateDao.findByKey( this.pageTemplateKey ) : null;
+            windowContext.setPageTemplate( pageTemplate );
+            if ( pageTemplate != null && windowContext.getMenuItem() != null )
+            {
+                windowContext.setRegionsInPage(
+                    RegionsResolver.resolveRegionsForPageRequest( windowContext.getMenuItem(), pageTemplate, windowContext.getPageRequestType() ) );
+            }
+
+            final PostProcessInstructionContext context = new PostProcessInstructionContext( this.source );
+            context.setWindowRendererContext( windowContext );
+            context.setSite( site );
+            return context;
+        }
+    }
 }
@@ -4,6 +4,9 @@
  */
 package com.enonic.cms.core.portal.instruction;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Created by IntelliJ IDEA.
  * User: rmh
@@ -23,6 +26,32 @@ public class PostProcessInstructionProcessor
     }
 
     public String processInstructions( String document )
+    {
+        if ( !executor.isPrepareNeeded( context ) )
+        {
+            return doProcessInstructions( document );
+        }
+
+        executor.prepare( parseInstructions( document ), context );
+
+        boolean completed = false;
+        try
+        {
+            final String result = doProcessInstructions( document );
+            completed = true;
+            return result;
+        }
+        finally
+        {
+            // windows rendered ahead of time are not needed when the document fails
+            if ( !completed )
+            {
+                context.cancelWindowsInProgress();
+            }
+        }
+    }
+
+    private String doProcessInstructions( String document )
     {
         PostProcessInstructionParser parser = new PostProcessInstructionParser( document );
 
@@ -55,6 +84,21 @@ public class PostProcessInstructionProcessor
         return resultBuffer.toString();
     }
 
+    private List<PostProcessInstruction> parseInstructions( String document )
+    {
+        PostProcessInstructionParser parser = new PostProcessInstructionParser( document );
+
+        List<PostProcessInstruction> instructions = new ArrayList<PostProcessInstruction>();
+
+        PostProcessInstruction instruction = parser.next();
+
+        while ( instruction != null )
+        {
+            instructions.add( instruction );
+            instruction = parser.next();
+        }
 
+        return instructions;
+    }
 }
 
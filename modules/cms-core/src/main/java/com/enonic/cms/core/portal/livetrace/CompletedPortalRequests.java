@@ -6,41 +6,63 @@ package com.enonic.cms.core.portal.livetrace;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
-import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 
 /**
  * Oct 6, 2010
+ * <p/>
+ * Completed requests are kept in a ring buffer, so that adding a request never waits for other threads. A request
+ * being added is not returned until the requests completed before it are added too.
  */
 public class CompletedPortalRequests
 {
-    private static long historyCounter = 0;
+    private final AtomicLong historyCounter = new AtomicLong();
 
-    private int maxSize;
+    private final int maxSize;
 
-    private final LinkedList<PortalRequestTrace> list = new LinkedList<PortalRequestTrace>();
+    private final AtomicReferenceArray<PortalRequestTrace> ring;
 
     public CompletedPortalRequests( int maxSize )
     {
         this.maxSize = maxSize;
+        this.ring = new AtomicReferenceArray<PortalRequestTrace>( Math.max( 1, maxSize ) );
     }
 
     public void add( PortalRequestTrace portalRequestTrace )
     {
-        synchronized ( list )
-        {
-            portalRequestTrace.setCompletedNumber( ++historyCounter );
-            list.addFirst( portalRequestTrace );
-            doRetainSize();
-        }
+        final long completedNumber = historyCounter.incrementAndGet();
+        portalRequestTrace.setCompletedNumber( completedNumber );
+        ring.set( indexOf( completedNumber ), portalRequestTrace );
     }
 
     public List<PortalRequestTrace> getList()
     {
-        synchronized ( list )
+        final List<PortalRequestTrace> list = Lists.newArrayList();
+        final long last = historyCounter.get();
+
+        for ( long completedNumber = last; completedNumber > Math.max( 0, last - ring.length() ); completedNumber-- )
         {
-            return ImmutableList.copyOf( list );
+            final PortalRequestTrace trace = ring.get( indexOf( completedNumber ) );
+            if ( trace == null || trace.getCompletedNumber() < completedNumber )
+            {
+                // still being added, so leave out the requests completed after it
+                list.clear();
+            }
+            else if ( trace.getCompletedNumber() > completedNumber )
+            {
+                // overwritten by a newer request, so the rest are gone too
+                break;
+            }
+            else
+            {
+                list.add( trace );
+            }
         }
+
+        return list;
     }
 
     public List<PortalRequestTrace> getCompletedAfter( long completedNumber )
@@ -69,16 +91,13 @@ public class CompletedPortalRequests
         return list;
     }
 
-    private void doRetainSize()
+    private int indexOf( final long completedNumber )
     {
-        if ( list.size() > maxSize )
-        {
-            list.removeLast();
-        }
+        return (int) ( completedNumber % ring.length() );
     }
 
     public int getSize()
     {
-        return list.size();
+        return (int) Math.min( historyCounter.get(), maxSize );
     }
 }
@@ -27,6 +27,19 @@ public class CurrentTrace
 
     private XsltCompilationTrace xsltCompilationTrace;
 
+    /**
+     * Create a trace for rendering on another thread that continues the current portal request, page rendering
+     * and window rendering.
+     */
+    public CurrentTrace fork()
+    {
+        final CurrentTrace forked = new CurrentTrace();
+        forked.setPortalRequestTrace( portalRequestTrace );
+        forked.setPageRenderingTrace( pageRenderingTrace );
+        forked.setWindowRenderingTrace( windowRenderingTrace );
+        return forked;
+    }
+
     PortalRequestTrace getPortalRequestTrace()
     {
         return portalRequestTrace;
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.portal.livetrace;
+
+import com.enonic.cms.core.metrics.LatencyHistogram;
+import com.enonic.cms.core.metrics.LatencyRecorder;
+
+/**
+ * Percentiles of the latencies recorded by a {@link LatencyRecorder}, in milliseconds.
+ */
+public class LatencySummary
+{
+    private final String name;
+
+    private final long count;
+
+    private final long mean;
+
+    private final long p50;
+
+    private final long p95;
+
+    private final long p99;
+
+    private final long max;
+
+    public LatencySummary( final String name, final LatencyHistogram histogram )
+    {
+        this.name = name;
+        this.count = histogram.getCount();
+        this.mean = histogram.getMean();
+        this.p50 = histogram.getPercentile( 50 );
+        this.p95 = histogram.getPercentile( 95 );
+        this.p99 = histogram.getPercentile( 99 );
+        this.max = histogram.getMax();
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    public long getMean()
+    {
+        return mean;
+    }
+
+    public long getP50()
+    {
+        return p50;
+    }
+
+    public long getP95()
+    {
+        return p95;
+    }
+
+    public long getP99()
+    {
+        return p99;
+    }
+
+    public long getMax()
+    {
+        return max;
+    }
+}
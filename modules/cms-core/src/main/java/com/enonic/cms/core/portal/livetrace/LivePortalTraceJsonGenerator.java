@@ -48,6 +48,18 @@ public class LivePortalTraceJsonGenerator
         }
     }
 
+    public String generateLatencies( final List<LatencySummary> summaries )
+    {
+        try
+        {
+            return jacksonObjectMapper.writeValueAsString( summaries );
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Failed to transform objects to JSON: " + e.getMessage(), e );
+        }
+    }
+
     public String generate( final SystemInfo systemInfoObject )
     {
         try
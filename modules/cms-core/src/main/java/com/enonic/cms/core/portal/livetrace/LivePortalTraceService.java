@@ -48,6 +48,8 @@ public interface LivePortalTraceService
 
     CurrentTrace getCurrentTrace();
 
+    void setCurrentTrace( CurrentTrace currentTrace );
+
     void stopTracing( PortalRequestTrace livePortalRequestTrace );
 
     void stopTracing( PageRenderingTrace pageRenderTrace );
@@ -93,4 +95,8 @@ public interface LivePortalTraceService
     void clearLongestAttachmentRequestTraces();
 
     void clearLongestImageRequestTraces();
+
+    List<LatencySummary> getLatencySummaries();
+
+    void clearLatencies();
 }
@@ -16,7 +16,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 
+import com.enonic.cms.core.metrics.LatencyRecorder;
 import com.enonic.cms.core.portal.datasource.DataSourceType;
 import com.enonic.cms.core.structure.page.WindowKey;
 import com.enonic.cms.core.time.TimeService;
@@ -50,6 +52,16 @@ public class LivePortalTraceServiceImpl
 
     private LongestPortalRequests longestPortalImageRequests;
 
+    private LatencyRecorder pageRequestLatencies;
+
+    private LatencyRecorder attachmentRequestLatencies;
+
+    private LatencyRecorder imageRequestLatencies;
+
+    private LatencyRecorder windowRenderingLatencies;
+
+    private LatencyRecorder datasourceExecutionLatencies;
+
     private final static ThreadLocal<CurrentTrace> CURRENT_TRACE = new ThreadLocal<CurrentTrace>();
 
     @PostConstruct
@@ -63,6 +75,12 @@ public class LivePortalTraceServiceImpl
             longestPortalAttachmentRequests = new LongestPortalRequests( longestSize );
             longestPortalImageRequests = new LongestPortalRequests( longestSize );
             completedPortalRequests = new CompletedPortalRequests( historySize );
+
+            pageRequestLatencies = new LatencyRecorder( "Page requests" );
+            attachmentRequestLatencies = new LatencyRecorder( "Attachment requests" );
+            imageRequestLatencies = new LatencyRecorder( "Image requests" );
+            windowRenderingLatencies = new LatencyRecorder( "Window renderings" );
+            datasourceExecutionLatencies = new LatencyRecorder( "Datasource executions" );
         }
         else
         {
@@ -365,17 +383,21 @@ public class LivePortalTraceServiceImpl
 
         completedPortalRequests.add( portalRequestTrace );
 
+        final long duration = portalRequestTrace.getDuration().getAsMilliseconds();
         if ( portalRequestTrace.hasPageRenderingTrace() || portalRequestTrace.hasWindowRenderingTrace() )
         {
             longestPortalPageRequests.add( portalRequestTrace );
+            pageRequestLatencies.record( duration );
         }
         else if ( portalRequestTrace.hasAttachmentRequsetTrace() )
         {
             longestPortalAttachmentRequests.add( portalRequestTrace );
+            attachmentRequestLatencies.record( duration );
         }
         else if ( portalRequestTrace.hasImageRequestTrace() )
         {
             longestPortalImageRequests.add( portalRequestTrace );
+            imageRequestLatencies.record( duration );
         }
 
         getCurrentTrace().setPortalRequestTrace( null );
@@ -395,6 +417,7 @@ public class LivePortalTraceServiceImpl
         Preconditions.checkNotNull( windowRenderingTrace );
 
         windowRenderingTrace.setStopTime( timeService.getNowAsDateTime() );
+        windowRenderingLatencies.record( windowRenderingTrace.getDuration().getAsMilliseconds() );
 
         getCurrentTrace().setWindowRenderingTrace( null );
     }
@@ -410,6 +433,7 @@ public class LivePortalTraceServiceImpl
     {
         Preconditions.checkNotNull( datasourceExecutionTrace );
         datasourceExecutionTrace.setStopTime( timeService.getNowAsDateTime() );
+        datasourceExecutionLatencies.record( datasourceExecutionTrace.getDuration().getAsMilliseconds() );
 
         getCurrentTrace().setDatasourceExecutionTrace( null );
     }
@@ -465,7 +489,8 @@ public class LivePortalTraceServiceImpl
             int windowsTotalPeriod = windowRenderingTraces != null ? windowRenderingTraces.getTotalPeriodInMilliseconds() : 0;
             final long stopTime = timeService.getNowAsDateTime().getMillis();
             final long startTime = instructionPostProcessingTrace.getStartTime().getMillis();
-            final long duration = ( stopTime - startTime ) - windowsTotalPeriod;
+            // windows may have been rendered concurrently, so their total time can exceed the elapsed time
+            final long duration = Math.max( 0, ( stopTime - startTime ) - windowsTotalPeriod );
             instructionPostProcessingTrace.setDurationInMilliseconds( duration );
         }
         else if ( getCurrentTrace().getWindowRenderingTrace() != null )
@@ -534,6 +559,17 @@ public class LivePortalTraceServiceImpl
         return completedPortalRequests.getCompletedBefore( historyRecordNumber );
     }
 
+    public List<LatencySummary> getLatencySummaries()
+    {
+        checkEnabled();
+        final List<LatencySummary> summaries = Lists.newArrayList();
+        for ( LatencyRecorder recorder : getLatencyRecorders() )
+        {
+            summaries.add( new LatencySummary( recorder.getName(), recorder.snapshot() ) );
+        }
+        return summaries;
+    }
+
     public PortalRequestTrace getCurrentPortalRequestTrace()
     {
         if ( !enabled )
@@ -567,6 +603,21 @@ public class LivePortalTraceServiceImpl
         longestPortalImageRequests.clear();
     }
 
+    @Override
+    public void clearLatencies()
+    {
+        for ( LatencyRecorder recorder : getLatencyRecorders() )
+        {
+            recorder.clear();
+        }
+    }
+
+    private List<LatencyRecorder> getLatencyRecorders()
+    {
+        return Lists.newArrayList( pageRequestLatencies, windowRenderingLatencies, datasourceExecutionLatencies, imageRequestLatencies,
+                                   attachmentRequestLatencies );
+    }
+
     private void checkEnabled()
     {
         Preconditions.checkArgument( enabled, "Unexpected call when Live Portal Tracing is disabled" );
@@ -583,6 +634,18 @@ public class LivePortalTraceServiceImpl
         return currentTrace;
     }
 
+    public void setCurrentTrace( final CurrentTrace currentTrace )
+    {
+        if ( currentTrace == null )
+        {
+            CURRENT_TRACE.remove();
+        }
+        else
+        {
+            CURRENT_TRACE.set( currentTrace );
+        }
+    }
+
     @Autowired
     public void setTimeService( TimeService timeService )
     {
@@ -11,6 +11,8 @@ import com.google.common.collect.ImmutableList;
 
 /**
  * Oct 6, 2010
+ * <p/>
+ * When the list is full, requests shorter than the shortest request in it are dropped without taking the lock.
  */
 public class LongestPortalRequests
 {
@@ -18,6 +20,8 @@ public class LongestPortalRequests
 
     private final TreeSet<PortalRequestTrace> list;
 
+    private volatile long shortestDuration = -1;
+
     public LongestPortalRequests( int maxSize )
     {
         this.maxSize = maxSize;
@@ -26,6 +30,11 @@ public class LongestPortalRequests
 
     public void add( PortalRequestTrace item )
     {
+        if ( item.getDuration().getAsMilliseconds() < shortestDuration )
+        {
+            return;
+        }
+
         synchronized ( list )
         {
             list.add( item );
@@ -47,6 +56,11 @@ public class LongestPortalRequests
         {
             list.remove( list.last() );
         }
+
+        if ( list.size() >= maxSize && !list.isEmpty() )
+        {
+            shortestDuration = list.last().getDuration().getAsMilliseconds();
+        }
     }
 
     public void clear()
@@ -54,6 +68,7 @@ public class LongestPortalRequests
         synchronized ( list )
         {
             list.clear();
+            shortestDuration = -1;
         }
     }
 }
@@ -42,7 +42,7 @@ public class PageRenderingTrace
         return cacheUsage;
     }
 
-    void addWindowRenderingTrace( WindowRenderingTrace trace )
+    synchronized void addWindowRenderingTrace( WindowRenderingTrace trace )
     {
         if ( windowRenderingTraces == null )
         {
@@ -56,7 +56,7 @@ public class PageRenderingTrace
         return windowRenderingTraces;
     }
 
-    void addDatasourceExecutionTrace( DatasourceExecutionTrace trace )
+    synchronized void addDatasourceExecutionTrace( DatasourceExecutionTrace trace )
     {
         if ( datasourceExecutionTraces == null )
         {
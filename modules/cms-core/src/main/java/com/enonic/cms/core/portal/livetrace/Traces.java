@@ -37,7 +37,7 @@ public class Traces<T extends Trace>
         return list.iterator();
     }
 
-    public void add( T trace )
+    public synchronized void add( T trace )
     {
         trace.setContainer( this );
         list.add( trace );
@@ -60,7 +60,7 @@ public class Traces<T extends Trace>
         return hoursMinutesMillis.print( new Period( totalPeriodTimeInMilliseconds ) );
     }
 
-    void computeTotalPeriod()
+    synchronized void computeTotalPeriod()
     {
         int newTotalPeriodTimeInMilliseconds = 0;
         for ( Trace trace : list )
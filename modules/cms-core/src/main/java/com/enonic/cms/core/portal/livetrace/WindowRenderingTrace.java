@@ -64,7 +64,7 @@ public class WindowRenderingTrace
         this.renderer = renderer;
     }
 
-    public void addDatasourceExecutionTrace( DatasourceExecutionTrace trace )
+    public synchronized void addDatasourceExecutionTrace( DatasourceExecutionTrace trace )
     {
         if ( datasourceExecutionTraces == null )
         {
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.portal.rendering;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.zip.GZIPOutputStream;
+
+import com.enonic.esl.util.DigestUtil;
+
+/**
+ * Page content encoded for the response, with its ETag. The ETag and the gzipped body are made the first time they
+ * are asked for, since neither is needed by every response.
+ */
+public final class EncodedPageContent
+{
+    private final static String GZIP_ETAG_SUFFIX = "-gzip";
+
+    private final String content;
+
+    private final String contentEncoding;
+
+    private final byte[] bytes;
+
+    private volatile String etag;
+
+    private volatile byte[] gzippedBytes;
+
+    private EncodedPageContent( final String content, final String contentEncoding, final byte[] bytes )
+    {
+        this.content = content;
+        this.contentEncoding = contentEncoding;
+        this.bytes = bytes;
+    }
+
+    public static EncodedPageContent encode( final String content, final String contentEncoding )
+        throws UnsupportedEncodingException
+    {
+        return new EncodedPageContent( content, contentEncoding, content.getBytes( contentEncoding ) );
+    }
+
+    /**
+     * Return true if this is the given content in the given encoding.
+     */
+    public boolean isEncodingOf( final String content, final String contentEncoding )
+    {
+        return this.content.equals( content ) && this.contentEncoding.equalsIgnoreCase( contentEncoding );
+    }
+
+    public byte[] getBytes()
+    {
+        return bytes;
+    }
+
+    public String getEtag()
+    {
+        String etag = this.etag;
+        if ( etag == null )
+        {
+            // the etag is the digest of the UTF-8 bytes, so the bytes are only digested directly when they are UTF-8
+            final boolean utf8 = "UTF-8".equalsIgnoreCase( this.contentEncoding );
+            etag = "content_" + ( utf8 ? DigestUtil.generateSHA( this.bytes ) : DigestUtil.generateSHA( this.content ) );
+            this.etag = etag;
+        }
+
+        return etag;
+    }
+
+    public byte[] getGzippedBytes()
+    {
+        byte[] gzipped = this.gzippedBytes;
+        if ( gzipped == null )
+        {
+            gzipped = gzip( this.bytes );
+            this.gzippedBytes = gzipped;
+        }
+
+        return gzipped;
+    }
+
+    /**
+     * Return the length of the gzipped body, or -1 if it has not been made yet.
+     */
+    public int getGzippedLength()
+    {
+        final byte[] gzipped = this.gzippedBytes;
+        return gzipped != null ? gzipped.length : -1;
+    }
+
+    public String getGzippedEtag()
+    {
+        return getEtag() + GZIP_ETAG_SUFFIX;
+    }
+
+    private static byte[] gzip( final byte[] bytes )
+    {
+        try
+        {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream( bytes.length / 4 + 64 );
+            final GZIPOutputStream gzipOut = new GZIPOutputStream( out );
+            gzipOut.write( bytes );
+            gzipOut.close();
+            return out.toByteArray();
+        }
+        catch ( IOException e )
+        {
+            // not thrown when writing to memory
+            throw new IllegalStateException( "Failed to gzip page content", e );
+        }
+    }
+}
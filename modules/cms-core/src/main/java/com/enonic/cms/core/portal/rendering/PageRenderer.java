@@ -17,6 +17,8 @@ import com.enonic.cms.core.CacheSettings;
 import com.enonic.cms.core.CachedObject;
 import com.enonic.cms.core.SiteURLResolver;
 import com.enonic.cms.core.TightestCacheSettingsResolver;
+import com.enonic.cms.core.metrics.MetricsRegistry;
+import com.enonic.cms.core.metrics.Timer;
 import com.enonic.cms.core.portal.PortalInstanceKey;
 import com.enonic.cms.core.portal.cache.PageCache;
 import com.enonic.cms.core.portal.datasource.DataSourceType;
@@ -95,6 +97,8 @@ public class PageRenderer
 
     private static GenericConcurrencyLock<PageCacheKey> concurrencyLock = GenericConcurrencyLock.create();
 
+    private final static Timer RENDER_TIMER = MetricsRegistry.getInstance().timer( "portal_page_render", "Page rendering" );
+
     protected PageRenderer( PageRendererContext pageRendererContext, LivePortalTraceService livePortalTraceService )
     {
         this.context = pageRendererContext;
@@ -105,6 +109,7 @@ public class PageRenderer
     public RenderedPageResult renderPage( PageTemplateEntity pageTemplate )
     {
         pageRenderingTrace = PageRenderingTracer.startTracing( livePortalTraceService );
+        final Timer.Context timing = RENDER_TIMER.start();
 
         try
         {
@@ -132,6 +137,7 @@ public class PageRenderer
         }
         finally
         {
+            timing.stop();
             PageRenderingTracer.stopTracing( pageRenderingTrace, livePortalTraceService );
         }
     }
@@ -178,12 +184,23 @@ public class PageRenderer
         }
 
         final Lock locker = concurrencyLock.getLock( pageCacheKey );
-        try
+
+        if ( !locker.tryLock() )
         {
+            // another thread is rendering the page, serve the expired page meanwhile if allowed
+            final RenderedPageResult stalePageResult = getStaleFromCache( pageCacheKey );
+            if ( stalePageResult != null )
+            {
+                return stalePageResult;
+            }
+
             PageRenderingTracer.startConcurrencyBlockTimer( pageRenderingTrace );
             locker.lock();
             PageRenderingTracer.stopConcurrencyBlockTimer( pageRenderingTrace );
+        }
 
+        try
+        {
             cachedPageResult = getFromCache( pageCacheKey );
 
             if ( cachedPageResult != null )
@@ -223,6 +240,18 @@ public class PageRenderer
         return null;
     }
 
+    private RenderedPageResult getStaleFromCache( final PageCacheKey pageCacheKey )
+    {
+        CachedObject cachedPageHolder = pageCache.getStaleCachedPage( pageCacheKey );
+        if ( cachedPageHolder != null )
+        {
+            RenderedPageResult cachedPageResult = (RenderedPageResult) cachedPageHolder.getObject();
+            PageRenderingTracer.traceUsedCachedResult( pageRenderingTrace, true, true );
+            return (RenderedPageResult) cachedPageResult.clone();
+        }
+        return null;
+    }
+
     private RenderedPageResult renderPageTemplateExcludingPortlets( final PageTemplateEntity pageTemplate )
     {
         final XMLDocument dataSourceResult = executeDataSources( pageTemplate );
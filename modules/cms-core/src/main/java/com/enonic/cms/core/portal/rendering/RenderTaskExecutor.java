@@ -0,0 +1,194 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.portal.rendering;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.hibernate3.SessionFactoryUtils;
+import org.springframework.orm.hibernate3.SessionHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.enonic.cms.core.portal.livetrace.CurrentTrace;
+import com.enonic.cms.core.portal.livetrace.LivePortalTraceService;
+import com.enonic.cms.core.portal.rendering.tracing.RenderTrace;
+import com.enonic.cms.core.security.PortalSecurityHolder;
+import com.enonic.cms.core.security.user.UserKey;
+import com.enonic.cms.core.servlet.ServletRequestAccessor;
+
+/**
+ * Runs rendering tasks of a request on a bounded pool of worker threads. The thread bound state of the
+ * submitting request (servlet request, request attributes with the portal users in session, and live trace) is
+ * carried over to the worker, and each task gets its own Hibernate session, since sessions can not be shared
+ * between threads. Tasks must load the entities they use in that session.
+ * <p/>
+ * Tasks do not submit further tasks, so that workers never wait for tasks queued behind themselves. The pool is
+ * disabled unless <code>cms.portal.render.windowThreads</code> is set to a positive number.
+ */
+@Component
+public class RenderTaskExecutor
+{
+    private final static Logger LOG = LoggerFactory.getLogger( RenderTaskExecutor.class );
+
+    private final static ThreadLocal<Boolean> IN_TASK = new ThreadLocal<Boolean>();
+
+    private SessionFactory sessionFactory;
+
+    private LivePortalTraceService livePortalTraceService;
+
+    private ExecutorService executorService;
+
+    /**
+     * Return true if tasks can be run concurrently. Rendering in debug mode is always sequential, since the
+     * render trace is kept per request thread, and so is everything run by a task.
+     */
+    public boolean isEnabled()
+    {
+        return ( this.executorService != null ) && ( IN_TASK.get() == null ) && RenderTrace.isTraceOff();
+    }
+
+    public <T> Future<T> submit( final Callable<T> task )
+    {
+        final HttpServletRequest request = ServletRequestAccessor.getRequest();
+        final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        final UserKey loggedInUser = PortalSecurityHolder.getLoggedInUser();
+        final UserKey impersonatedUser = PortalSecurityHolder.getImpersonatedUser();
+        final CurrentTrace currentTrace =
+            this.livePortalTraceService.tracingEnabled() ? this.livePortalTraceService.getCurrentTrace().fork() : null;
+
+        return this.executorService.submit( new Callable<T>()
+        {
+            public T call()
+                throws Exception
+            {
+                bindThreadState( request, requestAttributes, loggedInUser, impersonatedUser, currentTrace );
+                final Session session = openSession();
+
+                try
+                {
+                    return task.call();
+                }
+                finally
+                {
+                    closeSession( session );
+                    unbindThreadState( currentTrace );
+                }
+            }
+        } );
+    }
+
+    private void bindThreadState( final HttpServletRequest request, final RequestAttributes requestAttributes,
+                                  final UserKey loggedInUser, final UserKey impersonatedUser, final CurrentTrace currentTrace )
+    {
+        ServletRequestAccessor.setRequest( request );
+
+        // the portal users are kept in the http session when request attributes are bound, and in the thread otherwise
+        if ( requestAttributes != null )
+        {
+            RequestContextHolder.setRequestAttributes( requestAttributes );
+        }
+        else
+        {
+            PortalSecurityHolder.setLoggedInUser( loggedInUser );
+            PortalSecurityHolder.setImpersonatedUser( impersonatedUser );
+        }
+
+        if ( currentTrace != null )
+        {
+            this.livePortalTraceService.setCurrentTrace( currentTrace );
+        }
+
+        IN_TASK.set( Boolean.TRUE );
+    }
+
+    private void unbindThreadState( final CurrentTrace currentTrace )
+    {
+        IN_TASK.remove();
+
+        if ( currentTrace != null )
+        {
+            this.livePortalTraceService.setCurrentTrace( null );
+        }
+
+        if ( RequestContextHolder.getRequestAttributes() != null )
+        {
+            RequestContextHolder.resetRequestAttributes();
+        }
+        else
+        {
+            PortalSecurityHolder.setLoggedInUser( null );
+            PortalSecurityHolder.removeImpersonatedUser();
+        }
+
+        ServletRequestAccessor.setRequest( null );
+    }
+
+    private Session openSession()
+    {
+        final Session session = SessionFactoryUtils.getSession( this.sessionFactory, true );
+        session.setFlushMode( FlushMode.MANUAL );
+        TransactionSynchronizationManager.bindResource( this.sessionFactory, new SessionHolder( session ) );
+        return session;
+    }
+
+    private void closeSession( final Session session )
+    {
+        TransactionSynchronizationManager.unbindResource( this.sessionFactory );
+        SessionFactoryUtils.closeSession( session );
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        if ( this.executorService != null )
+        {
+            this.executorService.shutdownNow();
+        }
+    }
+
+    @Value("${cms.portal.render.windowThreads}")
+    public void setThreadCount( final int threadCount )
+    {
+        if ( threadCount <= 0 )
+        {
+            return;
+        }
+
+        this.executorService =
+            Executors.newFixedThreadPool( threadCount, new ThreadFactoryBuilder().setNameFormat( "render-%d" ).setDaemon( true ).build() );
+        LOG.info( "Rendering windows and datasources concurrently [threads=" + threadCount + "]" );
+    }
+
+    @Autowired
+    @Qualifier("sessionFactory")
+    public void setSessionFactory( final SessionFactory sessionFactory )
+    {
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Autowired
+    public void setLivePortalTraceService( final LivePortalTraceService livePortalTraceService )
+    {
+        this.livePortalTraceService = livePortalTraceService;
+    }
+}
@@ -4,12 +4,20 @@
  */
 package com.enonic.cms.core.portal.rendering;
 
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.joda.time.DateTime;
 
+import com.enonic.cms.framework.cache.SizeEstimable;
+import com.enonic.cms.framework.cache.base.ObjectSizeEstimator;
+
 /**
- * This class implements the render result.
+ * This class implements the render result. A cached result and its clones share the content last encoded for the
+ * response, so that serving the same page content again does not encode and digest it again.
  */
 public final class RenderedPageResult
+    implements Serializable, SizeEstimable
 {
     private DateTime renderedAt;
 
@@ -27,6 +35,8 @@ public final class RenderedPageResult
 
     private DateTime expirationTime;
 
+    private transient AtomicReference<EncodedPageContent> encodedContent;
+
     public DateTime getRenderedAt()
     {
         return renderedAt;
@@ -97,6 +107,24 @@ public final class RenderedPageResult
         this.httpContentType = value;
     }
 
+    /**
+     * Return the content last encoded for the response, shared between this result and its clones.
+     */
+    public synchronized AtomicReference<EncodedPageContent> getEncodedContent()
+    {
+        if ( encodedContent == null )
+        {
+            encodedContent = new AtomicReference<EncodedPageContent>();
+        }
+
+        return encodedContent;
+    }
+
+    public long getEstimatedSize()
+    {
+        return 128 + ObjectSizeEstimator.estimate( content );
+    }
+
     public Object clone()
     {
         RenderedPageResult clone = new RenderedPageResult();
@@ -108,6 +136,7 @@ public final class RenderedPageResult
         clone.setRenderedAt( renderedAt );
         clone.setRetrievedFromCache( retrievedFromCache );
         clone.redirectPath = redirectPath;
+        clone.encodedContent = getEncodedContent();
         return clone;
     }
 }
@@ -11,11 +11,14 @@ import java.util.regex.Pattern;
 
 import org.joda.time.DateTime;
 
+import com.enonic.cms.framework.cache.SizeEstimable;
+import com.enonic.cms.framework.cache.base.ObjectSizeEstimator;
+
 /**
  * Apr 23, 2009
  */
 public class RenderedWindowResult
-    implements Serializable
+    implements Serializable, SizeEstimable
 {
     private String contentEncoding = "UTF-8";
 
@@ -109,6 +112,11 @@ public class RenderedWindowResult
         return result;
     }
 
+    public long getEstimatedSize()
+    {
+        return 128 + ObjectSizeEstimator.estimate( content );
+    }
+
     public RenderedWindowResult clone()
     {
         RenderedWindowResult clone = new RenderedWindowResult();
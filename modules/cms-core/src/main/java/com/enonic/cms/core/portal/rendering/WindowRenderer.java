@@ -21,6 +21,8 @@ import com.enonic.cms.core.CacheSettings;
 import com.enonic.cms.core.CachedObject;
 import com.enonic.cms.core.RequestParameters;
 import com.enonic.cms.core.SiteURLResolver;
+import com.enonic.cms.core.metrics.MetricsRegistry;
+import com.enonic.cms.core.metrics.Timer;
 import com.enonic.cms.core.portal.PortalInstanceKey;
 import com.enonic.cms.core.portal.PortalRenderingException;
 import com.enonic.cms.core.portal.WindowNotFoundException;
@@ -101,6 +103,8 @@ public class WindowRenderer
 
     private static GenericConcurrencyLock<WindowCacheKey> concurrencyLock = GenericConcurrencyLock.create();
 
+    private final static Timer RENDER_TIMER = MetricsRegistry.getInstance().timer( "portal_window_render", "Window rendering" );
+
     /**
      * The window rendering trace for this window rendering.
      */
@@ -201,6 +205,7 @@ public class WindowRenderer
 
         final CacheSettings portletCacheSettings = window.getPortlet().getCacheSettings( pageCache.getDefaultTimeToLive() );
         enterTrace( window, executor, portletCacheSettings );
+        final Timer.Context timing = RENDER_TIMER.start();
 
         try
         {
@@ -216,12 +221,24 @@ public class WindowRenderer
             final RenderedWindowResult windowResult;
 
             final Lock locker = concurrencyLock.getLock( cacheKey );
-            try
+
+            if ( !locker.tryLock() )
             {
+                // another thread is rendering the window, serve the expired window meanwhile if allowed
+                final CachedObject stalePortletHolder = pageCache.getStaleCachedPortletWindow( cacheKey );
+                if ( stalePortletHolder != null )
+                {
+                    WindowRenderingTracer.traceUsedCachedResult( windowRenderingTrace, true, true );
+                    return cloneAndExecutePostProcessInstructions( (RenderedWindowResult) stalePortletHolder.getObject() );
+                }
+
                 WindowRenderingTracer.startConcurrencyBlockTimer( windowRenderingTrace );
                 locker.lock();
                 WindowRenderingTracer.stopConcurrencyBlockTimer( windowRenderingTrace );
+            }
 
+            try
+            {
                 // see if window result is in cache
                 final CachedObject cachedPortletHolder = pageCache.getCachedPortletWindow( cacheKey );
                 if ( cachedPortletHolder != null )
@@ -253,6 +270,7 @@ public class WindowRenderer
         }
         finally
         {
+            timing.stop();
             exitTrace();
         }
     }
@@ -72,6 +72,40 @@ public class WindowRendererContext
 
     private Boolean overridingSitePropertyCreateUrlAsPath;
 
+    public WindowRendererContext()
+    {
+    }
+
+    /**
+     * Copy the given context. Entities are shared with the source, so replace them before using the copy in another
+     * Hibernate session.
+     */
+    public WindowRendererContext( final WindowRendererContext source )
+    {
+        this.pageRequestType = source.pageRequestType;
+        this.originalUrl = source.originalUrl;
+        this.renderer = source.renderer;
+        this.site = source.site;
+        this.menuItem = source.menuItem;
+        this.contentFromRequest = source.contentFromRequest;
+        this.language = source.language;
+        this.pageTemplate = source.pageTemplate;
+        this.regionsInPage = source.regionsInPage;
+        this.invocationCache = source.invocationCache;
+        this.previewContext = source.previewContext;
+        this.forceNoCacheUsage = source.forceNoCacheUsage;
+        this.encodeURIs = source.encodeURIs;
+        this.locale = source.locale;
+        this.deviceClass = source.deviceClass;
+        this.sitePath = source.sitePath;
+        this.originalSitePath = source.originalSitePath;
+        this.verticalSession = source.verticalSession;
+        this.profile = source.profile;
+        this.httpRequest = source.httpRequest;
+        this.isRenderedInline = source.isRenderedInline;
+        this.ticketId = source.ticketId;
+        this.overridingSitePropertyCreateUrlAsPath = source.overridingSitePropertyCreateUrlAsPath;
+    }
 
     public PageRequestType getPageRequestType()
     {
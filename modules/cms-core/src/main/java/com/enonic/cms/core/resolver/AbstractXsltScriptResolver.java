@@ -4,17 +4,37 @@
  */
 package com.enonic.cms.core.resolver;
 
+import java.util.Calendar;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
 
+import com.enonic.esl.util.DigestUtil;
+
+import com.enonic.cms.framework.cache.CacheFacade;
+import com.enonic.cms.framework.cache.CacheManager;
 import com.enonic.cms.framework.xml.XMLDocument;
 
 import com.enonic.cms.core.resolver.locale.LocaleResolverException;
 import com.enonic.cms.core.resource.FileResourceName;
 import com.enonic.cms.core.resource.ResourceFile;
+import com.enonic.cms.core.security.user.UserEntity;
 import com.enonic.cms.core.xslt.XsltProcessorException;
 import com.enonic.cms.core.xslt.portal.PortalXsltProcessor;
 import com.enonic.cms.core.xslt.portal.PortalXsltProcessorFactory;
 
+/**
+ * Resolves values with an xslt script. The script output is cached node-wide, keyed by the script and its timestamp,
+ * the user, and a digest of the user agent, the accepted languages and the headers listed in
+ * <code>cms.cache.resolver.keyHeaders</code>. Scripts that read other request input, like the ip, cookies or
+ * parameters, are resolved with the value cached for the first request with the same key.
+ */
 public abstract class AbstractXsltScriptResolver
     implements ScriptResolverService
 {
@@ -24,21 +44,58 @@ public abstract class AbstractXsltScriptResolver
 
     private PortalXsltProcessorFactory xsltProcessorFactory;
 
+    private CacheFacade resolverCache;
+
+    private List<String> keyHeaders = ImmutableList.of();
+
     public ScriptResolverResult resolveValue( ResolverContext context, ResourceFile localeResolverScript )
     {
-        XMLDocument resolverInput = getResolverInput( context );
+        final String cacheKey = this.resolverCache != null ? createCacheKey( localeResolverScript, context ) : null;
+        String resolvedValue = cacheKey != null ? (String) this.resolverCache.get( localeResolverScript.getPath(), cacheKey ) : null;
 
-        String resolvedValue;
-        try
+        if ( resolvedValue == null )
         {
-            resolvedValue = resolveWithXsltScript( localeResolverScript, resolverInput );
+            try
+            {
+                resolvedValue = resolveWithXsltScript( localeResolverScript, getResolverInput( context ) );
+            }
+            catch ( XsltProcessorException e )
+            {
+                throw new LocaleResolverException( RESOLVING_EXCEPTION_MSG + " using script : " + localeResolverScript.getPath(), e );
+            }
+
+            if ( cacheKey != null )
+            {
+                this.resolverCache.put( localeResolverScript.getPath(), cacheKey, resolvedValue );
+            }
         }
-        catch ( XsltProcessorException e )
+
+        return populateScriptResolverResult( resolvedValue );
+    }
+
+    private String createCacheKey( ResourceFile script, ResolverContext context )
+    {
+        final Calendar lastModified = script.getLastModified();
+        final long timestamp = lastModified == null ? 0 : lastModified.getTimeInMillis();
+
+        final StringBuilder headers = new StringBuilder();
+        final HttpServletRequest request = context.getRequest();
+        if ( request != null )
         {
-            throw new LocaleResolverException( RESOLVING_EXCEPTION_MSG + " using script : " + localeResolverScript.getPath(), e );
+            headers.append( request.getHeader( ResolverHttpRequestInputCreator.USER_AGENT_HEADER_NAME ) ).append( '\n' );
+            headers.append( request.getHeader( ResolverHttpRequestInputCreator.ACCEPT_LANGUAGE_HEADER_NAME ) ).append( '\n' );
+            for ( String name : this.keyHeaders )
+            {
+                headers.append( name ).append( '=' ).append( request.getHeader( name ) ).append( '\n' );
+            }
         }
 
-        return populateScriptResolverResult( resolvedValue );
+        // user fields are part of the input, so a changed user is resolved again
+        final UserEntity user = context.getUser();
+        final long userTimestamp = user == null || user.getTimestamp() == null ? 0 : user.getTimestamp().getMillis();
+        final String userKey = user == null ? "" : user.getKey() + "@" + userTimestamp;
+
+        return getClass().getSimpleName() + ":" + timestamp + ":" + userKey + ":" + DigestUtil.generateSHA( headers.toString() );
     }
 
     protected abstract ScriptResolverResult populateScriptResolverResult( String resolvedValue );
@@ -71,6 +128,18 @@ public abstract class AbstractXsltScriptResolver
         this.resolverInputXMLCreator = resolverInputXMLCreator;
     }
 
+    @Autowired
+    public void setCacheManager( final CacheManager cacheManager )
+    {
+        this.resolverCache = cacheManager.getResolverCache();
+    }
+
+    @Value("${cms.cache.resolver.keyHeaders}")
+    public void setKeyHeaders( final String keyHeaders )
+    {
+        this.keyHeaders = ImmutableList.copyOf( Splitter.on( "," ).omitEmptyStrings().trimResults().split( keyHeaders ) );
+    }
+
     @Autowired
     public void setXsltProcessorFactory( final PortalXsltProcessorFactory xsltProcessorFactory )
     {
@@ -7,6 +7,7 @@ package com.enonic.cms.core.resolver;
 import java.util.Enumeration;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
 
 import org.springframework.stereotype.Component;
 
@@ -18,9 +19,9 @@ public class CacheResolverValueServiceImpl
 
     public String getCachedResolverValue( ResolverContext context, String sessionDeviceClassKey )
     {
-        HttpServletRequest request = context.getRequest();
+        HttpSession session = context.getRequest().getSession( false );
 
-        return (String) request.getSession().getAttribute( sessionDeviceClassKey );
+        return session != null ? (String) session.getAttribute( sessionDeviceClassKey ) : null;
     }
 
     public boolean setCachedResolverValue( ResolverContext context, String deviceClass, String cacheKey )
@@ -37,21 +38,32 @@ public class CacheResolverValueServiceImpl
 
     private void removeSessionAttribute( HttpServletRequest request, String toBeRemoved )
     {
-        Enumeration attributeNames = request.getSession().getAttributeNames();
+        HttpSession session = request.getSession( false );
+        if ( session == null )
+        {
+            return;
+        }
+
+        Enumeration attributeNames = session.getAttributeNames();
 
         while ( attributeNames != null && attributeNames.hasMoreElements() )
         {
             String attributeName = (String) attributeNames.nextElement();
             if ( attributeName.startsWith( toBeRemoved ) )
             {
-                request.getSession().removeAttribute( attributeName );
+                session.removeAttribute( attributeName );
             }
         }
     }
 
     private void setResolverValueInSession( HttpServletRequest request, String deviceClass, String cacheKey )
     {
-        request.getSession().setAttribute( cacheKey, deviceClass );
+        // the script resolver caches values node-wide, so the session is only used when there already is one
+        HttpSession session = request.getSession( false );
+        if ( session != null )
+        {
+            session.setAttribute( cacheKey, deviceClass );
+        }
     }
 
 }
@@ -9,6 +9,7 @@ import java.util.Enumeration;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
 
 import org.apache.commons.lang.StringUtils;
 import org.springframework.stereotype.Component;
@@ -65,14 +66,20 @@ public class ForceResolverValueServiceImpl
 
     private void removeSessionAttribute( HttpServletRequest request, String toBeRemoved )
     {
-        Enumeration attributeNames = request.getSession().getAttributeNames();
+        HttpSession session = request.getSession( false );
+        if ( session == null )
+        {
+            return;
+        }
+
+        Enumeration attributeNames = session.getAttributeNames();
 
         while ( attributeNames != null && attributeNames.hasMoreElements() )
         {
             String attributeName = (String) attributeNames.nextElement();
             if ( attributeName.startsWith( toBeRemoved ) )
             {
-                request.getSession().removeAttribute( attributeName );
+                session.removeAttribute( attributeName );
             }
         }
     }
@@ -91,7 +98,9 @@ public class ForceResolverValueServiceImpl
 
     private String getForcedDeviceClassFromSession( HttpServletRequest request, String sessionKey )
     {
-        return (String) request.getSession().getAttribute( sessionKey );
+        HttpSession session = request.getSession( false );
+
+        return session != null ? (String) session.getAttribute( sessionKey ) : null;
     }
 
     private String getForcedResolverValueFromCookie( HttpServletRequest request, String forcedValueKey )
@@ -0,0 +1,10 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.resource;
+
+public interface FileResourceChangeListener
+{
+    public void resourceChanged( FileResourceName name );
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.resource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Watches resources used by cached templates and bundles, and notifies the listeners when a watched resource is
+ * changed, created or removed. Every watched resource is checked once each <code>cms.cache.xslt.checkInterval</code>,
+ * no matter how many cache entries depend on it, so the caches do not have to check their resources themselves. The
+ * caches unwatch resources that no cached entry depends on anymore.
+ */
+@Service
+public class FileResourceWatcherService
+{
+    private static final Logger LOG = LoggerFactory.getLogger( FileResourceWatcherService.class );
+
+    private final static long MISSING = -1;
+
+    private final ConcurrentMap<FileResourceName, Long> lastModified = new ConcurrentHashMap<FileResourceName, Long>();
+
+    private final List<FileResourceChangeListener> listeners = new CopyOnWriteArrayList<FileResourceChangeListener>();
+
+    private FileResourceService resourceService;
+
+    private boolean enabled = true;
+
+    private long checkInterval;
+
+    private volatile long lastChecked;
+
+    public boolean isEnabled()
+    {
+        return this.enabled;
+    }
+
+    public void addListener( final FileResourceChangeListener listener )
+    {
+        this.listeners.add( listener );
+    }
+
+    /**
+     * Watch a resource used by an entry that was loaded at the given time. Returns true if the resource was changed
+     * after that, in which case the entry is stale, since the listeners are only notified of later changes.
+     */
+    public boolean watch( final FileResourceName name, final long timestamp )
+    {
+        if ( !this.enabled )
+        {
+            return false;
+        }
+
+        final long lastModifiedNow = getLastModified( name );
+        this.lastModified.putIfAbsent( name, lastModifiedNow );
+        return lastModifiedNow > timestamp;
+    }
+
+    public void unwatch( final FileResourceName name )
+    {
+        this.lastModified.remove( name );
+    }
+
+    public int getWatchedCount()
+    {
+        return this.lastModified.size();
+    }
+
+    /**
+     * Scheduled every second, but only checks the resources when the check interval has passed since the last check.
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void checkResources()
+    {
+        final long now = System.currentTimeMillis();
+        if ( !this.enabled || ( now - this.lastChecked ) < this.checkInterval )
+        {
+            return;
+        }
+
+        this.lastChecked = now;
+
+        for ( final Map.Entry<FileResourceName, Long> entry : this.lastModified.entrySet() )
+        {
+            final long lastModifiedNow = getLastModified( entry.getKey() );
+            if ( lastModifiedNow != entry.getValue() && this.lastModified.replace( entry.getKey(), entry.getValue(), lastModifiedNow ) )
+            {
+                LOG.debug( "Resource {} was changed.", entry.getKey() );
+                notifyListeners( entry.getKey() );
+            }
+        }
+    }
+
+    private void notifyListeners( final FileResourceName name )
+    {
+        for ( final FileResourceChangeListener listener : this.listeners )
+        {
+            listener.resourceChanged( name );
+        }
+    }
+
+    private long getLastModified( final FileResourceName name )
+    {
+        final FileResource resource = this.resourceService.getResource( name );
+        return resource != null ? resource.getLastModified().getMillis() : MISSING;
+    }
+
+    @Autowired
+    public void setResourceService( final FileResourceService resourceService )
+    {
+        this.resourceService = resourceService;
+    }
+
+    @Value("${cms.cache.xslt.checkInterval}")
+    public void setCheckInterval( final long checkInterval )
+    {
+        this.checkInterval = checkInterval;
+    }
+
+    @Value("${cms.resource.watch.enabled}")
+    public void setEnabled( final boolean enabled )
+    {
+        this.enabled = enabled;
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.search;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.enonic.cms.core.content.BinaryDataExtractor;
+import com.enonic.cms.core.content.ContentEntity;
+import com.enonic.cms.core.content.ContentKey;
+import com.enonic.cms.core.content.binary.BinaryDataEntity;
+import com.enonic.cms.core.content.index.BigText;
+import com.enonic.cms.core.search.query.ContentIndexService;
+
+/**
+ * Extracts the text of content binaries in the background after the content is indexed, and adds it to the index
+ * entry of the content when done. Saving content with a large document attached then does not wait for the
+ * extractor.
+ * <p/>
+ * Extractions are queued for a bounded pool of workers, and each worker runs its extraction on one of as many
+ * extraction threads. An extraction that takes longer than the timeout is interrupted and its content indexed without
+ * the text. Extracted text is only indexed if the content has not been indexed again since the extraction was queued.
+ * <p/>
+ * When the queue is full, extractions are deferred per content and queued as workers finish, so that the indexing
+ * thread never extracts text itself. Extractions are rejected when too many are deferred.
+ * <p/>
+ * Pending extractions are only kept in memory. Text that is not extracted before a restart, a timeout or a rejection
+ * is missing from the index until the content is indexed again, which is why this is off by default.
+ */
+@Component
+public class AsyncBinaryTextIndexer
+{
+    private final static Logger LOG = LoggerFactory.getLogger( AsyncBinaryTextIndexer.class );
+
+    private final static int MAX_QUEUED = 1000;
+
+    private final static int MAX_DEFERRED = 10000;
+
+    private final AtomicLong generationCounter = new AtomicLong();
+
+    private final ConcurrentMap<ContentKey, Long> generations = new ConcurrentHashMap<ContentKey, Long>();
+
+    private final Map<ContentKey, Runnable> deferred = new LinkedHashMap<ContentKey, Runnable>();
+
+    private final AtomicLong extractedCount = new AtomicLong();
+
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private final AtomicLong timedOutCount = new AtomicLong();
+
+    private final AtomicLong totalExtractionTime = new AtomicLong();
+
+    private final AtomicLong maxExtractionTime = new AtomicLong();
+
+    private final AtomicLong totalQueueTime = new AtomicLong();
+
+    private BinaryDataExtractor binaryDataExtractor;
+
+    private ContentIndexService contentIndexService;
+
+    private ThreadPoolExecutor executor;
+
+    private ExecutorService extractionExecutor;
+
+    private long timeout;
+
+    public boolean isEnabled()
+    {
+        return this.executor != null;
+    }
+
+    /**
+     * Return true if text must be extracted from the binary of the content before it can be indexed, so that the
+     * content should be indexed without it and the text indexed later.
+     */
+    public boolean isExtractionPending( final ContentEntity content )
+    {
+        if ( !isEnabled() )
+        {
+            return false;
+        }
+
+        final BinaryDataEntity binaryData = this.binaryDataExtractor.getExtractedBinaryData( content );
+        return ( binaryData != null ) && this.binaryDataExtractor.isExtractionNeeded( binaryData );
+    }
+
+    /**
+     * Forget text being extracted for the content. Must be called before content is indexed or removed, so that
+     * text extracted from an older version of the content is not indexed afterwards.
+     */
+    public void contentChanged( final ContentKey contentKey )
+    {
+        this.generations.remove( contentKey );
+    }
+
+    /**
+     * Queue extraction of the text of the content binary, indexing the text when done.
+     */
+    public void indexLater( final ContentEntity content )
+    {
+        final BinaryDataEntity binaryData = this.binaryDataExtractor.getExtractedBinaryData( content );
+        if ( binaryData == null )
+        {
+            return;
+        }
+
+        final ContentKey contentKey = content.getKey();
+        final String binaryName = binaryData.getName();
+        final String blobKey = binaryData.getBlobKey();
+        final long generation = this.generationCounter.incrementAndGet();
+        final long queuedAt = System.currentTimeMillis();
+        this.generations.put( contentKey, generation );
+
+        final Runnable task = new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    totalQueueTime.addAndGet( System.currentTimeMillis() - queuedAt );
+                    extractAndIndex( contentKey, binaryName, blobKey, generation );
+                }
+                finally
+                {
+                    queueDeferred();
+                }
+            }
+        };
+
+        synchronized ( this.deferred )
+        {
+            // deferred extractions are queued first, so that they are done in order
+            if ( this.deferred.isEmpty() && queue( task ) )
+            {
+                return;
+            }
+
+            if ( ( this.deferred.size() >= MAX_DEFERRED ) && !this.deferred.containsKey( contentKey ) )
+            {
+                this.generations.remove( contentKey, generation );
+                this.failedCount.incrementAndGet();
+                LOG.warn( "Binary text extraction queue is full, content " + contentKey + " is indexed without extracted text" );
+                return;
+            }
+
+            // an extraction deferred for an older version of the content is replaced
+            this.deferred.remove( contentKey );
+            this.deferred.put( contentKey, task );
+        }
+    }
+
+    /**
+     * Queue deferred extractions while there is room in the queue.
+     */
+    private void queueDeferred()
+    {
+        synchronized ( this.deferred )
+        {
+            final Iterator<Runnable> it = this.deferred.values().iterator();
+            while ( it.hasNext() && queue( it.next() ) )
+            {
+                it.remove();
+            }
+        }
+    }
+
+    private boolean queue( final Runnable task )
+    {
+        try
+        {
+            this.executor.execute( task );
+            return true;
+        }
+        catch ( RejectedExecutionException e )
+        {
+            return false;
+        }
+    }
+
+    private void extractAndIndex( final ContentKey contentKey, final String binaryName, final String blobKey, final long generation )
+    {
+        final BigText text = extract( contentKey, binaryName, blobKey );
+        if ( text == null )
+        {
+            this.generations.remove( contentKey, generation );
+            return;
+        }
+
+        // the generation is claimed atomically, so that no lock is held while calling the index
+        if ( !this.generations.remove( contentKey, generation ) )
+        {
+            LOG.debug( "Content " + contentKey + " was indexed again during text extraction, skipping extracted text" );
+            return;
+        }
+
+        try
+        {
+            this.contentIndexService.indexBinaryExtractedText( contentKey, text );
+        }
+        catch ( Exception e )
+        {
+            LOG.error( "Failed to index extracted text of content " + contentKey + ": " + e.getMessage(), e );
+        }
+    }
+
+    private BigText extract( final ContentKey contentKey, final String binaryName, final String blobKey )
+    {
+        final long start = System.currentTimeMillis();
+        final Future<BigText> future = this.extractionExecutor.submit( new Callable<BigText>()
+        {
+            public BigText call()
+                throws Exception
+            {
+                return binaryDataExtractor.extractText( binaryName, blobKey );
+            }
+        } );
+
+        try
+        {
+            final BigText text = future.get( this.timeout, TimeUnit.SECONDS );
+            this.extractedCount.incrementAndGet();
+            return text;
+        }
+        catch ( TimeoutException e )
+        {
+            future.cancel( true );
+            this.timedOutCount.incrementAndGet();
+            LOG.warn( "Text extraction from binary data (name: " + binaryName + ") of content " + contentKey + " timed out after " +
+                          this.timeout + " seconds" );
+            return null;
+        }
+        catch ( ExecutionException e )
+        {
+            this.failedCount.incrementAndGet();
+            LOG.warn( "Failed to extract full text from binary data (name: " + binaryName + ") of content " + contentKey + ": " +
+                          e.getCause().getMessage(), e.getCause() );
+            return null;
+        }
+        catch ( InterruptedException e )
+        {
+            future.cancel( true );
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        finally
+        {
+            recordExtractionTime( System.currentTimeMillis() - start );
+        }
+    }
+
+    private void recordExtractionTime( final long time )
+    {
+        this.totalExtractionTime.addAndGet( time );
+
+        long max = this.maxExtractionTime.get();
+        while ( ( time > max ) && !this.maxExtractionTime.compareAndSet( max, time ) )
+        {
+            max = this.maxExtractionTime.get();
+        }
+    }
+
+    /**
+     * Return the number of queued and deferred extractions.
+     */
+    public int getQueueSize()
+    {
+        if ( !isEnabled() )
+        {
+            return 0;
+        }
+
+        synchronized ( this.deferred )
+        {
+            return this.executor.getQueue().size() + this.deferred.size();
+        }
+    }
+
+    public int getActiveCount()
+    {
+        return isEnabled() ? this.executor.getActiveCount() : 0;
+    }
+
+    public long getExtractedCount()
+    {
+        return this.extractedCount.get();
+    }
+
+    public long getFailedCount()
+    {
+        return this.failedCount.get();
+    }
+
+    public long getTimedOutCount()
+    {
+        return this.timedOutCount.get();
+    }
+
+    /**
+     * Return the average time in milliseconds from an extraction is started until the text is extracted, it fails or
+     * it times out.
+     */
+    public long getAverageExtractionTime()
+    {
+        final long count = this.extractedCount.get() + this.failedCount.get() + this.timedOutCount.get();
+        return count > 0 ? this.totalExtractionTime.get() / count : 0;
+    }
+
+    public long getMaxExtractionTime()
+    {
+        return this.maxExtractionTime.get();
+    }
+
+    /**
+     * Return the average time in milliseconds extractions wait in the queue.
+     */
+    public long getAverageQueueTime()
+    {
+        final long count = this.extractedCount.get() + this.failedCount.get() + this.timedOutCount.get();
+        return count > 0 ? this.totalQueueTime.get() / count : 0;
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        if ( this.executor != null )
+        {
+            this.executor.shutdownNow();
+            this.extractionExecutor.shutdownNow();
+        }
+    }
+
+    @Value("${cms.index.extractedText.async.threads}")
+    public void setThreadCount( final int threadCount )
+    {
+        if ( threadCount <= 0 )
+        {
+            return;
+        }
+
+        this.executor = new ThreadPoolExecutor( threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                                                new ArrayBlockingQueue<Runnable>( MAX_QUEUED ),
+                                                new ThreadFactoryBuilder().setNameFormat( "binary-index-%d" ).setDaemon( true ).build() );
+
+        // extractions run on threads of their own, so that a worker is freed when an extraction times out. An extractor
+        // that ignores the interrupt keeps its thread, and later extractions wait for it until they time out.
+        this.extractionExecutor = Executors.newFixedThreadPool( threadCount, new ThreadFactoryBuilder().setNameFormat(
+            "binary-extract-%d" ).setDaemon( true ).build() );
+        LOG.info( "Indexing extracted binary text in the background [threads=" + threadCount + "]" );
+    }
+
+    @Value("${cms.index.extractedText.async.timeout}")
+    public void setTimeout( final long timeout )
+    {
+        this.timeout = timeout;
+    }
+
+    @Autowired
+    public void setBinaryDataExtractor( final BinaryDataExtractor binaryDataExtractor )
+    {
+        this.binaryDataExtractor = binaryDataExtractor;
+    }
+
+    @Autowired
+    public void setContentIndexService( final ContentIndexService contentIndexService )
+    {
+        this.contentIndexService = contentIndexService;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.search;
+
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Maps;
+
+import com.enonic.cms.core.content.ContentKey;
+
+/**
+ * Outcome of a bulk index operation. A bulk request is not atomic, so each failed content is reported with the
+ * reason given by the index, while the rest of the request is still applied.
+ */
+public final class BulkIndexResult
+{
+    private final Map<ContentKey, String> failures = Maps.newLinkedHashMap();
+
+    private int actionCount = 0;
+
+    void addActions( final int count )
+    {
+        this.actionCount += count;
+    }
+
+    void addFailure( final ContentKey contentKey, final String message )
+    {
+        if ( !this.failures.containsKey( contentKey ) )
+        {
+            this.failures.put( contentKey, message );
+        }
+    }
+
+    public int getActionCount()
+    {
+        return this.actionCount;
+    }
+
+    public boolean hasFailures()
+    {
+        return !this.failures.isEmpty();
+    }
+
+    public Set<ContentKey> getFailedContentKeys()
+    {
+        return this.failures.keySet();
+    }
+
+    public String getFailureMessage( final ContentKey contentKey )
+    {
+        return this.failures.get( contentKey );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BulkIndexResult{actions=" + this.actionCount + ", failures=" + this.failures + "}";
+    }
+}
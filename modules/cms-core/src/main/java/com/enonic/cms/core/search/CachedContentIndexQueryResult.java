@@ -0,0 +1,66 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.search;
+
+import java.util.List;
+import java.util.Set;
+
+import com.enonic.cms.core.content.ContentKey;
+import com.enonic.cms.core.content.contenttype.ContentTypeKey;
+import com.enonic.cms.core.search.result.FacetsResultSet;
+
+final class CachedContentIndexQueryResult
+{
+    private final List<ContentKey> keys;
+
+    private final int totalHits;
+
+    private final FacetsResultSet facets;
+
+    private final Set<ContentTypeKey> contentTypes;
+
+    private final long time;
+
+    public CachedContentIndexQueryResult( final List<ContentKey> keys, final int totalHits, final FacetsResultSet facets,
+                                          final Set<ContentTypeKey> contentTypes, final long time )
+    {
+        this.keys = keys;
+        this.totalHits = totalHits;
+        this.facets = facets;
+        this.contentTypes = contentTypes;
+        this.time = time;
+    }
+
+    public List<ContentKey> getKeys()
+    {
+        return this.keys;
+    }
+
+    public int getTotalHits()
+    {
+        return this.totalHits;
+    }
+
+    public FacetsResultSet getFacets()
+    {
+        return this.facets;
+    }
+
+    /**
+     * The content types the query was filtered by, or null if it was not filtered by content type.
+     */
+    public Set<ContentTypeKey> getContentTypes()
+    {
+        return this.contentTypes;
+    }
+
+    /**
+     * The index generation at which the query was executed.
+     */
+    public long getTime()
+    {
+        return this.time;
+    }
+}
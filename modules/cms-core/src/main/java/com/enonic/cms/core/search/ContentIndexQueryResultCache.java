@@ -0,0 +1,234 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.search;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+import com.enonic.cms.framework.cache.CacheFacade;
+import com.enonic.cms.framework.cache.CacheManager;
+
+import com.enonic.cms.core.cluster.ClusterEvent;
+import com.enonic.cms.core.cluster.ClusterEventListener;
+import com.enonic.cms.core.cluster.ClusterEventPublisher;
+import com.enonic.cms.core.cluster.NopClusterEventPublisher;
+import com.enonic.cms.core.content.ContentKey;
+import com.enonic.cms.core.content.contenttype.ContentTypeKey;
+import com.enonic.cms.core.search.result.FacetsResultSet;
+
+/**
+ * Node-wide cache of content query results, keyed by the translated query, which includes paging and the security
+ * filter. Cached results hold the ordered content keys, the total number of hits and the facets.
+ * <p/>
+ * The index has a generation that is increased on every change, recorded per content type when the content types
+ * of the change are known. A result is ignored on read when the index has changed after the query was executed,
+ * or, for queries filtered by content type, when content of one of those types has changed. Changes are sent to
+ * the other nodes in the cluster, since they share the index.
+ */
+@Component
+public class ContentIndexQueryResultCache
+    implements ClusterEventListener
+{
+    private final static String EVENT_TYPE = "indexChanged";
+
+    private final static String ALL = "all";
+
+    private final static String COUNT = "count:";
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile long allChanged;
+
+    private final Map<ContentTypeKey, Long> contentTypeChanges = new ConcurrentHashMap<ContentTypeKey, Long>();
+
+    private ClusterEventPublisher clusterEventPublisher = new NopClusterEventPublisher();
+
+    private CacheFacade cacheFacade;
+
+    private boolean enabled;
+
+    public boolean isEnabled()
+    {
+        return this.enabled;
+    }
+
+    /**
+     * Return the current index generation, to be passed to put after the query is executed.
+     */
+    public long getGeneration()
+    {
+        return this.generation.get();
+    }
+
+    public CachedContentIndexQueryResult get( final String querySource )
+    {
+        final CachedContentIndexQueryResult result = (CachedContentIndexQueryResult) this.cacheFacade.get( null, querySource );
+
+        if ( result == null )
+        {
+            return null;
+        }
+
+        // stale results are left to be replaced by the next put or to expire, since removing them would evict them on
+        // every node in the cluster
+        if ( isChangedAfter( result.getContentTypes(), result.getTime() ) )
+        {
+            return null;
+        }
+
+        return result;
+    }
+
+    public void put( final String querySource, final Collection<ContentTypeKey> contentTypeFilter, final List<ContentKey> keys,
+                     final int totalHits, final FacetsResultSet facets, final long generation )
+    {
+        final Set<ContentTypeKey> contentTypes = contentTypeFilter != null ? ImmutableSet.copyOf( contentTypeFilter ) : null;
+
+        // the index was changed while the query was executed
+        if ( isChangedAfter( contentTypes, generation ) )
+        {
+            return;
+        }
+
+        this.cacheFacade.put( null, querySource,
+                              new CachedContentIndexQueryResult( ImmutableList.copyOf( keys ), totalHits, facets, contentTypes,
+                                                                 generation ) );
+    }
+
+    /**
+     * Return the cached number of hits of a count query, or -1 if not cached.
+     */
+    public int getCount( final String querySource )
+    {
+        final CachedContentIndexQueryResult result = get( COUNT + querySource );
+        return result != null ? result.getTotalHits() : -1;
+    }
+
+    public void putCount( final String querySource, final Collection<ContentTypeKey> contentTypeFilter, final int count,
+                          final long generation )
+    {
+        put( COUNT + querySource, contentTypeFilter, ImmutableList.<ContentKey>of(), count, null, generation );
+    }
+
+    /**
+     * Record a change to the index. The content types are those of the changed content, or null if not known.
+     */
+    public void indexChanged( final Collection<ContentTypeKey> contentTypes )
+    {
+        if ( !this.enabled )
+        {
+            return;
+        }
+
+        record( contentTypes );
+
+        if ( contentTypes == null )
+        {
+            this.clusterEventPublisher.publish( new ClusterEvent( EVENT_TYPE, ALL ) );
+        }
+        else if ( !contentTypes.isEmpty() )
+        {
+            final String[] payload = new String[contentTypes.size()];
+            int i = 0;
+            for ( final ContentTypeKey contentType : contentTypes )
+            {
+                payload[i++] = contentType.toString();
+            }
+
+            this.clusterEventPublisher.publish( new ClusterEvent( EVENT_TYPE, payload ) );
+        }
+    }
+
+    private void record( final Collection<ContentTypeKey> contentTypes )
+    {
+        if ( contentTypes == null )
+        {
+            this.allChanged = this.generation.incrementAndGet();
+            return;
+        }
+
+        for ( final ContentTypeKey contentType : contentTypes )
+        {
+            this.contentTypeChanges.put( contentType, this.generation.incrementAndGet() );
+        }
+    }
+
+    private boolean isChangedAfter( final Set<ContentTypeKey> contentTypes, final long generation )
+    {
+        if ( contentTypes == null )
+        {
+            return this.generation.get() > generation;
+        }
+
+        if ( this.allChanged > generation )
+        {
+            return true;
+        }
+
+        for ( final ContentTypeKey contentType : contentTypes )
+        {
+            final Long changed = this.contentTypeChanges.get( contentType );
+            if ( ( changed != null ) && ( changed > generation ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public void handle( final ClusterEvent event )
+    {
+        if ( !this.enabled || !event.isOfType( EVENT_TYPE ) )
+        {
+            return;
+        }
+
+        if ( ALL.equals( event.getPayloadAt( 0 ) ) )
+        {
+            record( null );
+            return;
+        }
+
+        final List<ContentTypeKey> contentTypes = Lists.newArrayList();
+        for ( final String contentType : event.getPayload() )
+        {
+            contentTypes.add( new ContentTypeKey( contentType ) );
+        }
+
+        record( contentTypes );
+    }
+
+    @Autowired
+    public void setCacheManager( final CacheManager cacheManager )
+    {
+        this.cacheFacade = cacheManager.getQueryCache();
+    }
+
+    @Autowired(required = false)
+    public void setClusterEventPublisher( final ClusterEventPublisher clusterEventPublisher )
+    {
+        this.clusterEventPublisher = clusterEventPublisher;
+    }
+
+    @Value("${cms.cache.query.enabled}")
+    public void setEnabled( final boolean enabled )
+    {
+        this.enabled = enabled;
+    }
+}
@@ -34,6 +34,17 @@ final class ContentIndexRequestCreator
         return indexRequests;
     }
 
+    public IndexRequest createBinaryDataIndexRequest( String indexName, ContentIndexData contentIndexData )
+    {
+        if ( !contentIndexData.hasBinaryData() )
+        {
+            return null;
+        }
+
+        final String parentId = contentIndexData.getKey().toString();
+        return createIndexRequest( indexName, parentId, contentIndexData.buildBinaryDataJson(), IndexType.Binaries, parentId );
+    }
+
     private void addRequestsForContentData( final String indexName, final ContentIndexData contentIndexData,
                                             final Set<IndexRequest> indexRequests )
     {
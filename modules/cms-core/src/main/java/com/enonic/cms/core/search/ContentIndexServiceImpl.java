@@ -10,7 +10,9 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.PostConstruct;
 
@@ -28,12 +30,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.google.common.primitives.Ints;
 
 import com.enonic.cms.core.content.ContentEntityFetcherImpl;
 import com.enonic.cms.core.content.ContentKey;
 import com.enonic.cms.core.content.category.CategoryKey;
 import com.enonic.cms.core.content.contenttype.ContentTypeKey;
+import com.enonic.cms.core.content.index.BigText;
 import com.enonic.cms.core.content.index.ContentIndexQuery;
 import com.enonic.cms.core.content.resultset.ContentResultSet;
 import com.enonic.cms.core.content.resultset.ContentResultSetLazyFetcher;
@@ -48,6 +53,7 @@ import com.enonic.cms.core.search.query.AggregatedQueryTranslator;
 import com.enonic.cms.core.search.query.AggregatedResult;
 import com.enonic.cms.core.search.query.AggregatedResultImpl;
 import com.enonic.cms.core.search.query.ContentDocument;
+import com.enonic.cms.core.search.query.ContentIndexBatch;
 import com.enonic.cms.core.search.query.ContentIndexService;
 import com.enonic.cms.core.search.query.IndexQueryException;
 import com.enonic.cms.core.search.query.IndexValueQuery;
@@ -99,6 +105,12 @@ public class ContentIndexServiceImpl
     @Autowired
     private TimeService timeService;
 
+    private ContentIndexQueryResultCache queryResultCache;
+
+    private final Set<ContentTypeKey> unflushedContentTypes = Sets.newHashSet();
+
+    private boolean unflushedAll;
+
     @PostConstruct
     public void initializeContentIndex()
     {
@@ -151,6 +163,7 @@ public class ContentIndexServiceImpl
     public void remove( final ContentKey contentKey )
     {
         doRemoveEntryWithId( contentKey );
+        indexChanged( null );
     }
 
     public void removeByCategory( final CategoryKey categoryKey )
@@ -158,6 +171,7 @@ public class ContentIndexServiceImpl
         ContentIndexQuery contentIndexQuery = new ContentIndexQuery( "" );
         contentIndexQuery.setCategoryFilter( Arrays.asList( categoryKey ) );
         doRemoveByQuery( contentIndexQuery );
+        indexChanged( null );
     }
 
     public void removeByContentType( final ContentTypeKey contentTypeKey )
@@ -165,6 +179,7 @@ public class ContentIndexServiceImpl
         ContentIndexQuery contentIndexQuery = new ContentIndexQuery( "" );
         contentIndexQuery.setContentTypeFilter( Arrays.asList( contentTypeKey ) );
         doRemoveByQuery( contentIndexQuery );
+        indexChanged( Arrays.asList( contentTypeKey ) );
     }
 
     private void doRemoveByQuery( final ContentIndexQuery contentIndexQuery )
@@ -216,6 +231,51 @@ public class ContentIndexServiceImpl
         }
 
         elasticSearchIndexService.index( CONTENT_INDEX_NAME, contentIndexData );
+        indexChanged( doc.getContentTypeKey() != null ? Arrays.asList( doc.getContentTypeKey() ) : null );
+    }
+
+    public BulkIndexResult index( final ContentIndexBatch batch )
+    {
+        final List<ContentKey> deletes = Lists.newArrayList( batch.getRemovals() );
+        final List<ContentIndexData> indexData = Lists.newArrayList();
+
+        // the content types of removed content are not known
+        Set<ContentTypeKey> changedContentTypes = deletes.isEmpty() ? Sets.<ContentTypeKey>newHashSet() : null;
+
+        for ( ContentDocument doc : batch.getDocuments() )
+        {
+            final boolean updateMetadataOnly = batch.isUpdateMetadataOnly( doc.getContentKey() );
+            indexData.add( contentIndexDataFactory.create( doc, updateMetadataOnly ) );
+
+            if ( changedContentTypes != null )
+            {
+                if ( doc.getContentTypeKey() != null )
+                {
+                    changedContentTypes.add( doc.getContentTypeKey() );
+                }
+                else
+                {
+                    changedContentTypes = null;
+                }
+            }
+
+            if ( !updateMetadataOnly )
+            {
+                deletes.add( doc.getContentKey() );
+            }
+        }
+
+        final BulkIndexResult result = elasticSearchIndexService.bulk( CONTENT_INDEX_NAME, deletes, indexData );
+        indexChanged( changedContentTypes );
+        return result;
+    }
+
+    public void indexBinaryExtractedText( final ContentKey contentKey, final BigText text )
+    {
+        final ContentDocument doc = new ContentDocument( contentKey );
+        doc.setBinaryExtractedText( text );
+        elasticSearchIndexService.indexBinaryData( CONTENT_INDEX_NAME, contentIndexDataFactory.createBinaryData( doc ) );
+        indexChanged( null );
     }
 
     public boolean isIndexed( final ContentKey contentKey, final IndexType indexType )
@@ -256,6 +316,24 @@ public class ContentIndexServiceImpl
 
             ContentIndexQueryTracer.traceQuery( query, query.getIndex(), query.getCount(), translatedQuerySource.toString(), trace );
 
+            final int fromIndex = Math.max( query.getIndex(), 0 );
+
+            // random queries are seeded differently every time, caching them would only fill up the cache
+            final String querySourceKey =
+                queryResultCache.isEnabled() && !query.hasRandomOrder() ? translatedQuerySource.toString() : null;
+            if ( querySourceKey != null )
+            {
+                final CachedContentIndexQueryResult cachedResult = queryResultCache.get( querySourceKey );
+                if ( cachedResult != null )
+                {
+                    ContentIndexQueryTracer.traceMatchCount( cachedResult.getTotalHits(), trace );
+                    return createContentResultSet( new ArrayList<ContentKey>( cachedResult.getKeys() ), fromIndex,
+                                                   cachedResult.getTotalHits(), cachedResult.getFacets() );
+                }
+            }
+
+            final long generation = queryResultCache.getGeneration();
+
             ContentIndexQueryTracer.traceElasticSearchStartTime( trace, timeService );
             final SearchResponse searchResponse = doExecuteSearchRequest( translatedQuerySource );
             ContentIndexQueryTracer.traceElasticSearchFinishedTime( trace, timeService );
@@ -270,8 +348,6 @@ public class ContentIndexServiceImpl
 
             ContentIndexQueryTracer.traceMatchCount( queryResultTotalSize, trace );
 
-            final int fromIndex = Math.max( query.getIndex(), 0 );
-
             final ArrayList<ContentKey> keys = new ArrayList<ContentKey>();
 
             for ( final SearchHit hit : searchHits )
@@ -279,13 +355,15 @@ public class ContentIndexServiceImpl
                 keys.add( new ContentKey( hit.getId() ) );
             }
 
-            final ContentResultSetLazyFetcher contentResult =
-                new ContentResultSetLazyFetcher( new ContentEntityFetcherImpl( contentDao ), keys, fromIndex, queryResultTotalSize );
-
             final FacetsResultSet facetsResultSet = facetsResultSetCreator.createResultSet( searchResponse );
-            contentResult.setFacetsResultSet( facetsResultSet );
 
-            return contentResult;
+            if ( querySourceKey != null )
+            {
+                queryResultCache.put( querySourceKey, query.getContentTypeFilter(), keys, queryResultTotalSize, facetsResultSet,
+                                      generation );
+            }
+
+            return createContentResultSet( keys, fromIndex, queryResultTotalSize, facetsResultSet );
         }
         finally
         {
@@ -293,6 +371,15 @@ public class ContentIndexServiceImpl
         }
     }
 
+    private ContentResultSet createContentResultSet( final List<ContentKey> keys, final int fromIndex, final int totalSize,
+                                                     final FacetsResultSet facetsResultSet )
+    {
+        final ContentResultSetLazyFetcher contentResult =
+            new ContentResultSetLazyFetcher( new ContentEntityFetcherImpl( contentDao ), keys, fromIndex, totalSize );
+        contentResult.setFacetsResultSet( facetsResultSet );
+        return contentResult;
+    }
+
     /**
      * Check the filters to see if they may be set so that everything is filtered out. This happens if the filters are not <code>null</code>
      * so that they are applied, but does not contain any elements. If so, there's no point in running the query to the database, as all
@@ -339,9 +426,26 @@ public class ContentIndexServiceImpl
     {
         final SearchSourceBuilder searchSource = queryTranslator.build( query, 1 );
 
-        final long actualCount = elasticSearchIndexService.count( CONTENT_INDEX_NAME, IndexType.Content.toString(), searchSource );
+        final String querySourceKey = queryResultCache.isEnabled() && !query.hasRandomOrder() ? searchSource.toString() : null;
+        if ( querySourceKey != null )
+        {
+            final int cachedCount = queryResultCache.getCount( querySourceKey );
+            if ( cachedCount >= 0 )
+            {
+                return cachedCount;
+            }
+        }
 
-        return Ints.saturatedCast( actualCount );
+        final long generation = queryResultCache.getGeneration();
+        final int actualCount =
+            Ints.saturatedCast( elasticSearchIndexService.count( CONTENT_INDEX_NAME, IndexType.Content.toString(), searchSource ) );
+
+        if ( querySourceKey != null )
+        {
+            queryResultCache.putCount( querySourceKey, query.getContentTypeFilter(), actualCount, generation );
+        }
+
+        return actualCount;
     }
 
     public IndexValueResultSet query( final IndexValueQuery query )
@@ -433,6 +537,49 @@ public class ContentIndexServiceImpl
     public void flush()
     {
         elasticSearchIndexService.flush( CONTENT_INDEX_NAME );
+
+        // changes are recorded again once flushed, so results of queries executed before the changes were visible are
+        // discarded
+        final Set<ContentTypeKey> changedContentTypes;
+        synchronized ( this.unflushedContentTypes )
+        {
+            if ( !this.unflushedAll && this.unflushedContentTypes.isEmpty() )
+            {
+                return;
+            }
+
+            changedContentTypes = this.unflushedAll ? null : Sets.newHashSet( this.unflushedContentTypes );
+            this.unflushedAll = false;
+            this.unflushedContentTypes.clear();
+        }
+
+        this.queryResultCache.indexChanged( changedContentTypes );
+    }
+
+    /**
+     * Record a change to the index for the query result cache. The content types are those of the changed content,
+     * or null if not known.
+     */
+    private void indexChanged( final Collection<ContentTypeKey> contentTypes )
+    {
+        if ( !this.queryResultCache.isEnabled() )
+        {
+            return;
+        }
+
+        this.queryResultCache.indexChanged( contentTypes );
+
+        synchronized ( this.unflushedContentTypes )
+        {
+            if ( contentTypes == null )
+            {
+                this.unflushedAll = true;
+            }
+            else
+            {
+                this.unflushedContentTypes.addAll( contentTypes );
+            }
+        }
     }
 
     public AggregatedResult query( final AggregatedQuery query )
@@ -463,6 +610,7 @@ public class ContentIndexServiceImpl
         elasticSearchIndexService.deleteMapping( CONTENT_INDEX_NAME, IndexType.Content );
         elasticSearchIndexService.deleteMapping( CONTENT_INDEX_NAME, IndexType.Binaries );
         addMapping();
+        indexChanged( null );
     }
 
     @Override
@@ -478,6 +626,13 @@ public class ContentIndexServiceImpl
     {
         elasticSearchIndexService.createIndex( CONTENT_INDEX_NAME );
         addMapping();
+        indexChanged( null );
+    }
+
+    @Autowired
+    public void setQueryResultCache( final ContentIndexQueryResultCache queryResultCache )
+    {
+        this.queryResultCache = queryResultCache;
     }
 
     @Autowired
@@ -5,6 +5,7 @@
 
 package com.enonic.cms.core.search;
 
+import java.util.Collection;
 import java.util.Map;
 
 import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
@@ -58,6 +59,16 @@ public interface ElasticSearchIndexService
 
     public void index( IndexRequest request );
 
+    /**
+     * Index the binary data of the content only, replacing any binary data indexed before.
+     */
+    public void indexBinaryData( String indexName, ContentIndexData contentIndexData );
+
+    /**
+     * Delete and index content using bulk requests. Deletes are sent before the index requests.
+     */
+    public BulkIndexResult bulk( String indexName, Collection<ContentKey> deletes, Collection<ContentIndexData> indexData );
+
     public boolean get( String indexName, IndexType indexType, ContentKey contentKey );
 
     public long count( String indexName, String indexType, SearchSourceBuilder sourceBuilder );
@@ -5,6 +5,7 @@
 
 package com.enonic.cms.core.search;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +37,9 @@ import org.elasticsearch.action.admin.indices.settings.UpdateSettingsResponse;
 import org.elasticsearch.action.admin.indices.status.IndexStatus;
 import org.elasticsearch.action.admin.indices.status.IndicesStatusRequestBuilder;
 import org.elasticsearch.action.admin.indices.status.IndicesStatusResponse;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.count.CountRequestBuilder;
 import org.elasticsearch.action.count.CountResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
@@ -67,6 +71,8 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import com.enonic.cms.core.content.ContentKey;
+import com.enonic.cms.core.metrics.MetricsRegistry;
+import com.enonic.cms.core.metrics.Timer;
 import com.enonic.cms.core.search.builder.ContentIndexData;
 
 /**
@@ -82,6 +88,12 @@ public class ElasticSearchIndexServiceImpl
 
     private static final SearchType DEFAULT_SEARCH_TYPE = SearchType.QUERY_THEN_FETCH;
 
+    private static final Timer SEARCH_TIMER = MetricsRegistry.getInstance().timer( "index_search", "Index searches" );
+
+    private static final Timer INDEX_TIMER = MetricsRegistry.getInstance().timer( "index_index", "Index requests" );
+
+    private static final Timer BULK_TIMER = MetricsRegistry.getInstance().timer( "index_bulk", "Bulk index requests" );
+
     private static final int MAX_NUM_SEGMENTS = 1;
 
     private static final boolean WAIT_FOR_MERGE = true;
@@ -90,6 +102,8 @@ public class ElasticSearchIndexServiceImpl
 
     public static final TimeValue DELETE_FROM_INDEX_TIMEOUT_SECONDS = TimeValue.timeValueSeconds( 60 );
 
+    public static final TimeValue BULK_REQUEST_TIMEOUT_SECONDS = TimeValue.timeValueSeconds( 300 );
+
     public static final String ROUND_ROBIN_SEARCH_PREFERENCE = "_round-robin";
 
     public String searchPreference = "_local";
@@ -100,6 +114,8 @@ public class ElasticSearchIndexServiceImpl
 
     private int statusTimeout;
 
+    private int bulkSize = 500;
+
     public static final TimeValue CLUSTER_NOWAIT_TIMEOUT = TimeValue.timeValueSeconds( 1 );
 
     private IndexSettingBuilder indexSettingBuilder;
@@ -317,8 +333,92 @@ public class ElasticSearchIndexServiceImpl
         doIndex( request );
     }
 
+    public void indexBinaryData( final String indexName, final ContentIndexData contentIndexData )
+    {
+        final IndexRequest indexRequest = contentIndexRequestCreator.createBinaryDataIndexRequest( indexName, contentIndexData );
+        if ( indexRequest != null )
+        {
+            doIndex( indexRequest );
+        }
+    }
+
+    @Override
+    public BulkIndexResult bulk( final String indexName, final Collection<ContentKey> deletes,
+                                 final Collection<ContentIndexData> indexData )
+    {
+        final BulkIndexResult result = new BulkIndexResult();
+        BulkRequest bulkRequest = new BulkRequest();
+
+        for ( ContentKey contentKey : deletes )
+        {
+            bulkRequest.add( new DeleteRequest( indexName, IndexType.Binaries.toString(), contentKey.toString() ) );
+            bulkRequest.add( new DeleteRequest( indexName, IndexType.Content.toString(), contentKey.toString() ) );
+            bulkRequest = executeBulkIfFull( bulkRequest, result );
+        }
+
+        for ( ContentIndexData contentIndexData : indexData )
+        {
+            for ( IndexRequest indexRequest : contentIndexRequestCreator.createIndexRequests( indexName, contentIndexData ) )
+            {
+                bulkRequest.add( indexRequest );
+            }
+            bulkRequest = executeBulkIfFull( bulkRequest, result );
+        }
+
+        if ( bulkRequest.numberOfActions() > 0 )
+        {
+            doBulk( bulkRequest, result );
+        }
+
+        return result;
+    }
+
+    private BulkRequest executeBulkIfFull( final BulkRequest bulkRequest, final BulkIndexResult result )
+    {
+        if ( bulkRequest.numberOfActions() < this.bulkSize )
+        {
+            return bulkRequest;
+        }
+
+        doBulk( bulkRequest, result );
+        return new BulkRequest();
+    }
+
+    private void doBulk( final BulkRequest bulkRequest, final BulkIndexResult result )
+    {
+        final BulkResponse bulkResponse;
+        final Timer.Context timing = BULK_TIMER.start();
+        try
+        {
+            bulkResponse = this.client.bulk( bulkRequest ).actionGet( BULK_REQUEST_TIMEOUT_SECONDS );
+        }
+        catch ( ElasticSearchException e )
+        {
+            throw new IndexException( "Failed to execute bulk request with " + bulkRequest.numberOfActions() + " actions", e );
+        }
+        finally
+        {
+            timing.stop();
+        }
+
+        result.addActions( bulkRequest.numberOfActions() );
+
+        for ( BulkItemResponse itemResponse : bulkResponse.getItems() )
+        {
+            if ( itemResponse.isFailed() )
+            {
+                LOG.warn( "Failed to " + itemResponse.getOpType() + " content with id " + itemResponse.getId() + ", index-type " +
+                              itemResponse.getType() + ": " + itemResponse.getFailureMessage() );
+                result.addFailure( new ContentKey( itemResponse.getId() ), itemResponse.getFailureMessage() );
+            }
+        }
+
+        LOG.trace( "Bulk request with " + bulkRequest.numberOfActions() + " actions executed in " + bulkResponse.getTookInMillis() + " ms" );
+    }
+
     private IndexResponse doIndex( IndexRequest indexRequest )
     {
+        final Timer.Context timing = INDEX_TIMER.start();
         try
         {
             return this.client.index( indexRequest ).actionGet( INDEX_REQUEST_TIMEOUT_SECONDS );
@@ -327,6 +427,10 @@ public class ElasticSearchIndexServiceImpl
         {
             throw new IndexException( "Failed to index content with id: " + indexRequest.id(), e );
         }
+        finally
+        {
+            timing.stop();
+        }
     }
 
     @Override
@@ -471,6 +575,7 @@ public class ElasticSearchIndexServiceImpl
     private SearchResponse doSearchRequest( final SearchRequest searchRequest )
     {
         final SearchResponse searchResponse;
+        final Timer.Context timing = SEARCH_TIMER.start();
         try
         {
             searchResponse = this.client.search( searchRequest ).actionGet( this.searchTimeout );
@@ -484,6 +589,10 @@ public class ElasticSearchIndexServiceImpl
         {
             throw new IndexException( "Search failed", e );
         }
+        finally
+        {
+            timing.stop();
+        }
 
         return searchResponse;
     }
@@ -588,6 +697,12 @@ public class ElasticSearchIndexServiceImpl
         LOG.info( "Setting searchTimeout to " + this.statusTimeout );
     }
 
+    @Value("${cms.index.bulk.size}")
+    public void setBulkSize( final int bulkSize )
+    {
+        this.bulkSize = Math.max( bulkSize, 1 );
+    }
+
     @Value("${cms.index.search.preference}")
     public void setSearchPreference( final String searchPreference )
     {
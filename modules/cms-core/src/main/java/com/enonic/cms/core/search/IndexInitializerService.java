@@ -67,6 +67,15 @@ public class IndexInitializerService
         {
             LOG.info( "Index has no data, reindex all content" );
 
+            reindexContentToolService.clearReindexCheckpoint();
+            ReindexJob reindexJob = new ReindexJob();
+
+            taskExecutor.execute( reindexJob );
+        }
+        else if ( reindexContentToolService.hasReindexCheckpoint() )
+        {
+            LOG.info( "Previous reindex was interrupted, resuming reindex" );
+
             ReindexJob reindexJob = new ReindexJob();
 
             taskExecutor.execute( reindexJob );
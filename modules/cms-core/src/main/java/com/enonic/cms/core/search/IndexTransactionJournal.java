@@ -20,7 +20,9 @@ import com.enonic.cms.core.content.ContentEntity;
 import com.enonic.cms.core.content.ContentKey;
 import com.enonic.cms.core.content.ContentMap;
 import com.enonic.cms.core.content.IndexService;
+import com.enonic.cms.core.portal.datasource.cache.DataSourceResultCache;
 import com.enonic.cms.core.search.query.ContentDocument;
+import com.enonic.cms.core.search.query.ContentIndexBatch;
 import com.enonic.cms.core.search.query.ContentIndexService;
 import com.enonic.cms.store.dao.ContentDao;
 import com.enonic.cms.store.dao.ContentEagerFetches;
@@ -41,12 +43,35 @@ public class IndexTransactionJournal
 
     private final Set<IndexTransactionJournalEntry> changeHistory;
 
+    private final List<ContentEntity> updatedContent;
+
+    private final List<ContentKey> deletedContent;
+
+    private final List<ContentEntity> binaryTextToIndexLater;
+
+    private DataSourceResultCache dataSourceResultCache;
+
+    private AsyncBinaryTextIndexer asyncBinaryTextIndexer;
+
     public IndexTransactionJournal( ContentIndexService contentIndexService, IndexService indexService, ContentDao contentDao )
     {
         this.contentIndexService = contentIndexService;
         this.indexService = indexService;
         this.contentDao = contentDao;
         this.changeHistory = new HashSet<IndexTransactionJournalEntry>();
+        this.updatedContent = new ArrayList<ContentEntity>();
+        this.deletedContent = new ArrayList<ContentKey>();
+        this.binaryTextToIndexLater = new ArrayList<ContentEntity>();
+    }
+
+    public void setDataSourceResultCache( final DataSourceResultCache dataSourceResultCache )
+    {
+        this.dataSourceResultCache = dataSourceResultCache;
+    }
+
+    public void setAsyncBinaryTextIndexer( final AsyncBinaryTextIndexer asyncBinaryTextIndexer )
+    {
+        this.asyncBinaryTextIndexer = asyncBinaryTextIndexer;
     }
 
     public void startTransaction()
@@ -114,23 +139,64 @@ public class IndexTransactionJournal
 
         final ContentMap contentMap = preloadContent();
 
+        final ContentIndexBatch batch = new ContentIndexBatch();
+
         LOG.debug( "Flushing index changes from transaction journal" );
         for ( IndexTransactionJournalEntry journalEntry : changeHistory )
         {
             switch ( journalEntry.getOperation() )
             {
                 case UPDATE:
-                    handleFlushUpdateOperation( journalEntry, contentMap );
+                    handleFlushUpdateOperation( journalEntry, contentMap, batch );
                     break;
 
                 case DELETE:
-                    handleFlushDeleteOperation( journalEntry );
+                    handleFlushDeleteOperation( journalEntry, batch );
                     break;
             }
         }
         changeHistory.clear();
 
+        indexBatch( batch );
         flushIndex();
+        invalidateDataSourceResults();
+        indexBinaryTextLater();
+    }
+
+    /**
+     * Queue extraction of the binary text of content indexed without it, now that the content itself is indexed.
+     */
+    private void indexBinaryTextLater()
+    {
+        for ( ContentEntity content : binaryTextToIndexLater )
+        {
+            asyncBinaryTextIndexer.indexLater( content );
+        }
+
+        binaryTextToIndexLater.clear();
+    }
+
+    /**
+     * Invalidate cached datasource results after the index is flushed, so that results computed from the old index
+     * are not cached again.
+     */
+    private void invalidateDataSourceResults()
+    {
+        if ( dataSourceResultCache != null )
+        {
+            for ( ContentEntity content : updatedContent )
+            {
+                dataSourceResultCache.invalidateContent( content );
+            }
+
+            for ( ContentKey contentKey : deletedContent )
+            {
+                dataSourceResultCache.invalidateContent( contentKey );
+            }
+        }
+
+        updatedContent.clear();
+        deletedContent.clear();
     }
 
     private ContentMap preloadContent()
@@ -150,47 +216,85 @@ public class IndexTransactionJournal
         return contentDao.findByKeys( command );
     }
 
-    private void handleFlushUpdateOperation( final IndexTransactionJournalEntry journalEntry, final ContentMap contentMap )
+    private void handleFlushUpdateOperation( final IndexTransactionJournalEntry journalEntry, final ContentMap contentMap,
+                                             final ContentIndexBatch batch )
     {
         final ContentEntity content = contentMap.get( journalEntry.getContentKey() );
         if ( content == null )
         {
             LOG.warn( "Content to update index for did not exist (removing index for content instead): " + journalEntry.getContentKey() );
-            deleteContent( journalEntry.getContentKey() );
+            deleteContent( journalEntry.getContentKey(), batch );
         }
         else if ( content.isDeleted() )
         {
-            deleteContent( content.getKey() );
+            deleteContent( content.getKey(), batch );
         }
         else
         {
-            doUpdateContent( content, journalEntry.isUpdateMetadataOnly() );
+            doUpdateContent( content, journalEntry.isUpdateMetadataOnly(), batch );
         }
     }
 
-    private void handleFlushDeleteOperation( final IndexTransactionJournalEntry journalEntry )
+    private void handleFlushDeleteOperation( final IndexTransactionJournalEntry journalEntry, final ContentIndexBatch batch )
     {
-        deleteContent( journalEntry.getContentKey() );
+        deleteContent( journalEntry.getContentKey(), batch );
     }
 
-    private void doUpdateContent( final ContentEntity content, final boolean updateMetadataOnly )
+    private void doUpdateContent( final ContentEntity content, final boolean updateMetadataOnly, final ContentIndexBatch batch )
     {
-        final ContentDocument doc = indexService.createContentDocument( content, updateMetadataOnly );
+        final ContentDocument doc;
+        if ( !updateMetadataOnly && ( asyncBinaryTextIndexer != null ) && asyncBinaryTextIndexer.isExtractionPending( content ) )
+        {
+            doc = indexService.createContentDocument( content, false, false );
+            binaryTextToIndexLater.add( content );
+        }
+        else
+        {
+            doc = indexService.createContentDocument( content, updateMetadataOnly );
+        }
+
+        if ( !updateMetadataOnly && ( asyncBinaryTextIndexer != null ) )
+        {
+            asyncBinaryTextIndexer.contentChanged( content.getKey() );
+        }
 
         LOG.debug( "Updating index for content: " + doc.getContentKey().toString() );
 
-        contentIndexService.index( doc, updateMetadataOnly );
+        batch.addDocument( doc, updateMetadataOnly );
+        updatedContent.add( content );
     }
 
-    private void deleteContent( ContentKey contentKey )
+    private void deleteContent( final ContentKey contentKey, final ContentIndexBatch batch )
     {
         LOG.debug( "Deleting index for content: " + contentKey.toString() );
 
-        contentIndexService.remove( contentKey );
+        batch.addRemoval( contentKey );
+        deletedContent.add( contentKey );
+
+        if ( asyncBinaryTextIndexer != null )
+        {
+            asyncBinaryTextIndexer.contentChanged( contentKey );
+        }
+    }
+
+    private void indexBatch( final ContentIndexBatch batch )
+    {
+        if ( batch.isEmpty() )
+        {
+            return;
+        }
+
+        final BulkIndexResult result = contentIndexService.index( batch );
+
+        for ( ContentKey contentKey : result.getFailedContentKeys() )
+        {
+            LOG.error( "Failed to update index for content " + contentKey + ": " + result.getFailureMessage( contentKey ) );
+        }
     }
 
     private void flushIndex()
     {
+        // also records the changes for the query result cache, now that they are visible
         contentIndexService.flush();
     }
 
@@ -16,6 +16,7 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
 
 import com.enonic.cms.core.content.ContentKey;
 import com.enonic.cms.core.content.IndexService;
+import com.enonic.cms.core.portal.datasource.cache.DataSourceResultCache;
 import com.enonic.cms.core.search.query.ContentIndexService;
 import com.enonic.cms.store.dao.ContentDao;
 
@@ -37,6 +38,12 @@ public class IndexTransactionServiceImpl
     @Autowired
     private ContentIndexService contentIndexService;
 
+    @Autowired
+    private DataSourceResultCache dataSourceResultCache;
+
+    @Autowired
+    private AsyncBinaryTextIndexer asyncBinaryTextIndexer;
+
     @Override
     public void startTransaction()
     {
@@ -102,6 +109,8 @@ public class IndexTransactionServiceImpl
             return indexTransactionJournal;
         }
         indexTransactionJournal = new IndexTransactionJournal( contentIndexService, indexService, contentDao );
+        indexTransactionJournal.setDataSourceResultCache( dataSourceResultCache );
+        indexTransactionJournal.setAsyncBinaryTextIndexer( asyncBinaryTextIndexer );
         TransactionSynchronizationManager.bindResource( TRANSACTION_JOURNAL_KEY, indexTransactionJournal );
         return indexTransactionJournal;
     }
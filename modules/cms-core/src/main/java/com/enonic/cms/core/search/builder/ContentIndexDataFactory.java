@@ -40,6 +40,16 @@ public class ContentIndexDataFactory
         return doCreate( content, false );
     }
 
+    /**
+     * Create index data with only the extracted binary data of the content.
+     */
+    public ContentIndexData createBinaryData( ContentDocument content )
+    {
+        ContentIndexData contentIndexData = new ContentIndexData( content.getContentKey() );
+        addExtractedBinaryData( contentIndexData, content );
+        return contentIndexData;
+    }
+
     private ContentIndexData doCreate( final ContentDocument content, boolean updateMetadataOnly )
     {
         ContentIndexData contentIndexData = new ContentIndexData( content.getContentKey() );
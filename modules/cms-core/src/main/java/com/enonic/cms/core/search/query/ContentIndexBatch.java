@@ -0,0 +1,60 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.search.query;
+
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import com.enonic.cms.core.content.ContentKey;
+
+/**
+ * Content to index and remove in one bulk operation.
+ */
+public final class ContentIndexBatch
+{
+    private final List<ContentDocument> documents = Lists.newArrayList();
+
+    private final Set<ContentKey> metadataOnly = Sets.newHashSet();
+
+    private final Set<ContentKey> removals = Sets.newLinkedHashSet();
+
+    public void addDocument( final ContentDocument doc, final boolean updateMetadataOnly )
+    {
+        this.documents.add( doc );
+
+        if ( updateMetadataOnly )
+        {
+            this.metadataOnly.add( doc.getContentKey() );
+        }
+    }
+
+    public void addRemoval( final ContentKey contentKey )
+    {
+        this.removals.add( contentKey );
+    }
+
+    public List<ContentDocument> getDocuments()
+    {
+        return this.documents;
+    }
+
+    public boolean isUpdateMetadataOnly( final ContentKey contentKey )
+    {
+        return this.metadataOnly.contains( contentKey );
+    }
+
+    public Set<ContentKey> getRemovals()
+    {
+        return this.removals;
+    }
+
+    public boolean isEmpty()
+    {
+        return this.documents.isEmpty() && this.removals.isEmpty();
+    }
+}
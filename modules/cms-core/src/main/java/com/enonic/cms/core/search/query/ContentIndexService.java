@@ -9,8 +9,10 @@ import java.util.Collection;
 import com.enonic.cms.core.content.ContentKey;
 import com.enonic.cms.core.content.category.CategoryKey;
 import com.enonic.cms.core.content.contenttype.ContentTypeKey;
+import com.enonic.cms.core.content.index.BigText;
 import com.enonic.cms.core.content.index.ContentIndexQuery;
 import com.enonic.cms.core.content.resultset.ContentResultSet;
+import com.enonic.cms.core.search.BulkIndexResult;
 import com.enonic.cms.core.search.ContentIndexedFields;
 import com.enonic.cms.core.search.IndexType;
 
@@ -48,6 +50,18 @@ public interface ContentIndexService
 
     public void index( ContentDocument doc );
 
+    /**
+     * Index and remove the content of the batch with bulk requests. Content that fails is reported in the result
+     * instead of failing the whole batch.
+     */
+    public BulkIndexResult index( ContentIndexBatch batch );
+
+    /**
+     * Index the text extracted from the binary of content that is already indexed, leaving the rest of the content
+     * index entry as it is.
+     */
+    public void indexBinaryExtractedText( ContentKey contentKey, BigText text );
+
     /**
      * Return true if content is indexed.
      */
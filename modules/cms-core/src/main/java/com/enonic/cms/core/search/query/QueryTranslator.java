@@ -10,6 +10,7 @@ import org.elasticsearch.index.query.FilterBuilder;
 import org.elasticsearch.index.query.FilteredQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.functionscore.ScoreFunctionBuilders;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.facet.FacetBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -95,7 +96,10 @@ public class QueryTranslator
 
         builtQuery = buildQuery( expression );
 
-        applySorting( builder, contentIndexQuery, queryExpr.getOrderBy() );
+        if ( !contentIndexQuery.hasRandomOrder() )
+        {
+            applySorting( builder, contentIndexQuery, queryExpr.getOrderBy() );
+        }
 
         doAddFilters( contentIndexQuery, builder, builtQuery );
 
@@ -110,7 +114,17 @@ public class QueryTranslator
     {
         final FilterBuilder filtersToApply = filterQueryBuilderFactory.buildFilter( contentIndexQuery );
         FilteredQueryBuilder filterQueryBuilder = new FilteredQueryBuilder( builtQuery, filtersToApply );
-        builder.query( filterQueryBuilder );
+
+        if ( contentIndexQuery.hasRandomOrder() )
+        {
+            // replace the score with a seeded random score, hits are then ordered randomly by score
+            builder.query( QueryBuilders.functionScoreQuery( filterQueryBuilder, ScoreFunctionBuilders.randomFunction(
+                contentIndexQuery.getRandomSeed() ) ).boostMode( "replace" ) );
+        }
+        else
+        {
+            builder.query( filterQueryBuilder );
+        }
     }
 
     private void doAddFacets( final ContentIndexQuery contentIndexQuery, final SearchSourceBuilder builder )
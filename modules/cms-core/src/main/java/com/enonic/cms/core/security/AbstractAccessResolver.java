@@ -8,6 +8,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.enonic.cms.core.security.group.GroupEntity;
+import com.enonic.cms.core.security.group.GroupMembershipClosure;
 import com.enonic.cms.core.security.user.UserEntity;
 import com.enonic.cms.core.security.userstore.UserStoreEntity;
 import com.enonic.cms.core.security.userstore.UserStoreKey;
@@ -58,6 +59,14 @@ public abstract class AbstractAccessResolver<TEntity, TAccessType>
         return authenticatedUsersGroup;
     }
 
+    /**
+     * Return the keys of all groups the given group is member of, directly or indirectly.
+     */
+    protected GroupMembershipClosure getMembershipClosure( GroupEntity group )
+    {
+        return groupDao.findMembershipClosure( group );
+    }
+
     protected boolean doHasAccess( final UserEntity user, final TEntity entity, final TAccessType accessType )
     {
         if ( user == null )
@@ -97,7 +106,7 @@ public abstract class AbstractAccessResolver<TEntity, TAccessType>
         }
 
         // check "enterprise admins" group if user is member of that
-        if ( user.isMemberOf( getEnterpriseAdminsGroup(), true ) )
+        if ( isMemberOfEnterpriseAdmins( user ) )
         {
             return true;
         }
@@ -111,6 +120,19 @@ public abstract class AbstractAccessResolver<TEntity, TAccessType>
     }
 
 
+    protected boolean isMemberOfEnterpriseAdmins( final UserEntity user )
+    {
+        final GroupEntity userGroup = user.getUserGroup();
+        if ( userGroup == null )
+        {
+            return false;
+        }
+
+        final GroupEntity enterpriseAdminsGroup = getEnterpriseAdminsGroup();
+        return enterpriseAdminsGroup.equals( userGroup ) ||
+            getMembershipClosure( userGroup ).contains( enterpriseAdminsGroup.getGroupKey() );
+    }
+
     protected abstract boolean hasAccess( TEntity entity, GroupEntity group, TAccessType accessType, boolean checkMemberships );
 
 
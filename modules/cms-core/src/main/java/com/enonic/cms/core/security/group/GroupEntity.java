@@ -12,6 +12,7 @@ import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang.builder.HashCodeBuilder;
 
@@ -22,6 +23,7 @@ import com.enonic.cms.core.security.userstore.UserStoreKey;
 public class GroupEntity
     implements Serializable
 {
+    private final static AtomicLong MEMBERSHIP_GENERATION = new AtomicLong();
 
     private GroupKey key;
 
@@ -175,11 +177,13 @@ public class GroupEntity
     public void setDeleted( int value )
     {
         this.deleted = value;
+        MEMBERSHIP_GENERATION.incrementAndGet();
     }
 
     public void setDeleted( boolean value )
     {
         this.deleted = value ? 1 : 0;
+        MEMBERSHIP_GENERATION.incrementAndGet();
     }
 
     public void setRestricted( int value )
@@ -441,6 +445,7 @@ public class GroupEntity
     {
         this.memberships.add( group );
         group.members.add( this );
+        MEMBERSHIP_GENERATION.incrementAndGet();
         return this;
     }
 
@@ -448,6 +453,7 @@ public class GroupEntity
     {
         this.memberships.remove( group );
         group.members.remove( this );
+        MEMBERSHIP_GENERATION.incrementAndGet();
     }
 
     public boolean equals( Object o )
@@ -494,6 +500,16 @@ public class GroupEntity
     public void removeAllMembers()
     {
         members.clear();
+        MEMBERSHIP_GENERATION.incrementAndGet();
+    }
+
+    /**
+     * Counter that is increased on every change to group memberships made on this node, so that cached membership
+     * closures computed before the change can be detected.
+     */
+    public static long getMembershipGeneration()
+    {
+        return MEMBERSHIP_GENERATION.get();
     }
 
     public boolean hasMembership( GroupEntity group )
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.security.group;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The keys of all groups a group is member of, directly or through other memberships. Deleted groups are not
+ * followed. The keys are kept as a sorted array, so that the closure is compact enough to be cached for every group
+ * and can be searched without walking the group graph.
+ */
+public final class GroupMembershipClosure
+    implements Serializable
+{
+    private static final long serialVersionUID = 2715096212830716352L;
+
+    private final static Comparator<GroupKey> COMPARATOR = new GroupKeyComparator();
+
+    private final GroupKey[] groupKeys;
+
+    private final long generation;
+
+    private GroupMembershipClosure( final GroupKey[] groupKeys, final long generation )
+    {
+        this.groupKeys = groupKeys;
+        this.generation = generation;
+    }
+
+    public boolean contains( final GroupKey groupKey )
+    {
+        return Arrays.binarySearch( this.groupKeys, groupKey, COMPARATOR ) >= 0;
+    }
+
+    public List<GroupKey> getGroupKeys()
+    {
+        return Collections.unmodifiableList( Arrays.asList( this.groupKeys ) );
+    }
+
+    public int size()
+    {
+        return this.groupKeys.length;
+    }
+
+    /**
+     * Membership generation the closure was computed in, see {@link GroupEntity#getMembershipGeneration()}.
+     */
+    public long getGeneration()
+    {
+        return this.generation;
+    }
+
+    public static GroupMembershipClosure create( final GroupEntity group )
+    {
+        final long generation = GroupEntity.getMembershipGeneration();
+
+        final Set<GroupEntity> visited = new HashSet<GroupEntity>();
+        final LinkedList<GroupEntity> queue = new LinkedList<GroupEntity>();
+        visited.add( group );
+        queue.add( group );
+
+        final List<GroupKey> keys = new ArrayList<GroupKey>();
+        while ( !queue.isEmpty() )
+        {
+            for ( final GroupEntity membership : queue.removeFirst().getMemberships( false ) )
+            {
+                if ( visited.add( membership ) )
+                {
+                    keys.add( membership.getGroupKey() );
+                    queue.add( membership );
+                }
+            }
+        }
+
+        Collections.sort( keys, COMPARATOR );
+        return new GroupMembershipClosure( keys.toArray( new GroupKey[keys.size()] ), generation );
+    }
+}
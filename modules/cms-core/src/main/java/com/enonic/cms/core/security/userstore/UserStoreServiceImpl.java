@@ -19,6 +19,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 
 import com.google.common.base.Preconditions;
@@ -34,6 +36,7 @@ import com.enonic.cms.api.plugin.ext.userstore.UserFields;
 import com.enonic.cms.api.plugin.ext.userstore.UserStoreConfig;
 import com.enonic.cms.api.plugin.ext.userstore.UserStoreConfigField;
 import com.enonic.cms.core.plugin.ext.AuthenticatorExtensions;
+import com.enonic.cms.core.portal.datasource.cache.DataSourceResultCache;
 import com.enonic.cms.core.security.group.AddMembershipsCommand;
 import com.enonic.cms.core.security.group.CreateGroupAccessException;
 import com.enonic.cms.core.security.group.DeleteGroupAccessException;
@@ -113,6 +116,9 @@ public class UserStoreServiceImpl
     @Autowired
     private AuthenticatorExtensions authenticationInterceptors;
 
+    @Autowired
+    private DataSourceResultCache dataSourceResultCache;
+
     public static UserStoreService INSTANCE;
 
     @PostConstruct
@@ -133,6 +139,8 @@ public class UserStoreServiceImpl
     @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
     public UserKey storeNewUser( final StoreNewUserCommand command )
     {
+        invalidateMembershipClosures();
+
         final UserSpecification storerSpec = new UserSpecification();
         storerSpec.setKey( command.getStorer() );
         storerSpec.setDeletedStateNotDeleted();
@@ -317,6 +325,8 @@ public class UserStoreServiceImpl
     @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
     public void updateUser( final UpdateUserCommand command )
     {
+        invalidateMembershipClosures();
+
         final UserEntity userToUpdate = userDao.findSingleBySpecification( command.getSpecification() );
         if ( userToUpdate == null )
         {
@@ -381,6 +391,8 @@ public class UserStoreServiceImpl
     @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
     public void deleteUser( final DeleteUserCommand command )
     {
+        invalidateMembershipClosures();
+
         final UserEntity deleter = userDao.findByKey( command.getDeleter() );
         final UserEntity userToDelete = userDao.findSingleBySpecification( command.getSpecification() );
         if ( userToDelete == null )
@@ -431,6 +443,8 @@ public class UserStoreServiceImpl
     @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
     public GroupKey storeNewGroup( final StoreNewGroupCommand command )
     {
+        invalidateMembershipClosures();
+
         UserStoreEntity userStore = null;
         if ( command.getUserStoreKey() != null )
         {
@@ -594,6 +608,8 @@ public class UserStoreServiceImpl
     @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
     public void updateGroup( final UpdateGroupCommand command )
     {
+        invalidateMembershipClosures();
+
         final GroupEntity groupToBeUpdated = groupDao.findByKey( command.getGroupKey() );
         final UserEntity updater = userDao.findByKey( command.getUpdater() );
 
@@ -616,6 +632,8 @@ public class UserStoreServiceImpl
     @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
     public List<GroupEntity> addMembershipsToGroup( final AddMembershipsCommand command )
     {
+        invalidateMembershipClosures();
+
         final List<GroupEntity> groupsAddedTo = new ArrayList<GroupEntity>();
         final UserEntity executor = userDao.findByKey( command.getExecutor() );
         final GroupEntity groupToAdd = groupDao.findSingleBySpecification( command.getGroupToAdd() );
@@ -666,6 +684,8 @@ public class UserStoreServiceImpl
     @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
     public List<GroupEntity> removeMembershipsFromGroup( final RemoveMembershipsCommand command )
     {
+        invalidateMembershipClosures();
+
         final List<GroupEntity> groupsRemovedFrom = new ArrayList<GroupEntity>();
         final UserEntity executor = userDao.findByKey( command.getExecutor() );
         final GroupEntity groupToRemove = groupDao.findSingleBySpecification( command.getGroupToRemove() );
@@ -715,6 +735,8 @@ public class UserStoreServiceImpl
     @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
     public void deleteGroup( final DeleteGroupCommand command )
     {
+        invalidateMembershipClosures();
+
         final UserEntity deleter = command.getDeleter();
 
         final GroupEntity groupToDelete = groupDao.findSingleBySpecification( command.getSpecification() );
@@ -770,6 +792,8 @@ public class UserStoreServiceImpl
     public void synchronizeUser( final UserStoreKey userStoreKey, final String uid )
         throws UserNotFoundException
     {
+        invalidateMembershipClosures();
+
         final RemoteUserStoreConnector rusc = doGetRemoteUSConnector( userStoreKey );
         if ( rusc != null )
         {
@@ -781,6 +805,8 @@ public class UserStoreServiceImpl
     public void synchronizeUsers( final SynchronizeStatus status, final UserStoreKey userStoreKey, final List<RemoteUser> remoteUsers,
                                   final boolean syncMemberships, final MemberCache memberCache )
     {
+        invalidateMembershipClosures();
+
         final RemoteUserStoreConnector rusc = doGetRemoteUSConnector( userStoreKey );
         if ( rusc != null )
         {
@@ -792,6 +818,8 @@ public class UserStoreServiceImpl
     public void synchronizeUserMemberships( final SynchronizeStatus status, final UserStoreKey userStoreKey, final RemoteUser remoteUser,
                                             final MemberCache memberCache )
     {
+        invalidateMembershipClosures();
+
         final RemoteUserStoreConnector rusc = doGetRemoteUSConnector( userStoreKey );
         if ( rusc != null && rusc.canReadGroup() )
         {
@@ -803,6 +831,8 @@ public class UserStoreServiceImpl
     @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
     public void deleteUsersLocally( final UserStoreKey userStoreKey, final LocalUsersStatus status, final List<UserKey> users )
     {
+        invalidateMembershipClosures();
+
         final UserStorer userStorer = userStorerFactory.create( userStoreKey );
 
         for ( final UserKey userKey : users )
@@ -818,6 +848,8 @@ public class UserStoreServiceImpl
     @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
     public GroupEntity synchronizeGroup( final GroupKey groupKey )
     {
+        invalidateMembershipClosures();
+
         final GroupEntity group = groupDao.findByKey( groupKey );
         if ( group.isBuiltIn() )
         {
@@ -841,6 +873,8 @@ public class UserStoreServiceImpl
     public void synchronizeGroups( final SynchronizeStatus status, final UserStoreKey userStoreKey, final List<RemoteGroup> remoteGroups,
                                    final boolean syncMemberships, final boolean syncMembers, final MemberCache memberCache )
     {
+        invalidateMembershipClosures();
+
         final RemoteUserStoreConnector rusc = doGetRemoteUSConnector( userStoreKey );
         if ( rusc != null )
         {
@@ -852,6 +886,8 @@ public class UserStoreServiceImpl
     public void synchronizeGroupMemberships( final SynchronizeStatus status, final UserStoreKey userStoreKey, final RemoteGroup remoteGroup,
                                              final MemberCache memberCache )
     {
+        invalidateMembershipClosures();
+
         final RemoteUserStoreConnector rusc = doGetRemoteUSConnector( userStoreKey );
         if ( rusc != null )
         {
@@ -863,6 +899,8 @@ public class UserStoreServiceImpl
     @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
     public void deleteGroupsLocally( final LocalGroupsStatus status, final UserStoreKey userStoreKey, final List<GroupKey> groups )
     {
+        invalidateMembershipClosures();
+
         final GroupStorer groupStorer = groupStorerFactory.create( userStoreKey );
         for ( final GroupKey groupKey : groups )
         {
@@ -1106,6 +1144,32 @@ public class UserStoreServiceImpl
         }
     }
 
+    /**
+     * Cached group membership closures are invalidated when the transaction completes, so that closures computed
+     * by other requests while it runs are not left in the cache. Cached datasource results are filtered by the
+     * memberships of the user, and are invalidated the same way.
+     */
+    private void invalidateMembershipClosures()
+    {
+        dataSourceResultCache.invalidateMemberships();
+
+        if ( TransactionSynchronizationManager.isSynchronizationActive() )
+        {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter()
+            {
+                @Override
+                public void afterCompletion( final int status )
+                {
+                    groupDao.invalidateMembershipClosures();
+                }
+            } );
+        }
+        else
+        {
+            groupDao.invalidateMembershipClosures();
+        }
+    }
+
     private UserStoreConnector doGetUSConnector( final UserStoreKey userStoreKey )
     {
         return userConnectorStoreManager.getUserStoreConnector( userStoreKey );
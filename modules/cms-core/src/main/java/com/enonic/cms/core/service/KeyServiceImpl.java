@@ -7,27 +7,56 @@ package com.enonic.cms.core.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.enonic.vertical.engine.handlers.KeyHandler;
 
+import com.enonic.cms.store.hibernate.id.KeyBlockPool;
+
+/**
+ * Hands out keys from blocks reserved in the key table, see {@link KeyBlockPool}. Blocks are reserved in a new
+ * transaction, so that the key table row is not locked until the calling transaction commits.
+ */
 @Service("keyService")
 @Profile("default")
-@Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
 public class KeyServiceImpl
     implements KeyService
 {
     private KeyHandler keyHandler;
 
+    private TransactionTemplate transactionTemplate;
+
     @Autowired
     public void setKeyHandler( KeyHandler keyHandler )
     {
         this.keyHandler = keyHandler;
     }
 
+    @Autowired
+    public void setTransactionManager( PlatformTransactionManager transactionManager )
+    {
+        this.transactionTemplate = new TransactionTemplate( transactionManager );
+        this.transactionTemplate.setPropagationBehavior( TransactionDefinition.PROPAGATION_REQUIRES_NEW );
+    }
+
     public int generateNextKeySafe( String tableName )
     {
-        return keyHandler.generateNextKeySafe( tableName );
+        return KeyBlockPool.getInstance().nextKey( tableName, new KeyBlockPool.Reserver()
+        {
+            public int reserve( final String tableName, final int count )
+            {
+                return (Integer) transactionTemplate.execute( new TransactionCallback()
+                {
+                    public Object doInTransaction( TransactionStatus status )
+                    {
+                        return keyHandler.reserveKeys( tableName, count );
+                    }
+                } );
+            }
+        } );
     }
 }
@@ -45,6 +45,12 @@ public class SiteProperties
         return getPropertyAsInteger( SitePropertyNames.PAGE_CACHE_TIMETOLIVE );
     }
 
+    public int getPageCacheStaleWhileRevalidate()
+    {
+        final Integer value = getPropertyAsInteger( SitePropertyNames.PAGE_CACHE_STALE_WHILE_REVALIDATE );
+        return value != null ? value : 0;
+    }
+
     public boolean getPageCacheEnabled()
     {
         return getPropertyAsBoolean( SitePropertyNames.PAGE_CACHE );
@@ -10,6 +10,7 @@ public enum SitePropertyNames
     PAGE_CACHE_HEADERS_ENABLED( "cms.site.page.http.cacheHeadersEnabled" ),
     PAGE_CACHE_HEADERS_FORCENOCACHE( "cms.site.page.http.forceNoCache" ),
     PAGE_CACHE_TIMETOLIVE( "cms.site.cache.page.timeToLive" ),
+    PAGE_CACHE_STALE_WHILE_REVALIDATE( "cms.site.cache.page.staleWhileRevalidate" ),
 
     PAGE_DOCTYPE_HANDLER( "cms.site.page.doctype.handler" ),
 
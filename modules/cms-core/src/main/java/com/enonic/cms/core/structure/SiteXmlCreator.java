@@ -26,6 +26,7 @@ import com.enonic.cms.core.structure.menuitem.MenuItemAccessResolver;
 import com.enonic.cms.core.structure.menuitem.MenuItemEntity;
 import com.enonic.cms.core.structure.menuitem.MenuItemXMLCreatorSetting;
 import com.enonic.cms.core.structure.menuitem.MenuItemXmlCreator;
+import com.enonic.cms.core.structure.menuitem.snapshot.SiteMenuSnapshotXmlCreator;
 
 public class SiteXmlCreator
 {
@@ -72,6 +73,8 @@ public class SiteXmlCreator
 
     private MenuHandler menuHandler;
 
+    private SiteMenuSnapshotXmlCreator menuSnapshotXmlCreator;
+
     public SiteXmlCreator( MenuItemAccessResolver menuItemAccessResolver, MenuItemEntity menuItemInPreview, MenuHandler menuHandler )
     {
         this.menuItemAccessResolver = menuItemAccessResolver;
@@ -174,6 +177,16 @@ public class SiteXmlCreator
         {
             return createMenuItemsWithErrorMessage( "Menu item not specified" );
         }
+        if ( menuSnapshotXmlCreator != null && menuSnapshotXmlCreator.isForSite( siteEntity.getKey() ) )
+        {
+            XMLDocument menuBranch = menuSnapshotXmlCreator.createLegacyGetMenuBranch( getMenuItemInBranch(),
+                                                                                      MenuItemXMLCreatorSetting.createFrom( this ),
+                                                                                      includeTopLevel() );
+            if ( menuBranch != null )
+            {
+                return menuBranch;
+            }
+        }
         menuItemXmlCreator =
             new MenuItemXmlCreator( MenuItemXMLCreatorSetting.createFrom( this ), menuItemAccessResolver, menuItemInPreview );
         MenuItemEntity menuItemInBranch = getMenuItemInBranch();
@@ -249,6 +262,15 @@ public class SiteXmlCreator
             // on GetSubMenu-calls shall x menuItemLevels be interpreted as x+1
             setMenuItemLevels( getMenuItemLevels() + 1 );
         }
+        if ( menuSnapshotXmlCreator != null && menuSnapshotXmlCreator.isForSite( siteEntity.getKey() ) )
+        {
+            XMLDocument subMenu =
+                menuSnapshotXmlCreator.createLegacyGetSubMenu( getMenuItemInBranch(), MenuItemXMLCreatorSetting.createFrom( this ) );
+            if ( subMenu != null )
+            {
+                return subMenu;
+            }
+        }
         menuItemXmlCreator =
             new MenuItemXmlCreator( MenuItemXMLCreatorSetting.createFrom( this ), menuItemAccessResolver, menuItemInPreview );
         MenuItemEntity menuItemInBranch = getMenuItemInBranch();
@@ -467,7 +489,15 @@ public class SiteXmlCreator
 
         if ( includeMenuItems() )
         {
-            createMenuItemsElement( xmlDoc, site.getTopMenuItems(), true );
+            if ( menuSnapshotXmlCreator != null && menuSnapshotXmlCreator.isForSite( site.getKey() ) )
+            {
+                xmlDoc.getCurrentElement().addContent(
+                    menuSnapshotXmlCreator.createTopMenuItemsElement( MenuItemXMLCreatorSetting.createFrom( this ) ) );
+            }
+            else
+            {
+                createMenuItemsElement( xmlDoc, site.getTopMenuItems(), true );
+            }
         }
 
         // include site-x.properties
@@ -642,5 +672,13 @@ public class SiteXmlCreator
     {
         return includeProperties;
     }
+
+    /**
+     * Create the menu items of the site from a menu snapshot instead of from the menu item entities.
+     */
+    public void setMenuSnapshotXmlCreator( final SiteMenuSnapshotXmlCreator menuSnapshotXmlCreator )
+    {
+        this.menuSnapshotXmlCreator = menuSnapshotXmlCreator;
+    }
 }
 
@@ -6,7 +6,7 @@ package com.enonic.cms.core.structure.menuitem;
 
 import com.enonic.cms.core.security.AbstractAccessResolver;
 import com.enonic.cms.core.security.group.GroupEntity;
-import com.enonic.cms.core.security.group.GroupMembershipSearcher;
+import com.enonic.cms.core.security.group.GroupKey;
 import com.enonic.cms.core.security.user.UserEntity;
 import com.enonic.cms.store.dao.GroupDao;
 
@@ -95,13 +95,13 @@ public class MenuItemAccessResolver
         }
 
         // Check through all memberships of userGroup
-        GroupMembershipSearcher searcher = new GroupMembershipSearcher()
+        for ( final GroupKey membership : getMembershipClosure( group ).getGroupKeys() )
         {
-            public boolean isGroupFound( GroupEntity traversedGroup )
+            if ( menuItem.hasAccess( membership, menuItemAccessType ) )
             {
-                return menuItem.hasAccess( traversedGroup, menuItemAccessType );
+                return true;
             }
-        };
-        return searcher.startSearch( group );
+        }
+        return false;
     }
 }
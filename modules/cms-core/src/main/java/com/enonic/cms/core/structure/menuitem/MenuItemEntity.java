@@ -786,6 +786,24 @@ public class MenuItemEntity
         return accesses.get( groupKey );
     }
 
+    public Collection<MenuItemAccessEntity> getAccesses()
+    {
+        if ( accesses == null )
+        {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableCollection( accesses.values() );
+    }
+
+    public void addAccess( MenuItemAccessEntity access )
+    {
+        if ( accesses == null )
+        {
+            accesses = Maps.newHashMap();
+        }
+        accesses.put( access.getKey().getGroupKey(), access );
+    }
+
     /**
      * NB! This method will not check access thru group´s memberhips.
      */
@@ -797,7 +815,15 @@ public class MenuItemEntity
             throw new IllegalArgumentException( "Given group cannot be null" );
         }
 
-        MenuItemAccessEntity menuItemAccess = accesses.get( group.getGroupKey() );
+        return hasAccess( group.getGroupKey(), typeOfAccess );
+    }
+
+    /**
+     * NB! This method will not check access thru group´s memberhips.
+     */
+    public boolean hasAccess( GroupKey groupKey, MenuItemAccessType typeOfAccess )
+    {
+        MenuItemAccessEntity menuItemAccess = accesses.get( groupKey );
         if ( menuItemAccess == null )
         {
             return false;
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.structure.menuitem.snapshot;
+
+import java.io.Serializable;
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.collect.Sets;
+
+import com.enonic.cms.core.cluster.ClusterEvent;
+import com.enonic.cms.core.cluster.ClusterEventListener;
+import com.enonic.cms.core.cluster.ClusterEventPublisher;
+import com.enonic.cms.core.cluster.NopClusterEventPublisher;
+import com.enonic.cms.store.hibernate.cache.invalidation.TableChangeListener;
+
+/**
+ * Keeps a version that is increased on every change to the tables the site menus are built from, with a log of
+ * which menu items were changed. Changes are seen on the SQL level, so that changes made by the legacy engine are
+ * tracked as well. Changes made in a transaction are recorded again when it completes, and then sent to the other
+ * nodes in the cluster.
+ */
+@Component
+public class MenuChangeTracker
+    implements TableChangeListener, ClusterEventListener
+{
+    private final static String EVENT_TYPE = "menuChanged";
+
+    private final static int MAX_LOGGED_CHANGES = 1000;
+
+    /**
+     * A change that may affect the XML of any menu item.
+     */
+    private final static int ALL = -1;
+
+    /**
+     * A change to the structure or access rights of the menus only.
+     */
+    private final static int STRUCTURE = -2;
+
+    private final static int NONE = -3;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final LinkedList<LoggedChange> log = new LinkedList<LoggedChange>();
+
+    private ClusterEventPublisher clusterEventPublisher = new NopClusterEventPublisher();
+
+    public long getVersion()
+    {
+        return this.version.get();
+    }
+
+    /**
+     * Return the changes recorded after the given version, or all if they are no longer in the log.
+     */
+    MenuChanges getChangesSince( final long sinceVersion )
+    {
+        final Set<Integer> menuItemKeys = Sets.newHashSet();
+
+        synchronized ( this.log )
+        {
+            if ( this.log.isEmpty() || ( this.log.getFirst().version > sinceVersion + 1 ) )
+            {
+                return this.version.get() > sinceVersion ? MenuChanges.ALL : new MenuChanges( false, menuItemKeys );
+            }
+
+            for ( final LoggedChange change : this.log )
+            {
+                if ( change.version <= sinceVersion )
+                {
+                    continue;
+                }
+
+                if ( change.change == ALL )
+                {
+                    return MenuChanges.ALL;
+                }
+                else if ( change.change >= 0 )
+                {
+                    menuItemKeys.add( change.change );
+                }
+            }
+        }
+
+        return new MenuChanges( false, menuItemKeys );
+    }
+
+    @Override
+    public void tableChanged( final String tableName, final Serializable primaryKey, final boolean insert )
+    {
+        final int change = resolveChange( tableName, primaryKey, insert );
+        if ( change == NONE )
+        {
+            return;
+        }
+
+        record( change );
+
+        if ( TransactionSynchronizationManager.isSynchronizationActive() )
+        {
+            recordAfterCompletion( change );
+        }
+        else
+        {
+            publish( change );
+        }
+    }
+
+    private int resolveChange( final String tableName, final Serializable primaryKey, final boolean insert )
+    {
+        if ( "tmenuitem".equals( tableName ) )
+        {
+            if ( insert )
+            {
+                return STRUCTURE;
+            }
+
+            return primaryKey instanceof Integer ? (Integer) primaryKey : ALL;
+        }
+        else if ( "tmenuitemar".equals( tableName ) || "tmenu".equals( tableName ) )
+        {
+            return STRUCTURE;
+        }
+        else if ( "tlanguage".equals( tableName ) )
+        {
+            return ALL;
+        }
+        else
+        {
+            return NONE;
+        }
+    }
+
+    private void recordAfterCompletion( final int change )
+    {
+        @SuppressWarnings("unchecked")
+        Set<Integer> pending = (Set<Integer>) TransactionSynchronizationManager.getResource( this );
+        if ( pending == null )
+        {
+            final Set<Integer> changes = Sets.newLinkedHashSet();
+            TransactionSynchronizationManager.bindResource( this, changes );
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter()
+            {
+                @Override
+                public void afterCompletion( final int status )
+                {
+                    TransactionSynchronizationManager.unbindResourceIfPossible( MenuChangeTracker.this );
+                    for ( final Integer change : changes )
+                    {
+                        record( change );
+                        publish( change );
+                    }
+                }
+            } );
+            pending = changes;
+        }
+
+        pending.add( change );
+    }
+
+    private void record( final int change )
+    {
+        synchronized ( this.log )
+        {
+            this.log.add( new LoggedChange( this.version.incrementAndGet(), change ) );
+            if ( this.log.size() > MAX_LOGGED_CHANGES )
+            {
+                this.log.removeFirst();
+            }
+        }
+    }
+
+    private void publish( final int change )
+    {
+        this.clusterEventPublisher.publish( new ClusterEvent( EVENT_TYPE, String.valueOf( change ) ) );
+    }
+
+    @Override
+    public void handle( final ClusterEvent event )
+    {
+        if ( event.isOfType( EVENT_TYPE ) )
+        {
+            record( Integer.parseInt( event.getPayloadAt( 0 ) ) );
+        }
+    }
+
+    @Autowired(required = false)
+    public void setClusterEventPublisher( final ClusterEventPublisher clusterEventPublisher )
+    {
+        this.clusterEventPublisher = clusterEventPublisher;
+    }
+
+    private final static class LoggedChange
+    {
+        private final long version;
+
+        private final int change;
+
+        private LoggedChange( final long version, final int change )
+        {
+            this.version = version;
+            this.change = change;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.structure.menuitem.snapshot;
+
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * The menu changes since a snapshot was built. Either a set of changed menu items, or a change that may affect the
+ * XML of every menu item.
+ */
+final class MenuChanges
+{
+    final static MenuChanges ALL = new MenuChanges( true, ImmutableSet.<Integer>of() );
+
+    private final boolean all;
+
+    private final Set<Integer> menuItemKeys;
+
+    MenuChanges( final boolean all, final Set<Integer> menuItemKeys )
+    {
+        this.all = all;
+        this.menuItemKeys = ImmutableSet.copyOf( menuItemKeys );
+    }
+
+    public boolean isChanged( final int menuItemKey )
+    {
+        return this.all || this.menuItemKeys.contains( menuItemKey );
+    }
+
+    public boolean isAll()
+    {
+        return this.all;
+    }
+}
@@ -0,0 +1,417 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.structure.menuitem.snapshot;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jdom.Element;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+
+import com.enonic.cms.core.security.group.GroupKey;
+import com.enonic.cms.core.security.group.GroupKeyComparator;
+import com.enonic.cms.core.structure.SiteEntity;
+import com.enonic.cms.core.structure.SiteKey;
+import com.enonic.cms.core.structure.menuitem.MenuItemAccessEntity;
+import com.enonic.cms.core.structure.menuitem.MenuItemEntity;
+import com.enonic.cms.core.structure.menuitem.MenuItemXMLCreatorSetting;
+import com.enonic.cms.core.structure.menuitem.MenuItemXmlCreator;
+
+/**
+ * An immutable copy of the menu tree of a site. The menu items are kept in flat arrays in menu order, with the
+ * index of the parent, the groups with read access and the menu item element without children. Menu XML can be
+ * created from the snapshot without loading any entities.
+ * <p/>
+ * Readable menu items and created menu fragments are cached per set of groups, reduced to the groups that have read
+ * access to any menu item in the snapshot, so users with the same relevant memberships share them. The least recently
+ * used entries are evicted when there are too many.
+ */
+public final class SiteMenuSnapshot
+{
+    private final static int MAX_CACHED_ENTRIES = 1000;
+
+    private final static Comparator<GroupKey> GROUP_KEY_COMPARATOR = new GroupKeyComparator();
+
+    private final SiteKey siteKey;
+
+    private final long version;
+
+    private final int[] keys;
+
+    private final int[] parentIndexes;
+
+    private final int[] levels;
+
+    private final boolean[] hidden;
+
+    private final long[] timestamps;
+
+    private final int[] topIndexes;
+
+    private final int[][] childIndexes;
+
+    /**
+     * Index into readAccessGroups for each menu item. Menu items with the same access rights share one entry.
+     */
+    private final int[] readAccessIndexes;
+
+    private final GroupKey[][] readAccessGroups;
+
+    /**
+     * All groups with read access to any menu item.
+     */
+    private final Set<GroupKey> aclGroups;
+
+    private final Element[] menuItemElements;
+
+    private final Map<Integer, Integer> indexByKey;
+
+    private final ConcurrentMap<String, BitSet> readableByGroups =
+        new ConcurrentLinkedHashMap.Builder<String, BitSet>().maximumWeightedCapacity( MAX_CACHED_ENTRIES ).build();
+
+    private final ConcurrentMap<String, Element> fragments =
+        new ConcurrentLinkedHashMap.Builder<String, Element>().maximumWeightedCapacity( MAX_CACHED_ENTRIES ).build();
+
+    private SiteMenuSnapshot( final Builder builder )
+    {
+        this.siteKey = builder.siteKey;
+        this.version = builder.version;
+        this.keys = toIntArray( builder.keys );
+        this.parentIndexes = toIntArray( builder.parentIndexes );
+        this.levels = toIntArray( builder.levels );
+        this.hidden = new boolean[this.keys.length];
+        this.timestamps = new long[this.keys.length];
+        for ( int i = 0; i < this.keys.length; i++ )
+        {
+            this.hidden[i] = builder.hidden.get( i );
+            this.timestamps[i] = builder.timestamps.get( i );
+        }
+        this.topIndexes = toIntArray( builder.topIndexes );
+        this.childIndexes = builder.childIndexes.toArray( new int[builder.childIndexes.size()][] );
+        this.readAccessIndexes = toIntArray( builder.readAccessIndexes );
+        this.readAccessGroups = builder.readAccessGroups.toArray( new GroupKey[builder.readAccessGroups.size()][] );
+        this.aclGroups = ImmutableSet.copyOf( builder.aclGroups );
+        this.menuItemElements = builder.menuItemElements.toArray( new Element[builder.menuItemElements.size()] );
+        this.indexByKey = builder.indexByKey;
+    }
+
+    public SiteKey getSiteKey()
+    {
+        return this.siteKey;
+    }
+
+    public long getVersion()
+    {
+        return this.version;
+    }
+
+    public int size()
+    {
+        return this.keys.length;
+    }
+
+    /**
+     * Return the index of a menu item, or -1 if it is not in the snapshot.
+     */
+    public int indexOf( final int menuItemKey )
+    {
+        final Integer index = this.indexByKey.get( menuItemKey );
+        return index != null ? index : -1;
+    }
+
+    public int getKey( final int index )
+    {
+        return this.keys[index];
+    }
+
+    public int getParentIndex( final int index )
+    {
+        return this.parentIndexes[index];
+    }
+
+    public int getLevel( final int index )
+    {
+        return this.levels[index];
+    }
+
+    public boolean isHidden( final int index )
+    {
+        return this.hidden[index];
+    }
+
+    int getChildCount( final int index )
+    {
+        return this.childIndexes[index].length;
+    }
+
+    int getChildIndex( final int index, final int childNo )
+    {
+        return this.childIndexes[index][childNo];
+    }
+
+    int getTopCount()
+    {
+        return this.topIndexes.length;
+    }
+
+    int getTopIndex( final int topNo )
+    {
+        return this.topIndexes[topNo];
+    }
+
+    /**
+     * Return a copy of the menu item element, without the menuitems element and without active and path attributes.
+     */
+    public Element createMenuItemElement( final int index )
+    {
+        return (Element) this.menuItemElements[index].clone();
+    }
+
+    /**
+     * Return a key identifying the given groups, made of the groups that have read access to any menu item in the
+     * snapshot. The other groups do not give access to anything, so they are left out.
+     */
+    public String createGroupSetKey( final Set<GroupKey> groupKeys )
+    {
+        final List<GroupKey> aclGroupKeys = Lists.newArrayList();
+        for ( final GroupKey groupKey : groupKeys )
+        {
+            if ( this.aclGroups.contains( groupKey ) )
+            {
+                aclGroupKeys.add( groupKey );
+            }
+        }
+
+        final GroupKey[] sorted = aclGroupKeys.toArray( new GroupKey[aclGroupKeys.size()] );
+        Arrays.sort( sorted, GROUP_KEY_COMPARATOR );
+        return Joiner.on( ',' ).join( sorted );
+    }
+
+    /**
+     * Return the menu items readable by any of the given groups.
+     *
+     * @param groupSetKey a key identifying the set of groups, as created by {@link #createGroupSetKey}.
+     */
+    public BitSet getReadable( final String groupSetKey, final Set<GroupKey> groupKeys )
+    {
+        BitSet readable = this.readableByGroups.get( groupSetKey );
+        if ( readable != null )
+        {
+            return readable;
+        }
+
+        final boolean[] readableAccess = new boolean[this.readAccessGroups.length];
+        for ( int i = 0; i < this.readAccessGroups.length; i++ )
+        {
+            for ( final GroupKey groupKey : this.readAccessGroups[i] )
+            {
+                if ( groupKeys.contains( groupKey ) )
+                {
+                    readableAccess[i] = true;
+                    break;
+                }
+            }
+        }
+
+        readable = new BitSet( this.keys.length );
+        for ( int i = 0; i < this.keys.length; i++ )
+        {
+            if ( readableAccess[this.readAccessIndexes[i]] )
+            {
+                readable.set( i );
+            }
+        }
+
+        this.readableByGroups.put( groupSetKey, readable );
+        return readable;
+    }
+
+    Element getFragment( final String fragmentKey )
+    {
+        return this.fragments.get( fragmentKey );
+    }
+
+    void putFragment( final String fragmentKey, final Element fragment )
+    {
+        this.fragments.put( fragmentKey, fragment );
+    }
+
+    /**
+     * Create a snapshot of the menu tree of the site.
+     *
+     * @param previous the previous snapshot of the site, or null.
+     * @param changes  the changes since the previous snapshot was built. The menu item elements of unchanged menu
+     *                 items are taken from the previous snapshot.
+     */
+    static SiteMenuSnapshot create( final SiteEntity site, final long version, final SiteMenuSnapshot previous,
+                                    final MenuChanges changes )
+    {
+        final Builder builder = new Builder( site.getKey(), version, previous, changes );
+        for ( final MenuItemEntity menuItem : site.getTopMenuItems() )
+        {
+            builder.topIndexes.add( builder.add( menuItem, -1, 0 ) );
+        }
+
+        return new SiteMenuSnapshot( builder );
+    }
+
+    private static int[] toIntArray( final List<Integer> list )
+    {
+        final int[] array = new int[list.size()];
+        for ( int i = 0; i < array.length; i++ )
+        {
+            array[i] = list.get( i );
+        }
+        return array;
+    }
+
+    private final static class Builder
+    {
+        private final SiteKey siteKey;
+
+        private final long version;
+
+        private final SiteMenuSnapshot previous;
+
+        private final MenuChanges changes;
+
+        private final MenuItemXmlCreator menuItemXmlCreator;
+
+        private final List<Integer> keys = Lists.newArrayList();
+
+        private final List<Integer> parentIndexes = Lists.newArrayList();
+
+        private final List<Integer> levels = Lists.newArrayList();
+
+        private final List<Boolean> hidden = Lists.newArrayList();
+
+        private final List<Long> timestamps = Lists.newArrayList();
+
+        private final List<Integer> topIndexes = Lists.newArrayList();
+
+        private final List<int[]> childIndexes = Lists.newArrayList();
+
+        private final List<Integer> readAccessIndexes = Lists.newArrayList();
+
+        private final List<GroupKey[]> readAccessGroups = Lists.newArrayList();
+
+        private final Map<List<GroupKey>, Integer> readAccessIndexByGroups = Maps.newHashMap();
+
+        private final Set<GroupKey> aclGroups = Sets.newHashSet();
+
+        private final List<Element> menuItemElements = Lists.newArrayList();
+
+        private final Map<Integer, Integer> indexByKey = Maps.newHashMap();
+
+        private Builder( final SiteKey siteKey, final long version, final SiteMenuSnapshot previous, final MenuChanges changes )
+        {
+            this.siteKey = siteKey;
+            this.version = version;
+            this.previous = previous;
+            this.changes = changes;
+
+            final MenuItemXMLCreatorSetting setting = new MenuItemXMLCreatorSetting();
+            setting.includeChildren = false;
+            this.menuItemXmlCreator = new MenuItemXmlCreator( setting, null );
+        }
+
+        private int add( final MenuItemEntity menuItem, final int parentIndex, final int level )
+        {
+            final int index = this.keys.size();
+            final int key = menuItem.getKey().toInt();
+            final long timestamp = menuItem.getTimestamp() != null ? menuItem.getTimestamp().getTime() : 0;
+
+            this.keys.add( key );
+            this.parentIndexes.add( parentIndex );
+            this.levels.add( level );
+            this.hidden.add( menuItem.getHidden() );
+            this.timestamps.add( timestamp );
+            this.readAccessIndexes.add( resolveReadAccessIndex( menuItem.getAccesses() ) );
+            this.menuItemElements.add( resolveMenuItemElement( menuItem, key, parentIndex, timestamp ) );
+            this.indexByKey.put( key, index );
+            this.childIndexes.add( null );
+
+            final Collection<MenuItemEntity> children = menuItem.getChildren();
+            final int[] childIndexes = new int[children.size()];
+            int childNo = 0;
+            for ( final MenuItemEntity child : children )
+            {
+                childIndexes[childNo++] = add( child, index, level + 1 );
+            }
+
+            this.childIndexes.set( index, childIndexes );
+            return index;
+        }
+
+        private int resolveReadAccessIndex( final Collection<MenuItemAccessEntity> accesses )
+        {
+            final List<GroupKey> groupKeys = Lists.newArrayList();
+            for ( final MenuItemAccessEntity access : accesses )
+            {
+                if ( access.isReadAccess() )
+                {
+                    groupKeys.add( access.getKey().getGroupKey() );
+                }
+            }
+
+            final GroupKey[] sorted = groupKeys.toArray( new GroupKey[groupKeys.size()] );
+            Arrays.sort( sorted, GROUP_KEY_COMPARATOR );
+            final List<GroupKey> sortedList = Arrays.asList( sorted );
+
+            Integer readAccessIndex = this.readAccessIndexByGroups.get( sortedList );
+            if ( readAccessIndex == null )
+            {
+                readAccessIndex = this.readAccessGroups.size();
+                this.readAccessGroups.add( sorted );
+                this.aclGroups.addAll( sortedList );
+                this.readAccessIndexByGroups.put( sortedList, readAccessIndex );
+            }
+
+            return readAccessIndex;
+        }
+
+        private Element resolveMenuItemElement( final MenuItemEntity menuItem, final int key, final int parentIndex,
+                                                final long timestamp )
+        {
+            if ( isUnchanged( key, parentIndex, timestamp ) )
+            {
+                return this.previous.menuItemElements[this.previous.indexOf( key )];
+            }
+
+            return this.menuItemXmlCreator.createMenuItemElement( menuItem );
+        }
+
+        private boolean isUnchanged( final int key, final int parentIndex, final long timestamp )
+        {
+            if ( ( this.previous == null ) || ( this.changes == null ) || this.changes.isChanged( key ) )
+            {
+                return false;
+            }
+
+            final int previousIndex = this.previous.indexOf( key );
+            if ( previousIndex < 0 || this.previous.timestamps[previousIndex] != timestamp )
+            {
+                return false;
+            }
+
+            final int previousParentIndex = this.previous.parentIndexes[previousIndex];
+            final int previousParentKey = previousParentIndex >= 0 ? this.previous.keys[previousParentIndex] : -1;
+            final int parentKey = parentIndex >= 0 ? this.keys.get( parentIndex ) : -1;
+            return previousParentKey == parentKey;
+        }
+    }
+}
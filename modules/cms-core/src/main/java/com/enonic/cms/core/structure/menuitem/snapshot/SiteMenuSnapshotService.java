@@ -0,0 +1,149 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.structure.menuitem.snapshot;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.Sets;
+
+import com.enonic.cms.core.security.group.GroupEntity;
+import com.enonic.cms.core.security.group.GroupKey;
+import com.enonic.cms.core.security.group.GroupMembershipClosure;
+import com.enonic.cms.core.security.user.UserEntity;
+import com.enonic.cms.core.structure.SiteEntity;
+import com.enonic.cms.core.structure.SiteKey;
+import com.enonic.cms.store.dao.GroupDao;
+
+/**
+ * Keeps one menu snapshot per site. A snapshot is rebuilt on first use after the menus have changed, reusing the
+ * menu item elements of the menu items that did not change.
+ */
+@Component
+public class SiteMenuSnapshotService
+{
+    private final static String ALL_GROUPS = "*";
+
+    private final ConcurrentMap<SiteKey, SiteMenuSnapshot> snapshots = new ConcurrentHashMap<SiteKey, SiteMenuSnapshot>();
+
+    private MenuChangeTracker menuChangeTracker;
+
+    private GroupDao groupDao;
+
+    private boolean enabled;
+
+    /**
+     * Return a creator of the menu XML of the site for the given user, or null if menu snapshots are turned off.
+     */
+    public SiteMenuSnapshotXmlCreator createXmlCreator( final SiteEntity site, final UserEntity user )
+    {
+        if ( !this.enabled )
+        {
+            return null;
+        }
+
+        final SiteMenuSnapshot snapshot = getSnapshot( site );
+        final Set<GroupKey> groupKeys = resolveReadingGroups( user );
+        if ( groupKeys == null )
+        {
+            return new SiteMenuSnapshotXmlCreator( snapshot, null, ALL_GROUPS );
+        }
+
+        final String groupSetKey = snapshot.createGroupSetKey( groupKeys );
+        return new SiteMenuSnapshotXmlCreator( snapshot, snapshot.getReadable( groupSetKey, groupKeys ), groupSetKey );
+    }
+
+    SiteMenuSnapshot getSnapshot( final SiteEntity site )
+    {
+        final long version = this.menuChangeTracker.getVersion();
+        final SiteMenuSnapshot snapshot = this.snapshots.get( site.getKey() );
+        if ( ( snapshot != null ) && ( snapshot.getVersion() >= version ) )
+        {
+            return snapshot;
+        }
+
+        synchronized ( this )
+        {
+            final SiteMenuSnapshot previous = this.snapshots.get( site.getKey() );
+            if ( ( previous != null ) && ( previous.getVersion() >= version ) )
+            {
+                return previous;
+            }
+
+            final MenuChanges changes = previous != null ? this.menuChangeTracker.getChangesSince( previous.getVersion() ) : null;
+            final SiteMenuSnapshot rebuilt = SiteMenuSnapshot.create( site, version, previous, changes );
+            this.snapshots.put( site.getKey(), rebuilt );
+            return rebuilt;
+        }
+    }
+
+    /**
+     * Return the groups whose read access gives the user access to a menu item, or null if the user can read all menu
+     * items. The same groups are checked as by the menu item access resolver.
+     */
+    private Set<GroupKey> resolveReadingGroups( final UserEntity user )
+    {
+        if ( ( user == null ) || user.isRoot() )
+        {
+            return null;
+        }
+
+        final Set<GroupKey> groupKeys = Sets.newHashSet();
+        groupKeys.add( this.groupDao.findBuiltInAnonymous().getGroupKey() );
+        if ( user.isAnonymous() )
+        {
+            return groupKeys;
+        }
+
+        final GroupEntity userGroup = user.getUserGroup();
+        if ( userGroup != null )
+        {
+            final GroupMembershipClosure closure = this.groupDao.findMembershipClosure( userGroup );
+            final GroupEntity enterpriseAdmins = this.groupDao.findBuiltInEnterpriseAdministrator();
+            if ( enterpriseAdmins.equals( userGroup ) || closure.contains( enterpriseAdmins.getGroupKey() ) )
+            {
+                return null;
+            }
+
+            groupKeys.add( userGroup.getGroupKey() );
+            groupKeys.addAll( closure.getGroupKeys() );
+        }
+
+        if ( user.getUserStore() != null )
+        {
+            final GroupEntity authenticatedUsers = this.groupDao.findBuiltInAuthenticatedUsers( user.getUserStore().getKey() );
+            if ( authenticatedUsers != null )
+            {
+                groupKeys.add( authenticatedUsers.getGroupKey() );
+                groupKeys.addAll( this.groupDao.findMembershipClosure( authenticatedUsers ).getGroupKeys() );
+            }
+        }
+
+        return groupKeys;
+    }
+
+    @Autowired
+    public void setMenuChangeTracker( final MenuChangeTracker menuChangeTracker )
+    {
+        this.menuChangeTracker = menuChangeTracker;
+    }
+
+    @Autowired
+    public void setGroupDao( final GroupDao groupDao )
+    {
+        this.groupDao = groupDao;
+    }
+
+    @Value("${cms.cache.menuSnapshot.enabled}")
+    public void setEnabled( final boolean enabled )
+    {
+        this.enabled = enabled;
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.structure.menuitem.snapshot;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jdom.Document;
+import org.jdom.Element;
+
+import com.enonic.cms.framework.xml.XMLDocument;
+import com.enonic.cms.framework.xml.XMLDocumentFactory;
+
+import com.enonic.cms.core.structure.SiteKey;
+import com.enonic.cms.core.structure.menuitem.MenuItemEntity;
+import com.enonic.cms.core.structure.menuitem.MenuItemXMLCreatorSetting;
+
+/**
+ * Creates the menu XML of the getMenu, getMenuBranch and getSubMenu datasources from a site menu snapshot, for the
+ * menu items readable by one user. The result is the same as from {@link com.enonic.cms.core.structure.SiteXmlCreator}.
+ * <p/>
+ * Menu fragments are kept in the snapshot without the active menu item marked, and marked on a copy.
+ */
+public class SiteMenuSnapshotXmlCreator
+{
+    private final SiteMenuSnapshot snapshot;
+
+    /**
+     * Readable menu items, or null if all are readable.
+     */
+    private final BitSet readable;
+
+    private final String groupSetKey;
+
+    public SiteMenuSnapshotXmlCreator( final SiteMenuSnapshot snapshot, final BitSet readable, final String groupSetKey )
+    {
+        this.snapshot = snapshot;
+        this.readable = readable;
+        this.groupSetKey = groupSetKey;
+    }
+
+    public boolean isForSite( final SiteKey siteKey )
+    {
+        return this.snapshot.getSiteKey().equals( siteKey );
+    }
+
+    /**
+     * Create the menuitems element with the top level menu items of the site.
+     */
+    public Element createTopMenuItemsElement( final MenuItemXMLCreatorSetting setting )
+    {
+        final String fragmentKey = createFragmentKey( "menu", setting );
+        Element menuItemsEl = this.snapshot.getFragment( fragmentKey );
+        if ( menuItemsEl == null )
+        {
+            menuItemsEl = createMenuItemsElement( true );
+            for ( int topNo = 0; topNo < this.snapshot.getTopCount(); topNo++ )
+            {
+                addMenuItemElement( menuItemsEl, this.snapshot.getTopIndex( topNo ), true, setting );
+            }
+            this.snapshot.putFragment( fragmentKey, menuItemsEl );
+        }
+
+        return markActivePath( (Element) menuItemsEl.clone(), setting );
+    }
+
+    /**
+     * Create the getMenuBranch result, or null if the menu item is not in the snapshot.
+     */
+    public XMLDocument createLegacyGetMenuBranch( final MenuItemEntity menuItemInBranch, final MenuItemXMLCreatorSetting setting,
+                                                  final boolean includeTopLevel )
+    {
+        final int index = this.snapshot.indexOf( menuItemInBranch.getKey().toInt() );
+        if ( index < 0 )
+        {
+            return null;
+        }
+
+        final int level = this.snapshot.getLevel( index );
+        final int startLevel = setting.branchStartLevel;
+        if ( startLevel > level + 1 )
+        {
+            return createMenuItemsWithErrorMessage(
+                "Start level (" + startLevel + ") cannot be more than one level below the level of the given menuItem (" + level +
+                    ")" );
+        }
+
+        final String fragmentKey =
+            createFragmentKey( "branch-" + index + "-" + startLevel + "-" + ( includeTopLevel ? "top" : "notop" ), setting );
+        Element menuItemsEl = this.snapshot.getFragment( fragmentKey );
+        if ( menuItemsEl == null )
+        {
+            menuItemsEl = doCreateMenuBranch( index, setting, includeTopLevel );
+            this.snapshot.putFragment( fragmentKey, menuItemsEl );
+        }
+
+        return XMLDocumentFactory.create( new Document( markActivePath( (Element) menuItemsEl.clone(), setting ) ) );
+    }
+
+    private Element doCreateMenuBranch( final int index, final MenuItemXMLCreatorSetting setting, final boolean includeTopLevel )
+    {
+        final int level = this.snapshot.getLevel( index );
+        final int startLevel = setting.branchStartLevel;
+
+        final Element menuItemsEl;
+        if ( startLevel <= 0 )
+        {
+            final int topLevelIndex = getAncestorAtLevel( index, 0 );
+            menuItemsEl = createMenuItemsElement( true );
+            if ( includeTopLevel )
+            {
+                for ( int topNo = 0; topNo < this.snapshot.getTopCount(); topNo++ )
+                {
+                    final int topIndex = this.snapshot.getTopIndex( topNo );
+                    addMenuItemElement( menuItemsEl, topIndex, topIndex == topLevelIndex, setting );
+                }
+            }
+            else
+            {
+                addMenuItemElement( menuItemsEl, topLevelIndex, true, setting );
+            }
+        }
+        else
+        {
+            final int parentIndex;
+            if ( startLevel == level + 1 )
+            {
+                parentIndex = index;
+            }
+            else
+            {
+                parentIndex = this.snapshot.getParentIndex( getAncestorAtLevel( index, startLevel ) );
+            }
+
+            menuItemsEl = createMenuItemsElement( false );
+            for ( int childNo = 0; childNo < this.snapshot.getChildCount( parentIndex ); childNo++ )
+            {
+                addMenuItemElement( menuItemsEl, this.snapshot.getChildIndex( parentIndex, childNo ), true, setting );
+            }
+        }
+
+        return menuItemsEl;
+    }
+
+    /**
+     * Create the getSubMenu result, or null if the menu item is not in the snapshot.
+     */
+    public XMLDocument createLegacyGetSubMenu( final MenuItemEntity menuItemInBranch, final MenuItemXMLCreatorSetting setting )
+    {
+        final int index = this.snapshot.indexOf( menuItemInBranch.getKey().toInt() );
+        if ( index < 0 )
+        {
+            return null;
+        }
+
+        final String fragmentKey = createFragmentKey( "submenu-" + index, setting );
+        Element menuItemsEl = this.snapshot.getFragment( fragmentKey );
+        if ( menuItemsEl == null )
+        {
+            menuItemsEl = createMenuItemsElement( this.snapshot.getParentIndex( index ) < 0 );
+            addMenuItemElement( menuItemsEl, index, true, setting );
+            this.snapshot.putFragment( fragmentKey, menuItemsEl );
+        }
+
+        return XMLDocumentFactory.create( new Document( markActivePath( (Element) menuItemsEl.clone(), setting ) ) );
+    }
+
+    private void addMenuItemElement( final Element menuItemsEl, final int index, final boolean includeChildren,
+                                     final MenuItemXMLCreatorSetting setting )
+    {
+        if ( addable( index, setting ) )
+        {
+            menuItemsEl.addContent( createMenuItemElement( index, includeChildren, 0, setting ) );
+        }
+    }
+
+    private Element createMenuItemElement( final int index, final boolean includeChildren, final int menuItemLevelsWalked,
+                                           final MenuItemXMLCreatorSetting setting )
+    {
+        final Element menuItemEl = this.snapshot.createMenuItemElement( index );
+
+        final Element childrenEl = createMenuItemsElement( false );
+        int childCount = 0;
+        for ( int childNo = 0; childNo < this.snapshot.getChildCount( index ); childNo++ )
+        {
+            if ( addable( this.snapshot.getChildIndex( index, childNo ), setting ) )
+            {
+                childCount++;
+            }
+        }
+        childrenEl.setAttribute( "child-count", String.valueOf( childCount ) );
+
+        final boolean stillMoreLevelsToWalk = menuItemLevelsWalked + 2 <= setting.menuItemLevels;
+        final boolean walkAllLevels = setting.menuItemLevels == 0;
+        if ( includeChildren && ( walkAllLevels || stillMoreLevelsToWalk ) )
+        {
+            for ( int childNo = 0; childNo < this.snapshot.getChildCount( index ); childNo++ )
+            {
+                final int childIndex = this.snapshot.getChildIndex( index, childNo );
+                if ( addable( childIndex, setting ) )
+                {
+                    childrenEl.addContent( createMenuItemElement( childIndex, true, menuItemLevelsWalked + 1, setting ) );
+                }
+            }
+        }
+
+        menuItemEl.addContent( childrenEl );
+        return menuItemEl;
+    }
+
+    private boolean addable( final int index, final MenuItemXMLCreatorSetting setting )
+    {
+        return ( !this.snapshot.isHidden( index ) || setting.includeHiddenMenuItems ) &&
+            ( ( this.readable == null ) || this.readable.get( index ) );
+    }
+
+    private int getAncestorAtLevel( final int index, final int level )
+    {
+        int current = index;
+        while ( this.snapshot.getLevel( current ) > level )
+        {
+            current = this.snapshot.getParentIndex( current );
+        }
+        return current;
+    }
+
+    /**
+     * Mark the active menu item and the menu items on the path to it, as done by the menu item XML creator.
+     */
+    private Element markActivePath( final Element menuItemsEl, final MenuItemXMLCreatorSetting setting )
+    {
+        if ( setting.activeMenuItem == null )
+        {
+            return menuItemsEl;
+        }
+
+        final int activeKey = setting.activeMenuItem.getKey().toInt();
+        final Set<String> pathKeys = new HashSet<String>();
+        int index = this.snapshot.indexOf( activeKey );
+        while ( index >= 0 )
+        {
+            pathKeys.add( String.valueOf( this.snapshot.getKey( index ) ) );
+            index = this.snapshot.getParentIndex( index );
+        }
+
+        doMarkActivePath( menuItemsEl, String.valueOf( activeKey ), pathKeys );
+        return menuItemsEl;
+    }
+
+    private void doMarkActivePath( final Element menuItemsEl, final String activeKey, final Set<String> pathKeys )
+    {
+        for ( final Object child : menuItemsEl.getChildren( "menuitem" ) )
+        {
+            final Element menuItemEl = (Element) child;
+            final String key = menuItemEl.getAttributeValue( "key" );
+            if ( key.equals( activeKey ) )
+            {
+                menuItemEl.setAttribute( "active", "true" );
+                menuItemEl.setAttribute( "path", "true" );
+            }
+            else if ( pathKeys.contains( key ) )
+            {
+                menuItemEl.setAttribute( "path", "true" );
+                final Element childrenEl = menuItemEl.getChild( "menuitems" );
+                if ( childrenEl != null )
+                {
+                    doMarkActivePath( childrenEl, activeKey, pathKeys );
+                }
+            }
+        }
+    }
+
+    private String createFragmentKey( final String type, final MenuItemXMLCreatorSetting setting )
+    {
+        return type + "-" + setting.menuItemLevels + "-" + setting.includeHiddenMenuItems + "-" + this.groupSetKey;
+    }
+
+    private Element createMenuItemsElement( final boolean isTop )
+    {
+        final Element menuItemsEl = new Element( "menuitems" );
+        menuItemsEl.setAttribute( "istop", isTop ? "yes" : "no" );
+        return menuItemsEl;
+    }
+
+    private XMLDocument createMenuItemsWithErrorMessage( final String errorMessage )
+    {
+        final Element menuItemsEl = new Element( "menuitems" );
+        menuItemsEl.setAttribute( "error", errorMessage );
+        return XMLDocumentFactory.create( new Document( menuItemsEl ) );
+    }
+}
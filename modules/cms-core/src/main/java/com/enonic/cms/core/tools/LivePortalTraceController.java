@@ -61,6 +61,10 @@ public final class LivePortalTraceController
         {
             livePortalTraceService.clearLongestImageRequestTraces();
         }
+        else if ( "clear-latencies".equals( command ) )
+        {
+            livePortalTraceService.clearLatencies();
+        }
 
         res.setStatus( HttpServletResponse.SC_NO_CONTENT );
     }
@@ -102,6 +106,10 @@ public final class LivePortalTraceController
             final List<PortalRequestTrace> traces = livePortalTraceService.getLongestTimePortalImageRequestTraces();
             returnJson( livePortalTraceJsonGenerator.generate( PortalRequestTraceRow.createRows( traces ) ), res );
         }
+        else if ( "latencies".equals( window ) )
+        {
+            returnJson( livePortalTraceJsonGenerator.generateLatencies( livePortalTraceService.getLatencySummaries() ), res );
+        }
         else if ( history != null )
         {
             final String completedAfterStr = req.getParameter( "completed-after" );
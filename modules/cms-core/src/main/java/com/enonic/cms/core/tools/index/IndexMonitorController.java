@@ -26,6 +26,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import com.google.common.collect.Lists;
 
 import com.enonic.cms.core.content.ContentSpecification;
+import com.enonic.cms.core.search.AsyncBinaryTextIndexer;
 import com.enonic.cms.core.search.ElasticSearchIndexService;
 import com.enonic.cms.core.search.IndexType;
 import com.enonic.cms.core.tools.AbstractToolController;
@@ -62,6 +63,8 @@ public final class IndexMonitorController
 
     private ContentDao contentDao;
 
+    private AsyncBinaryTextIndexer asyncBinaryTextIndexer;
+
     @Override
     protected void doGet( final HttpServletRequest req, final HttpServletResponse res )
         throws Exception
@@ -80,6 +83,7 @@ public final class IndexMonitorController
 
         populateClusterHealth( model, errors );
         populateReindexInfo( model, errors );
+        populateBinaryTextExtractionInfo( model );
 
         final ContentSpecification specification = new ContentSpecification();
         specification.setIncludeDeleted( false );
@@ -171,6 +175,19 @@ public final class IndexMonitorController
         }
     }
 
+    private void populateBinaryTextExtractionInfo( final Map<String, Object> model )
+    {
+        model.put( "extractionEnabled", asyncBinaryTextIndexer.isEnabled() );
+        model.put( "extractionQueueSize", asyncBinaryTextIndexer.getQueueSize() );
+        model.put( "extractionActiveCount", asyncBinaryTextIndexer.getActiveCount() );
+        model.put( "extractionExtractedCount", asyncBinaryTextIndexer.getExtractedCount() );
+        model.put( "extractionFailedCount", asyncBinaryTextIndexer.getFailedCount() );
+        model.put( "extractionTimedOutCount", asyncBinaryTextIndexer.getTimedOutCount() );
+        model.put( "extractionAverageTime", asyncBinaryTextIndexer.getAverageExtractionTime() );
+        model.put( "extractionMaxTime", asyncBinaryTextIndexer.getMaxExtractionTime() );
+        model.put( "extractionAverageQueueTime", asyncBinaryTextIndexer.getAverageQueueTime() );
+    }
+
     private String getLastIndexTimeString()
     {
         return SIMPLE_DATE_FORMAT.print( reindexContentToolService.getLastReindexTime() );
@@ -226,4 +243,10 @@ public final class IndexMonitorController
     {
         this.contentDao = contentDao;
     }
+
+    @Autowired
+    public void setAsyncBinaryTextIndexer( final AsyncBinaryTextIndexer asyncBinaryTextIndexer )
+    {
+        this.asyncBinaryTextIndexer = asyncBinaryTextIndexer;
+    }
 }
@@ -61,6 +61,7 @@ public class ReindexContentToolController
         {
             elasticSearchIndexService.deleteIndex( "cms" );
             contentIndexService.createIndex();
+            reindexContentToolService.clearReindexCheckpoint();
         }
     }
 
@@ -12,6 +12,11 @@ public interface ReindexContentToolService
 {
     public void reindexAllContent( List<String> logEntries );
 
+    /**
+     * Forget the progress of an interrupted reindex, so that the next reindex starts from the beginning.
+     */
+    public void clearReindexCheckpoint();
+
     public Boolean isReIndexInProgress();
 
     public void setReIndexInProgress( final Boolean reIndexInProgress );
@@ -4,6 +4,7 @@
  */
 package com.enonic.cms.core.tools.index;
 
+import java.io.File;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
@@ -13,11 +14,13 @@ import java.util.List;
 import org.joda.time.DateTime;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.enonic.cms.core.content.ContentService;
 import com.enonic.cms.core.content.IndexService;
-import com.enonic.cms.core.content.RegenerateIndexBatcher;
+import com.enonic.cms.core.content.ParallelRegenerateIndexBatcher;
+import com.enonic.cms.core.content.RegenerateIndexCheckpoint;
 import com.enonic.cms.core.content.contenttype.ContentTypeEntity;
 
 @Component
@@ -28,7 +31,11 @@ public class ReindexContentToolServiceImpl
 
     private ContentService contentService;
 
-    protected static final int BATCH_SIZE = 10;
+    protected static final int BATCH_SIZE = 100;
+
+    private int threadCount = 1;
+
+    private RegenerateIndexCheckpoint checkpoint;
 
     private Boolean reIndexInProgress = Boolean.FALSE;
 
@@ -48,6 +55,7 @@ public class ReindexContentToolServiceImpl
         {
             logEntries.add( "Index does not exist, createing..." );
             indexService.createIndex();
+            checkpoint.clear();
         }
 
         Collection<ContentTypeEntity> contentTypes = contentService.getAllContentTypes();
@@ -94,26 +102,20 @@ public class ReindexContentToolServiceImpl
 
     private void doReindexAllContentTypes( final List<String> logEntries, final Collection<ContentTypeEntity> contentTypes )
     {
-        int count = 1;
-
-        for ( ContentTypeEntity contentType : contentTypes )
-        {
-            final StringBuffer message = new StringBuffer();
-            message.append( "Generating indexes for '" ).append( contentType.getName() ).append( "'" );
-            message.append( " (#" ).append( count++ ).append( " of " ).append( contentTypes.size() ).append( ")..." );
-
-            logEntries.add( message.toString() );
+        final ParallelRegenerateIndexBatcher batcher =
+            new ParallelRegenerateIndexBatcher( indexService, contentService, checkpoint, threadCount, BATCH_SIZE );
 
-            long start = System.currentTimeMillis();
-
-            final RegenerateIndexBatcher batcher = new RegenerateIndexBatcher( indexService, contentService );
-
-            batcher.regenerateIndex( contentType, BATCH_SIZE, logEntries );
+        batcher.regenerateIndex( contentTypes, logEntries );
+    }
 
-            long end = System.currentTimeMillis();
+    public void clearReindexCheckpoint()
+    {
+        checkpoint.clear();
+    }
 
-            logEntries.add( "... index values generated in " + ( end - start ) + " ms" );
-        }
+    public boolean hasReindexCheckpoint()
+    {
+        return checkpoint.exists();
     }
 
     @Override
@@ -151,6 +153,18 @@ public class ReindexContentToolServiceImpl
         this.contentService = value;
     }
 
+    @Value("${cms.index.reindex.threads}")
+    public void setThreadCount( final int threadCount )
+    {
+        this.threadCount = Math.max( threadCount, 1 );
+    }
+
+    @Value("${cms.index.reindex.checkpointFile}")
+    public void setCheckpointFile( final File checkpointFile )
+    {
+        this.checkpoint = new RegenerateIndexCheckpoint( checkpointFile );
+    }
+
     public boolean isLastReindexFailed()
     {
         return lastReindexFailed;
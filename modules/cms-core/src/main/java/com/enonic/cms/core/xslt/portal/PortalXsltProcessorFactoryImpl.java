@@ -28,6 +28,7 @@ import com.enonic.cms.core.portal.livetrace.XsltCompilationTrace;
 import com.enonic.cms.core.portal.livetrace.XsltCompilationTracer;
 import com.enonic.cms.core.resource.FileResourceName;
 import com.enonic.cms.core.resource.FileResourceService;
+import com.enonic.cms.core.resource.FileResourceWatcherService;
 import com.enonic.cms.core.xslt.XsltProcessorException;
 import com.enonic.cms.core.xslt.base.SaxonXsltProcessorFactory;
 import com.enonic.cms.core.xslt.functions.portal.PortalXsltFunctionLibrary;
@@ -44,6 +45,8 @@ public final class PortalXsltProcessorFactoryImpl
 
     private FileResourceService resourceService;
 
+    private FileResourceWatcherService resourceWatcherService;
+
     private CacheFacade cacheFacade;
 
     private long checkInterval = 5000;
@@ -101,10 +104,11 @@ public final class PortalXsltProcessorFactoryImpl
                 return entry;
             }
 
+            final long compileTimestamp = System.currentTimeMillis();
             final Source xsl = loadResource( name );
             final Templates templates = compileTemplate( xsl, resolver );
 
-            entry = new XsltTemplatesCacheEntry( name, templates );
+            entry = new XsltTemplatesCacheEntry( name, templates, compileTimestamp );
             entry.addIncludes( resolver.getIncludes() );
             this.templatesCache.put( entry );
 
@@ -137,6 +141,12 @@ public final class PortalXsltProcessorFactoryImpl
         this.resourceService = resourceService;
     }
 
+    @Autowired
+    public void setResourceWatcherService( final FileResourceWatcherService resourceWatcherService )
+    {
+        this.resourceWatcherService = resourceWatcherService;
+    }
+
     @Autowired
     public void setCacheManager( final CacheManager cacheManager )
     {
@@ -158,7 +168,8 @@ public final class PortalXsltProcessorFactoryImpl
     @Override
     public void afterPropertiesSet()
     {
-        this.templatesCache = new XsltTemplatesCache( this.cacheFacade, this.resourceService, this.checkInterval );
+        this.templatesCache =
+            new XsltTemplatesCache( this.cacheFacade, this.resourceService, this.checkInterval, this.resourceWatcherService );
         this.resourceLoader = new XsltResourceLoader( this.resourceService );
     }
 }
@@ -5,30 +5,62 @@
 
 package com.enonic.cms.core.xslt.portal;
 
+import java.util.Map;
+import java.util.Set;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
 import com.enonic.cms.framework.cache.CacheFacade;
 
 import com.enonic.cms.core.resource.FileResource;
+import com.enonic.cms.core.resource.FileResourceChangeListener;
 import com.enonic.cms.core.resource.FileResourceName;
 import com.enonic.cms.core.resource.FileResourceService;
-
+import com.enonic.cms.core.resource.FileResourceWatcherService;
+
+/**
+ * Cache of compiled templates. When resources are watched, the templates that depend on a changed resource are
+ * evicted through a reverse index of the resources of each template. Otherwise every resource of a template is
+ * checked for modifications once each check interval.
+ * <p/>
+ * Templates evicted by the cache itself are dropped from the index when they are missed, or when the index holds
+ * twice as many templates as the cache, and resources that no template depends on anymore are unwatched.
+ */
 final class XsltTemplatesCache
+    implements FileResourceChangeListener
 {
     private final static Logger LOG = LoggerFactory.getLogger( XsltTemplatesCache.class );
 
+    private final static int MIN_SWEEP_SIZE = 100;
+
     private final CacheFacade cacheFacade;
 
     private final FileResourceService resourceService;
 
     private final long checkInterval;
 
-    public XsltTemplatesCache( final CacheFacade cacheFacade, final FileResourceService resourceService, final long checkInterval )
+    private final FileResourceWatcherService watcherService;
+
+    private final Map<FileResourceName, Set<String>> dependents = Maps.newHashMap();
+
+    private final Map<String, Set<FileResourceName>> resources = Maps.newHashMap();
+
+    public XsltTemplatesCache( final CacheFacade cacheFacade, final FileResourceService resourceService, final long checkInterval,
+                               final FileResourceWatcherService watcherService )
     {
         this.cacheFacade = cacheFacade;
         this.resourceService = resourceService;
         this.checkInterval = checkInterval;
+        this.watcherService = watcherService;
+
+        if ( isWatching() )
+        {
+            this.watcherService.addListener( this );
+        }
     }
 
     public XsltTemplatesCacheEntry get( final FileResourceName name )
@@ -36,10 +68,14 @@ final class XsltTemplatesCache
         final XsltTemplatesCacheEntry entry = (XsltTemplatesCacheEntry) this.cacheFacade.get( null, name.toString() );
         if ( entry == null )
         {
+            if ( isWatching() )
+            {
+                forgetIfMissing( name.toString() );
+            }
             return null;
         }
 
-        if ( isValid( entry ) )
+        if ( isWatching() || isValid( entry ) )
         {
             return entry;
         }
@@ -53,6 +89,113 @@ final class XsltTemplatesCache
     public void put( final XsltTemplatesCacheEntry entry )
     {
         this.cacheFacade.put( null, entry.getName().toString(), entry );
+
+        if ( isWatching() )
+        {
+            index( entry );
+        }
+    }
+
+    @Override
+    public synchronized void resourceChanged( final FileResourceName name )
+    {
+        final Set<String> names = this.dependents.get( name );
+        if ( names == null )
+        {
+            return;
+        }
+
+        for ( final String dependent : Sets.newHashSet( names ) )
+        {
+            forget( dependent );
+            this.cacheFacade.remove( null, dependent );
+            LOG.debug( "Removed compiled template {} since {} was changed.", dependent, name );
+        }
+    }
+
+    private synchronized void index( final XsltTemplatesCacheEntry entry )
+    {
+        final String template = entry.getName().toString();
+        forget( template );
+        if ( this.resources.size() >= Math.max( MIN_SWEEP_SIZE, 2 * this.cacheFacade.getCount() ) )
+        {
+            sweep();
+        }
+
+        this.resources.put( template, Sets.newHashSet( entry.getResourceSet() ) );
+
+        for ( final FileResourceName name : entry.getResourceSet() )
+        {
+            Set<String> names = this.dependents.get( name );
+            if ( names == null )
+            {
+                names = Sets.newHashSet();
+                this.dependents.put( name, names );
+            }
+
+            names.add( template );
+        }
+
+        for ( final FileResourceName name : entry.getResourceSet() )
+        {
+            if ( this.watcherService.watch( name, entry.getCompileTimestamp() ) )
+            {
+                // changed while compiling
+                resourceChanged( name );
+                return;
+            }
+        }
+    }
+
+    /**
+     * Forget a template that was evicted by the cache itself, unless it was compiled again in the meantime.
+     */
+    private synchronized void forgetIfMissing( final String template )
+    {
+        if ( this.resources.containsKey( template ) && this.cacheFacade.get( null, template ) == null )
+        {
+            forget( template );
+        }
+    }
+
+    private synchronized void forget( final String template )
+    {
+        final Set<FileResourceName> names = this.resources.remove( template );
+        if ( names == null )
+        {
+            return;
+        }
+
+        for ( final FileResourceName name : names )
+        {
+            final Set<String> templates = this.dependents.get( name );
+            if ( templates != null && templates.remove( template ) && templates.isEmpty() )
+            {
+                this.dependents.remove( name );
+                this.watcherService.unwatch( name );
+            }
+        }
+    }
+
+    private void sweep()
+    {
+        for ( final String template : Sets.newHashSet( this.resources.keySet() ) )
+        {
+            if ( this.cacheFacade.get( null, template ) == null )
+            {
+                forget( template );
+            }
+        }
+    }
+
+    int getIndexedCount()
+    {
+        return this.dependents.size();
+    }
+
+    private boolean isWatching()
+    {
+        return ( this.watcherService != null ) && this.watcherService.isEnabled();
     }
 
     public boolean isValid( final XsltTemplatesCacheEntry entry )
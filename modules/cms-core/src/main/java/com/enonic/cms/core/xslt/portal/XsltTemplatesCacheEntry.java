@@ -30,11 +30,15 @@ final class XsltTemplatesCacheEntry
 
     private long lastValidated;
 
-    public XsltTemplatesCacheEntry( final FileResourceName name, final Templates templates )
+    /**
+     * The timestamp is the time the compilation started, so that resources changed while compiling are seen as
+     * changed.
+     */
+    public XsltTemplatesCacheEntry( final FileResourceName name, final Templates templates, final long timestamp )
     {
         this.name = name;
         this.templates = templates;
-        this.timestamp = System.currentTimeMillis();
+        this.timestamp = timestamp;
         this.resourceSet = Sets.newHashSet();
         this.resourceSet.add( this.name );
         this.lastValidated = this.timestamp;
@@ -23,6 +23,9 @@ import com.enonic.cms.framework.blob.BlobRecord;
 import com.enonic.cms.framework.blob.BlobStore;
 import com.enonic.cms.framework.blob.BlobStoreException;
 
+import com.enonic.cms.core.metrics.MetricsRegistry;
+import com.enonic.cms.core.metrics.Timer;
+
 @Component
 public final class FileBlobStore
     implements InitializingBean, BlobStore
@@ -31,6 +34,10 @@ public final class FileBlobStore
 
     private static final String TMP = "tmp-";
 
+    private static final Timer GET_TIMER = MetricsRegistry.getInstance().timer( "blobstore_get", "Blob store lookups" );
+
+    private static final Timer ADD_TIMER = MetricsRegistry.getInstance().timer( "blobstore_add", "Blob store writes" );
+
     private File dir;
 
     @Value("${cms.blobstore.dir}")
@@ -47,19 +54,28 @@ public final class FileBlobStore
     public BlobRecord getRecord( final BlobKey key )
         throws BlobStoreException
     {
-        final File file = getBlobFile( key );
-        if ( !file.exists() )
+        final Timer.Context timing = GET_TIMER.start();
+        try
         {
-            return null;
-        }
+            final File file = getBlobFile( key );
+            if ( !file.exists() )
+            {
+                return null;
+            }
 
-        return new FileBlobRecord( key, file );
+            return new FileBlobRecord( key, file );
+        }
+        finally
+        {
+            timing.stop();
+        }
     }
 
     public BlobRecord addRecord( final InputStream in )
         throws BlobStoreException
     {
         File tmpFile = null;
+        final Timer.Context timing = ADD_TIMER.start();
 
         try
         {
@@ -74,6 +90,7 @@ public final class FileBlobStore
         finally
         {
             delete( tmpFile );
+            timing.stop();
         }
     }
 
@@ -15,6 +15,7 @@ import com.google.common.collect.Sets;
 
 import com.enonic.cms.framework.blob.BlobKey;
 import com.enonic.cms.framework.blob.BlobStore;
+import com.enonic.cms.framework.blob.text.ExtractedTextStore;
 
 @Component("blobStoreGarbageCollector")
 public final class GarbageCollector
@@ -25,6 +26,8 @@ public final class GarbageCollector
 
     private UsedBlobKeyFinder finder;
 
+    private ExtractedTextStore extractedTextStore;
+
     private boolean running;
 
     @Autowired
@@ -39,6 +42,12 @@ public final class GarbageCollector
         this.finder = finder;
     }
 
+    @Autowired(required = false)
+    public void setExtractedTextStore( final ExtractedTextStore extractedTextStore )
+    {
+        this.extractedTextStore = extractedTextStore;
+    }
+
     private int deleteUnused()
         throws Exception
     {
@@ -48,6 +57,10 @@ public final class GarbageCollector
         for ( final BlobKey key : keys )
         {
             this.store.deleteRecord( key );
+            if ( this.extractedTextStore != null )
+            {
+                this.extractedTextStore.deleteText( key );
+            }
         }
 
         return keys.size();
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.framework.blob.text;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.io.CharStreams;
+import com.google.common.io.Closeables;
+
+import com.enonic.cms.framework.blob.BlobKey;
+import com.enonic.cms.framework.blob.BlobStoreException;
+
+/**
+ * Store for text extracted from blobs. Blobs never change, so the text extracted from a blob only changes when the
+ * extractor does. The text is kept in one gzipped file per blob, together with the version of the extractor that
+ * produced it, and text stored by another extractor version is treated as missing.
+ */
+@Component
+public final class ExtractedTextStore
+    implements InitializingBean
+{
+    private final static Logger LOG = LoggerFactory.getLogger( ExtractedTextStore.class );
+
+    private static final String TMP = "tmp-";
+
+    private static final String SUFFIX = ".txt.gz";
+
+    private static final String ENCODING = "UTF-8";
+
+    private File dir;
+
+    @Value("${cms.index.extractedText.dir}")
+    public void setDirectory( final File dir )
+    {
+        this.dir = dir;
+    }
+
+    public void afterPropertiesSet()
+    {
+        if ( !this.dir.isDirectory() && !this.dir.mkdirs() )
+        {
+            throw new BlobStoreException( "Failed to create directory [" + this.dir.getAbsolutePath() + "]" );
+        }
+    }
+
+    /**
+     * Return the text extracted from the blob by the given extractor version, or null if no such text is stored.
+     */
+    public String getText( final BlobKey key, final String extractorVersion )
+    {
+        final File file = getTextFile( key );
+        if ( !file.exists() )
+        {
+            return null;
+        }
+
+        DataInputStream in = null;
+
+        try
+        {
+            in = new DataInputStream( new GZIPInputStream( new FileInputStream( file ) ) );
+            if ( !extractorVersion.equals( in.readUTF() ) )
+            {
+                return null;
+            }
+
+            final Reader reader = new BufferedReader( new InputStreamReader( in, ENCODING ) );
+            return CharStreams.toString( reader );
+        }
+        catch ( IOException e )
+        {
+            LOG.warn( "Failed to read extracted text [" + key.toString() + "], extracting it again", e );
+            return null;
+        }
+        finally
+        {
+            Closeables.closeQuietly( in );
+        }
+    }
+
+    /**
+     * Return true if text extracted from the blob by the given extractor version is stored.
+     */
+    public boolean hasText( final BlobKey key, final String extractorVersion )
+    {
+        final File file = getTextFile( key );
+        if ( !file.exists() )
+        {
+            return false;
+        }
+
+        DataInputStream in = null;
+
+        try
+        {
+            in = new DataInputStream( new GZIPInputStream( new FileInputStream( file ) ) );
+            return extractorVersion.equals( in.readUTF() );
+        }
+        catch ( IOException e )
+        {
+            return false;
+        }
+        finally
+        {
+            Closeables.closeQuietly( in );
+        }
+    }
+
+    /**
+     * Store the text extracted from the blob, replacing any text stored by another extractor version.
+     */
+    public void putText( final BlobKey key, final String extractorVersion, final String text )
+    {
+        final File file = getTextFile( key );
+        final File parent = file.getParentFile();
+        if ( !parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory() )
+        {
+            throw new BlobStoreException( "Failed to create directory [" + parent.getAbsolutePath() + "]" );
+        }
+
+        File tmpFile = null;
+
+        try
+        {
+            tmpFile = File.createTempFile( TMP, null, parent );
+            writeText( tmpFile, extractorVersion, text );
+            replace( tmpFile, file );
+            tmpFile = null;
+        }
+        catch ( IOException e )
+        {
+            throw new BlobStoreException( "Failed to store extracted text [" + key.toString() + "]", e );
+        }
+        finally
+        {
+            delete( tmpFile );
+        }
+    }
+
+    /**
+     * Delete the text extracted from the blob.
+     *
+     * @return true if deleted, false otherwise
+     */
+    public boolean deleteText( final BlobKey key )
+    {
+        return delete( getTextFile( key ) );
+    }
+
+    private void writeText( final File file, final String extractorVersion, final String text )
+        throws IOException
+    {
+        final DataOutputStream out = new DataOutputStream( new GZIPOutputStream( new FileOutputStream( file ) ) );
+
+        try
+        {
+            out.writeUTF( extractorVersion );
+            final Writer writer = new BufferedWriter( new OutputStreamWriter( out, ENCODING ) );
+            writer.write( text );
+            writer.flush();
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    private synchronized void replace( final File tmpFile, final File file )
+        throws IOException
+    {
+        delete( file );
+        if ( !tmpFile.renameTo( file ) )
+        {
+            throw new IOException( "Failed to rename file [" + tmpFile.getAbsolutePath() + "]" );
+        }
+    }
+
+    private File getTextFile( final BlobKey key )
+    {
+        final String id = key.toString();
+        File file = this.dir;
+        file = new File( file, id.substring( 0, 2 ) );
+        file = new File( file, id.substring( 2, 4 ) );
+        return new File( file, id + SUFFIX );
+    }
+
+    private boolean delete( final File file )
+    {
+        if ( ( file == null ) || !file.exists() )
+        {
+            return false;
+        }
+
+        return file.delete();
+    }
+}
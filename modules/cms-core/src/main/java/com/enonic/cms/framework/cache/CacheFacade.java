@@ -19,6 +19,16 @@ public interface CacheFacade
      */
     public int getMemoryCapacity();
 
+    /**
+     * Return the memory budget in bytes. 0 if the cache is bounded by memory capacity (number of entries).
+     */
+    public long getMemoryBudget();
+
+    /**
+     * Return the estimated number of bytes used. 0 if the cache is not bounded by a memory budget.
+     */
+    public long getMemoryUsage();
+
     /**
      * Return the time to live in seconds. 0 if eternal cache.
      */
@@ -77,7 +87,8 @@ public interface CacheFacade
     public int getEffectiveness();
 
     /**
-     * "Mem capasity usage": <objects count>/<max elements in memory>*100 %
+     * "Mem capasity usage": <objects count>/<max elements in memory>*100 %, or <memory usage>/<memory budget>*100 %
+     * if the cache is bounded by a memory budget.
      */
     public int getMemoryCapacityUsage();
 
@@ -86,6 +97,11 @@ public interface CacheFacade
      */
     public int getRemoveAllCount();
 
+    /**
+     * Number of items removed to make room for new items.
+     */
+    public long getEvictionCount();
+
     /**
      * Return the number of objects in cache.
      */
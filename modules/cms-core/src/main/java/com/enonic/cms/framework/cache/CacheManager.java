@@ -15,6 +15,12 @@ public interface CacheManager
 
     public CacheFacade getCache( String name );
 
+    public CacheFacade getDataSourceCache();
+
+    public CacheFacade getQueryCache();
+
+    public CacheFacade getResolverCache();
+
     public CacheFacade getEntityCache();
 
     public CacheFacade getImageCache();
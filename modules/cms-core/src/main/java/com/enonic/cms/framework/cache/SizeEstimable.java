@@ -0,0 +1,17 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.framework.cache;
+
+/**
+ * Implemented by cache values that know their approximate memory footprint. Used for caches that are
+ * bounded by a memory budget instead of a number of entries.
+ */
+public interface SizeEstimable
+{
+    /**
+     * Return the estimated size in bytes.
+     */
+    public long getEstimatedSize();
+}
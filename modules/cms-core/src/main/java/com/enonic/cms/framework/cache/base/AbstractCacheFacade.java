@@ -45,6 +45,12 @@ public abstract class AbstractCacheFacade
         return this.config.getMemoryCapacity();
     }
 
+    @Override
+    public final long getMemoryBudget()
+    {
+        return this.config.getMemoryBudget();
+    }
+
     @Override
     public final int getTimeToLive()
     {
@@ -66,6 +72,12 @@ public abstract class AbstractCacheFacade
     @Override
     public final int getMemoryCapacityUsage()
     {
+        if ( getMemoryBudget() > 0 )
+        {
+            // the memory usage includes the off-heap tier
+            return (int) ( 100L * getMemoryUsage() / ( getMemoryBudget() + this.config.getOffHeapCapacity() ) );
+        }
+
         if ( getMemoryCapacity() == 0 )
         {
             return 0;
@@ -131,6 +131,24 @@ public abstract class AbstractCacheManager
         this.cacheEventPublisher = new CacheEventPublisherAdapter( clusterEventPublisher );
     }
 
+    @Override
+    public final CacheFacade getDataSourceCache()
+    {
+        return getCache( "datasource" );
+    }
+
+    @Override
+    public final CacheFacade getQueryCache()
+    {
+        return getCache( "query" );
+    }
+
+    @Override
+    public final CacheFacade getResolverCache()
+    {
+        return getCache( "resolver" );
+    }
+
     @Override
     public final CacheFacade getEntityCache()
     {
@@ -169,5 +187,8 @@ public abstract class AbstractCacheManager
         createCache( "image" );
         createCache( "xslt" );
         createCache( "localization" );
+        createCache( "datasource" );
+        createCache( "query" );
+        createCache( "resolver" );
     }
 }
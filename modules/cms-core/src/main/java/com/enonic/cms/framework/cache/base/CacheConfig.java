@@ -19,10 +19,34 @@ public final class CacheConfig
      */
     private final int timeToLive;
 
+    /**
+     * Memory budget in bytes. 0 if the cache is bounded by memory capacity (number of entries).
+     */
+    private final long memoryBudget;
+
+    /**
+     * Hold entries through soft references so that they can be cleared by the garbage collector.
+     */
+    private final boolean softReferences;
+
+    /**
+     * Off-heap capacity in bytes. 0 if no off-heap tier.
+     */
+    private final long offHeapCapacity;
+
     public CacheConfig( final int memoryCapacity, final int timeToLive )
+    {
+        this( memoryCapacity, timeToLive, 0, true, 0 );
+    }
+
+    public CacheConfig( final int memoryCapacity, final int timeToLive, final long memoryBudget, final boolean softReferences,
+                        final long offHeapCapacity )
     {
         this.memoryCapacity = memoryCapacity;
         this.timeToLive = timeToLive;
+        this.memoryBudget = memoryBudget;
+        this.softReferences = softReferences;
+        this.offHeapCapacity = offHeapCapacity;
     }
 
     public int getMemoryCapacity()
@@ -34,4 +58,19 @@ public final class CacheConfig
     {
         return this.timeToLive;
     }
+
+    public long getMemoryBudget()
+    {
+        return this.memoryBudget;
+    }
+
+    public boolean isSoftReferences()
+    {
+        return this.softReferences;
+    }
+
+    public long getOffHeapCapacity()
+    {
+        return this.offHeapCapacity;
+    }
 }
@@ -6,6 +6,8 @@ package com.enonic.cms.framework.cache.base;
 
 import java.util.Properties;
 
+import com.enonic.cms.framework.util.ByteSizeParser;
+
 /**
  * This class implements the cache manager configuration.
  */
@@ -44,9 +46,26 @@ final class CacheManagerConfig
         }
     }
 
+    private boolean getBooleanProperty( final String key, final boolean defValue )
+    {
+        return Boolean.valueOf( getProperty( key, String.valueOf( defValue ) ).trim() );
+    }
+
+    /**
+     * Return a size given with unit (for example 256m) in bytes, or 0 if not given with unit.
+     */
+    private long getMemorySizeProperty( final String key )
+    {
+        final String value = getProperty( key, null );
+        return ByteSizeParser.hasUnit( value ) ? ByteSizeParser.parse( value, 0 ) : 0;
+    }
+
     public CacheConfig getCacheConfig( final String name )
     {
-        final int memoryCapacity = getIntegerProperty( name + ".memoryCapacity", DEFAULT_MEMORY_CAPACITY );
+        final long memoryBudget = getMemorySizeProperty( name + ".memoryCapacity" );
+        final int memoryCapacity = memoryBudget > 0 ? 0 : getIntegerProperty( name + ".memoryCapacity", DEFAULT_MEMORY_CAPACITY );
+        final boolean softReferences = getBooleanProperty( name + ".softReferences", true );
+        final long offHeapCapacity = ByteSizeParser.parse( getProperty( name + ".offHeapCapacity", null ), 0 );
         final int timeToLive = getIntegerProperty( name + ".timeToLive", DEFAULT_TIME_TO_LIVE );
         if ( "entity".equalsIgnoreCase( name ) )
         {
@@ -57,6 +76,6 @@ final class CacheManagerConfig
             }
         }
 
-        return new CacheConfig( memoryCapacity, timeToLive );
+        return new CacheConfig( memoryCapacity, timeToLive, memoryBudget, softReferences, offHeapCapacity );
     }
 }
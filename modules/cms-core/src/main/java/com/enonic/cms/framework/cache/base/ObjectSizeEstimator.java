@@ -0,0 +1,107 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.framework.cache.base;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+
+import com.enonic.cms.framework.cache.SizeEstimable;
+
+/**
+ * Estimates the memory footprint of cache values. The estimate is cheap for the common value types (strings,
+ * byte arrays and values implementing {@link SizeEstimable}) and falls back to the serialized size for other
+ * serializable values, such as hibernate entity cache entries.
+ */
+public final class ObjectSizeEstimator
+{
+    private final static long OBJECT_OVERHEAD = 16;
+
+    private final static long STRING_OVERHEAD = 40;
+
+    private final static long UNKNOWN_SIZE = 1024;
+
+    private ObjectSizeEstimator()
+    {
+    }
+
+    public static long estimate( final Object value )
+    {
+        if ( value == null )
+        {
+            return 0;
+        }
+        else if ( value instanceof SizeEstimable )
+        {
+            return ( (SizeEstimable) value ).getEstimatedSize();
+        }
+        else if ( value instanceof byte[] )
+        {
+            return OBJECT_OVERHEAD + ( (byte[]) value ).length;
+        }
+        else if ( value instanceof char[] )
+        {
+            return OBJECT_OVERHEAD + 2L * ( (char[]) value ).length;
+        }
+        else if ( value instanceof CharSequence )
+        {
+            return estimate( (CharSequence) value );
+        }
+        else if ( value instanceof Serializable )
+        {
+            return estimateSerialized( value );
+        }
+        else
+        {
+            return UNKNOWN_SIZE;
+        }
+    }
+
+    public static long estimate( final CharSequence value )
+    {
+        if ( value == null )
+        {
+            return 0;
+        }
+
+        return STRING_OVERHEAD + 2L * value.length();
+    }
+
+    private static long estimateSerialized( final Object value )
+    {
+        final CountingOutputStream counter = new CountingOutputStream();
+
+        try
+        {
+            final ObjectOutputStream out = new ObjectOutputStream( counter );
+            out.writeObject( value );
+            out.close();
+            return OBJECT_OVERHEAD + counter.count;
+        }
+        catch ( final IOException e )
+        {
+            return UNKNOWN_SIZE;
+        }
+    }
+
+    private final static class CountingOutputStream
+        extends OutputStream
+    {
+        private long count = 0;
+
+        @Override
+        public void write( final int b )
+        {
+            this.count++;
+        }
+
+        @Override
+        public void write( final byte[] b, final int off, final int len )
+        {
+            this.count += len;
+        }
+    }
+}
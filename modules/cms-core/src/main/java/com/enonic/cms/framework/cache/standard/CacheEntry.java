@@ -56,6 +56,14 @@ final class CacheEntry
         return this.value;
     }
 
+    /**
+     * Return the time to live in milliseconds.
+     */
+    public long getTimeToLive()
+    {
+        return this.timeToLive;
+    }
+
     /**
      * Update last access time.
      */
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.framework.cache.standard;
+
+import java.lang.ref.SoftReference;
+
+/**
+ * This class holds a cache entry, either strongly or through a soft reference, together with its weight.
+ */
+final class CacheEntryReference
+{
+    /**
+     * Strongly held entry, or null if soft referenced.
+     */
+    private final CacheEntry entry;
+
+    /**
+     * Soft referenced entry, or null if strongly held.
+     */
+    private final SoftReference<CacheEntry> softEntry;
+
+    /**
+     * Weight of entry.
+     */
+    private final int weight;
+
+    public CacheEntryReference( final CacheEntry entry, final int weight, final boolean soft )
+    {
+        this.entry = soft ? null : entry;
+        this.softEntry = soft ? new SoftReference<CacheEntry>( entry ) : null;
+        this.weight = weight;
+    }
+
+    /**
+     * Return the entry, or null if cleared by the garbage collector.
+     */
+    public CacheEntry get()
+    {
+        return this.softEntry != null ? this.softEntry.get() : this.entry;
+    }
+
+    /**
+     * Return the weight.
+     */
+    public int getWeight()
+    {
+        return this.weight;
+    }
+}
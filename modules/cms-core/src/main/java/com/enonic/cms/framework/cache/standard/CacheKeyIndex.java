@@ -0,0 +1,68 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.framework.cache.standard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Sorted secondary index over the composite keys of a cache. Since a composite key is built as
+ * <code>group:key</code>, all keys of a group (or of all groups starting with a prefix) are stored next to
+ * each other, and finding them costs time proportional to the number of matched keys instead of a scan of
+ * the whole cache.
+ * <p/>
+ * The index may hold keys that are no longer in the cache (they are just skipped on removal), but the owner
+ * must make sure that every key in the cache is also in the index.
+ */
+final class CacheKeyIndex
+{
+    private final ConcurrentSkipListSet<String> keys;
+
+    public CacheKeyIndex()
+    {
+        this.keys = new ConcurrentSkipListSet<String>();
+    }
+
+    public void add( final String key )
+    {
+        this.keys.add( key );
+    }
+
+    public void remove( final String key )
+    {
+        this.keys.remove( key );
+    }
+
+    public void clear()
+    {
+        this.keys.clear();
+    }
+
+    public int size()
+    {
+        return this.keys.size();
+    }
+
+    /**
+     * Return all keys that start with the given prefix.
+     */
+    public List<String> findByPrefix( final String prefix )
+    {
+        final List<String> result = new ArrayList<String>();
+
+        for ( final String key : this.keys.tailSet( prefix ) )
+        {
+            if ( !key.startsWith( prefix ) )
+            {
+                break;
+            }
+
+            result.add( key );
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.framework.cache.standard;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class hands out fixed size slabs of direct memory for the off-heap tier. Slabs are sliced from direct regions
+ * that are allocated on demand up to the capacity, and released slabs are reused, so the direct memory used never
+ * exceeds the capacity.
+ */
+final class OffHeapArena
+{
+    public final static int SLAB_SIZE = 8 * 1024;
+
+    private final static int SLABS_PER_REGION = 128;
+
+    private final int maxSlabs;
+
+    private final Queue<ByteBuffer> freeSlabs = new ConcurrentLinkedQueue<ByteBuffer>();
+
+    private final AtomicInteger usedSlabs = new AtomicInteger();
+
+    private int allocatedSlabs;
+
+    public OffHeapArena( final long capacity )
+    {
+        this.maxSlabs = (int) Math.min( capacity / SLAB_SIZE, Integer.MAX_VALUE );
+    }
+
+    public static int slabsFor( final int size )
+    {
+        return Math.max( 1, ( size + SLAB_SIZE - 1 ) / SLAB_SIZE );
+    }
+
+    /**
+     * Return slabs that hold the given number of bytes, or null if the arena is full.
+     */
+    public ByteBuffer[] allocate( final int size )
+    {
+        final ByteBuffer[] slabs = new ByteBuffer[slabsFor( size )];
+
+        for ( int i = 0; i < slabs.length; i++ )
+        {
+            slabs[i] = nextSlab();
+            if ( slabs[i] == null )
+            {
+                release( slabs );
+                return null;
+            }
+        }
+
+        return slabs;
+    }
+
+    public void release( final ByteBuffer[] slabs )
+    {
+        for ( final ByteBuffer slab : slabs )
+        {
+            if ( slab != null )
+            {
+                slab.clear();
+                this.freeSlabs.offer( slab );
+                this.usedSlabs.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Return the number of bytes in slabs that are in use.
+     */
+    public long getUsedBytes()
+    {
+        return (long) this.usedSlabs.get() * SLAB_SIZE;
+    }
+
+    private ByteBuffer nextSlab()
+    {
+        ByteBuffer slab = this.freeSlabs.poll();
+        while ( slab == null && allocateRegion() )
+        {
+            slab = this.freeSlabs.poll();
+        }
+
+        if ( slab != null )
+        {
+            this.usedSlabs.incrementAndGet();
+        }
+
+        return slab;
+    }
+
+    private synchronized boolean allocateRegion()
+    {
+        if ( !this.freeSlabs.isEmpty() )
+        {
+            return true;
+        }
+
+        final int count = Math.min( SLABS_PER_REGION, this.maxSlabs - this.allocatedSlabs );
+        if ( count <= 0 )
+        {
+            return false;
+        }
+
+        final ByteBuffer region = ByteBuffer.allocateDirect( count * SLAB_SIZE );
+        for ( int i = 0; i < count; i++ )
+        {
+            region.limit( ( i + 1 ) * SLAB_SIZE );
+            region.position( i * SLAB_SIZE );
+            this.freeSlabs.offer( region.slice() );
+        }
+
+        this.allocatedSlabs += count;
+        return true;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.framework.cache.standard;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.enonic.cms.framework.cache.SizeEstimable;
+
+/**
+ * This class holds a cache value in slabs of an off-heap arena. Byte arrays are stored as is, other values are
+ * serialized. Values are always copied back to the heap when read, and the slabs are given back to the arena when
+ * the value is released.
+ */
+final class OffHeapValue
+    implements SizeEstimable
+{
+    private final static long OVERHEAD = 64;
+
+    private final OffHeapArena arena;
+
+    private final ByteBuffer[] slabs;
+
+    private final int length;
+
+    private final boolean raw;
+
+    private final AtomicInteger hits;
+
+    private boolean released;
+
+    private OffHeapValue( final OffHeapArena arena, final ByteBuffer[] slabs, final int length, final boolean raw )
+    {
+        this.arena = arena;
+        this.slabs = slabs;
+        this.length = length;
+        this.raw = raw;
+        this.hits = new AtomicInteger( 0 );
+    }
+
+    /**
+     * Return a heap copy of the value, or null if the value is released.
+     */
+    public Object getValue()
+    {
+        final byte[] data = read();
+        if ( ( data == null ) || this.raw )
+        {
+            return data;
+        }
+
+        try
+        {
+            final ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( data ) );
+            try
+            {
+                return in.readObject();
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch ( final Exception e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Register a hit and return the number of hits so far.
+     */
+    public int hit()
+    {
+        return this.hits.incrementAndGet();
+    }
+
+    /**
+     * Give the slabs back to the arena. Called when the value is removed from the cache.
+     */
+    public synchronized void release()
+    {
+        if ( !this.released )
+        {
+            this.released = true;
+            this.arena.release( this.slabs );
+        }
+    }
+
+    public long getEstimatedSize()
+    {
+        return OVERHEAD + (long) this.slabs.length * OffHeapArena.SLAB_SIZE;
+    }
+
+    // synchronized with release, so that the slabs are not reused while they are read
+    private synchronized byte[] read()
+    {
+        if ( this.released )
+        {
+            return null;
+        }
+
+        final byte[] data = new byte[this.length];
+        int offset = 0;
+        for ( final ByteBuffer slab : this.slabs )
+        {
+            final int count = Math.min( slab.capacity(), this.length - offset );
+            final ByteBuffer view = slab.duplicate();
+            view.clear();
+            view.get( data, offset, count );
+            offset += count;
+        }
+
+        return data;
+    }
+
+    /**
+     * Create an off-heap value, or return null if the value cannot be serialized or the arena is full.
+     */
+    public static OffHeapValue create( final OffHeapArena arena, final Object value )
+    {
+        if ( value instanceof byte[] )
+        {
+            return create( arena, (byte[]) value, true );
+        }
+
+        if ( !( value instanceof Serializable ) )
+        {
+            return null;
+        }
+
+        try
+        {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final ObjectOutputStream out = new ObjectOutputStream( bytes );
+            out.writeObject( value );
+            out.close();
+            return create( arena, bytes.toByteArray(), false );
+        }
+        catch ( final IOException e )
+        {
+            return null;
+        }
+    }
+
+    private static OffHeapValue create( final OffHeapArena arena, final byte[] data, final boolean raw )
+    {
+        final ByteBuffer[] slabs = arena.allocate( data.length );
+        if ( slabs == null )
+        {
+            return null;
+        }
+
+        int offset = 0;
+        for ( final ByteBuffer slab : slabs )
+        {
+            final int count = Math.min( slab.capacity(), data.length - offset );
+            final ByteBuffer view = slab.duplicate();
+            view.clear();
+            view.put( data, offset, count );
+            offset += count;
+        }
+
+        return new OffHeapValue( arena, slabs, data.length, raw );
+    }
+}
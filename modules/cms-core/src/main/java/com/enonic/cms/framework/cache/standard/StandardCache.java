@@ -4,28 +4,72 @@
  */
 package com.enonic.cms.framework.cache.standard;
 
-import java.lang.ref.SoftReference;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
 import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap.Builder;
+import com.googlecode.concurrentlinkedhashmap.EvictionListener;
+import com.googlecode.concurrentlinkedhashmap.Weigher;
+
+import com.enonic.cms.framework.cache.base.ObjectSizeEstimator;
 
 
 /**
- * Our standard cache that uses the LRU eviction method.
+ * Our standard cache that uses the LRU eviction method. Keys are also kept in a sorted index so that removing
+ * a group, or all groups by prefix, only touches the matching entries.
+ * <p/>
+ * The cache is either bounded by number of entries, or by a memory budget where each entry is weighted by its
+ * estimated size in bytes. Entries are held through soft references unless turned off.
  */
 final class StandardCache
 {
+    /**
+     * Estimated overhead of an entry, in addition to the key and value.
+     */
+    private final static long ENTRY_OVERHEAD = 64;
+
     private final int maxEntries;
 
-    private final ConcurrentLinkedHashMap<String, SoftReference<CacheEntry>> map;
+    private final long memoryBudget;
+
+    private final boolean softReferences;
+
+    private final ConcurrentLinkedHashMap<String, CacheEntryReference> map;
+
+    private final CacheKeyIndex index;
+
+    private final AtomicLong evictionCount = new AtomicLong();
 
     public StandardCache( final int maxEntries )
     {
-        this.map = new Builder<String, SoftReference<CacheEntry>>().maximumWeightedCapacity( maxEntries ).build();
+        this( maxEntries, 0, true );
+    }
+
+    public StandardCache( final int maxEntries, final long memoryBudget, final boolean softReferences )
+    {
+        this.index = new CacheKeyIndex();
+        this.map = new Builder<String, CacheEntryReference>().maximumWeightedCapacity(
+            memoryBudget > 0 ? memoryBudget : maxEntries ).weigher(
+            new Weigher<CacheEntryReference>()
+            {
+                public int weightOf( final CacheEntryReference value )
+                {
+                    return value.getWeight();
+                }
+            } ).listener( new EvictionListener<String, CacheEntryReference>()
+        {
+            public void onEviction( final String key, final CacheEntryReference value )
+            {
+                evictionCount.incrementAndGet();
+                doRemoveFromIndex( key );
+                release( value );
+            }
+        } ).build();
         this.maxEntries = maxEntries;
+        this.memoryBudget = memoryBudget;
+        this.softReferences = softReferences;
     }
 
     public int getMaxEntries()
@@ -34,6 +78,24 @@ final class StandardCache
         return maxEntries;
     }
 
+    public long getMemoryBudget()
+    {
+        return memoryBudget;
+    }
+
+    /**
+     * Return the estimated number of bytes used, or 0 if not bounded by a memory budget.
+     */
+    public long getMemoryUsage()
+    {
+        return memoryBudget > 0 ? map.weightedSize() : 0;
+    }
+
+    public long getEvictionCount()
+    {
+        return evictionCount.get();
+    }
+
     public int numberOfEntries()
     {
 
@@ -49,13 +111,13 @@ final class StandardCache
     public CacheEntry get( String key )
     {
 
-        SoftReference referenceWrapper = doGet( key );
-        if ( referenceWrapper == null )
+        CacheEntryReference reference = doGet( key );
+        if ( reference == null )
         {
             return null;
         }
 
-        CacheEntry entry = (CacheEntry) referenceWrapper.get();
+        CacheEntry entry = reference.get();
 
         if ( entry == null || entry.isExpired() )
         {
@@ -90,14 +152,14 @@ final class StandardCache
     {
 
         String prefix = group + ":";
-        Set<String> keys = doGetByPrefix( prefix );
+        Collection<String> keys = doGetByPrefix( prefix );
 
         doRemoveKeys( keys );
     }
 
     public void removeGroupByPrefix( String prefix )
     {
-        Set<String> keys = doGetByPrefix( prefix );
+        Collection<String> keys = doGetByPrefix( prefix );
 
         doRemoveKeys( keys );
     }
@@ -111,39 +173,79 @@ final class StandardCache
         }
     }
 
-    private SoftReference doGet( String key )
+    private CacheEntryReference doGet( String key )
     {
         return map.get( key );
     }
 
     private void doPut( CacheEntry entry )
     {
-        map.put( entry.getKey(), new SoftReference<CacheEntry>( entry ) );
+        // map first, then index; see doRemoveFromIndex
+        final CacheEntryReference previous =
+            map.put( entry.getKey(), new CacheEntryReference( entry, weightOf( entry ), softReferences ) );
+        index.add( entry.getKey() );
+        release( previous );
+    }
+
+    /**
+     * Weigh an entry by its estimated size when the cache is bounded by a memory budget. Values that are not strings,
+     * byte arrays or {@link com.enonic.cms.framework.cache.SizeEstimable} are serialized to estimate their size,
+     * which costs as much as serializing them on every put; values cached often under a memory budget should
+     * implement SizeEstimable.
+     */
+    private int weightOf( CacheEntry entry )
+    {
+        if ( memoryBudget <= 0 )
+        {
+            return 1;
+        }
+
+        final long size = ENTRY_OVERHEAD + ObjectSizeEstimator.estimate( entry.getKey() ) + ObjectSizeEstimator.estimate( entry.getValue() );
+        return (int) Math.min( size, Integer.MAX_VALUE );
     }
 
     private void doRemove( String key )
     {
-        map.remove( key );
+        final CacheEntryReference previous = map.remove( key );
+        doRemoveFromIndex( key );
+        release( previous );
     }
 
-    private void doRemoveAll()
+    /**
+     * Give the direct memory of an off-heap value back, once the entry has left the cache.
+     */
+    private void release( final CacheEntryReference reference )
     {
-        map.clear();
+        final CacheEntry entry = reference != null ? reference.get() : null;
+        if ( ( entry != null ) && ( entry.getValue() instanceof OffHeapValue ) )
+        {
+            ( (OffHeapValue) entry.getValue() ).release();
+        }
     }
 
-    private Set<String> doGetByPrefix( String prefix )
+    private void doRemoveFromIndex( String key )
     {
+        index.remove( key );
 
-        HashSet<String> keys = new HashSet<String>();
+        // a concurrent put of the same key may have been indexed just before we removed it
+        if ( map.containsKey( key ) )
+        {
+            index.add( key );
+        }
+    }
 
-        for ( String key : map.keySet() )
+    private void doRemoveAll()
+    {
+        // index first, so that a concurrent put is never left in the map without being indexed
+        index.clear();
+        for ( final String key : map.keySet() )
         {
-            if ( key.startsWith( prefix ) )
-            {
-                keys.add( key );
-            }
+            release( map.remove( key ) );
         }
+    }
 
-        return keys;
+    private Collection<String> doGetByPrefix( String prefix )
+    {
+        return index.findByPrefix( prefix );
     }
 }
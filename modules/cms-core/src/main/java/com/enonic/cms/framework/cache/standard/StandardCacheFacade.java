@@ -6,14 +6,36 @@ package com.enonic.cms.framework.cache.standard;
 
 import com.enonic.cms.framework.cache.base.AbstractCacheFacade;
 
+/**
+ * This class implements the standard cache facade. It optionally has an off-heap tier below the heap cache. When
+ * the off-heap tier is present, all serializable values are stored off-heap, and entries that are hit often are
+ * promoted to the heap cache. Values are copied back to the heap when read from the off-heap tier, so callers get
+ * the same types as they put.
+ */
 final class StandardCacheFacade
     extends AbstractCacheFacade
 {
+    /**
+     * Number of off-heap hits before an entry is promoted to the heap.
+     */
+    private final static int PROMOTION_HITS = 3;
+
     private final StandardCache peer;
 
+    private final StandardCache offHeap;
+
+    private final OffHeapArena arena;
+
     public StandardCacheFacade( final StandardCache peer )
+    {
+        this( peer, null, null );
+    }
+
+    public StandardCacheFacade( final StandardCache peer, final StandardCache offHeap, final OffHeapArena arena )
     {
         this.peer = peer;
+        this.offHeap = offHeap;
+        this.arena = arena;
     }
 
     @Override
@@ -21,30 +43,112 @@ final class StandardCacheFacade
     {
         final CacheEntry entry = this.peer.get( compositeKey );
 
+        if ( entry != null )
+        {
+            return entry.getValue();
+        }
+
+        if ( this.offHeap == null )
+        {
+            return null;
+        }
+
+        return doGetOffHeap( compositeKey );
+    }
+
+    private Object doGetOffHeap( final String compositeKey )
+    {
+        final CacheEntry entry = this.offHeap.get( compositeKey );
+
         if ( entry == null )
         {
             return null;
         }
 
-        return entry.getValue();
+        final OffHeapValue offHeapValue = (OffHeapValue) entry.getValue();
+        if ( offHeapValue.hit() == PROMOTION_HITS )
+        {
+            final Object heapValue = offHeapValue.getValue();
+            if ( heapValue == null )
+            {
+                // removed while read
+                return null;
+            }
+
+            this.peer.put( new CacheEntry( compositeKey, heapValue, entry.getTimeToLive() ) );
+
+            // the entry may have been removed or replaced while it was promoted
+            if ( this.offHeap.get( compositeKey ) != entry )
+            {
+                this.peer.remove( compositeKey );
+            }
+
+            return heapValue;
+        }
+
+        return offHeapValue.getValue();
     }
 
     @Override
     protected void doPut( final String compositeKey, final Object value, final int timeToLive )
     {
-        final CacheEntry entry = new CacheEntry( compositeKey, value, timeToLive > 0 ? timeToLive * 1000L : 0 );
-        this.peer.put( entry );
+        final long timeToLiveMillis = timeToLive > 0 ? timeToLive * 1000L : 0;
+        final OffHeapValue offHeapValue = this.offHeap != null ? OffHeapValue.create( this.arena, value ) : null;
+
+        if ( offHeapValue != null )
+        {
+            this.offHeap.put( new CacheEntry( compositeKey, offHeapValue, timeToLiveMillis ) );
+            this.peer.remove( compositeKey );
+        }
+        else
+        {
+            final CacheEntry entry = new CacheEntry( compositeKey, value, timeToLiveMillis );
+            this.peer.put( entry );
+        }
     }
 
     @Override
     public int getCount()
     {
+        if ( this.offHeap != null )
+        {
+            return this.peer.numberOfEntries() + this.offHeap.numberOfEntries();
+        }
+
         return this.peer.numberOfEntries();
     }
 
+    @Override
+    public long getEvictionCount()
+    {
+        // entries evicted from the heap are still kept off-heap, so only off-heap evictions are lost
+        if ( this.offHeap != null )
+        {
+            return this.offHeap.getEvictionCount();
+        }
+
+        return this.peer.getEvictionCount();
+    }
+
+    @Override
+    public long getMemoryUsage()
+    {
+        if ( this.offHeap != null )
+        {
+            return this.peer.getMemoryUsage() + this.offHeap.getMemoryUsage();
+        }
+
+        return this.peer.getMemoryUsage();
+    }
+
     @Override
     protected void doRemove( final String compositeKey )
     {
+        if ( this.offHeap != null )
+        {
+            this.offHeap.remove( compositeKey );
+        }
+
         this.peer.remove( compositeKey );
     }
 
@@ -53,11 +157,16 @@ final class StandardCacheFacade
     {
         if ( groupName != null )
         {
+            if ( this.offHeap != null )
+            {
+                this.offHeap.removeGroup( groupName );
+            }
+
             this.peer.removeGroup( groupName );
         }
         else
         {
-            this.peer.removeAll();
+            doRemoveAll();
         }
     }
 
@@ -66,17 +175,27 @@ final class StandardCacheFacade
     {
         if ( prefix != null )
         {
+            if ( this.offHeap != null )
+            {
+                this.offHeap.removeGroupByPrefix( prefix );
+            }
+
             this.peer.removeGroupByPrefix( prefix );
         }
         else
         {
-            this.peer.removeAll();
+            doRemoveAll();
         }
     }
 
     @Override
     protected void doRemoveAll()
     {
+        if ( this.offHeap != null )
+        {
+            this.offHeap.removeAll();
+        }
+
         this.peer.removeAll();
     }
 }
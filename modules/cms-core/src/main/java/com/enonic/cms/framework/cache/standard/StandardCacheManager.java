@@ -20,7 +20,15 @@ public final class StandardCacheManager
     @Override
     protected AbstractCacheFacade doCreateCache( final CacheConfig config )
     {
-        final StandardCache cache = new StandardCache( config.getMemoryCapacity() );
+        final StandardCache cache =
+            new StandardCache( config.getMemoryCapacity(), config.getMemoryBudget(), config.isSoftReferences() );
+
+        if ( config.getOffHeapCapacity() > 0 )
+        {
+            final StandardCache offHeap = new StandardCache( 0, config.getOffHeapCapacity(), false );
+            return new StandardCacheFacade( cache, offHeap, new OffHeapArena( config.getOffHeapCapacity() ) );
+        }
+
         return new StandardCacheFacade( cache );
     }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.framework.util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses sizes in bytes, like 512k, 256m or 2g. A number without unit is in bytes.
+ */
+public final class ByteSizeParser
+{
+    private final static Pattern SIZE_PATTERN = Pattern.compile( "(\\d+)\\s*([kmg]?)b?", Pattern.CASE_INSENSITIVE );
+
+    private ByteSizeParser()
+    {
+    }
+
+    /**
+     * Return true if the value is a size with a unit.
+     */
+    public static boolean hasUnit( final String value )
+    {
+        final Matcher matcher = matcher( value );
+        return ( matcher != null ) && ( matcher.group( 2 ).length() > 0 );
+    }
+
+    /**
+     * Return the size in bytes, or the default value if not a valid size.
+     */
+    public static long parse( final String value, final long defValue )
+    {
+        final Matcher matcher = matcher( value );
+        if ( matcher == null )
+        {
+            return defValue;
+        }
+
+        final long size = Long.parseLong( matcher.group( 1 ) );
+        final String unit = matcher.group( 2 ).toLowerCase();
+
+        if ( unit.equals( "g" ) )
+        {
+            return size * 1024L * 1024L * 1024L;
+        }
+        else if ( unit.equals( "m" ) )
+        {
+            return size * 1024L * 1024L;
+        }
+        else if ( unit.equals( "k" ) )
+        {
+            return size * 1024L;
+        }
+        else
+        {
+            return size;
+        }
+    }
+
+    private static Matcher matcher( final String value )
+    {
+        if ( value == null )
+        {
+            return null;
+        }
+
+        final Matcher matcher = SIZE_PATTERN.matcher( value.trim() );
+        return matcher.matches() ? matcher : null;
+    }
+}
@@ -33,6 +33,11 @@ public interface ContentDao
 
     List<ContentKey> findContentKeysByContentType( ContentTypeEntity contentType );
 
+    /**
+     * Find at most count content keys of the content type, starting from the given key, in key order.
+     */
+    List<ContentKey> findContentKeysByContentType( ContentTypeEntity contentType, ContentKey fromKey, int count );
+
     List<ContentKey> findContentKeysByCategory( CategoryKey category );
 
     int getNumberOfRelatedParentsByKey( List<ContentKey> contentKeys );
@@ -4,12 +4,16 @@
  */
 package com.enonic.cms.store.dao;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import org.hibernate.HibernateException;
 import org.hibernate.Query;
+import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.hibernate3.HibernateCallback;
 import org.springframework.stereotype.Repository;
 
 import com.enonic.cms.framework.cache.CacheFacade;
@@ -139,6 +143,23 @@ public class ContentEntityDao
                                  new Object[]{contentType.getKey()} );
     }
 
+    public List<ContentKey> findContentKeysByContentType( final ContentTypeEntity contentType, final ContentKey fromKey,
+                                                          final int count )
+    {
+        return executeListResult( ContentKey.class, new HibernateCallback()
+        {
+            public Object doInHibernate( Session session )
+                throws HibernateException, SQLException
+            {
+                final Query query = session.getNamedQuery( "ContentEntity.findContentKeysByContentTypeKeyFromKey" );
+                query.setParameter( "contentTypeKey", contentType.getKey() );
+                query.setParameter( "fromKey", fromKey );
+                query.setMaxResults( count );
+                return query.list();
+            }
+        } );
+    }
+
     public List<ContentKey> findContentKeysByCategory( CategoryKey category )
     {
         return findByNamedQuery( ContentKey.class, "ContentEntity.findContentKeysByCategoryKey", new String[]{"categoryKey"},
@@ -6,6 +6,7 @@ package com.enonic.cms.store.dao;
 
 import com.enonic.cms.core.security.group.GroupEntity;
 import com.enonic.cms.core.security.group.GroupKey;
+import com.enonic.cms.core.security.group.GroupMembershipClosure;
 import com.enonic.cms.core.security.group.GroupSpecification;
 import com.enonic.cms.core.security.group.GroupType;
 import com.enonic.cms.core.security.userstore.UserStoreKey;
@@ -20,6 +21,14 @@ public interface GroupDao
 {
     void invalidateCachedKeys();
 
+    /**
+     * Return the keys of all groups the given group is member of, directly or indirectly. The closure is cached until
+     * memberships change on this node, or {@link #invalidateMembershipClosures()} is called.
+     */
+    GroupMembershipClosure findMembershipClosure( GroupEntity group );
+
+    void invalidateMembershipClosures();
+
     GroupEntity find( String groupKey );
 
     GroupEntity findByKey( GroupKey groupKey );
@@ -6,9 +6,12 @@ package com.enonic.cms.store.dao;
 
 import com.enonic.cms.core.security.group.GroupEntity;
 import com.enonic.cms.core.security.group.GroupKey;
+import com.enonic.cms.core.security.group.GroupMembershipClosure;
 import com.enonic.cms.core.security.group.GroupSpecification;
 import com.enonic.cms.core.security.group.GroupType;
 import com.enonic.cms.core.security.userstore.UserStoreKey;
+import com.enonic.cms.framework.cache.CacheFacade;
+import com.enonic.cms.framework.cache.CacheManager;
 import com.enonic.cms.framework.hibernate.support.SelectBuilder;
 import com.enonic.cms.store.support.EntityPageList;
 import org.hibernate.Criteria;
@@ -18,6 +21,7 @@ import org.hibernate.Session;
 import org.hibernate.criterion.MatchMode;
 import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Restrictions;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.orm.hibernate3.HibernateCallback;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.Assert;
@@ -36,6 +40,10 @@ public final class GroupEntityDao
         new GroupType[]{GroupType.ANONYMOUS, GroupType.CONTRIBUTORS, GroupType.ADMINS, GroupType.GLOBAL_GROUP, GroupType.DEVELOPERS,
             GroupType.EXPERT_CONTRIBUTORS};
 
+    private final static String MEMBERSHIP_CLOSURE_CACHE_GROUP = "groupMembershipClosure";
+
+    private CacheFacade entityCache;
+
     private boolean initializedCacheKeys = false;
 
     private transient GroupKey cachedEnterpriseAdminGroupKey;
@@ -55,6 +63,33 @@ public final class GroupEntityDao
         initializedCacheKeys = false;
     }
 
+    public GroupMembershipClosure findMembershipClosure( final GroupEntity group )
+    {
+        if ( entityCache == null )
+        {
+            return GroupMembershipClosure.create( group );
+        }
+
+        final String cacheKey = group.getGroupKey().toString();
+        final GroupMembershipClosure cached = (GroupMembershipClosure) entityCache.get( MEMBERSHIP_CLOSURE_CACHE_GROUP, cacheKey );
+        if ( cached != null && cached.getGeneration() == GroupEntity.getMembershipGeneration() )
+        {
+            return cached;
+        }
+
+        final GroupMembershipClosure closure = GroupMembershipClosure.create( group );
+        entityCache.put( MEMBERSHIP_CLOSURE_CACHE_GROUP, cacheKey, closure );
+        return closure;
+    }
+
+    public void invalidateMembershipClosures()
+    {
+        if ( entityCache != null )
+        {
+            entityCache.removeGroup( MEMBERSHIP_CLOSURE_CACHE_GROUP );
+        }
+    }
+
     private void initalizeCacheKeys()
     {
         if ( initializedCacheKeys )
@@ -460,4 +495,10 @@ public final class GroupEntityDao
     {
         return findPageList( GroupEntity.class, "x.deleted = 0", index, count );
     }
+
+    @Autowired
+    public void setCacheManager( CacheManager cacheManager )
+    {
+        this.entityCache = cacheManager.getEntityCache();
+    }
 }
@@ -5,6 +5,7 @@
 package com.enonic.cms.store.hibernate.cache.invalidation;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -48,6 +49,8 @@ public class CacheInvalidator
 
     private Map<String, Column[]> tableMap = new HashMap<String, Column[]>();
 
+    private List<TableChangeListener> tableChangeListeners = Collections.emptyList();
+
     /**
      * Construct the invalidator.
      */
@@ -66,6 +69,14 @@ public class CacheInvalidator
         }
     }
 
+    /**
+     * Set the listeners notified of all table changes.
+     */
+    public void setTableChangeListeners( List<TableChangeListener> tableChangeListeners )
+    {
+        this.tableChangeListeners = tableChangeListeners;
+    }
+
     /**
      * Analyze the SQL. If it's not a select, find the affected table and invalidate it.
      */
@@ -127,15 +138,26 @@ public class CacheInvalidator
     private void invalidateTable( SqlAnalyzer analyzer, List paramList )
     {
         TableInvalidation rule = this.invalidationRules.getTableRuleByName( analyzer.resolveTableName() );
+        if ( rule == null && this.tableChangeListeners.isEmpty() )
+        {
+            return;
+        }
+
+        Serializable primaryKey = null;
+        if ( !analyzer.isInsertType() )
+        {
+            primaryKey = findPrimaryKeyValue( analyzer.resolveTableName(), analyzer.getSql(), paramList );
+        }
+
         if ( rule != null )
         {
-            Serializable primaryKey = null;
-            if ( !analyzer.isInsertType() )
-            {
-                primaryKey = findPrimaryKeyValue( analyzer.resolveTableName(), analyzer.getSql(), paramList );
-            }
             invalidateTable( rule, primaryKey, analyzer.isInsertType() );
         }
+
+        for ( TableChangeListener listener : this.tableChangeListeners )
+        {
+            listener.tableChanged( analyzer.resolveTableName(), primaryKey, analyzer.isInsertType() );
+        }
     }
 
     /**
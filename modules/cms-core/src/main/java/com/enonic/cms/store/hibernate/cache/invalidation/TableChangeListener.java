@@ -0,0 +1,20 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.store.hibernate.cache.invalidation;
+
+import java.io.Serializable;
+
+/**
+ * Notified by the cache invalidator of every insert, update and delete, both from hibernate and from plain JDBC.
+ */
+public interface TableChangeListener
+{
+    /**
+     * @param tableName  lower case name of the changed table.
+     * @param primaryKey primary key of the changed row, or null if it could not be resolved from the statement.
+     * @param insert     true if rows were inserted.
+     */
+    public void tableChanged( String tableName, Serializable primaryKey, boolean insert );
+}
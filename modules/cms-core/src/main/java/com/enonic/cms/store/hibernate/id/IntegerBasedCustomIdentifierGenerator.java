@@ -16,7 +16,9 @@ import org.hibernate.HibernateException;
 import org.hibernate.MappingException;
 import org.hibernate.dialect.Dialect;
 import org.hibernate.engine.SessionImplementor;
-import org.hibernate.engine.TransactionHelper;
+import org.hibernate.engine.transaction.IsolatedWork;
+import org.hibernate.engine.transaction.Isolater;
+import org.hibernate.exception.JDBCExceptionHelper;
 import org.hibernate.id.Configurable;
 import org.hibernate.id.IdentifierGenerationException;
 import org.hibernate.id.PersistentIdentifierGenerator;
@@ -27,10 +29,9 @@ import org.hibernate.util.ReflectHelper;
 
 /**
  * Class for generating keys for our "user typed" identifiers. Specify table and idClassName, where idClassName is the actual domain class
- * to instantiate passing an Integer to the constructor.
+ * to instantiate passing an Integer to the constructor. Keys are reserved in blocks in a separate transaction, see {@link KeyBlockPool}.
  */
 public class IntegerBasedCustomIdentifierGenerator
-    extends TransactionHelper
     implements PersistentIdentifierGenerator, Configurable
 {
     private static final String SELECT_LASTKEY = "SELECT key_llastkey FROM tkey WHERE key_sTableName = ?";
@@ -102,29 +103,59 @@ public class IntegerBasedCustomIdentifierGenerator
         }
     }
 
-    public Serializable generate( SessionImplementor session, Object object )
+    public Serializable generate( final SessionImplementor session, Object object )
         throws HibernateException
     {
-        return doWorkInNewTransaction( session );
+        final int nextKey = KeyBlockPool.getInstance().nextKey( tableName, new KeyBlockPool.Reserver()
+        {
+            public int reserve( final String tableName, final int count )
+            {
+                return reserveInNewTransaction( session, tableName, count );
+            }
+        } );
+
+        return convertToUserType( nextKey );
     }
 
-    protected Serializable doWorkInCurrentTransaction( Connection conn, String sql )
+    private int reserveInNewTransaction( final SessionImplementor session, final String tableName, final int count )
+    {
+        final int[] lastKey = new int[1];
+
+        Isolater.doIsolatedWork( new IsolatedWork()
+        {
+            public void doWork( Connection conn )
+                throws HibernateException
+            {
+                try
+                {
+                    lastKey[0] = reserveKeys( conn, tableName, count );
+                }
+                catch ( SQLException e )
+                {
+                    throw JDBCExceptionHelper.convert( session.getFactory().getSQLExceptionConverter(), e,
+                                                       "Failed to reserve keys for table '" + tableName + "'" );
+                }
+            }
+        }, session );
+
+        return lastKey[0];
+    }
+
+    private int reserveKeys( Connection conn, String tableName, int count )
         throws SQLException
     {
         try
         {
-            updateNextKey( conn, tableName, 1 );
+            updateNextKey( conn, tableName, count );
         }
         catch ( KeyRowNotFoundException e )
         {
             // insert row for tableName and try one more time
             insertNewKey( conn, tableName );
-            updateNextKey( conn, tableName, 1 );
+            updateNextKey( conn, tableName, count );
         }
 
-        Integer nextKey = selectLastKey( conn, tableName );
-
-        return convertToUserType( nextKey );
+        return selectLastKey( conn, tableName );
     }
 
     private Serializable convertToUserType( Integer value )
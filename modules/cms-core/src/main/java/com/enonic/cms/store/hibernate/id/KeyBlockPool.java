@@ -0,0 +1,124 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.store.hibernate.id;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class implements a pool of keys reserved from the key table in blocks. A block of keys is reserved for a table
+ * with one update of its last key, and keys are then handed out from memory until the block is used up. The database
+ * reserves each block atomically, so nodes in a cluster never get overlapping blocks. Keys left in a block when the
+ * node is stopped are never used.
+ */
+public final class KeyBlockPool
+{
+    /**
+     * Reserves a block of keys in the key table.
+     */
+    public interface Reserver
+    {
+        /**
+         * Add count to the last key of the table and return the new last key, in a transaction of its own.
+         */
+        public int reserve( String tableName, int count );
+    }
+
+    /**
+     * Shared instance.
+     */
+    private final static KeyBlockPool INSTANCE = new KeyBlockPool();
+
+    private final ConcurrentMap<String, KeyBlock> blocks = new ConcurrentHashMap<String, KeyBlock>();
+
+    private final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<String, Object>();
+
+    private volatile int blockSize = 1;
+
+    /**
+     * Return the next key of the table, reserving a new block when the current block is used up.
+     */
+    public int nextKey( final String tableName, final Reserver reserver )
+    {
+        final String name = tableName.toLowerCase();
+
+        while ( true )
+        {
+            final KeyBlock block = this.blocks.get( name );
+            if ( block != null )
+            {
+                final int key = block.next.getAndIncrement();
+                if ( key <= block.last )
+                {
+                    return key;
+                }
+            }
+
+            // reserving a block runs a transaction, so only threads waiting for keys of the same table are blocked
+            synchronized ( getLock( name ) )
+            {
+                if ( this.blocks.get( name ) == block )
+                {
+                    this.blocks.put( name, reserveBlock( name, reserver ) );
+                }
+            }
+        }
+    }
+
+    private Object getLock( final String tableName )
+    {
+        final Object lock = this.locks.get( tableName );
+        if ( lock != null )
+        {
+            return lock;
+        }
+
+        final Object newLock = new Object();
+        final Object existing = this.locks.putIfAbsent( tableName, newLock );
+        return existing != null ? existing : newLock;
+    }
+
+    private KeyBlock reserveBlock( final String tableName, final Reserver reserver )
+    {
+        final int count = this.blockSize;
+        final int last = reserver.reserve( tableName, count );
+        return new KeyBlock( last - count + 1, last );
+    }
+
+    public int getBlockSize()
+    {
+        return this.blockSize;
+    }
+
+    /**
+     * Set the number of keys to reserve at a time. A block size of 1 reserves every key from the database.
+     */
+    public void setBlockSize( final int blockSize )
+    {
+        this.blockSize = Math.max( 1, blockSize );
+    }
+
+    /**
+     * Return the shared instance.
+     */
+    public static KeyBlockPool getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private final static class KeyBlock
+    {
+        private final AtomicInteger next;
+
+        private final int last;
+
+        private KeyBlock( final int first, final int last )
+        {
+            this.next = new AtomicInteger( first );
+            this.last = last;
+        }
+    }
+}
@@ -6,6 +6,8 @@ package com.enonic.cms.store.support;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
 
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Configuration;
@@ -21,6 +23,7 @@ import com.enonic.cms.framework.jdbc.dialect.Dialect;
 
 import com.enonic.cms.store.hibernate.cache.invalidation.CacheInvalidator;
 import com.enonic.cms.store.hibernate.cache.invalidation.InvalidatorConnectionDecorator;
+import com.enonic.cms.store.hibernate.cache.invalidation.TableChangeListener;
 
 /**
  * This class implements the decorator manager.
@@ -38,6 +41,11 @@ public final class DecoratorManager
      */
     private CacheManager cacheManager;
 
+    /**
+     * Listeners notified of table changes.
+     */
+    private List<TableChangeListener> tableChangeListeners = Collections.emptyList();
+
     /**
      * Dialect connection decorator.
      */
@@ -88,6 +96,15 @@ public final class DecoratorManager
         this.cacheManager = cacheManager;
     }
 
+    /**
+     * Set the listeners notified of table changes.
+     */
+    @Autowired(required = false)
+    public void setTableChangeListeners( List<TableChangeListener> tableChangeListeners )
+    {
+        this.tableChangeListeners = tableChangeListeners;
+    }
+
     /**
      * Decorate the connection.
      */
@@ -122,6 +139,7 @@ public final class DecoratorManager
         SessionFactoryImplementor impl = (SessionFactoryImplementor) this.sessionFactory;
         Configuration config = HibernateConfigurator.getInstance().getHibernateConfiguration();
         CacheInvalidator cacheInvalidator = new CacheInvalidator( config, impl, this.cacheManager );
+        cacheInvalidator.setTableChangeListeners( this.tableChangeListeners );
         this.invalidatorDecorator = new InvalidatorConnectionDecorator( cacheInvalidator );
         this.loggingDecorator = new LoggingConnectionDecorator();
         this.dialectDecorator = new DialectConnectionDecorator( this.dialect );
@@ -21,6 +21,7 @@ import com.enonic.cms.framework.jdbc.dialect.PostgreSqlDialect;
 import com.enonic.cms.framework.jdbc.dialect.SqlServerDialect;
 
 import com.enonic.cms.store.hibernate.cache.HibernateCacheBootstrap;
+import com.enonic.cms.store.hibernate.id.KeyBlockPool;
 
 /**
  * This class implements the hibernate configurator.
@@ -68,6 +69,14 @@ public final class HibernateConfigurator
         this.cacheManager = cacheManager;
     }
 
+    /**
+     * Set the number of keys reserved per table at a time.
+     */
+    public void setKeyBlockSize( int keyBlockSize )
+    {
+        KeyBlockPool.getInstance().setBlockSize( keyBlockSize );
+    }
+
     public Configuration getHibernateConfiguration()
     {
         return getConfiguration();
@@ -47,6 +47,9 @@ public class PortalRenderResponseService
     @Value("${cms.portal.encodeRedirectUrl}")
     private boolean encodeRedirectUrl;
 
+    @Value("${cms.portal.page.gzip}")
+    private boolean gzipEnabled;
+
     public void serveResponse( final PortalRequest request, final PortalResponse response, final HttpServletResponse httpResponse,
                                final HttpServletRequest httpRequest, final PortalRequestTrace portalRequestTrace )
         throws Exception
@@ -70,6 +73,7 @@ public class PortalRenderResponseService
         processor.setForceNoCacheForSite( siteProperties.getPropertyAsBoolean( SitePropertyNames.PAGE_CACHE_HEADERS_FORCENOCACHE ) );
         processor.setDoctypeHandler( siteProperties.getProperty( SitePropertyNames.PAGE_DOCTYPE_HANDLER.getKeyName() ) );
         processor.setEncodeRedirectUrl( encodeRedirectUrl );
+        processor.setGzipEnabled( gzipEnabled );
         processor.setCacheHeadersEnabledForSite( siteProperties.getPropertyAsBoolean( SitePropertyNames.PAGE_CACHE_HEADERS_ENABLED ) );
 
         final String matchingPath = originalPathResolver.getRequestPathFromHttpRequest( httpRequest );
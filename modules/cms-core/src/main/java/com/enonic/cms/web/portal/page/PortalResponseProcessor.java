@@ -20,10 +20,6 @@ import org.apache.commons.lang.StringUtils;
 import org.joda.time.DateTime;
 import org.joda.time.Interval;
 
-import com.google.common.base.Preconditions;
-
-import com.enonic.esl.util.DigestUtil;
-
 import com.enonic.cms.framework.util.HttpCacheControlSettings;
 import com.enonic.cms.framework.util.HttpServletUtil;
 
@@ -37,6 +33,7 @@ import com.enonic.cms.core.portal.PortalRenderingException;
 import com.enonic.cms.core.portal.PortalRequest;
 import com.enonic.cms.core.portal.PortalResponse;
 import com.enonic.cms.core.portal.RedirectInstruction;
+import com.enonic.cms.core.portal.rendering.EncodedPageContent;
 import com.enonic.cms.core.portal.livetrace.PortalRequestTrace;
 import com.enonic.cms.core.structure.SitePath;
 import com.enonic.cms.web.portal.SiteRedirectAndForwardHelper;
@@ -85,6 +82,8 @@ public class PortalResponseProcessor
 
     private String doctypeHandler;
 
+    private boolean gzipEnabled;
+
     public void serveResponse()
         throws Exception
     {
@@ -129,10 +128,13 @@ public class PortalResponseProcessor
         boolean writeContent = !isHeadRequest;
         boolean handleEtagLogic = cacheHeadersEnabledForSite && !forceNoCacheForSite && !instantTraceEnabled;
 
-        if ( handleEtagLogic && !StringUtils.isEmpty( content ) ) // resolveEtag does not like empty strings
+        final EncodedPageContent encodedContent = response.getEncodedContent();
+        final boolean gzip = gzipEnabled && acceptsGzip();
+
+        if ( handleEtagLogic && !StringUtils.isEmpty( content ) ) // no etag for empty content
         {
             // Handling etag logic if cache headers are enabled
-            final String etagFromContent = resolveEtag( content );
+            final String etagFromContent = gzip ? encodedContent.getGzippedEtag() : encodedContent.getEtag();
 
             HttpServletUtil.setEtag( httpResponse, etagFromContent );
 
@@ -154,21 +156,36 @@ public class PortalResponseProcessor
 
         httpResponse.setContentType( response.getHttpContentType() );
 
+        if ( gzipEnabled )
+        {
+            httpResponse.addHeader( "Vary", "Accept-Encoding" );
+        }
+
+        if ( gzip )
+        {
+            httpResponse.setHeader( "Content-Encoding", "gzip" );
+        }
+
         if ( isHeadRequest )
         {
-            httpResponse.setContentLength( response.getContentAsBytes().length );
+            // the page is not gzipped only to tell its length, so the length is left out unless already gzipped
+            final int contentLength = gzip ? encodedContent.getGzippedLength() : encodedContent.getBytes().length;
+            if ( contentLength >= 0 )
+            {
+                httpResponse.setContentLength( contentLength );
+            }
         }
 
         if ( writeContent )
         {
-            writeContent( response.getContentAsBytes() );
+            writeContent( gzip ? encodedContent.getGzippedBytes() : encodedContent.getBytes() );
         }
     }
 
-    private String resolveEtag( String content )
+    private boolean acceptsGzip()
     {
-        Preconditions.checkArgument( StringUtils.isNotEmpty( content ) );
-        return "content_" + DigestUtil.generateSHA( content );
+        final String acceptEncoding = httpRequest.getHeader( "Accept-Encoding" );
+        return acceptEncoding != null && HttpServletUtil.checkHeaderContainsValue( acceptEncoding, "gzip" );
     }
 
     private boolean isContentModified( String etagFromContent )
@@ -422,6 +439,11 @@ public class PortalResponseProcessor
         this.doctypeHandler = doctypeHandler;
     }
 
+    public void setGzipEnabled( final boolean gzipEnabled )
+    {
+        this.gzipEnabled = gzipEnabled;
+    }
+
     public String getDoctypeHandler()
     {
         return doctypeHandler;
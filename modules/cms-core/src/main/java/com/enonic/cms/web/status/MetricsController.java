@@ -0,0 +1,40 @@
+package com.enonic.cms.web.status;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import com.enonic.cms.core.metrics.MetricsRegistry;
+import com.enonic.cms.core.metrics.MetricsSource;
+import com.enonic.cms.core.metrics.MetricsWriter;
+
+@Controller
+public final class MetricsController
+{
+    private List<MetricsSource> sources;
+
+    @ResponseBody
+    @RequestMapping(value = "/status/metrics", method = RequestMethod.GET, produces = "text/plain; version=0.0.4; charset=utf-8")
+    public String serveMetrics()
+    {
+        final MetricsWriter writer = new MetricsWriter();
+        MetricsRegistry.getInstance().writeMetrics( writer );
+
+        for ( final MetricsSource source : this.sources )
+        {
+            source.writeMetrics( writer );
+        }
+
+        return writer.toString();
+    }
+
+    @Autowired
+    public void setSources( final List<MetricsSource> sources )
+    {
+        this.sources = sources;
+    }
+}
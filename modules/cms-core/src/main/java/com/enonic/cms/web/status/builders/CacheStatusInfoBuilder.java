@@ -38,6 +38,8 @@ public class CacheStatusInfoBuilder
         final ObjectNode cacheEntry = json.putObject( cache.getName() );
         cacheEntry.put( "capacity", cache.getMemoryCapacity() );
         cacheEntry.put( "capacityUsage", cache.getMemoryCapacityUsage() );
+        cacheEntry.put( "memoryBudget", cache.getMemoryBudget() );
+        cacheEntry.put( "memoryUsage", cache.getMemoryUsage() );
         cacheEntry.put( "elements", cache.getCount() );
         cacheEntry.put( "hits", cache.getHitCount() );
         cacheEntry.put( "misses", cache.getMissCount() );
@@ -0,0 +1,27 @@
+package com.enonic.cms.web.status.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.enonic.cms.core.metrics.MetricsSource;
+import com.enonic.cms.core.metrics.MetricsWriter;
+import com.enonic.cms.core.search.AsyncBinaryTextIndexer;
+
+@Component
+public class BinaryTextIndexerMetricsSource
+    implements MetricsSource
+{
+    @Autowired
+    private AsyncBinaryTextIndexer asyncBinaryTextIndexer;
+
+    @Override
+    public void writeMetrics( final MetricsWriter writer )
+    {
+        final AsyncBinaryTextIndexer indexer = this.asyncBinaryTextIndexer;
+        writer.writeGauge( "binary_text_queue_size", "Binary text extractions waiting in the queue", indexer.getQueueSize() );
+        writer.writeGauge( "binary_text_active", "Binary text extractions in progress", indexer.getActiveCount() );
+        writer.writeCounter( "binary_text_extracted", "Binary text extractions completed", indexer.getExtractedCount() );
+        writer.writeCounter( "binary_text_failed", "Binary text extractions failed", indexer.getFailedCount() );
+        writer.writeCounter( "binary_text_timed_out", "Binary text extractions timed out", indexer.getTimedOutCount() );
+    }
+}
@@ -0,0 +1,62 @@
+package com.enonic.cms.web.status.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.enonic.cms.framework.cache.CacheFacade;
+import com.enonic.cms.framework.cache.CacheManager;
+
+import com.enonic.cms.core.metrics.MetricsSource;
+import com.enonic.cms.core.metrics.MetricsWriter;
+
+@Component
+public class CacheMetricsSource
+    implements MetricsSource
+{
+    private final static String LABEL = "cache";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Override
+    public void writeMetrics( final MetricsWriter writer )
+    {
+        final Iterable<CacheFacade> caches = this.cacheManager.getAll();
+
+        writer.writeCounterHeader( "cache_hits", "Cache lookups that found the entry" );
+        for ( final CacheFacade cache : caches )
+        {
+            writer.writeLabeledCounter( "cache_hits", LABEL, cache.getName(), cache.getHitCount() );
+        }
+
+        writer.writeCounterHeader( "cache_misses", "Cache lookups that did not find the entry" );
+        for ( final CacheFacade cache : caches )
+        {
+            writer.writeLabeledCounter( "cache_misses", LABEL, cache.getName(), cache.getMissCount() );
+        }
+
+        writer.writeCounterHeader( "cache_evictions", "Entries evicted to make room for new entries" );
+        for ( final CacheFacade cache : caches )
+        {
+            writer.writeLabeledCounter( "cache_evictions", LABEL, cache.getName(), cache.getEvictionCount() );
+        }
+
+        writer.writeCounterHeader( "cache_clears", "Times the whole cache was cleared" );
+        for ( final CacheFacade cache : caches )
+        {
+            writer.writeLabeledCounter( "cache_clears", LABEL, cache.getName(), cache.getRemoveAllCount() );
+        }
+
+        writer.writeGaugeHeader( "cache_entries", "Entries in the cache" );
+        for ( final CacheFacade cache : caches )
+        {
+            writer.writeLabeledGauge( "cache_entries", LABEL, cache.getName(), cache.getCount() );
+        }
+
+        writer.writeGaugeHeader( "cache_memory_bytes", "Estimated memory used by caches bounded by a memory budget" );
+        for ( final CacheFacade cache : caches )
+        {
+            writer.writeLabeledGauge( "cache_memory_bytes", LABEL, cache.getName(), cache.getMemoryUsage() );
+        }
+    }
+}
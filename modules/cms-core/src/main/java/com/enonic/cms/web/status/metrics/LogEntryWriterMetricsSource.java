@@ -0,0 +1,27 @@
+package com.enonic.cms.web.status.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.enonic.cms.core.log.AsyncLogEntryWriter;
+import com.enonic.cms.core.metrics.MetricsSource;
+import com.enonic.cms.core.metrics.MetricsWriter;
+
+@Component
+public class LogEntryWriterMetricsSource
+    implements MetricsSource
+{
+    @Autowired
+    private AsyncLogEntryWriter asyncLogEntryWriter;
+
+    @Override
+    public void writeMetrics( final MetricsWriter writer )
+    {
+        final AsyncLogEntryWriter logEntryWriter = this.asyncLogEntryWriter;
+        writer.writeGauge( "log_queue_size", "Log entries waiting to be written", logEntryWriter.getQueueSize() );
+        writer.writeCounter( "log_written", "Log entries written", logEntryWriter.getWrittenCount() );
+        writer.writeCounter( "log_discarded", "Log entries discarded because the queue was full or the writer was stopped", logEntryWriter.getDiscardedCount() );
+        writer.writeCounter( "log_failed", "Log entries that could not be written", logEntryWriter.getFailedCount() );
+        writer.writeCounter( "log_batches", "Batches of log entries written", logEntryWriter.getBatchCount() );
+    }
+}
@@ -11,7 +11,7 @@ public class KeyHandler
     extends HibernateDaoSupport
 {
     private final static String KEY_UPDATE =
-            "UPDATE tKey SET key_lLastKey = key_lLastKey + 1 WHERE key_sTableName = :table";
+            "UPDATE tKey SET key_lLastKey = key_lLastKey + :count WHERE key_sTableName = :table";
 
     private final static String KEY_SELECT =
             "SELECT key_lLastKey FROM tKey WHERE key_sTableName = :table";
@@ -19,9 +19,10 @@ public class KeyHandler
     private final static String KEY_INSERT =
             "INSERT INTO tKey (key_sTableName, key_lLastKey) VALUES (:table, :key)";
 
-    private boolean updateNextKey(final String tableName)
+    private boolean updateNextKey(final String tableName, final int count)
     {
         final Query query = getSession().createSQLQuery(KEY_UPDATE);
+        query.setInteger("count", count);
         query.setString("table", tableName.toLowerCase());
         return query.executeUpdate() > 0;
     }
@@ -43,12 +44,16 @@ public class KeyHandler
         return key;
     }
 
-    public int generateNextKeySafe( final String tableName )
+    /**
+     * Add count to the last key of the table and return the new last key, inserting the row of the table if missing.
+     */
+    public int reserveKeys( final String tableName, final int count )
     {
-        if (updateNextKey(tableName)) {
-            return selectCurrentKey(tableName);
-        } else {
-            return insertCurrentKey(tableName, 0);
+        if (!updateNextKey(tableName, count)) {
+            insertCurrentKey(tableName, 0);
+            updateNextKey(tableName, count);
         }
+
+        return selectCurrentKey(tableName);
     }
 }
@@ -12,6 +12,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Set;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -43,6 +44,7 @@ import com.enonic.vertical.engine.dbmodel.SectionContentView;
 import com.enonic.cms.framework.util.UUIDGenerator;
 
 import com.enonic.cms.core.content.category.CategoryKey;
+import com.enonic.cms.core.portal.datasource.cache.DataSourceResultCache;
 import com.enonic.cms.core.security.group.GroupType;
 import com.enonic.cms.core.security.user.QualifiedUsername;
 import com.enonic.cms.core.security.user.User;
@@ -190,6 +192,9 @@ final public class SecurityHandler
     private final static String COA_WHERE_CLAUSE_SECURITY_FILTER =
         " EXISTS (SELECT coa_grp_hKey FROM " + COA_TABLE + " WHERE coa_con_lKey = con_lKey" + " AND coa_grp_hKey IN (%0))";
 
+    @Autowired
+    private DataSourceResultCache dataSourceResultCache;
+
     // methods --------------------------------------------------------------------------------------
 
 
@@ -2748,6 +2753,8 @@ final public class SecurityHandler
             preparedStmt.executeUpdate();
 
             createAccessRights( con, rootElement );
+
+            dataSourceResultCache.invalidateAccess();
         }
         catch ( SQLException e )
         {
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.cluster;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import static org.junit.Assert.*;
+
+public class ClusterEventCodecTest
+{
+    private final ClusterEventCodec sender = new ClusterEventCodec( "default", "node1" );
+
+    private final ClusterEventCodec receiver = new ClusterEventCodec( "default", "node2" );
+
+    @Test
+    public void testEncodeDecode()
+        throws Exception
+    {
+        final List<ClusterEvent> events =
+            Lists.newArrayList( new ClusterEvent( "cache.evictAll", "page" ), new ClusterEvent( "cache.evictByKey", "entity", null ) );
+
+        final List<byte[]> messages = sender.encode( events, 60000 );
+        assertEquals( 1, messages.size() );
+        assertEquals( events, receiver.decode( messages.get( 0 ) ) );
+    }
+
+    @Test
+    public void testSplitLargeBatch()
+        throws Exception
+    {
+        final List<ClusterEvent> events = Lists.newArrayList();
+        for ( int i = 0; i < 100; i++ )
+        {
+            events.add( new ClusterEvent( "cache.evictByKey", "entity", "key-" + i ) );
+        }
+
+        final List<byte[]> messages = sender.encode( events, 500 );
+        assertTrue( messages.size() > 1 );
+
+        final List<ClusterEvent> decoded = Lists.newArrayList();
+        for ( final byte[] message : messages )
+        {
+            assertTrue( message.length <= 500 );
+            decoded.addAll( receiver.decode( message ) );
+        }
+
+        assertEquals( events, decoded );
+    }
+
+    @Test
+    public void testIgnoreOwnAndOtherClusterMessages()
+        throws Exception
+    {
+        final List<ClusterEvent> events = Lists.newArrayList( new ClusterEvent( "cache.evictAll", "page" ) );
+        final byte[] message = sender.encode( events, 60000 ).get( 0 );
+
+        assertTrue( sender.decode( message ).isEmpty() );
+        assertTrue( new ClusterEventCodec( "other", "node2" ).decode( message ).isEmpty() );
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.cluster;
+
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ClusterEventPublisherImplTest
+{
+    private ClusterEventPublisherImpl node1;
+
+    private ClusterEventPublisherImpl node2;
+
+    private RecordingListener listener1;
+
+    private RecordingListener listener2;
+
+    @Before
+    public void before()
+        throws Exception
+    {
+        final int port1 = findFreePort();
+        final int port2 = findFreePort();
+        final String members = "localhost:" + port1 + ",localhost:" + port2;
+
+        listener1 = new RecordingListener();
+        listener2 = new RecordingListener();
+        node1 = createNode( port1, members, listener1 );
+        node2 = createNode( port2, members, listener2 );
+    }
+
+    @After
+    public void after()
+    {
+        node1.stop();
+        node2.stop();
+    }
+
+    @Test
+    public void testEventsCoalescedAndDelivered()
+        throws Exception
+    {
+        listener2.expect( 2 );
+
+        node1.publish( new ClusterEvent( "cache.evictAll", "page" ) );
+        node1.publish( new ClusterEvent( "cache.evictByKey", "entity", "1" ) );
+        node1.publish( new ClusterEvent( "cache.evictAll", "page" ) );
+        node1.flush();
+
+        assertTrue( listener2.await() );
+        assertEquals( new ClusterEvent( "cache.evictAll", "page" ), listener2.events.get( 0 ) );
+        assertEquals( new ClusterEvent( "cache.evictByKey", "entity", "1" ), listener2.events.get( 1 ) );
+
+        // Give node1 time to receive its own message, which must be ignored
+        Thread.sleep( 200 );
+        assertEquals( 2, listener2.events.size() );
+        assertTrue( listener1.events.isEmpty() );
+    }
+
+    private ClusterEventPublisherImpl createNode( final int port, final String members, final ClusterEventListener listener )
+        throws Exception
+    {
+        final ClusterEventPublisherImpl node = new ClusterEventPublisherImpl();
+        node.setEnabled( true );
+        node.setMode( "unicast" );
+        node.setClusterName( "test" );
+        node.setUnicastPort( port );
+        node.setUnicastMembers( members );
+        node.setBatchWindow( 60000 );
+        node.addListener( listener );
+        node.start();
+        return node;
+    }
+
+    private int findFreePort()
+        throws Exception
+    {
+        final ServerSocket socket = new ServerSocket( 0 );
+        try
+        {
+            return socket.getLocalPort();
+        }
+        finally
+        {
+            socket.close();
+        }
+    }
+
+    private final class RecordingListener
+        implements ClusterEventListener
+    {
+        private final List<ClusterEvent> events = new CopyOnWriteArrayList<ClusterEvent>();
+
+        private CountDownLatch latch = new CountDownLatch( 0 );
+
+        public void expect( final int count )
+        {
+            latch = new CountDownLatch( count );
+        }
+
+        public boolean await()
+            throws InterruptedException
+        {
+            return latch.await( 10, TimeUnit.SECONDS );
+        }
+
+        @Override
+        public void handle( final ClusterEvent event )
+        {
+            events.add( event );
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.content;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.google.common.collect.Lists;
+
+import com.enonic.cms.core.content.contenttype.ContentTypeEntity;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.when;
+
+public class ParallelRegenerateIndexBatcherTest
+{
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private IndexService indexService;
+
+    private ContentService contentService;
+
+    private RegenerateIndexCheckpoint checkpoint;
+
+    private ContentTypeEntity cty1;
+
+    private ContentTypeEntity cty2;
+
+    private final List<ContentKey> reindexed = Collections.synchronizedList( new ArrayList<ContentKey>() );
+
+    @Before
+    public void before()
+    {
+        indexService = Mockito.mock( IndexService.class );
+        contentService = Mockito.mock( ContentService.class );
+        checkpoint = new RegenerateIndexCheckpoint( new File( folder.getRoot(), "reindex.checkpoint" ) );
+
+        cty1 = createContentTypeEntity( 1, "first" );
+        cty2 = createContentTypeEntity( 2, "second" );
+
+        mockContentKeys( cty1, 1, 2, 3, 4, 5 );
+        mockContentKeys( cty2, 10, 11 );
+
+        Mockito.doAnswer( new Answer<Void>()
+        {
+            @SuppressWarnings("unchecked")
+            public Void answer( final InvocationOnMock invocation )
+            {
+                reindexed.addAll( (List<ContentKey>) invocation.getArguments()[0] );
+                return null;
+            }
+        } ).when( indexService ).reindex( anyList() );
+    }
+
+    @Test
+    public void testRegenerateIndex()
+    {
+        final ParallelRegenerateIndexBatcher batcher = new ParallelRegenerateIndexBatcher( indexService, contentService, checkpoint, 3, 2 );
+        batcher.regenerateIndex( Lists.newArrayList( cty2, cty1 ), null );
+
+        assertEquals( createContentKeys( 1, 2, 3, 4, 5, 10, 11 ), sorted( reindexed ) );
+        assertFalse( checkpoint.exists() );
+    }
+
+    @Test
+    public void testResumeFromCheckpoint()
+    {
+        checkpoint.save( 2, 11 );
+
+        final ParallelRegenerateIndexBatcher batcher = new ParallelRegenerateIndexBatcher( indexService, contentService, checkpoint, 2, 2 );
+        batcher.regenerateIndex( Lists.newArrayList( cty1, cty2 ), null );
+
+        assertEquals( createContentKeys( 11 ), sorted( reindexed ) );
+        assertFalse( checkpoint.exists() );
+    }
+
+    @Test
+    public void testCheckpointKeptOnFailure()
+    {
+        Mockito.doThrow( new IllegalStateException( "failed" ) ).when( indexService ).reindex( createContentKeys( 10, 11 ) );
+
+        final ParallelRegenerateIndexBatcher batcher = new ParallelRegenerateIndexBatcher( indexService, contentService, checkpoint, 1, 2 );
+
+        try
+        {
+            batcher.regenerateIndex( Lists.newArrayList( cty1, cty2 ), null );
+            fail( "Expected exception" );
+        }
+        catch ( final IllegalStateException e )
+        {
+            // expected
+        }
+
+        checkpoint.load();
+        assertEquals( 2, checkpoint.getContentTypeKey() );
+        assertEquals( 0, checkpoint.getContentKey() );
+    }
+
+    private void mockContentKeys( final ContentTypeEntity contentType, final int... keys )
+    {
+        when( contentService.findContentKeysByContentType( eq( contentType ), any( ContentKey.class ), anyInt() ) ).thenAnswer(
+            new Answer<List<ContentKey>>()
+            {
+                public List<ContentKey> answer( final InvocationOnMock invocation )
+                {
+                    final int fromKey = ( (ContentKey) invocation.getArguments()[1] ).toInt();
+                    final int count = (Integer) invocation.getArguments()[2];
+
+                    final List<ContentKey> result = new ArrayList<ContentKey>();
+                    for ( int key : keys )
+                    {
+                        if ( key >= fromKey && result.size() < count )
+                        {
+                            result.add( new ContentKey( key ) );
+                        }
+                    }
+                    return result;
+                }
+            } );
+    }
+
+    private List<ContentKey> sorted( final List<ContentKey> keys )
+    {
+        final List<ContentKey> list = new ArrayList<ContentKey>( keys );
+        Collections.sort( list );
+        return list;
+    }
+
+    private List<ContentKey> createContentKeys( final int... contentKeys )
+    {
+        final List<ContentKey> keys = new ArrayList<ContentKey>();
+        for ( int contentKey : contentKeys )
+        {
+            keys.add( new ContentKey( contentKey ) );
+        }
+        return keys;
+    }
+
+    private ContentTypeEntity createContentTypeEntity( int key, String name )
+    {
+        ContentTypeEntity contentType = new ContentTypeEntity();
+        contentType.setKey( key );
+        contentType.setName( name );
+        return contentType;
+    }
+}
@@ -222,6 +222,34 @@ public class ContentQueryExprParserTest
         assertEquals( 999, upperDate.getMillisOfSecond() );
     }
 
+    @Test
+    public void testFunctionsEvaluatedEveryTime()
+        throws Exception
+    {
+        ContentIndexQuery contentQuery = new ContentIndexQuery( "timestamp > now()" );
+
+        QueryExpr first = ContentIndexQueryExprParser.parse( contentQuery, null );
+        Thread.sleep( 5 );
+        QueryExpr second = ContentIndexQueryExprParser.parse( contentQuery, null );
+
+        ReadableDateTime firstDate = (ReadableDateTime) ( (ValueExpr) ( (CompareExpr) first.getExpr() ).getRight() ).getValue();
+        ReadableDateTime secondDate = (ReadableDateTime) ( (ValueExpr) ( (CompareExpr) second.getExpr() ).getRight() ).getValue();
+        assertTrue( secondDate.isAfter( firstDate ) );
+    }
+
+    @Test
+    public void testNumericsConvertedByParseSetting()
+    {
+        ContentIndexQuery contentQuery = new ContentIndexQuery( "key = '42'" );
+
+        QueryExpr converted = ContentIndexQueryExprParser.parse( contentQuery, true, null );
+        QueryExpr notConverted = ContentIndexQueryExprParser.parse( contentQuery, false, null );
+
+        assertTrue( ( (ValueExpr) ( (CompareExpr) converted.getExpr() ).getRight() ).isNumber() );
+        assertTrue( ( (ValueExpr) ( (CompareExpr) notConverted.getExpr() ).getRight() ).isString() );
+        assertEquals( converted.toString(), ContentIndexQueryExprParser.parse( contentQuery, true, null ).toString() );
+    }
+
     @Test
     public void testOrderBy()
     {
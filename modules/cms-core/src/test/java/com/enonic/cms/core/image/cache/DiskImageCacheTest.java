@@ -0,0 +1,79 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+
+package com.enonic.cms.core.image.cache;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.enonic.cms.core.image.ImageRequest;
+import com.enonic.cms.core.image.ImageResponse;
+
+import static org.junit.Assert.*;
+
+public class DiskImageCacheTest
+{
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPutAndGet()
+    {
+        final DiskImageCache cache = new DiskImageCache( this.folder.getRoot(), 1000 );
+        final ImageRequest req = createRequest( "0123" );
+
+        assertNull( cache.get( req ) );
+
+        cache.put( req, new ImageResponse( "name", new byte[]{1, 2, 3}, "png" ) );
+
+        final ImageResponse res = cache.get( req );
+        assertNotNull( res );
+        assertArrayEquals( new byte[]{1, 2, 3}, res.getData() );
+    }
+
+    @Test
+    public void testSurvivesRestart()
+    {
+        final File dir = this.folder.getRoot();
+        final ImageRequest req = createRequest( "0123" );
+
+        new DiskImageCache( dir, 1000 ).put( req, new ImageResponse( "name", new byte[]{1, 2, 3}, "png" ) );
+
+        final DiskImageCache cache = new DiskImageCache( dir, 1000 );
+        assertEquals( 1, cache.getCount() );
+        assertEquals( 3, cache.getSize() );
+        assertNotNull( cache.get( req ) );
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed()
+    {
+        final DiskImageCache cache = new DiskImageCache( this.folder.getRoot(), 250 );
+        final ImageRequest req1 = createRequest( "0001" );
+        final ImageRequest req2 = createRequest( "0002" );
+        final ImageRequest req3 = createRequest( "0003" );
+
+        cache.put( req1, new ImageResponse( "name", new byte[100], "png" ) );
+        cache.put( req2, new ImageResponse( "name", new byte[100], "png" ) );
+        assertNotNull( cache.get( req1 ) );
+
+        cache.put( req3, new ImageResponse( "name", new byte[100], "png" ) );
+
+        assertEquals( 200, cache.getSize() );
+        assertNotNull( cache.get( req1 ) );
+        assertNull( cache.get( req2 ) );
+        assertNotNull( cache.get( req3 ) );
+    }
+
+    private ImageRequest createRequest( final String blobKey )
+    {
+        final ImageRequest req = new ImageRequest();
+        req.setBlobKey( blobKey );
+        return req;
+    }
+}
@@ -67,7 +67,8 @@ public class LocalizationResourceBundleServiceImplTest
 
     private void setUpFetchFromCache( final Properties properties )
     {
-        final LocalizationPropertiesCacheEntry entry = new LocalizationPropertiesCacheEntry( ResourceKey.from( "" ), properties );
+        final LocalizationPropertiesCacheEntry entry = new LocalizationPropertiesCacheEntry( ResourceKey.from( "" ), properties,
+                                                                                             System.currentTimeMillis() );
         Mockito.when( this.propertiesCache.get( Mockito.anyString(), Mockito.anyString() ) ).thenReturn( entry );
     }
 }
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.log;
+
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import org.hibernate.JDBCException;
+import org.hibernate.classic.Session;
+import org.hibernate.cache.UpdateTimestampsCache;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.jdbc.Work;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.google.common.collect.Lists;
+
+import com.enonic.cms.core.cluster.ClusterEvent;
+import com.enonic.cms.core.cluster.ClusterEventPublisher;
+import com.enonic.cms.core.security.user.UserKey;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class AsyncLogEntryWriterTest
+{
+    private final static UserKey USER = new UserKey( "ABC" );
+
+    private final CountDownLatch firstBatchBlocked = new CountDownLatch( 1 );
+
+    private final List<List<String>> executedBatches = new CopyOnWriteArrayList<List<String>>();
+
+    private final List<String> currentBatch = Lists.newArrayList();
+
+    private UpdateTimestampsCache updateTimestampsCache;
+
+    private ClusterEventPublisher clusterEventPublisher;
+
+    private AsyncLogEntryWriter writer;
+
+    @Before
+    public void setUp()
+        throws Exception
+    {
+        final PreparedStatement stmt = mock( PreparedStatement.class );
+        doAnswer( new Answer<Object>()
+        {
+            public Object answer( final InvocationOnMock invocation )
+            {
+                if ( (Integer) invocation.getArguments()[0] == 1 )
+                {
+                    currentBatch.add( (String) invocation.getArguments()[1] );
+                }
+                return null;
+            }
+        } ).when( stmt ).setString( anyInt(), anyString() );
+        when( stmt.executeBatch() ).thenAnswer( new Answer<int[]>()
+        {
+            public int[] answer( final InvocationOnMock invocation )
+                throws Throwable
+            {
+                return executeBatch();
+            }
+        } );
+
+        final Connection conn = mock( Connection.class );
+        when( conn.prepareStatement( anyString() ) ).thenReturn( stmt );
+
+        final Session session = mock( Session.class );
+        doAnswer( new Answer<Object>()
+        {
+            public Object answer( final InvocationOnMock invocation )
+                throws Throwable
+            {
+                currentBatch.clear();
+                try
+                {
+                    ( (Work) invocation.getArguments()[0] ).execute( conn );
+                }
+                catch ( SQLException e )
+                {
+                    throw new JDBCException( "Could not execute JDBC batch update", e );
+                }
+                return null;
+            }
+        } ).when( session ).doWork( any( Work.class ) );
+
+        this.updateTimestampsCache = mock( UpdateTimestampsCache.class );
+
+        final SessionFactoryImplementor sessionFactory = mock( SessionFactoryImplementor.class );
+        when( sessionFactory.getCurrentSession() ).thenReturn( session );
+        when( sessionFactory.getUpdateTimestampsCache() ).thenReturn( this.updateTimestampsCache );
+
+        this.clusterEventPublisher = mock( ClusterEventPublisher.class );
+
+        this.writer = new AsyncLogEntryWriter();
+        this.writer.setEnabled( true );
+        this.writer.setQueueSize( 10 );
+        this.writer.setBatchSize( 10 );
+        this.writer.setOverflowPolicy( AsyncLogEntryWriter.OVERFLOW_BLOCK );
+        this.writer.setFlushOnShutdown( true );
+        this.writer.setSessionFactory( sessionFactory );
+        this.writer.setTransactionManager( mock( PlatformTransactionManager.class ) );
+        this.writer.setClusterEventPublisher( this.clusterEventPublisher );
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.firstBatchBlocked.countDown();
+        this.writer.stop();
+    }
+
+    @Test
+    public void testQueuedEntriesWrittenInOneBatch()
+        throws Exception
+    {
+        this.writer.start();
+        writeWhileFirstBatchBlocked( "1", "2", "3", "4" );
+
+        this.firstBatchBlocked.countDown();
+        waitForWritten( 4 );
+
+        assertEquals( 2, this.executedBatches.size() );
+        assertEquals( Lists.newArrayList( "2", "3", "4" ), this.executedBatches.get( 1 ) );
+        assertEquals( 2, this.writer.getBatchCount() );
+    }
+
+    @Test
+    public void testFailedBatchRetriedOneByOne()
+        throws Exception
+    {
+        this.writer.start();
+        writeWhileFirstBatchBlocked( "1", "2", "bad", "4" );
+
+        this.firstBatchBlocked.countDown();
+        waitForWritten( 3 );
+        assertEquals( 1, this.writer.getFailedCount() );
+
+        assertEquals( Lists.newArrayList( "2", "bad", "4" ), this.executedBatches.get( 1 ) );
+        assertEquals( Lists.newArrayList( "2" ), this.executedBatches.get( 2 ) );
+        assertEquals( Lists.newArrayList( "bad" ), this.executedBatches.get( 3 ) );
+        assertEquals( Lists.newArrayList( "4" ), this.executedBatches.get( 4 ) );
+    }
+
+    @Test
+    public void testDiscardOnOverflow()
+        throws Exception
+    {
+        this.writer.setQueueSize( 1 );
+        this.writer.setOverflowPolicy( AsyncLogEntryWriter.OVERFLOW_DISCARD );
+        this.writer.start();
+
+        writeWhileFirstBatchBlocked( "1", "2", "3" );
+        assertEquals( 1, this.writer.getDiscardedCount() );
+
+        this.firstBatchBlocked.countDown();
+        waitForWritten( 2 );
+    }
+
+    @Test
+    public void testBlockOnOverflow()
+        throws Exception
+    {
+        this.writer.setQueueSize( 1 );
+        this.writer.start();
+
+        writeWhileFirstBatchBlocked( "1", "2" );
+
+        final Thread blocked = new Thread()
+        {
+            public void run()
+            {
+                writer.write( createLogEntry( "3" ), USER );
+            }
+        };
+        blocked.start();
+        waitForState( blocked, Thread.State.WAITING );
+
+        this.firstBatchBlocked.countDown();
+        blocked.join( 5000 );
+        waitForWritten( 3 );
+        assertEquals( 0, this.writer.getDiscardedCount() );
+    }
+
+    @Test
+    public void testFlushOnShutdown()
+        throws Exception
+    {
+        this.writer.start();
+        writeWhileFirstBatchBlocked( "1", "2", "3" );
+
+        stopWhileFirstBatchBlocked();
+
+        assertEquals( 3, this.writer.getWrittenCount() );
+        assertEquals( 0, this.writer.getDiscardedCount() );
+        assertEquals( Lists.newArrayList( "2", "3" ), this.executedBatches.get( 1 ) );
+    }
+
+    @Test
+    public void testDiscardOnShutdown()
+        throws Exception
+    {
+        this.writer.setFlushOnShutdown( false );
+        this.writer.start();
+        writeWhileFirstBatchBlocked( "1", "2", "3" );
+
+        stopWhileFirstBatchBlocked();
+
+        assertEquals( 1, this.writer.getWrittenCount() );
+        assertEquals( 2, this.writer.getDiscardedCount() );
+    }
+
+    @Test
+    public void testQueryCacheInvalidatedInCluster()
+        throws Exception
+    {
+        this.writer.start();
+        this.firstBatchBlocked.countDown();
+        this.writer.write( createLogEntry( "1" ), USER );
+        waitForWritten( 1 );
+
+        verify( this.updateTimestampsCache ).invalidate( any( Serializable[].class ) );
+        verify( this.clusterEventPublisher ).publish( any( ClusterEvent.class ) );
+
+        this.writer.handle( new ClusterEvent( "logEntriesWritten" ) );
+        verify( this.updateTimestampsCache, times( 2 ) ).invalidate( any( Serializable[].class ) );
+    }
+
+    /**
+     * Write the first entry, wait until the writer is blocked writing it, and queue the rest.
+     */
+    private void writeWhileFirstBatchBlocked( final String... keys )
+        throws Exception
+    {
+        this.writer.write( createLogEntry( keys[0] ), USER );
+        for ( int i = 0; i < 500 && this.executedBatches.isEmpty(); i++ )
+        {
+            Thread.sleep( 10 );
+        }
+        assertEquals( 1, this.executedBatches.size() );
+
+        for ( int i = 1; i < keys.length; i++ )
+        {
+            this.writer.write( createLogEntry( keys[i] ), USER );
+        }
+    }
+
+    private void stopWhileFirstBatchBlocked()
+        throws Exception
+    {
+        final Thread stopper = new Thread()
+        {
+            public void run()
+            {
+                writer.stop();
+            }
+        };
+        stopper.start();
+
+        // the writer is stopped when the stopper waits for it to finish
+        waitForState( stopper, Thread.State.TIMED_WAITING );
+        this.firstBatchBlocked.countDown();
+        stopper.join( 15000 );
+    }
+
+    private int[] executeBatch()
+        throws Exception
+    {
+        final List<String> batch = Lists.newArrayList( this.currentBatch );
+        this.executedBatches.add( batch );
+
+        if ( this.executedBatches.size() == 1 )
+        {
+            this.firstBatchBlocked.await();
+        }
+
+        if ( batch.contains( "bad" ) )
+        {
+            throw new SQLException( "Integrity constraint violation" );
+        }
+
+        return new int[batch.size()];
+    }
+
+    private void waitForWritten( final long count )
+        throws Exception
+    {
+        for ( int i = 0; i < 500 && this.writer.getWrittenCount() < count; i++ )
+        {
+            Thread.sleep( 10 );
+        }
+
+        assertEquals( count, this.writer.getWrittenCount() );
+    }
+
+    private void waitForState( final Thread thread, final Thread.State state )
+        throws Exception
+    {
+        for ( int i = 0; i < 500 && thread.getState() != state; i++ )
+        {
+            Thread.sleep( 10 );
+        }
+
+        assertEquals( state, thread.getState() );
+    }
+
+    private LogEntryEntity createLogEntry( final String key )
+    {
+        final LogEntryEntity logEntry = new LogEntryEntity();
+        logEntry.setKey( new LogEntryKey( key ) );
+        logEntry.setType( LogType.ENTITY_UPDATED.asInteger() );
+        logEntry.setTimestamp( new Date() );
+        logEntry.setTitle( "title " + key );
+        return logEntry;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+
+package com.enonic.cms.core.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest
+{
+    @Test
+    public void percentiles_of_exactly_counted_latencies()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for ( int i = 1; i <= 10; i++ )
+        {
+            histogram.record( i );
+        }
+
+        assertEquals( 10, histogram.getCount() );
+        assertEquals( 5, histogram.getMean() );
+        assertEquals( 5, histogram.getPercentile( 50 ) );
+        assertEquals( 10, histogram.getPercentile( 99 ) );
+        assertEquals( 10, histogram.getMax() );
+    }
+
+    @Test
+    public void percentiles_of_long_latencies_are_within_bucket_precision()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for ( int i = 1; i <= 1000; i++ )
+        {
+            histogram.record( i );
+        }
+
+        assertWithinPrecision( 500, histogram.getPercentile( 50 ) );
+        assertWithinPrecision( 950, histogram.getPercentile( 95 ) );
+        assertWithinPrecision( 990, histogram.getPercentile( 99 ) );
+        assertEquals( 1000, histogram.getPercentile( 100 ) );
+    }
+
+    @Test
+    public void buckets_are_contiguous()
+    {
+        for ( long value = 0; value < 100000; value++ )
+        {
+            final int bucket = LatencyHistogram.bucketOf( value );
+            assertTrue( value <= LatencyHistogram.upperBoundOf( bucket ) );
+            assertTrue( bucket == 0 || value > LatencyHistogram.upperBoundOf( bucket - 1 ) );
+        }
+    }
+
+    @Test
+    public void merge_adds_counts()
+    {
+        final LatencyHistogram a = new LatencyHistogram();
+        a.record( 10 );
+        a.record( 2000 );
+        final LatencyHistogram b = new LatencyHistogram();
+        b.record( 30 );
+
+        a.merge( b );
+
+        assertEquals( 3, a.getCount() );
+        assertEquals( 680, a.getMean() );
+        assertEquals( 2000, a.getMax() );
+    }
+
+    @Test
+    public void negative_and_huge_latencies_are_clamped()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record( -5 );
+        histogram.record( Long.MAX_VALUE );
+
+        assertEquals( 0, histogram.getPercentile( 50 ) );
+        assertEquals( LatencyHistogram.MAX_VALUE, histogram.getMax() );
+    }
+
+    @Test
+    public void recorder_merges_latencies_of_all_threads()
+        throws Exception
+    {
+        final LatencyRecorder recorder = new LatencyRecorder( "test" );
+        final Thread[] threads = new Thread[8];
+        for ( int i = 0; i < threads.length; i++ )
+        {
+            threads[i] = new Thread( new Runnable()
+            {
+                public void run()
+                {
+                    for ( int j = 0; j < 1000; j++ )
+                    {
+                        recorder.record( j % 100 );
+                    }
+                }
+            } );
+            threads[i].start();
+        }
+        for ( Thread thread : threads )
+        {
+            thread.join();
+        }
+
+        final LatencyHistogram histogram = recorder.snapshot();
+        assertEquals( 8000, histogram.getCount() );
+        assertEquals( 99, histogram.getMax() );
+
+        recorder.clear();
+        assertEquals( 0, recorder.snapshot().getCount() );
+    }
+
+    @Test
+    public void recorder_stripes_are_bounded()
+        throws Exception
+    {
+        assertEquals( 2, LatencyRecorder.stripeCount( 1 ) );
+        assertEquals( 8, LatencyRecorder.stripeCount( 3 ) );
+        assertEquals( 8, LatencyRecorder.stripeCount( 4 ) );
+        assertEquals( 16, LatencyRecorder.stripeCount( 8 ) );
+
+        // many short-lived threads share the same stripes
+        final LatencyRecorder recorder = new LatencyRecorder( "test" );
+        for ( int i = 0; i < 200; i++ )
+        {
+            final Thread thread = new Thread( new Runnable()
+            {
+                public void run()
+                {
+                    recorder.record( 10 );
+                }
+            } );
+            thread.start();
+            thread.join();
+        }
+
+        assertEquals( 200, recorder.snapshot().getCount() );
+    }
+
+    private void assertWithinPrecision( final long expected, final long actual )
+    {
+        assertTrue( actual + " is below " + expected, actual >= expected );
+        assertTrue( actual + " is too far above " + expected, actual <= expected * 1.125 );
+    }
+}
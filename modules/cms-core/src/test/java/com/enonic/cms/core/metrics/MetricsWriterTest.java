@@ -0,0 +1,56 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+
+package com.enonic.cms.core.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetricsWriterTest
+{
+    @Test
+    public void timer_is_written_as_summary()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record( 2 );
+        histogram.record( 4 );
+
+        final MetricsWriter writer = new MetricsWriter();
+        writer.writeTimer( "portal_page_render", "Page rendering", histogram );
+
+        final String text = writer.toString();
+        assertTrue( text.contains( "# TYPE cms_portal_page_render_milliseconds summary\n" ) );
+        assertTrue( text.contains( "cms_portal_page_render_milliseconds{quantile=\"0.5\"} 2\n" ) );
+        assertTrue( text.contains( "cms_portal_page_render_milliseconds{quantile=\"0.99\"} 4\n" ) );
+        assertTrue( text.contains( "cms_portal_page_render_milliseconds_sum 6\n" ) );
+        assertTrue( text.contains( "cms_portal_page_render_milliseconds_count 2\n" ) );
+    }
+
+    @Test
+    public void label_values_are_escaped()
+    {
+        final MetricsWriter writer = new MetricsWriter();
+        writer.writeCounterHeader( "cache_hits", "Cache hits" );
+        writer.writeLabeledCounter( "cache_hits", "cache", "a\"b\\c", 7 );
+
+        assertEquals( "# HELP cms_cache_hits_total Cache hits\n# TYPE cms_cache_hits_total counter\ncms_cache_hits_total{cache=\"a\\\"b\\\\c\"} 7\n",
+                      writer.toString() );
+    }
+
+    @Test
+    public void registry_returns_same_metric_for_same_name()
+    {
+        final MetricsRegistry registry = new MetricsRegistry();
+        assertSame( registry.timer( "a", "A" ), registry.timer( "a", "A" ) );
+        assertSame( registry.counter( "b", "B" ), registry.counter( "b", "B" ) );
+
+        registry.counter( "b", "B" ).increment();
+        final MetricsWriter writer = new MetricsWriter();
+        registry.writeMetrics( writer );
+        assertTrue( writer.toString().contains( "cms_b_total 1\n" ) );
+        assertTrue( writer.toString().contains( "cms_a_milliseconds_count 0\n" ) );
+    }
+}
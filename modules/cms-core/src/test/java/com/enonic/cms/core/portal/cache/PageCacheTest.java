@@ -191,6 +191,26 @@ public class PageCacheTest
 
     }
 
+    @Test
+    public void testStaleWhileRevalidate()
+        throws Exception
+    {
+        final PageCacheKey key = createPKey( "ABC", "1", "q", "a", new Locale( "no" ) );
+        final CacheObjectSettings oneSecond = CacheObjectSettings.createTypeSpecified( 1 );
+
+        pageCache_site_1.setStaleWhileRevalidate( 60 );
+        pageCache_site_1.cachePage( key, new RenderedPageResult(), oneSecond );
+        assertNotNull( pageCache_site_1.getCachedPage( key ) );
+
+        Thread.sleep( 1100L );
+
+        assertNull( pageCache_site_1.getCachedPage( key ) );
+        assertNotNull( pageCache_site_1.getStaleCachedPage( key ) );
+
+        pageCache_site_1.setStaleWhileRevalidate( 0 );
+        assertNull( pageCache_site_1.getStaleCachedPage( key ) );
+    }
+
     private PageCacheKey createPKey( String userKey, String menuItemKey, String queryString, String deviceClass, Locale resolvedLocale )
     {
         PageCacheKey key = new PageCacheKey();
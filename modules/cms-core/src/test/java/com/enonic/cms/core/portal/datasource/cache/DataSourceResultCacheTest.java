@@ -0,0 +1,208 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.portal.datasource.cache;
+
+import org.jdom.Document;
+import org.jdom.Element;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.enonic.cms.framework.cache.standard.StandardCacheManager;
+
+import com.enonic.cms.core.cluster.ClusterEvent;
+import com.enonic.cms.core.cluster.ClusterEventPublisher;
+import com.enonic.cms.core.cluster.NopClusterEventPublisher;
+import com.enonic.cms.core.config.ConfigProperties;
+import com.enonic.cms.core.content.ContentKey;
+import com.enonic.cms.core.portal.datasource.handler.DataSourceRequest;
+import com.enonic.cms.core.security.group.GroupEntity;
+import com.enonic.cms.core.structure.SiteKey;
+import com.enonic.cms.core.structure.menuitem.MenuItemKey;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class DataSourceResultCacheTest
+{
+    private DataSourceResultCache cache;
+
+    @Before
+    public void setUp()
+    {
+        final ConfigProperties props = new ConfigProperties();
+        props.setProperty( "cms.cache.datasource.memoryCapacity", "100" );
+        props.setProperty( "cms.cache.datasource.timeToLive", "1000" );
+
+        final StandardCacheManager cacheManager = new StandardCacheManager();
+        cacheManager.setProperties( props );
+        cacheManager.setClusterEventPublisher( new NopClusterEventPublisher() );
+        cacheManager.afterPropertiesSet();
+
+        this.cache = new DataSourceResultCache();
+        this.cache.setCacheManager( cacheManager );
+        this.cache.setEnabled( true );
+    }
+
+    @Test
+    public void testCacheable()
+    {
+        assertTrue( this.cache.isCacheable( createRequest( "getContent", "contentKeys", "1" ) ) );
+        assertFalse( this.cache.isCacheable( createRequest( "getRelatedContent", "contentKeys", "1" ) ) );
+
+        final DataSourceRequest withParents = createRequest( "getContent", "contentKeys", "1" );
+        withParents.addParam( "parentLevel", "1" );
+        assertFalse( this.cache.isCacheable( withParents ) );
+
+        this.cache.setEnabled( false );
+        assertFalse( this.cache.isCacheable( createRequest( "getContent", "contentKeys", "1" ) ) );
+    }
+
+    @Test
+    public void testGetAndPut()
+    {
+        final Document doc = createContentResult( 1 );
+        this.cache.put( createRequest( "getContent", "contentKeys", "1" ), doc, this.cache.getTime() );
+
+        assertSame( doc, this.cache.get( createRequest( "getContent", "contentKeys", "1" ) ) );
+        assertNull( this.cache.get( createRequest( "getContent", "contentKeys", "2" ) ) );
+    }
+
+    @Test
+    public void testInvalidateContent()
+    {
+        this.cache.put( createRequest( "getContentBySection", "menuItemKeys", "10" ), createContentResult( 1 ), this.cache.getTime() );
+        this.cache.put( createRequest( "getContentBySection", "menuItemKeys", "11" ), createContentResult( 2 ), this.cache.getTime() );
+
+        this.cache.invalidateContent( new ContentKey( 1 ) );
+
+        assertNull( this.cache.get( createRequest( "getContentBySection", "menuItemKeys", "10" ) ) );
+        assertNotNull( this.cache.get( createRequest( "getContentBySection", "menuItemKeys", "11" ) ) );
+    }
+
+    @Test
+    public void testInvalidateMenuItemAndSite()
+    {
+        this.cache.put( createRequest( "getContentBySection", "menuItemKeys", "10" ), createContentResult( 1 ), this.cache.getTime() );
+
+        this.cache.invalidateMenuItem( new MenuItemKey( 10 ) );
+        assertNull( this.cache.get( createRequest( "getContentBySection", "menuItemKeys", "10" ) ) );
+
+        this.cache.put( createRequest( "getContentBySection", "menuItemKeys", "10" ), createContentResult( 1 ), this.cache.getTime() );
+        assertNotNull( this.cache.get( createRequest( "getContentBySection", "menuItemKeys", "10" ) ) );
+
+        this.cache.invalidateSite( new SiteKey( 0 ) );
+        assertNull( this.cache.get( createRequest( "getContentBySection", "menuItemKeys", "10" ) ) );
+    }
+
+    @Test
+    public void testInvalidateAccess()
+    {
+        this.cache.put( createRequest( "getContentBySection", "menuItemKeys", "10" ), createContentResult( 1 ), this.cache.getTime() );
+        this.cache.put( createRequest( "getMenu", "menuKey", "0" ), new Document( new Element( "menus" ) ), this.cache.getTime() );
+
+        this.cache.invalidateAccess();
+
+        assertNull( this.cache.get( createRequest( "getContentBySection", "menuItemKeys", "10" ) ) );
+        assertNull( this.cache.get( createRequest( "getMenu", "menuKey", "0" ) ) );
+    }
+
+    @Test
+    public void testInvalidateMembershipsOnlyWhenChanged()
+    {
+        this.cache.invalidateMemberships();
+        this.cache.put( createRequest( "getContent", "contentKeys", "1" ), createContentResult( 1 ), this.cache.getTime() );
+
+        this.cache.invalidateMemberships();
+        assertNotNull( this.cache.get( createRequest( "getContent", "contentKeys", "1" ) ) );
+
+        new GroupEntity().addMembership( new GroupEntity() );
+
+        this.cache.invalidateMemberships();
+        assertNull( this.cache.get( createRequest( "getContent", "contentKeys", "1" ) ) );
+    }
+
+    @Test
+    public void testChangesPublishedToCluster()
+    {
+        final ClusterEventPublisher publisher = mock( ClusterEventPublisher.class );
+        this.cache.setClusterEventPublisher( publisher );
+
+        this.cache.invalidateContent( new ContentKey( 1 ) );
+        this.cache.invalidateAccess();
+
+        verify( publisher ).publish( new ClusterEvent( "dataSourceChanged", "content:1" ) );
+        verify( publisher ).publish( new ClusterEvent( "dataSourceChanged", "access" ) );
+    }
+
+    @Test
+    public void testChangeFromOtherNode()
+    {
+        final ClusterEventPublisher publisher = mock( ClusterEventPublisher.class );
+        this.cache.setClusterEventPublisher( publisher );
+
+        this.cache.put( createRequest( "getContent", "contentKeys", "1" ), createContentResult( 1 ), this.cache.getTime() );
+        this.cache.put( createRequest( "getContent", "contentKeys", "2" ), createContentResult( 2 ), this.cache.getTime() );
+
+        this.cache.handle( new ClusterEvent( "dataSourceChanged", "content:1" ) );
+
+        assertNull( this.cache.get( createRequest( "getContent", "contentKeys", "1" ) ) );
+        assertNotNull( this.cache.get( createRequest( "getContent", "contentKeys", "2" ) ) );
+
+        // changes from other nodes are not sent back
+        verifyZeroInteractions( publisher );
+    }
+
+    @Test
+    public void testChangedWhileInvoking()
+    {
+        final long time = this.cache.getTime();
+        this.cache.invalidateContent( new ContentKey( 1 ) );
+        this.cache.put( createRequest( "getContent", "contentKeys", "1" ), createContentResult( 1 ), time );
+
+        assertNull( this.cache.get( createRequest( "getContent", "contentKeys", "1" ) ) );
+    }
+
+    @Test
+    public void testPruneChanges()
+    {
+        final long now = System.currentTimeMillis();
+        final long timeToLive = 1000 * 1000L;
+
+        this.cache.put( createRequest( "getContent", "contentKeys", "2" ), createContentResult( 2 ), this.cache.getTime() );
+        this.cache.invalidateContent( new ContentKey( 1 ) );
+        assertEquals( 1, this.cache.getChangeCount() );
+
+        // changes are kept for a time to live after the next prune
+        this.cache.pruneChanges( now + timeToLive );
+        assertEquals( 1, this.cache.getChangeCount() );
+        assertNotNull( this.cache.get( createRequest( "getContent", "contentKeys", "2" ) ) );
+
+        this.cache.pruneChanges( now + 2 * timeToLive );
+        assertEquals( 0, this.cache.getChangeCount() );
+
+        // results invoked before pruned changes can not be trusted
+        assertNull( this.cache.get( createRequest( "getContent", "contentKeys", "2" ) ) );
+
+        this.cache.put( createRequest( "getContent", "contentKeys", "2" ), createContentResult( 2 ), this.cache.getTime() );
+        assertNotNull( this.cache.get( createRequest( "getContent", "contentKeys", "2" ) ) );
+    }
+
+    private DataSourceRequest createRequest( final String name, final String param, final String value )
+    {
+        final DataSourceRequest request = new DataSourceRequest();
+        request.setName( name );
+        request.setSiteKey( new SiteKey( 0 ) );
+        request.addParam( param, value );
+        request.setCache( true );
+        return request;
+    }
+
+    private Document createContentResult( final int contentKey )
+    {
+        final Element content = new Element( "content" );
+        content.setAttribute( "key", String.valueOf( contentKey ) );
+        return new Document( new Element( "contents" ).addContent( content ) );
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.portal.datasource.executor;
+
+import org.jdom.Document;
+import org.jdom.Element;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.enonic.cms.core.portal.datasource.DataSourceException;
+import com.enonic.cms.core.portal.datasource.handler.DataSourceRequest;
+
+import static org.junit.Assert.*;
+
+public class DataSourceInvocationCacheTest
+{
+    private DataSourceInvocationCache cache;
+
+    private DataSourceInvoker invoker;
+
+    @Before
+    public void setUp()
+    {
+        this.cache = new DataSourceInvocationCache();
+        this.invoker = Mockito.mock( DataSourceInvoker.class );
+    }
+
+    @Test
+    public void testInvokedOnce()
+    {
+        final Document doc = new Document( new Element( "result" ) );
+        Mockito.when( this.invoker.execute( Mockito.any( DataSourceRequest.class ) ) ).thenReturn( doc );
+
+        assertNull( this.cache.get( createRequest( "1" ) ) );
+        assertSame( doc, this.cache.invoke( createRequest( "1" ), this.invoker ) );
+        assertSame( doc, this.cache.invoke( createRequest( "1" ), this.invoker ) );
+        assertSame( doc, this.cache.get( createRequest( "1" ) ) );
+        assertNull( this.cache.get( createRequest( "2" ) ) );
+
+        Mockito.verify( this.invoker, Mockito.times( 1 ) ).execute( Mockito.any( DataSourceRequest.class ) );
+    }
+
+    @Test
+    public void testFailedInvocationNotCached()
+    {
+        Mockito.when( this.invoker.execute( Mockito.any( DataSourceRequest.class ) ) ).thenThrow(
+            new DataSourceException( "Failed" ) );
+
+        try
+        {
+            this.cache.invoke( createRequest( "1" ), this.invoker );
+            fail( "Expected exception" );
+        }
+        catch ( final DataSourceException e )
+        {
+            // expected
+        }
+
+        assertNull( this.cache.get( createRequest( "1" ) ) );
+    }
+
+    private DataSourceRequest createRequest( final String key )
+    {
+        final DataSourceRequest request = new DataSourceRequest();
+        request.setName( "getContent" );
+        request.addParam( "contentKeys", key );
+        request.setCache( true );
+        return request;
+    }
+}
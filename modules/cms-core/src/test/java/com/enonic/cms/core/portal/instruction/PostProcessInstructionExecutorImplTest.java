@@ -18,6 +18,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.mock.web.MockHttpServletRequest;
 
+import com.google.common.util.concurrent.Futures;
+
 import com.enonic.cms.framework.util.UrlPathEncoder;
 
 import com.enonic.cms.core.MockSitePropertiesService;
@@ -29,6 +31,7 @@ import com.enonic.cms.core.content.binary.BinaryDataEntity;
 import com.enonic.cms.core.content.binary.ContentBinaryDataEntity;
 import com.enonic.cms.core.image.ImageRequest;
 import com.enonic.cms.core.portal.image.ImageService;
+import com.enonic.cms.core.portal.rendering.RenderTaskExecutor;
 import com.enonic.cms.core.portal.rendering.WindowRendererContext;
 import com.enonic.cms.core.preview.PreviewContext;
 import com.enonic.cms.core.resource.FileResource;
@@ -85,6 +88,7 @@ public class PostProcessInstructionExecutorImplTest
 
         executor.setFileResourceService( setUpResourceServiceMock( now ) );
         executor.setMenuItemDao( setUpMenuItemDaoMock() );
+        executor.setRenderTaskExecutor( new RenderTaskExecutor() );
 
         request = setUpMockRequest( serverName );
         ServletRequestAccessor.setRequest( request );
@@ -119,6 +123,22 @@ public class PostProcessInstructionExecutorImplTest
         verifyPath( result, resolvedPath, new String[]{"a", "b"}, null, true );
     }
 
+    @Test
+    public void testRenderWindowInProgress()
+        throws Exception
+    {
+        RenderWindowInstruction instruction = new RenderWindowInstruction();
+        instruction.setPortletWindowKey( "1:2" );
+        instruction.setParams( new String[]{"a", "1"} );
+        context.addWindowInProgress( instruction, Futures.immediateFuture( "rendered window" ) );
+
+        RenderWindowInstruction sameInstruction = new RenderWindowInstruction();
+        sameInstruction.setPortletWindowKey( "1:2" );
+        sameInstruction.setParams( new String[]{"a", "1"} );
+
+        assertEquals( "rendered window", executor.execute( sameInstruction, context ) );
+    }
+
     @Test
     public void testCreateResourceUrl_nested_function()
         throws Exception
@@ -106,6 +106,26 @@ public class PostProcessInstructionProcessorTest
     }
 
 
+    @Test
+    public void testNotPreparedWhenNotNeeded()
+        throws Exception
+    {
+        List<PostProcessInstruction> instructions = new ArrayList<PostProcessInstruction>();
+        instructions.add( new RenderWindowInstruction() );
+        instructions.add( new RenderWindowInstruction() );
+        final String document = createInputDoc( instructions );
+
+        executor = Mockito.mock( PostProcessInstructionExecutor.class );
+        final PostProcessInstructionContext context = setUpContext();
+        processor = new PostProcessInstructionProcessor( context, executor );
+        processor.processInstructions( document );
+        Mockito.verify( executor, Mockito.never() ).prepare( Mockito.anyListOf( PostProcessInstruction.class ), Mockito.eq( context ) );
+
+        Mockito.when( executor.isPrepareNeeded( context ) ).thenReturn( true );
+        processor.processInstructions( document );
+        Mockito.verify( executor ).prepare( Mockito.anyListOf( PostProcessInstruction.class ), Mockito.eq( context ) );
+    }
+
     @Test
     public void testSerializingException()
         throws Exception
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.portal.rendering;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+import com.enonic.esl.util.DigestUtil;
+
+import com.enonic.cms.core.portal.PortalResponse;
+
+import static org.junit.Assert.*;
+
+public class EncodedPageContentTest
+{
+    private final static String CONTENT = "<html><title>Blåbær</title></html>";
+
+    @Test
+    public void testEtagIsDigestOfContent()
+        throws Exception
+    {
+        final EncodedPageContent encoded = EncodedPageContent.encode( CONTENT, "UTF-8" );
+
+        assertArrayEquals( CONTENT.getBytes( "UTF-8" ), encoded.getBytes() );
+        assertEquals( "content_" + DigestUtil.generateSHA( CONTENT ), encoded.getEtag() );
+        assertEquals( encoded.getEtag(), EncodedPageContent.encode( CONTENT, "ISO-8859-1" ).getEtag() );
+        assertFalse( encoded.getEtag().equals( encoded.getGzippedEtag() ) );
+    }
+
+    @Test
+    public void testGzippedBytes()
+        throws Exception
+    {
+        final EncodedPageContent encoded = EncodedPageContent.encode( CONTENT, "UTF-8" );
+
+        assertEquals( -1, encoded.getGzippedLength() );
+
+        assertArrayEquals( encoded.getBytes(), gunzip( encoded.getGzippedBytes() ) );
+        assertSame( encoded.getGzippedBytes(), encoded.getGzippedBytes() );
+        assertEquals( encoded.getGzippedBytes().length, encoded.getGzippedLength() );
+    }
+
+    @Test
+    public void testEncodingReusedByClones()
+        throws Exception
+    {
+        final RenderedPageResult cached = new RenderedPageResult();
+        cached.setContent( CONTENT );
+
+        final EncodedPageContent first = PortalResponse.createContent( cached.clone() ).getEncodedContent();
+        assertSame( first, PortalResponse.createContent( cached.clone() ).getEncodedContent() );
+
+        final PortalResponse changed = PortalResponse.createContent( cached.clone() );
+        changed.setContent( CONTENT + "<!-- filtered -->" );
+        final EncodedPageContent second = changed.getEncodedContent();
+        assertNotSame( first, second );
+        assertTrue( second.isEncodingOf( CONTENT + "<!-- filtered -->", "UTF-8" ) );
+
+        final PortalResponse alsoChanged = PortalResponse.createContent( cached.clone() );
+        alsoChanged.setContent( CONTENT + "<!-- filtered -->" );
+        assertSame( second, alsoChanged.getEncodedContent() );
+    }
+
+    private byte[] gunzip( final byte[] bytes )
+        throws Exception
+    {
+        final GZIPInputStream in = new GZIPInputStream( new ByteArrayInputStream( bytes ) );
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int read;
+        while ( ( read = in.read( buffer ) ) > 0 )
+        {
+            out.write( buffer, 0, read );
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.resolver;
+
+import java.util.Calendar;
+
+import javax.xml.transform.Source;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.enonic.cms.framework.cache.standard.StandardCacheManager;
+import com.enonic.cms.framework.xml.XMLDocumentFactory;
+
+import com.enonic.cms.core.cluster.NopClusterEventPublisher;
+import com.enonic.cms.core.config.ConfigProperties;
+import com.enonic.cms.core.resolver.deviceclass.DeviceClassXsltScriptResolver;
+import com.enonic.cms.core.resource.FileResourceName;
+import com.enonic.cms.core.resource.ResourceFile;
+import com.enonic.cms.core.xslt.portal.PortalXsltProcessor;
+import com.enonic.cms.core.xslt.portal.PortalXsltProcessorFactory;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class XsltScriptResolverCacheTest
+{
+    private DeviceClassXsltScriptResolver resolver;
+
+    private ResolverInputXMLCreator inputXMLCreator;
+
+    private PortalXsltProcessor processor;
+
+    private ResourceFile script;
+
+    private ResolverContext context;
+
+    @Before
+    public void setUp()
+        throws Exception
+    {
+        final ConfigProperties props = new ConfigProperties();
+        props.setProperty( "cms.cache.resolver.memoryCapacity", "100" );
+
+        final StandardCacheManager cacheManager = new StandardCacheManager();
+        cacheManager.setProperties( props );
+        cacheManager.setClusterEventPublisher( new NopClusterEventPublisher() );
+        cacheManager.afterPropertiesSet();
+
+        processor = mock( PortalXsltProcessor.class );
+        when( processor.process( any( Source.class ) ) ).thenReturn( "mobile" );
+
+        final PortalXsltProcessorFactory processorFactory = mock( PortalXsltProcessorFactory.class );
+        when( processorFactory.createProcessor( any( FileResourceName.class ) ) ).thenReturn( processor );
+
+        inputXMLCreator = mock( ResolverInputXMLCreator.class );
+        when( inputXMLCreator.buildResolverInputXML( any( ResolverContext.class ) ) ).thenReturn(
+            XMLDocumentFactory.create( "<context><request/></context>" ) );
+
+        script = mock( ResourceFile.class );
+        when( script.getPath() ).thenReturn( "/config/deviceclass.xsl" );
+        setLastModified( 1000 );
+
+        resolver = new DeviceClassXsltScriptResolver();
+        resolver.setResolverInputXMLCreator( inputXMLCreator );
+        resolver.setXsltProcessorFactory( processorFactory );
+        resolver.setCacheManager( cacheManager );
+
+        setRequestHeaders( "user-agent", "iPhone" );
+    }
+
+    @Test
+    public void testSameInputResolvedOnce()
+        throws Exception
+    {
+        assertEquals( "mobile", resolveDeviceClass() );
+        assertEquals( "mobile", resolveDeviceClass() );
+
+        verify( processor, times( 1 ) ).process( any( Source.class ) );
+    }
+
+    @Test
+    public void testOtherInputResolvedAgain()
+        throws Exception
+    {
+        resolveDeviceClass();
+        setRequestHeaders( "user-agent", "Firefox" );
+        resolveDeviceClass();
+
+        verify( processor, times( 2 ) ).process( any( Source.class ) );
+    }
+
+    @Test
+    public void testOnlyKeyHeadersResolvedAgain()
+        throws Exception
+    {
+        resolver.setKeyHeaders( "x-wap-profile" );
+
+        setRequestHeaders( "referer", "http://www.enonic.com", "x-wap-profile", "nokia" );
+        resolveDeviceClass();
+
+        setRequestHeaders( "x-wap-profile", "nokia" );
+        resolveDeviceClass();
+        verify( processor, times( 1 ) ).process( any( Source.class ) );
+
+        setRequestHeaders( "x-wap-profile", "samsung" );
+        resolveDeviceClass();
+        verify( processor, times( 2 ) ).process( any( Source.class ) );
+    }
+
+    @Test
+    public void testChangedScriptResolvedAgain()
+        throws Exception
+    {
+        resolveDeviceClass();
+        setLastModified( 2000 );
+        resolveDeviceClass();
+
+        verify( processor, times( 2 ) ).process( any( Source.class ) );
+    }
+
+    private String resolveDeviceClass()
+    {
+        final ScriptResolverResult result = resolver.resolveValue( context, script );
+        return (String) result.getResolverReturnValues().get( DeviceClassXsltScriptResolver.DEVICE_CLASS_RETURN_VALUE_KEY );
+    }
+
+    private void setRequestHeaders( final String... namesAndValues )
+    {
+        final MockHttpServletRequest request = new MockHttpServletRequest();
+        for ( int i = 0; i < namesAndValues.length; i += 2 )
+        {
+            request.addHeader( namesAndValues[i], namesAndValues[i + 1] );
+        }
+        context = new ResolverContext( request, null );
+    }
+
+    private void setLastModified( final long timestamp )
+    {
+        final Calendar lastModified = Calendar.getInstance();
+        lastModified.setTimeInMillis( timestamp );
+        when( script.getLastModified() ).thenReturn( lastModified );
+    }
+}
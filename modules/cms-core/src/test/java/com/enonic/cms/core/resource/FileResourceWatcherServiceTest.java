@@ -0,0 +1,162 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.resource;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import com.enonic.cms.framework.util.MimeTypeResolver;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class FileResourceWatcherServiceTest
+{
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private File root;
+
+    private FileResourceWatcherService watcherService;
+
+    private final List<FileResourceName> changed = new ArrayList<FileResourceName>();
+
+    @Before
+    public void setUp()
+        throws Exception
+    {
+        this.root = this.tmpFolder.newFolder();
+
+        final FileResourceServiceImpl fileService = new FileResourceServiceImpl();
+        fileService.setMimeTypeResolver( mock( MimeTypeResolver.class ) );
+        fileService.setResourceRoot( this.root );
+
+        this.watcherService = new FileResourceWatcherService();
+        this.watcherService.setResourceService( fileService );
+        this.watcherService.addListener( new FileResourceChangeListener()
+        {
+            public void resourceChanged( final FileResourceName name )
+            {
+                changed.add( name );
+            }
+        } );
+    }
+
+    @Test
+    public void testChangedResource()
+        throws Exception
+    {
+        final File file = writeFile( "a.xsl", 1000 );
+        assertFalse( this.watcherService.watch( new FileResourceName( "/a.xsl" ), 1000 ) );
+
+        this.watcherService.checkResources();
+        assertTrue( this.changed.isEmpty() );
+
+        file.setLastModified( 2000 );
+        this.watcherService.checkResources();
+        this.watcherService.checkResources();
+        assertEquals( 1, this.changed.size() );
+        assertEquals( new FileResourceName( "/a.xsl" ), this.changed.get( 0 ) );
+    }
+
+    @Test
+    public void testCreatedAndRemovedResource()
+        throws Exception
+    {
+        this.watcherService.watch( new FileResourceName( "/phrases_no.properties" ), 1000 );
+
+        final File file = writeFile( "phrases_no.properties", 1000 );
+        this.watcherService.checkResources();
+        assertEquals( 1, this.changed.size() );
+
+        assertTrue( file.delete() );
+        this.watcherService.checkResources();
+        assertEquals( 2, this.changed.size() );
+    }
+
+    @Test
+    public void testChangedBeforeWatched()
+        throws Exception
+    {
+        writeFile( "a.xsl", 2000 );
+        assertTrue( this.watcherService.watch( new FileResourceName( "/a.xsl" ), 1000 ) );
+
+        this.watcherService.checkResources();
+        assertTrue( this.changed.isEmpty() );
+    }
+
+    @Test
+    public void testCheckInterval()
+        throws Exception
+    {
+        this.watcherService.setCheckInterval( 60000 );
+
+        final File file = writeFile( "a.xsl", 1000 );
+        this.watcherService.watch( new FileResourceName( "/a.xsl" ), 1000 );
+        this.watcherService.checkResources();
+
+        file.setLastModified( 2000 );
+        this.watcherService.checkResources();
+        assertTrue( this.changed.isEmpty() );
+    }
+
+    @Test
+    public void testUnwatch()
+        throws Exception
+    {
+        final File file = writeFile( "a.xsl", 1000 );
+        this.watcherService.watch( new FileResourceName( "/a.xsl" ), 1000 );
+        this.watcherService.unwatch( new FileResourceName( "/a.xsl" ) );
+        assertEquals( 0, this.watcherService.getWatchedCount() );
+
+        file.setLastModified( 2000 );
+        this.watcherService.checkResources();
+        assertTrue( this.changed.isEmpty() );
+    }
+
+    @Test
+    public void testUnwatchedResource()
+        throws Exception
+    {
+        final File file = writeFile( "b.xsl", 1000 );
+        this.watcherService.checkResources();
+
+        file.setLastModified( 2000 );
+        this.watcherService.checkResources();
+        assertTrue( this.changed.isEmpty() );
+    }
+
+    @Test
+    public void testDisabled()
+        throws Exception
+    {
+        this.watcherService.setEnabled( false );
+
+        final File file = writeFile( "a.xsl", 1000 );
+        this.watcherService.watch( new FileResourceName( "/a.xsl" ), 1000 );
+
+        file.setLastModified( 2000 );
+        this.watcherService.checkResources();
+        assertTrue( this.changed.isEmpty() );
+    }
+
+    private File writeFile( final String name, final long lastModified )
+        throws Exception
+    {
+        final File file = new File( this.root, name );
+        Files.write( "data", file, Charsets.UTF_8 );
+        file.setLastModified( lastModified );
+        return file;
+    }
+}
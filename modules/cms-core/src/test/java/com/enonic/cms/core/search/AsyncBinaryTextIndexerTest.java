@@ -0,0 +1,110 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.search;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.enonic.cms.core.content.BinaryDataExtractor;
+import com.enonic.cms.core.content.ContentEntity;
+import com.enonic.cms.core.content.ContentKey;
+import com.enonic.cms.core.content.binary.BinaryDataEntity;
+import com.enonic.cms.core.content.index.BigText;
+import com.enonic.cms.core.search.query.ContentIndexService;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class AsyncBinaryTextIndexerTest
+{
+    private final CountDownLatch extractionsBlocked = new CountDownLatch( 1 );
+
+    private final Set<Thread> extractingThreads = new CopyOnWriteArraySet<Thread>();
+
+    private BinaryDataExtractor binaryDataExtractor;
+
+    private ContentIndexService contentIndexService;
+
+    private AsyncBinaryTextIndexer indexer;
+
+    @Before
+    public void setUp()
+        throws Exception
+    {
+        this.binaryDataExtractor = mock( BinaryDataExtractor.class );
+        when( this.binaryDataExtractor.getExtractedBinaryData( any( ContentEntity.class ) ) ).thenReturn( createBinaryData() );
+        when( this.binaryDataExtractor.extractText( anyString(), anyString() ) ).thenAnswer( new Answer<BigText>()
+        {
+            public BigText answer( final InvocationOnMock invocation )
+                throws Throwable
+            {
+                extractingThreads.add( Thread.currentThread() );
+                extractionsBlocked.await();
+                return new BigText( "text" );
+            }
+        } );
+
+        this.contentIndexService = mock( ContentIndexService.class );
+
+        this.indexer = new AsyncBinaryTextIndexer();
+        this.indexer.setBinaryDataExtractor( this.binaryDataExtractor );
+        this.indexer.setContentIndexService( this.contentIndexService );
+        this.indexer.setTimeout( 60 );
+        this.indexer.setThreadCount( 1 );
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.extractionsBlocked.countDown();
+        this.indexer.shutdown();
+    }
+
+    @Test
+    public void testDeferredWhenQueueFull()
+        throws Exception
+    {
+        // one running, a full queue, and two deferred extractions of which one is replaced by a later version
+        for ( int i = 0; i < 1003; i++ )
+        {
+            this.indexer.indexLater( createContent( i ) );
+        }
+        this.indexer.indexLater( createContent( 1002 ) );
+
+        assertFalse( this.extractingThreads.contains( Thread.currentThread() ) );
+        verify( this.binaryDataExtractor, timeout( 5000 ) ).extractText( anyString(), anyString() );
+        assertEquals( 1002, this.indexer.getQueueSize() );
+
+        this.extractionsBlocked.countDown();
+        verify( this.contentIndexService, timeout( 10000 ).times( 1003 ) ).indexBinaryExtractedText( any( ContentKey.class ),
+                                                                                                      any( BigText.class ) );
+        assertEquals( 0, this.indexer.getQueueSize() );
+        assertFalse( this.extractingThreads.contains( Thread.currentThread() ) );
+    }
+
+    private ContentEntity createContent( final int key )
+    {
+        final ContentEntity content = new ContentEntity();
+        content.setKey( new ContentKey( key ) );
+        return content;
+    }
+
+    private BinaryDataEntity createBinaryData()
+    {
+        final BinaryDataEntity binaryData = new BinaryDataEntity();
+        binaryData.setName( "document.pdf" );
+        binaryData.setBlobKey( "blob" );
+        return binaryData;
+    }
+}
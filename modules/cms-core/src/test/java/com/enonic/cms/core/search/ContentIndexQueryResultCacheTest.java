@@ -0,0 +1,141 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.search;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.enonic.cms.framework.cache.CacheFacade;
+import com.enonic.cms.framework.cache.CacheManager;
+import com.enonic.cms.framework.cache.standard.StandardCacheManager;
+
+import com.enonic.cms.core.cluster.ClusterEvent;
+import com.enonic.cms.core.cluster.NopClusterEventPublisher;
+import com.enonic.cms.core.config.ConfigProperties;
+import com.enonic.cms.core.content.ContentKey;
+import com.enonic.cms.core.content.contenttype.ContentTypeKey;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class ContentIndexQueryResultCacheTest
+{
+    private final static List<ContentKey> KEYS = Arrays.asList( new ContentKey( 3 ), new ContentKey( 1 ), new ContentKey( 2 ) );
+
+    private final static List<ContentTypeKey> ARTICLES = Arrays.asList( new ContentTypeKey( 10 ) );
+
+    private final static List<ContentTypeKey> IMAGES = Arrays.asList( new ContentTypeKey( 20 ) );
+
+    private ContentIndexQueryResultCache cache;
+
+    @Before
+    public void setUp()
+    {
+        final ConfigProperties props = new ConfigProperties();
+        props.setProperty( "cms.cache.query.memoryCapacity", "100" );
+        props.setProperty( "cms.cache.query.timeToLive", "1000" );
+
+        final StandardCacheManager cacheManager = new StandardCacheManager();
+        cacheManager.setProperties( props );
+        cacheManager.setClusterEventPublisher( new NopClusterEventPublisher() );
+        cacheManager.afterPropertiesSet();
+
+        this.cache = new ContentIndexQueryResultCache();
+        this.cache.setCacheManager( cacheManager );
+        this.cache.setEnabled( true );
+    }
+
+    @Test
+    public void testGetAndPut()
+    {
+        assertNull( this.cache.get( "query" ) );
+
+        this.cache.put( "query", null, KEYS, 42, null, this.cache.getGeneration() );
+
+        final CachedContentIndexQueryResult result = this.cache.get( "query" );
+        assertNotNull( result );
+        assertEquals( KEYS, result.getKeys() );
+        assertEquals( 42, result.getTotalHits() );
+    }
+
+    @Test
+    public void testAnyChangeInvalidatesUnfilteredQuery()
+    {
+        this.cache.put( "query", null, KEYS, 3, null, this.cache.getGeneration() );
+
+        this.cache.indexChanged( IMAGES );
+
+        assertNull( this.cache.get( "query" ) );
+    }
+
+    @Test
+    public void testChangeOfOtherContentTypeKeepsFilteredQuery()
+    {
+        this.cache.put( "articles", ARTICLES, KEYS, 3, null, this.cache.getGeneration() );
+
+        this.cache.indexChanged( IMAGES );
+        assertNotNull( this.cache.get( "articles" ) );
+
+        this.cache.indexChanged( ARTICLES );
+        assertNull( this.cache.get( "articles" ) );
+    }
+
+    @Test
+    public void testChangeOfUnknownContentTypeInvalidatesFilteredQuery()
+    {
+        this.cache.put( "articles", ARTICLES, KEYS, 3, null, this.cache.getGeneration() );
+
+        this.cache.indexChanged( null );
+
+        assertNull( this.cache.get( "articles" ) );
+    }
+
+    @Test
+    public void testResultNotCachedIfIndexChangedDuringQuery()
+    {
+        final long generation = this.cache.getGeneration();
+        this.cache.indexChanged( ARTICLES );
+
+        this.cache.put( "articles", ARTICLES, KEYS, 3, null, generation );
+        assertNull( this.cache.get( "articles" ) );
+
+        this.cache.putCount( "articles", ARTICLES, 3, generation );
+        assertEquals( -1, this.cache.getCount( "articles" ) );
+    }
+
+    @Test
+    public void testChangeFromOtherNode()
+    {
+        this.cache.put( "articles", ARTICLES, KEYS, 3, null, this.cache.getGeneration() );
+        this.cache.putCount( "articles", ARTICLES, 3, this.cache.getGeneration() );
+        assertEquals( 3, this.cache.getCount( "articles" ) );
+
+        this.cache.handle( new ClusterEvent( "indexChanged", "10" ) );
+
+        assertNull( this.cache.get( "articles" ) );
+        assertEquals( -1, this.cache.getCount( "articles" ) );
+    }
+
+    @Test
+    public void testStaleResultNotEvictedInCluster()
+    {
+        final CacheFacade cacheFacade = mock( CacheFacade.class );
+        final CacheManager cacheManager = mock( CacheManager.class );
+        when( cacheManager.getQueryCache() ).thenReturn( cacheFacade );
+        this.cache.setCacheManager( cacheManager );
+
+        final long generation = this.cache.getGeneration();
+        when( cacheFacade.get( null, "articles" ) ).thenReturn(
+            new CachedContentIndexQueryResult( KEYS, 3, null, null, generation ) );
+        this.cache.indexChanged( ARTICLES );
+
+        assertNull( this.cache.get( "articles" ) );
+        verify( cacheFacade, never() ).remove( anyString(), anyString() );
+    }
+}
@@ -7,6 +7,8 @@ package com.enonic.cms.core.search;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 import com.google.common.collect.Lists;
 
@@ -17,11 +19,14 @@ import com.enonic.cms.core.content.IndexService;
 import com.enonic.cms.core.search.builder.ContentIndexData;
 import com.enonic.cms.core.search.builder.ContentIndexDataFactory;
 import com.enonic.cms.core.search.query.ContentDocument;
+import com.enonic.cms.core.search.query.ContentIndexBatch;
 import com.enonic.cms.core.search.query.ContentIndexService;
 import com.enonic.cms.store.dao.ContentDao;
 import com.enonic.cms.store.dao.FindContentByKeysCommand;
 
+import static org.junit.Assert.*;
 import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -66,11 +71,70 @@ public class IndexTransactionJournalTest
         when( contentIndexDataFactory.create( isA( ContentDocument.class ), isA( Boolean.class ) ) ).thenReturn(
             new ContentIndexData( contentKey_1 ) );
 
+        when( contentIndexService.index( isA( ContentIndexBatch.class ) ) ).thenReturn( new BulkIndexResult() );
+
         journal.registerUpdate( contentKey_1, false );
         journal.registerUpdate( new ContentKey( 1 ), false );
         journal.afterCommit();
 
-        verify( contentIndexService, times( 1 ) ).index( isA( ContentDocument.class ), isA( Boolean.class ) );
+        final ArgumentCaptor<ContentIndexBatch> batch = ArgumentCaptor.forClass( ContentIndexBatch.class );
+        verify( contentIndexService, times( 1 ) ).index( batch.capture() );
+        assertEquals( 1, batch.getValue().getDocuments().size() );
+        assertTrue( batch.getValue().getRemovals().isEmpty() );
+    }
+
+    @Test
+    public void changes_sent_as_one_batch()
+    {
+        final ContentKey contentKey_1 = new ContentKey( 1 );
+        final ContentMap contentMap = new ContentMap( Lists.newArrayList( contentKey_1 ) );
+        contentMap.add( createContent( contentKey_1 ) );
+
+        when( contentDao.findByKeys( isA( FindContentByKeysCommand.class ) ) ).thenReturn( contentMap );
+        when( indexService.createContentDocument( isA( ContentEntity.class ), isA( Boolean.class ) ) ).thenReturn(
+            createContentIndexData() );
+        when( contentIndexService.index( isA( ContentIndexBatch.class ) ) ).thenReturn( new BulkIndexResult() );
+
+        journal.registerUpdate( contentKey_1, true );
+        journal.registerRemove( new ContentKey( 2 ) );
+        journal.afterCommit();
+
+        final ArgumentCaptor<ContentIndexBatch> batch = ArgumentCaptor.forClass( ContentIndexBatch.class );
+        verify( contentIndexService, times( 1 ) ).index( batch.capture() );
+        assertEquals( 1, batch.getValue().getDocuments().size() );
+        assertTrue( batch.getValue().isUpdateMetadataOnly( contentKey_1 ) );
+        assertTrue( batch.getValue().getRemovals().contains( new ContentKey( 2 ) ) );
+        verify( contentIndexService, times( 1 ) ).flush();
+    }
+
+    @Test
+    public void binary_text_indexed_later_when_extraction_pending()
+    {
+        final ContentKey contentKey_1 = new ContentKey( 1 );
+        final ContentMap contentMap = new ContentMap( Lists.newArrayList( contentKey_1 ) );
+        final ContentEntity content_1 = createContent( contentKey_1 );
+        contentMap.add( content_1 );
+
+        final AsyncBinaryTextIndexer asyncBinaryTextIndexer = mock( AsyncBinaryTextIndexer.class );
+        journal.setAsyncBinaryTextIndexer( asyncBinaryTextIndexer );
+
+        when( contentDao.findByKeys( isA( FindContentByKeysCommand.class ) ) ).thenReturn( contentMap );
+        when( asyncBinaryTextIndexer.isExtractionPending( content_1 ) ).thenReturn( true );
+        when( indexService.createContentDocument( content_1, false, false ) ).thenReturn( createContentIndexData() );
+        when( contentIndexService.index( isA( ContentIndexBatch.class ) ) ).thenReturn( new BulkIndexResult() );
+
+        journal.registerUpdate( contentKey_1, false );
+        journal.afterCommit();
+
+        final ArgumentCaptor<ContentIndexBatch> batch = ArgumentCaptor.forClass( ContentIndexBatch.class );
+        verify( contentIndexService, times( 1 ) ).index( batch.capture() );
+        assertEquals( 1, batch.getValue().getDocuments().size() );
+        assertFalse( batch.getValue().isUpdateMetadataOnly( contentKey_1 ) );
+
+        final InOrder inOrder = inOrder( asyncBinaryTextIndexer, contentIndexService );
+        inOrder.verify( asyncBinaryTextIndexer ).contentChanged( contentKey_1 );
+        inOrder.verify( contentIndexService ).index( isA( ContentIndexBatch.class ) );
+        inOrder.verify( asyncBinaryTextIndexer ).indexLater( content_1 );
     }
 
     private ContentEntity createContent( ContentKey contentKey )
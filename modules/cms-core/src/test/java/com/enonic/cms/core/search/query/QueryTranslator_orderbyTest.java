@@ -8,6 +8,8 @@ package com.enonic.cms.core.search.query;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.junit.Test;
 
+import static org.junit.Assert.*;
+
 import com.enonic.cms.core.content.index.ContentIndexQuery;
 
 /**
@@ -108,4 +110,19 @@ public class QueryTranslator_orderbyTest
 
         compareStringsIgnoreFormatting( expected_search_result, builder.toString() );
     }
+
+    @Test
+    public void testRandomOrder_replaces_sorting()
+        throws Exception
+    {
+        ContentIndexQuery query = createContentQuery( "key = 100 ORDER BY key ASC" );
+        query.setRandomSeed( 42L );
+
+        String source = getQueryTranslator().build( query ).toString();
+
+        assertTrue( source.contains( "\"function_score\"" ) );
+        assertTrue( source.contains( "\"random_score\"" ) );
+        assertTrue( source.contains( "\"filtered\"" ) );
+        assertFalse( source.contains( "\"sort\"" ) );
+    }
 }
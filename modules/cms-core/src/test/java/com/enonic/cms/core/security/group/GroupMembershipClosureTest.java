@@ -0,0 +1,69 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.security.group;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GroupMembershipClosureTest
+{
+    @Test
+    public void testIndirectMemberships()
+    {
+        GroupEntity oslo = createGroup( "0", "Oslo" );
+        GroupEntity norway = createGroup( "1", "Norway" );
+        GroupEntity europe = createGroup( "2", "Europe" );
+        GroupEntity world = createGroup( "3", "World" );
+
+        oslo.addMembership( norway );
+        norway.addMembership( europe );
+        europe.addMembership( world );
+        world.addMembership( norway );
+
+        GroupMembershipClosure closure = GroupMembershipClosure.create( oslo );
+        assertEquals( 3, closure.size() );
+        assertTrue( closure.contains( norway.getGroupKey() ) );
+        assertTrue( closure.contains( europe.getGroupKey() ) );
+        assertTrue( closure.contains( world.getGroupKey() ) );
+        assertFalse( closure.contains( oslo.getGroupKey() ) );
+    }
+
+    @Test
+    public void testDeletedGroupsNotFollowed()
+    {
+        GroupEntity oslo = createGroup( "0", "Oslo" );
+        GroupEntity norway = createGroup( "1", "Norway" );
+        GroupEntity europe = createGroup( "2", "Europe" );
+
+        oslo.addMembership( norway );
+        norway.addMembership( europe );
+        norway.setDeleted( true );
+
+        GroupMembershipClosure closure = GroupMembershipClosure.create( oslo );
+        assertEquals( 0, closure.size() );
+    }
+
+    @Test
+    public void testGenerationIncreasedOnMembershipChange()
+    {
+        GroupEntity oslo = createGroup( "0", "Oslo" );
+        GroupEntity norway = createGroup( "1", "Norway" );
+
+        GroupMembershipClosure closure = GroupMembershipClosure.create( oslo );
+        oslo.addMembership( norway );
+
+        assertTrue( GroupEntity.getMembershipGeneration() > closure.getGeneration() );
+    }
+
+    private GroupEntity createGroup( String key, String name )
+    {
+        GroupEntity group = new GroupEntity();
+        group.setKey( key );
+        group.setName( name );
+        group.setDeleted( 0 );
+        return group;
+    }
+}
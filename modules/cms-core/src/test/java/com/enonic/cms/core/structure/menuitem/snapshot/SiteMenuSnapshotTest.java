@@ -0,0 +1,252 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.structure.menuitem.snapshot;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableSet;
+
+import com.enonic.cms.core.CaseInsensitiveString;
+import com.enonic.cms.core.security.group.GroupKey;
+import com.enonic.cms.core.structure.AbstractSiteXmlCreatorTest;
+import com.enonic.cms.core.structure.SiteEntity;
+import com.enonic.cms.core.structure.SiteProperties;
+import com.enonic.cms.core.structure.SiteXmlCreator;
+import com.enonic.cms.core.structure.menuitem.MenuItemAccessEntity;
+import com.enonic.cms.core.structure.menuitem.MenuItemAccessKey;
+import com.enonic.cms.core.structure.menuitem.MenuItemEntity;
+
+public class SiteMenuSnapshotTest
+    extends AbstractSiteXmlCreatorTest
+{
+    private SiteEntity site;
+
+    private MenuItemEntity mi_1;
+
+    private MenuItemEntity mi_1_1;
+
+    private MenuItemEntity mi_1_2;
+
+    private MenuItemEntity mi_1_2_1;
+
+    private MenuItemEntity mi_1_2_2;
+
+    private MenuItemEntity mi_1_2_2_1;
+
+    private MenuItemEntity mi_2;
+
+    private MenuItemEntity mi_2_1;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        site = new SiteEntity();
+        site.setKey( 1 );
+        site.setLanguage( createLanguage( "1", "no", "Norwegian" ) );
+
+        mi_1 = createMenuItem( "1", "mi 1", null, site );
+        mi_1_1 = createMenuItem( "11", "mi 1.1", mi_1, site );
+        mi_1_2 = createMenuItem( "12", "mi 1.2", mi_1, site, true );
+        mi_1_2_1 = createMenuItem( "121", "mi 1.2.1", mi_1_2, site );
+        mi_1_2_2 = createMenuItem( "122", "mi 1.2.2", mi_1_2, site );
+        mi_1_2_2_1 = createMenuItem( "1221", "mi 1.2.2.1", mi_1_2_2, site );
+        mi_2 = createMenuItem( "2", "mi 2", null, site );
+        mi_2.setHidden( true );
+        mi_2_1 = createMenuItem( "21", "mi 2.1", mi_2, site );
+
+        Map<CaseInsensitiveString, MenuItemEntity> topMenuItems = new LinkedHashMap<CaseInsensitiveString, MenuItemEntity>();
+        topMenuItems.put( new CaseInsensitiveString( mi_1.getName() ), mi_1 );
+        topMenuItems.put( new CaseInsensitiveString( mi_2.getName() ), mi_2 );
+        site.setTopMenuItems( topMenuItems );
+    }
+
+    public void testGetMenuSameAsFromEntities()
+    {
+        final SiteMenuSnapshotXmlCreator snapshotXmlCreator = createSnapshotXmlCreator( SiteMenuSnapshot.create( site, 0, null, null ) );
+
+        for ( int levels = 0; levels <= 3; levels++ )
+        {
+            for ( final boolean includeHidden : new boolean[]{false, true} )
+            {
+                final SiteXmlCreator expected = createSiteXmlCreator( null );
+                expected.setActiveMenuItem( mi_1_2_1 );
+                expected.setMenuItemLevels( levels );
+                expected.setIncludeHiddenMenuItems( includeHidden );
+
+                final SiteXmlCreator actual = createSiteXmlCreator( snapshotXmlCreator );
+                actual.setActiveMenuItem( mi_1_2_1 );
+                actual.setMenuItemLevels( levels );
+                actual.setIncludeHiddenMenuItems( includeHidden );
+
+                final SiteProperties siteProperties = new SiteProperties( site.getKey(), null );
+                assertEquals( "levels " + levels, getFormattedXmlString( expected.createLegacyGetMenu( site, siteProperties ) ),
+                              getFormattedXmlString( actual.createLegacyGetMenu( site, siteProperties ) ) );
+            }
+        }
+    }
+
+    public void testGetMenuBranchSameAsFromEntities()
+    {
+        final SiteMenuSnapshotXmlCreator snapshotXmlCreator = createSnapshotXmlCreator( SiteMenuSnapshot.create( site, 0, null, null ) );
+
+        for ( final MenuItemEntity menuItemInBranch : new MenuItemEntity[]{mi_1, mi_1_1, mi_1_2_2, mi_1_2_2_1, mi_2_1} )
+        {
+            for ( int startLevel = 0; startLevel <= 4; startLevel++ )
+            {
+                for ( int levels = 0; levels <= 2; levels++ )
+                {
+                    for ( final boolean topLevel : new boolean[]{false, true} )
+                    {
+                        final SiteXmlCreator expected = createSiteXmlCreator( null );
+                        setBranchSettings( expected, menuItemInBranch, startLevel, levels, topLevel );
+
+                        final SiteXmlCreator actual = createSiteXmlCreator( snapshotXmlCreator );
+                        setBranchSettings( actual, menuItemInBranch, startLevel, levels, topLevel );
+
+                        assertEquals( menuItemInBranch.getName() + ", start level " + startLevel + ", levels " + levels,
+                                      getFormattedXmlString( expected.createLegacyGetMenuBranch( site ) ),
+                                      getFormattedXmlString( actual.createLegacyGetMenuBranch( site ) ) );
+                    }
+                }
+            }
+        }
+    }
+
+    public void testGetSubMenuSameAsFromEntities()
+    {
+        final SiteMenuSnapshotXmlCreator snapshotXmlCreator = createSnapshotXmlCreator( SiteMenuSnapshot.create( site, 0, null, null ) );
+
+        for ( final MenuItemEntity menuItemInBranch : new MenuItemEntity[]{mi_1, mi_1_2, mi_1_2_2_1, mi_2} )
+        {
+            for ( int levels = 0; levels <= 2; levels++ )
+            {
+                final SiteXmlCreator expected = createSiteXmlCreator( null );
+                expected.setMenuItemInBranch( menuItemInBranch );
+                expected.setActiveMenuItem( mi_1_2_2 );
+                expected.setMenuItemLevels( levels );
+
+                final SiteXmlCreator actual = createSiteXmlCreator( snapshotXmlCreator );
+                actual.setMenuItemInBranch( menuItemInBranch );
+                actual.setActiveMenuItem( mi_1_2_2 );
+                actual.setMenuItemLevels( levels );
+
+                assertEquals( menuItemInBranch.getName() + ", levels " + levels,
+                              getFormattedXmlString( expected.createLegacyGetSubMenu( site ) ),
+                              getFormattedXmlString( actual.createLegacyGetSubMenu( site ) ) );
+            }
+        }
+    }
+
+    public void testReadableByGroups()
+    {
+        final GroupKey readers = new GroupKey( "ABC" );
+        addReadAccess( mi_1, readers );
+        addReadAccess( mi_1_2, readers );
+        addReadAccess( mi_2, new GroupKey( "DEF" ) );
+
+        final SiteMenuSnapshot snapshot = SiteMenuSnapshot.create( site, 0, null, null );
+        assertSame( snapshot.getReadable( "ABC", ImmutableSet.of( readers ) ), snapshot.getReadable( "ABC", ImmutableSet.of( readers ) ) );
+
+        final SiteMenuSnapshotXmlCreator snapshotXmlCreator =
+            new SiteMenuSnapshotXmlCreator( snapshot, snapshot.getReadable( "ABC", ImmutableSet.of( readers ) ), "ABC" );
+        final SiteXmlCreator siteXmlCreator = createSiteXmlCreator( snapshotXmlCreator );
+        siteXmlCreator.setIncludeHiddenMenuItems( true );
+
+        final String xml = getFormattedXmlString( siteXmlCreator.createLegacyGetMenu( site, new SiteProperties( site.getKey(), null ) ) );
+        assertTrue( xml.contains( "<name>mi 1</name>" ) );
+        assertTrue( xml.contains( "<name>mi 1.2</name>" ) );
+        assertFalse( xml.contains( "<name>mi 1.1</name>" ) );
+        assertFalse( xml.contains( "<name>mi 2</name>" ) );
+    }
+
+    public void testGroupSetKeyHasAclGroupsOnly()
+    {
+        final GroupKey readers = new GroupKey( "ABC" );
+        final GroupKey writers = new GroupKey( "DEF" );
+        addReadAccess( mi_1, readers );
+        addReadAccess( mi_2, writers );
+
+        final SiteMenuSnapshot snapshot = SiteMenuSnapshot.create( site, 0, null, null );
+        assertEquals( "ABC", snapshot.createGroupSetKey( ImmutableSet.of( readers, new GroupKey( "USER1" ) ) ) );
+        assertEquals( "ABC", snapshot.createGroupSetKey( ImmutableSet.of( new GroupKey( "USER2" ), readers ) ) );
+        assertEquals( "ABC,DEF", snapshot.createGroupSetKey( ImmutableSet.of( writers, readers ) ) );
+        assertEquals( "", snapshot.createGroupSetKey( ImmutableSet.of( new GroupKey( "USER1" ) ) ) );
+    }
+
+    public void testUnchangedMenuItemElementsReused()
+    {
+        final SiteMenuSnapshot previous = SiteMenuSnapshot.create( site, 0, null, null );
+
+        mi_1.setName( "renamed 1" );
+        mi_1_1.setName( "renamed 1.1" );
+        mi_1_1.setTimestamp( new Date( MENUITEM_DEFAULT_TIMESTAMP.getTime() + 60000 ) );
+        mi_2.setName( "renamed 2" );
+
+        final SiteMenuSnapshot snapshot =
+            SiteMenuSnapshot.create( site, 1, previous, new MenuChanges( false, Collections.singleton( 2 ) ) );
+
+        assertEquals( "mi 1", snapshot.createMenuItemElement( snapshot.indexOf( 1 ) ).getChildText( "name" ) );
+        assertEquals( "renamed 1.1", snapshot.createMenuItemElement( snapshot.indexOf( 11 ) ).getChildText( "name" ) );
+        assertEquals( "renamed 2", snapshot.createMenuItemElement( snapshot.indexOf( 2 ) ).getChildText( "name" ) );
+
+        final SiteMenuSnapshot rebuilt = SiteMenuSnapshot.create( site, 2, snapshot, MenuChanges.ALL );
+        assertEquals( "renamed 1", rebuilt.createMenuItemElement( rebuilt.indexOf( 1 ) ).getChildText( "name" ) );
+    }
+
+    public void testMenuChangeTracker()
+    {
+        final MenuChangeTracker tracker = new MenuChangeTracker();
+        tracker.tableChanged( "tcontent", 42, false );
+        assertEquals( 0, tracker.getVersion() );
+
+        tracker.tableChanged( "tmenuitem", 11, false );
+        tracker.tableChanged( "tmenuitemar", null, false );
+        assertEquals( 2, tracker.getVersion() );
+
+        final MenuChanges changes = tracker.getChangesSince( 0 );
+        assertFalse( changes.isAll() );
+        assertTrue( changes.isChanged( 11 ) );
+        assertFalse( changes.isChanged( 12 ) );
+        assertFalse( tracker.getChangesSince( 1 ).isChanged( 11 ) );
+
+        tracker.tableChanged( "tmenuitem", null, false );
+        assertTrue( tracker.getChangesSince( 2 ).isAll() );
+    }
+
+    private SiteMenuSnapshotXmlCreator createSnapshotXmlCreator( final SiteMenuSnapshot snapshot )
+    {
+        return new SiteMenuSnapshotXmlCreator( snapshot, null, "*" );
+    }
+
+    private SiteXmlCreator createSiteXmlCreator( final SiteMenuSnapshotXmlCreator snapshotXmlCreator )
+    {
+        final SiteXmlCreator siteXmlCreator = new SiteXmlCreator( menuItemAccessResolver, null );
+        siteXmlCreator.setMenuSnapshotXmlCreator( snapshotXmlCreator );
+        return siteXmlCreator;
+    }
+
+    private void setBranchSettings( final SiteXmlCreator siteXmlCreator, final MenuItemEntity menuItemInBranch, final int startLevel,
+                                    final int levels, final boolean topLevel )
+    {
+        siteXmlCreator.setMenuItemInBranch( menuItemInBranch );
+        siteXmlCreator.setActiveMenuItem( menuItemInBranch );
+        siteXmlCreator.setBranchStartLevel( startLevel );
+        siteXmlCreator.setMenuItemLevels( levels );
+        siteXmlCreator.setIncludeTopLevel( topLevel );
+    }
+
+    private void addReadAccess( final MenuItemEntity menuItem, final GroupKey groupKey )
+    {
+        final MenuItemAccessEntity access = new MenuItemAccessEntity();
+        access.setKey( new MenuItemAccessKey( menuItem.getKey(), groupKey ) );
+        access.setReadAccess( true );
+        menuItem.addAccess( access );
+    }
+}
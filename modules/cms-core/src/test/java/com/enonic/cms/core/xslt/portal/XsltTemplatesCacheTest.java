@@ -0,0 +1,140 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.core.xslt.portal;
+
+import java.util.Arrays;
+
+import javax.xml.transform.Templates;
+
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.enonic.cms.framework.cache.CacheFacade;
+import com.enonic.cms.framework.cache.standard.StandardCacheManager;
+
+import com.enonic.cms.core.cluster.NopClusterEventPublisher;
+import com.enonic.cms.core.config.ConfigProperties;
+import com.enonic.cms.core.resource.FileResource;
+import com.enonic.cms.core.resource.FileResourceName;
+import com.enonic.cms.core.resource.FileResourceService;
+import com.enonic.cms.core.resource.FileResourceWatcherService;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class XsltTemplatesCacheTest
+{
+    private final static FileResourceName PAGE = new FileResourceName( "/page.xsl" );
+
+    private final static FileResourceName PORTLET = new FileResourceName( "/portlet.xsl" );
+
+    private final static FileResourceName UTILS = new FileResourceName( "/lib/utils.xsl" );
+
+    private final static FileResourceName MENU = new FileResourceName( "/lib/menu.xsl" );
+
+    private CacheFacade cacheFacade;
+
+    private FileResourceService resourceService;
+
+    private FileResourceWatcherService watcherService;
+
+    private XsltTemplatesCache cache;
+
+    @Before
+    public void setUp()
+    {
+        final StandardCacheManager cacheManager = new StandardCacheManager();
+        cacheManager.setProperties( new ConfigProperties() );
+        cacheManager.setClusterEventPublisher( new NopClusterEventPublisher() );
+        cacheManager.afterPropertiesSet();
+        this.cacheFacade = cacheManager.getXsltCache();
+
+        this.resourceService = mock( FileResourceService.class );
+
+        this.watcherService = new FileResourceWatcherService();
+        this.watcherService.setResourceService( this.resourceService );
+
+        this.cache = new XsltTemplatesCache( this.cacheFacade, this.resourceService, 0, this.watcherService );
+    }
+
+    @Test
+    public void testChangedIncludeEvictsDependents()
+    {
+        this.cache.put( createEntry( PAGE, UTILS, MENU ) );
+        this.cache.put( createEntry( PORTLET, UTILS ) );
+
+        this.cache.resourceChanged( MENU );
+        assertNull( this.cache.get( PAGE ) );
+        assertNotNull( this.cache.get( PORTLET ) );
+
+        this.cache.resourceChanged( UTILS );
+        assertNull( this.cache.get( PORTLET ) );
+    }
+
+    @Test
+    public void testIndexShrinksWhenEntriesRemoved()
+    {
+        this.cache.put( createEntry( PAGE, UTILS, MENU ) );
+        this.cache.put( createEntry( PORTLET, UTILS ) );
+        assertEquals( 4, this.cache.getIndexedCount() );
+        assertEquals( 4, this.watcherService.getWatchedCount() );
+
+        this.cache.resourceChanged( MENU );
+        assertEquals( 2, this.cache.getIndexedCount() );
+        assertEquals( 2, this.watcherService.getWatchedCount() );
+
+        // evicted by the cache itself, and forgotten when missed
+        this.cacheFacade.removeAll();
+        assertNull( this.cache.get( PORTLET ) );
+        assertEquals( 0, this.cache.getIndexedCount() );
+        assertEquals( 0, this.watcherService.getWatchedCount() );
+    }
+
+    @Test
+    public void testChangedWhileCompilingEvicted()
+    {
+        final FileResource resource = new FileResource( UTILS );
+        resource.setLastModified( new DateTime( 2000 ) );
+        when( this.resourceService.getResource( UTILS ) ).thenReturn( resource );
+
+        final XsltTemplatesCacheEntry entry = new XsltTemplatesCacheEntry( PAGE, mock( Templates.class ), 1000 );
+        entry.addIncludes( Arrays.asList( UTILS ) );
+        this.cache.put( entry );
+
+        assertNull( this.cache.get( PAGE ) );
+    }
+
+    @Test
+    public void testWatchedEntriesNotCheckedOnGet()
+    {
+        this.cache.put( createEntry( PAGE, UTILS ) );
+
+        assertNotNull( this.cache.get( PAGE ) );
+        assertNotNull( this.cache.get( PAGE ) );
+
+        // each resource is looked up once when it is watched, and not for every get
+        verify( this.resourceService, times( 2 ) ).getResource( any( FileResourceName.class ) );
+    }
+
+    @Test
+    public void testCheckedOnGetWhenNotWatching()
+    {
+        this.watcherService.setEnabled( false );
+
+        this.cache.put( createEntry( PAGE, UTILS ) );
+
+        // the resources are missing, so the entry is not valid
+        assertNull( this.cache.get( PAGE ) );
+    }
+
+    private XsltTemplatesCacheEntry createEntry( final FileResourceName name, final FileResourceName... includes )
+    {
+        final XsltTemplatesCacheEntry entry = new XsltTemplatesCacheEntry( name, mock( Templates.class ), System.currentTimeMillis() );
+        entry.addIncludes( Arrays.asList( includes ) );
+        return entry;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.framework.blob.text;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import com.enonic.cms.framework.blob.BlobKey;
+
+public class ExtractedTextStoreTest
+{
+    private final static BlobKey KEY = new BlobKey( "4a5e1e4baab89f3a32518a88c31bc87f618f76673e2cc77ab2127b7afdeda33b" );
+
+    private File tmpDir;
+
+    private ExtractedTextStore store;
+
+    @Before
+    public void setUp()
+    {
+        this.tmpDir = Files.createTempDir();
+        this.store = new ExtractedTextStore();
+        this.store.setDirectory( this.tmpDir );
+        this.store.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown()
+        throws Exception
+    {
+        FileUtils.deleteDirectory( this.tmpDir );
+    }
+
+    @Test
+    public void testGetText()
+    {
+        Assert.assertNull( this.store.getText( KEY, "v1" ) );
+
+        this.store.putText( KEY, "v1", "Bl\u00e5b\u00e6rsyltet\u00f8y" );
+        Assert.assertEquals( "Bl\u00e5b\u00e6rsyltet\u00f8y", this.store.getText( KEY, "v1" ) );
+
+        this.store.putText( KEY, "v1", "" );
+        Assert.assertEquals( "", this.store.getText( KEY, "v1" ) );
+    }
+
+    @Test
+    public void testOtherExtractorVersion()
+    {
+        this.store.putText( KEY, "v1", "old text" );
+        Assert.assertNull( this.store.getText( KEY, "v2" ) );
+
+        this.store.putText( KEY, "v2", "new text" );
+        Assert.assertEquals( "new text", this.store.getText( KEY, "v2" ) );
+        Assert.assertNull( this.store.getText( KEY, "v1" ) );
+    }
+
+    @Test
+    public void testDeleteText()
+    {
+        Assert.assertFalse( this.store.deleteText( KEY ) );
+
+        this.store.putText( KEY, "v1", "text" );
+        Assert.assertTrue( this.store.deleteText( KEY ) );
+        Assert.assertNull( this.store.getText( KEY, "v1" ) );
+    }
+}
@@ -22,6 +22,8 @@ public class CacheManagerConfigTest
         final Properties props = new Properties();
         props.setProperty( "cms.cache.entity.memoryCapacity", "100" );
         props.setProperty( "cms.cache.entity.timeToLive", "0" );
+        props.setProperty( "cms.cache.page.memoryCapacity", "256m" );
+        props.setProperty( "cms.cache.page.softReferences", "false" );
 
         this.managerConfig = new CacheManagerConfig( props );
     }
@@ -44,6 +46,19 @@ public class CacheManagerConfigTest
         assertNotNull( config );
         assertEquals( 100, config.getMemoryCapacity() );
         assertEquals( 0, config.getTimeToLive() );
+        assertEquals( 0, config.getMemoryBudget() );
+        assertTrue( config.isSoftReferences() );
+    }
+
+    @Test
+    public void testMemoryBudgetConfig()
+    {
+        final CacheConfig config = this.managerConfig.getCacheConfig( "page" );
+
+        assertNotNull( config );
+        assertEquals( 0, config.getMemoryCapacity() );
+        assertEquals( 256L * 1024 * 1024, config.getMemoryBudget() );
+        assertFalse( config.isSoftReferences() );
     }
 
     @Test(expected = IllegalArgumentException.class)
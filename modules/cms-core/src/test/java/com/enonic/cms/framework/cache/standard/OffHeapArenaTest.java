@@ -0,0 +1,65 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.framework.cache.standard;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OffHeapArenaTest
+{
+    @Test
+    public void testBoundedByCapacity()
+    {
+        final OffHeapArena arena = new OffHeapArena( 4 * OffHeapArena.SLAB_SIZE );
+
+        final ByteBuffer[] first = arena.allocate( 3 * OffHeapArena.SLAB_SIZE );
+        assertEquals( 3, first.length );
+        assertNull( arena.allocate( 2 * OffHeapArena.SLAB_SIZE ) );
+        assertEquals( 3L * OffHeapArena.SLAB_SIZE, arena.getUsedBytes() );
+
+        arena.release( first );
+        assertEquals( 0, arena.getUsedBytes() );
+        assertNotNull( arena.allocate( 4 * OffHeapArena.SLAB_SIZE ) );
+    }
+
+    @Test
+    public void testReleasedValueGivesSlabsBack()
+    {
+        final OffHeapArena arena = new OffHeapArena( 4 * OffHeapArena.SLAB_SIZE );
+        final byte[] data = new byte[OffHeapArena.SLAB_SIZE + 10];
+        Arrays.fill( data, (byte) 7 );
+
+        final OffHeapValue value = OffHeapValue.create( arena, data );
+        assertTrue( Arrays.equals( data, (byte[]) value.getValue() ) );
+        assertEquals( "text", OffHeapValue.create( arena, "text" ).getValue() );
+
+        value.release();
+        assertNull( value.getValue() );
+        assertEquals( OffHeapArena.SLAB_SIZE, arena.getUsedBytes() );
+    }
+
+    @Test
+    public void testRemovedEntriesReleased()
+    {
+        final OffHeapArena arena = new OffHeapArena( 4 * OffHeapArena.SLAB_SIZE );
+        final StandardCache offHeap = new StandardCache( 0, 4 * OffHeapArena.SLAB_SIZE, false );
+        final StandardCacheFacade facade = new StandardCacheFacade( new StandardCache( 10 ), offHeap, arena );
+
+        facade.doPut( "a", new byte[10], 0 );
+        facade.doPut( "a", new byte[20], 0 );
+        facade.doPut( "b", new byte[10], 0 );
+        assertEquals( 2L * OffHeapArena.SLAB_SIZE, arena.getUsedBytes() );
+
+        facade.doRemove( "a" );
+        assertEquals( OffHeapArena.SLAB_SIZE, arena.getUsedBytes() );
+
+        facade.doRemoveAll();
+        assertEquals( 0, arena.getUsedBytes() );
+    }
+}
@@ -4,6 +4,8 @@
  */
 package com.enonic.cms.framework.cache.standard;
 
+import java.util.Arrays;
+
 import junit.framework.TestCase;
 
 import com.enonic.cms.framework.cache.CacheFacade;
@@ -23,6 +25,7 @@ public class StandardCacheBasicTest
         ConfigProperties props = new ConfigProperties();
         props.setProperty( "cms.cache.xslt.memoryCapacity", "10" );
         props.setProperty( "cms.cache.localization.memoryCapacity", "2" );
+        props.setProperty( "cms.cache.image.offHeapCapacity", "1m" );
 
         this.cacheManager = new StandardCacheManager();
         this.cacheManager.setProperties( props );
@@ -116,4 +119,24 @@ public class StandardCacheBasicTest
         assertNull( cache.get( null, "key2" ) );
     }
 
+    public void testOffHeap()
+    {
+        CacheFacade cache = this.cacheManager.getImageCache();
+
+        cache.put( "group", "key1", new byte[]{1, 2, 3} );
+        cache.put( "group", "key2", "value2" );
+
+        final Object value = cache.get( "group", "key1" );
+        assertTrue( value instanceof byte[] );
+        assertTrue( Arrays.equals( new byte[]{1, 2, 3}, (byte[]) value ) );
+        assertEquals( "value2", cache.get( "group", "key2" ) );
+        assertTrue( cache.getMemoryUsage() > 0 );
+
+        cache.get( "group", "key1" );
+        assertTrue( cache.get( "group", "key1" ) instanceof byte[] );
+
+        cache.removeGroup( "group" );
+        assertNull( cache.get( "group", "key1" ) );
+        assertNull( cache.get( "group", "key2" ) );
+    }
 }
@@ -148,6 +148,72 @@ public class StandardCacheTest
         assertEquals( 2, cache.numberOfEntries() );
     }
 
+    public void testRemoveGroupByPrefix()
+    {
+        cache = new StandardCache( 100 );
+        cache.put( createCacheEntry( "0-P-1:A", "1", Long.MAX_VALUE ) );
+        cache.put( createCacheEntry( "0-P-2:A", "2", Long.MAX_VALUE ) );
+        cache.put( createCacheEntry( "0-O-1:A", "3", Long.MAX_VALUE ) );
+        cache.put( createCacheEntry( "1-P-1:A", "4", Long.MAX_VALUE ) );
+        cache.put( createCacheEntry( "0-P-1", "5", Long.MAX_VALUE ) );
+        assertEquals( 5, cache.numberOfEntries() );
+
+        cache.removeGroupByPrefix( "0-P-" );
+
+        Set<String> set = cache.getKeys();
+        assertEquals( 2, set.size() );
+        assertTrue( set.contains( "0-O-1:A" ) );
+        assertTrue( set.contains( "1-P-1:A" ) );
+    }
+
+    public void testRemoveGroupAfterEviction()
+    {
+        cache = new StandardCache( 2 );
+        cache.put( createCacheEntry( "group1:A", "1", Long.MAX_VALUE ) );
+        cache.put( createCacheEntry( "group1:B", "2", Long.MAX_VALUE ) );
+        cache.put( createCacheEntry( "group2:A", "3", Long.MAX_VALUE ) );
+        assertEquals( 2, cache.numberOfEntries() );
+
+        cache.removeGroup( "group1" );
+        assertEquals( 1, cache.numberOfEntries() );
+
+        cache.put( createCacheEntry( "group1:A", "1", Long.MAX_VALUE ) );
+        assertNotNull( cache.get( "group1:A" ) );
+
+        cache.removeGroup( "group1" );
+        assertNull( cache.get( "group1:A" ) );
+        assertNotNull( cache.get( "group2:A" ) );
+    }
+
+    public void testEvictionWhenMemoryBudgetIsReached()
+    {
+        cache = new StandardCache( 0, 4096, false );
+        cache.put( createCacheEntry( "A", new byte[1000], Long.MAX_VALUE ) );
+        cache.put( createCacheEntry( "B", new byte[1000], Long.MAX_VALUE ) );
+        cache.put( createCacheEntry( "C", new byte[1000], Long.MAX_VALUE ) );
+        assertEquals( 3, cache.numberOfEntries() );
+        assertTrue( cache.getMemoryUsage() > 3000 );
+
+        cache.put( createCacheEntry( "D", new byte[2000], Long.MAX_VALUE ) );
+
+        assertTrue( cache.getMemoryUsage() <= 4096 );
+        assertNull( cache.get( "A" ) );
+        assertNotNull( cache.get( "D" ) );
+    }
+
+    public void testMemoryBudgetAboveIntegerRange()
+    {
+        final long memoryBudget = 3L * Integer.MAX_VALUE;
+
+        cache = new StandardCache( 0, memoryBudget, false );
+        cache.put( createCacheEntry( "A", new byte[1000], Long.MAX_VALUE ) );
+        cache.put( createCacheEntry( "B", new byte[1000], Long.MAX_VALUE ) );
+
+        assertEquals( memoryBudget, cache.getMemoryBudget() );
+        assertEquals( 2, cache.numberOfEntries() );
+        assertTrue( cache.getMemoryUsage() > 2000 );
+    }
+
     public void testTimeToLive()
     {
 
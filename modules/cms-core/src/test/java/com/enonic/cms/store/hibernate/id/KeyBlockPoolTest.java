@@ -0,0 +1,150 @@
+/*
+ * Copyright 2000-2013 Enonic AS
+ * http://www.enonic.com/license
+ */
+package com.enonic.cms.store.hibernate.id;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class KeyBlockPoolTest
+{
+    private KeyBlockPool pool;
+
+    private KeyTable keyTable;
+
+    @Before
+    public void setUp()
+    {
+        this.pool = new KeyBlockPool();
+        this.keyTable = new KeyTable();
+    }
+
+    @Test
+    public void testKeysHandedOutFromReservedBlock()
+    {
+        this.pool.setBlockSize( 10 );
+
+        for ( int i = 1; i <= 25; i++ )
+        {
+            assertEquals( i, this.pool.nextKey( "tContent", this.keyTable ) );
+        }
+
+        assertEquals( 3, this.keyTable.reservations );
+        assertEquals( 30, this.keyTable.lastKey( "tcontent" ) );
+    }
+
+    @Test
+    public void testBlockPerTable()
+    {
+        this.pool.setBlockSize( 5 );
+
+        assertEquals( 1, this.pool.nextKey( "tContent", this.keyTable ) );
+        assertEquals( 1, this.pool.nextKey( "tCategory", this.keyTable ) );
+        assertEquals( 2, this.pool.nextKey( "TCONTENT", this.keyTable ) );
+        assertEquals( 2, this.keyTable.reservations );
+    }
+
+    @Test
+    public void testBlocksReservedByOtherNodesSkipped()
+    {
+        this.pool.setBlockSize( 3 );
+
+        assertEquals( 1, this.pool.nextKey( "tcontent", this.keyTable ) );
+
+        // another node reserves keys 4 to 13
+        this.keyTable.reserve( "tcontent", 10 );
+
+        assertEquals( 2, this.pool.nextKey( "tcontent", this.keyTable ) );
+        assertEquals( 3, this.pool.nextKey( "tcontent", this.keyTable ) );
+        assertEquals( 14, this.pool.nextKey( "tcontent", this.keyTable ) );
+    }
+
+    @Test
+    public void testBlockSizeOfOneReservesEveryKey()
+    {
+        this.pool.setBlockSize( 0 );
+        assertEquals( 1, this.pool.getBlockSize() );
+
+        assertEquals( 1, this.pool.nextKey( "tcontent", this.keyTable ) );
+        assertEquals( 2, this.pool.nextKey( "tcontent", this.keyTable ) );
+        assertEquals( 2, this.keyTable.reservations );
+    }
+
+    @Test
+    public void testReservingBlockDoesNotBlockOtherTables()
+        throws Exception
+    {
+        final CountDownLatch reserving = new CountDownLatch( 1 );
+        final CountDownLatch release = new CountDownLatch( 1 );
+
+        final Thread contentThread = new Thread()
+        {
+            public void run()
+            {
+                pool.nextKey( "tcontent", new KeyBlockPool.Reserver()
+                {
+                    public int reserve( final String tableName, final int count )
+                    {
+                        reserving.countDown();
+                        awaitUninterruptibly( release );
+                        return count;
+                    }
+                } );
+            }
+        };
+        contentThread.start();
+
+        try
+        {
+            assertTrue( reserving.await( 5, TimeUnit.SECONDS ) );
+            assertEquals( 1, this.pool.nextKey( "tcategory", this.keyTable ) );
+        }
+        finally
+        {
+            release.countDown();
+            contentThread.join();
+        }
+    }
+
+    private static void awaitUninterruptibly( final CountDownLatch latch )
+    {
+        try
+        {
+            latch.await();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final static class KeyTable
+        implements KeyBlockPool.Reserver
+    {
+        private final Map<String, Integer> lastKeys = new HashMap<String, Integer>();
+
+        private int reservations;
+
+        public int reserve( final String tableName, final int count )
+        {
+            this.reservations++;
+            final int lastKey = lastKey( tableName ) + count;
+            this.lastKeys.put( tableName, lastKey );
+            return lastKey;
+        }
+
+        private int lastKey( final String tableName )
+        {
+            final Integer lastKey = this.lastKeys.get( tableName );
+            return lastKey != null ? lastKey : 0;
+        }
+    }
+}
@@ -135,6 +135,27 @@ public class PortalResponseProcessor_headTest
         assertEquals( HttpServletResponse.SC_OK, httpServletResponse.getStatus() );
     }
 
+    @Test
+    public void testServeResponse_HEAD_gzip_not_compressed()
+        throws Exception
+    {
+        httpServletRequest.setMethod( "HEAD" );
+        httpServletRequest.addHeader( "Accept-Encoding", "gzip" );
+        portalResponseProcessor.setGzipEnabled( true );
+
+        // exercise
+        portalResponseProcessor.serveResponse();
+
+        // verify that the page is not gzipped only to tell its length
+        assertEquals( "gzip", httpServletResponse.getHeader( "Content-Encoding" ) );
+        assertEquals( 0, httpServletResponse.getContentLength() );
+        assertEquals( 0, httpServletResponse.getContentAsByteArray().length );
+
+        assertEquals( ETAG_VALUE + "-gzip", httpServletResponse.getHeader( ETAG_HEADER_NAME ) );
+
+        assertEquals( HttpServletResponse.SC_OK, httpServletResponse.getStatus() );
+    }
+
     @Test
     public void testServeResponse_check_not_modified_HEAD()
         throws Exception
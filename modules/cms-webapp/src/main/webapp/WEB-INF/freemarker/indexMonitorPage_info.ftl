@@ -48,6 +48,38 @@
         </table>
     </fieldset>
     <br/>
+    <#if extractionEnabled>
+    <fieldset>
+        <legend>Attachment text extraction</legend>
+        <table>
+            <tr>
+                <td>
+                    Queued / in progress:
+                </td>
+                <td>${extractionQueueSize} / ${extractionActiveCount}</td>
+            </tr>
+            <tr>
+                <td>
+                    Extracted / failed / timed out:
+                </td>
+                <td>${extractionExtractedCount} / ${extractionFailedCount} / ${extractionTimedOutCount}</td>
+            </tr>
+            <tr>
+                <td>
+                    Extraction time (average / max):
+                </td>
+                <td>${extractionAverageTime} ms / ${extractionMaxTime} ms</td>
+            </tr>
+            <tr>
+                <td>
+                    Time in queue (average):
+                </td>
+                <td>${extractionAverageQueueTime} ms</td>
+            </tr>
+        </table>
+    </fieldset>
+    <br/>
+    </#if>
     <fieldset>
         <legend>Index health</legend>
         <table>
@@ -20,6 +20,7 @@
     <script type="text/javascript" src="liveportaltrace/ctrl/PortalRequestTraceDetailController.js"></script>
     <script type="text/javascript" src="liveportaltrace/ctrl/CompletedPortalRequestsTableController.js"></script>
     <script type="text/javascript" src="liveportaltrace/ctrl/ReloadableTableController.js"></script>
+    <script type="text/javascript" src="liveportaltrace/ctrl/LatencyTableController.js"></script>
     <script type="text/javascript" src="liveportaltrace/ctrl/SystemInfoController.js"></script>
     <script type="text/javascript" src="liveportaltrace/ctrl/AutomaticUpdateController.js"></script>
     <script type="text/javascript" src="liveportaltrace/ctrl/JavaMemoryGraphController.js"></script>
@@ -321,6 +322,34 @@
         </div>
     </div>
 
+    <!-- Latency percentiles -->
+    <div class="tab-page" id="tab-page-6">
+        <span class="tab">Latencies</span>
+        <script type="text/javascript" language="JavaScript">
+            tabPane1.addTabPage(document.getElementById("tab-page-6"));
+        </script>
+        <button class="button_text" id="reloadLatencies" onclick="latencyTableController.reload()">Refresh</button>
+        <button id="clearLatencies" onclick="latencyTableController.clear()">Clear</button>
+
+        <div class="listBox" style="height: 500px" id="window-latencies">
+            <table id="latencies-table" class="trace-table" cellspacing="0">
+                <thead>
+                <tr>
+                    <th style="width: 30%">Type</th>
+                    <th style="width: 10%; text-align: right">Count</th>
+                    <th style="width: 12%; text-align: right">Mean</th>
+                    <th style="width: 12%; text-align: right">p50</th>
+                    <th style="width: 12%; text-align: right">p95</th>
+                    <th style="width: 12%; text-align: right">p99</th>
+                    <th style="width: 12%; text-align: right">Max</th>
+                </tr>
+                </thead>
+                <tbody>
+                </tbody>
+            </table>
+        </div>
+    </div>
+
 </div>
 
 
@@ -402,7 +431,12 @@
     longestImageRequestsController.setPortalRequestTraceRowView(portalRequestTraceRowView);
     longestImageRequestsController.init();
 
+    var latencyTableController = new lpt.LatencyTableController("latencies-table", 5000);
+    latencyTableController.setReloadUrl(lpt.resolveURLAndAddParams("window=latencies"));
+    latencyTableController.setClearUrl(lpt.resolveURLAndAddParams("command=clear-latencies"));
+
     currentPageRequestsController.reload();
+    latencyTableController.reload();
     longestPageRequestsController.reload();
     longestAttachmentRequestsController.reload();
     longestImageRequestsController.reload();
@@ -428,6 +462,7 @@
     automaticUpdateController.setLongestPageRequestsController(longestPageRequestsController);
     automaticUpdateController.setLongestAttachmentRequestsController(longestAttachmentRequestsController);
     automaticUpdateController.setLongestImageRequestsController(longestImageRequestsController);
+    automaticUpdateController.setLatencyTableController(latencyTableController);
     automaticUpdateController.setSystemInfoController(systemInfoController);
     automaticUpdateController.startAutomaticUpdate();
 
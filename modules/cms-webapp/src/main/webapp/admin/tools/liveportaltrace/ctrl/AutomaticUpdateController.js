@@ -15,6 +15,8 @@ lpt.AutomaticUpdateController = function () {
 
     var longestImageRequestsController;
 
+    var latencyTableController;
+
     var systemInfoController;
 
     this.setCompletedPortalRequestsTableController = function (controller) {
@@ -37,6 +39,10 @@ lpt.AutomaticUpdateController = function () {
         longestImageRequestsController = controller;
     };
 
+    this.setLatencyTableController = function (controller) {
+        latencyTableController = controller;
+    };
+
     this.setSystemInfoController = function (controller) {
         systemInfoController = controller;
     };
@@ -60,6 +66,7 @@ lpt.AutomaticUpdateController = function () {
         longestPageRequestsController.stopAutomaticReload();
         longestAttachmentRequestsController.stopAutomaticReload();
         longestImageRequestsController.stopAutomaticReload();
+        latencyTableController.stopAutomaticReload();
         completedPortalRequestsTableController.stopAutomaticRefresh();
         systemInfoController.stopAutomaticUpdate();
 
@@ -77,6 +84,7 @@ lpt.AutomaticUpdateController = function () {
         longestPageRequestsController.startAutomaticReload();
         longestAttachmentRequestsController.startAutomaticReload();
         longestImageRequestsController.startAutomaticReload();
+        latencyTableController.startAutomaticReload();
         completedPortalRequestsTableController.startAutomaticRefresh();
         systemInfoController.startAutomaticUpdate();
 
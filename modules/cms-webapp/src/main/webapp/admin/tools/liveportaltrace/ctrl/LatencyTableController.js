@@ -0,0 +1,85 @@
+if (!lpt) {
+    var lpt = {};
+}
+
+lpt.LatencyTableController = function (tableId, automaticReloadTimeInMillis) {
+    var thisCtrl = this;
+    var reloadUrl;
+    var clearUrl;
+    var taskInProgress = {
+        reload: false
+    };
+
+    var reloadIntervalId;
+
+    var table = document.getElementById(tableId);
+
+    this.setReloadUrl = function (url) {
+        reloadUrl = url;
+    };
+
+    this.setClearUrl = function (url) {
+        clearUrl = url;
+    };
+
+    this.reload = function () {
+        if (!taskInProgress.reload) {
+            taskInProgress.reload = true;
+            $.getJSON(reloadUrl, function (summaries) {
+                reloadSummaries(summaries);
+                taskInProgress.reload = false;
+            });
+        }
+    };
+
+    this.startAutomaticReload = function () {
+        (function loop() {
+            reloadIntervalId = setTimeout(function () {
+                thisCtrl.reload();
+                loop();
+            }, automaticReloadTimeInMillis);
+        })();
+    };
+
+    this.stopAutomaticReload = function () {
+        clearInterval(reloadIntervalId);
+    };
+
+    this.clear = function () {
+        jQuery.ajax({
+            url: clearUrl,
+            type: 'POST',
+            cache: false,
+            async: true,
+            dataType: 'json',
+            success: thisCtrl.reload
+        });
+    };
+
+    function reloadSummaries(summaries) {
+        var newTableBody = document.createElement('tbody');
+
+        for (var i = 0; i < summaries.length; i++) {
+            var summary = summaries[i];
+            var tableTR = document.createElement('tr');
+            tableTR.appendChild(createTD(summary.name, 'left'));
+            tableTR.appendChild(createTD(summary.count, 'right'));
+            tableTR.appendChild(createTD(summary.mean + " ms", 'right'));
+            tableTR.appendChild(createTD(summary.p50 + " ms", 'right'));
+            tableTR.appendChild(createTD(summary.p95 + " ms", 'right'));
+            tableTR.appendChild(createTD(summary.p99 + " ms", 'right'));
+            tableTR.appendChild(createTD(summary.max + " ms", 'right'));
+            newTableBody.appendChild(tableTR);
+        }
+
+        var oldTableBody = table.getElementsByTagName("tbody")[0];
+        table.replaceChild(newTableBody, oldTableBody);
+    }
+
+    function createTD(text, align) {
+        var tableTD = document.createElement('td');
+        tableTD.style.textAlign = align;
+        tableTD.appendChild(document.createTextNode(text));
+        return tableTD;
+    }
+};